@@ -0,0 +1,145 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.account;
+
+import android.accounts.Account;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class AccountAuthTokenProviderTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "AccountAuthTokenProviderTest";
+
+	private static final String ACCOUNT_TYPE = "universum.studios.android.officium.account.test";
+	private static final String AUTH_TOKEN_TYPE = "access";
+
+	private TestManager mManager;
+	private Account mAccount;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mManager = new TestManager(mContext);
+		this.mAccount = new Account("user", ACCOUNT_TYPE);
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+	}
+
+	@Test
+	public void testPeekTokenLoadsTokenOnlyOnce() {
+		final AccountAuthTokenProvider provider = new AccountAuthTokenProvider(mManager, mAccount, AUTH_TOKEN_TYPE);
+		mManager.token = "token";
+		for (int i = 0; i < 1000; i++) {
+			assertThat(provider.peekToken(), is("token"));
+		}
+		assertThat(mManager.peekCount, is(1));
+	}
+
+	@Test
+	public void testPeekTokenCachesMissingToken() {
+		final AccountAuthTokenProvider provider = new AccountAuthTokenProvider(mManager, mAccount, AUTH_TOKEN_TYPE);
+		assertThat(provider.peekToken(), is(nullValue()));
+		assertThat(provider.peekToken(), is(nullValue()));
+		assertThat(mManager.peekCount, is(1));
+	}
+
+	@Test
+	public void testInvalidate() {
+		final AccountAuthTokenProvider provider = new AccountAuthTokenProvider(mManager, mAccount, AUTH_TOKEN_TYPE);
+		mManager.token = "token";
+		assertThat(provider.peekToken(), is("token"));
+		mManager.token = "refreshed";
+		assertThat(provider.peekToken(), is("token"));
+		provider.invalidate();
+		assertThat(provider.peekToken(), is("refreshed"));
+		assertThat(mManager.peekCount, is(2));
+	}
+
+	@Test
+	public void testTokenChangeViaManagerInvalidatesProvider() {
+		final AccountAuthTokenProvider provider = new AccountAuthTokenProvider(mManager, mAccount, AUTH_TOKEN_TYPE);
+		mManager.token = "token";
+		assertThat(provider.peekToken(), is("token"));
+		mManager.token = "refreshed";
+		mManager.notifyAuthTokensChanged();
+		assertThat(provider.peekToken(), is("refreshed"));
+		assertThat(mManager.peekCount, is(2));
+	}
+
+	@Test
+	public void testExpiredTokenIsLoadedAgain() throws Exception {
+		final AccountAuthTokenProvider provider = new AccountAuthTokenProvider(mManager, mAccount, AUTH_TOKEN_TYPE);
+		provider.setTimeToLive(50, TimeUnit.MILLISECONDS);
+		assertThat(provider.getTimeToLive(), is(50L));
+		mManager.token = "token";
+		assertThat(provider.peekToken(), is("token"));
+		mManager.token = "refreshed";
+		assertThat(provider.peekToken(), is("token"));
+		Thread.sleep(100);
+		assertThat(provider.peekToken(), is("refreshed"));
+		assertThat(mManager.peekCount, is(2));
+	}
+
+	@Test
+	public void testResolveExpiryTimeWithoutExpiry() {
+		final AccountAuthTokenProvider provider = new AccountAuthTokenProvider(mManager, mAccount, AUTH_TOKEN_TYPE);
+		assertThat(provider.getTimeToLive(), is(AccountAuthTokenProvider.NO_EXPIRY));
+		assertThat(provider.onResolveExpiryTime("token", System.currentTimeMillis()), is(Long.MAX_VALUE));
+	}
+
+	private static final class TestManager extends UserAccountManager<UserAccount> {
+
+		volatile String token;
+		int peekCount;
+
+		TestManager(final Context context) {
+			super(context, ACCOUNT_TYPE);
+		}
+
+		@Nullable
+		@Override
+		public String peekAccountAuthToken(@NonNull final Account account, @NonNull final String authTokenType) {
+			this.peekCount++;
+			return token;
+		}
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.account;
+
+import android.accounts.Account;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A provider that caches in memory the authentication token of a single account, so the token may
+ * be peeked via {@link #peekToken()} for each outgoing request without a Binder call into the
+ * framework's {@link android.accounts.AccountManager AccountManager}.
+ * <p>
+ * The cached token is loaded via {@link UserAccountManager#peekAccountAuthToken(Account, String)}
+ * when it is peeked for the first time and it is then returned by a simple volatile read until it
+ * expires or until it is invalidated. The cache is invalidated automatically whenever an authentication
+ * token is changed via the associated {@link UserAccountManager}, that is via
+ * {@link UserAccountManager#setAccountAuthToken(Account, String, String)},
+ * {@link UserAccountManager#invalidateAccountAuthToken(Account, String)} or whenever an account is
+ * created or deleted via that manager. Tokens changed by other means need to be followed by
+ * {@link #invalidate()}.
+ * <p>
+ * When created for {@link SingleUserAccountManager} without explicit account, the provider also
+ * caches the current single account along with its token, so {@link SingleUserAccountManager#getAccount()}
+ * is not called per each peek either.
+ * <p>
+ * The {@link #peekToken()} method has the same signature as {@code AuthTokenProvider.peekToken()}
+ * from the <b>Service</b> module, so a subclass may directly implement that interface:
+ * <pre>
+ * final class AppTokenProvider extends AccountAuthTokenProvider implements AuthTokenProvider {
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * Peeking of the token requires the caller to hold the same permissions as
+ * {@link UserAccountManager#peekAccountAuthToken(Account, String)} (and also
+ * {@link UserAccountManager#PERMISSION_GET_ACCOUNTS} if the account is resolved via
+ * {@link SingleUserAccountManager}).
+ *
+ * @author Martin Albedinsky
+ */
+public class AccountAuthTokenProvider {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "AccountAuthTokenProvider";
+
+	/**
+	 * Time to live specifying that cached tokens do not expire and are only invalidated.
+	 */
+	public static final long NO_EXPIRY = -1;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Manager used to load the authentication token.
+	 */
+	private final UserAccountManager<?> mAccountManager;
+
+	/**
+	 * Account for which to provide its token. May be {@code null} if the account should be resolved
+	 * via {@link SingleUserAccountManager#getAccount()}.
+	 */
+	private final Account mAccount;
+
+	/**
+	 * Type of the provided authentication token.
+	 */
+	private final String mAuthTokenType;
+
+	/**
+	 * Lock used to synchronize loading of the token with its invalidation.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Time in milliseconds for which is a loaded token cached.
+	 */
+	private volatile long mTimeToLive = NO_EXPIRY;
+
+	/**
+	 * Currently cached entry. May be {@code null} if there is no token loaded yet or it has been
+	 * invalidated.
+	 */
+	private volatile Entry mEntry;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of AccountAuthTokenProvider for the specified <var>account</var>.
+	 *
+	 * @param accountManager The manager used to load the token and which invalidates the cached
+	 *                       token whenever a token is changed.
+	 * @param account        The account for which to provide its token.
+	 * @param authTokenType  Type of the authentication token to provide.
+	 */
+	public AccountAuthTokenProvider(
+			@NonNull final UserAccountManager<?> accountManager,
+			@NonNull final Account account,
+			@NonNull final String authTokenType
+	) {
+		this.mAccountManager = accountManager;
+		this.mAccount = account;
+		this.mAuthTokenType = authTokenType;
+		accountManager.registerAuthTokenProvider(this);
+	}
+
+	/**
+	 * Creates a new instance of AccountAuthTokenProvider for the current single account managed by
+	 * the specified <var>accountManager</var>.
+	 *
+	 * @param accountManager The manager used to resolve the account, to load its token and which
+	 *                       invalidates the cached token whenever a token is changed.
+	 * @param authTokenType  Type of the authentication token to provide.
+	 */
+	public AccountAuthTokenProvider(@NonNull final SingleUserAccountManager<?> accountManager, @NonNull final String authTokenType) {
+		this.mAccountManager = accountManager;
+		this.mAccount = null;
+		this.mAuthTokenType = authTokenType;
+		accountManager.registerAuthTokenProvider(this);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Specifies for how long should be a loaded token cached before it is loaded again.
+	 * <p>
+	 * Default value: <b>{@link #NO_EXPIRY}</b>
+	 *
+	 * @param duration The desired duration or {@link #NO_EXPIRY} if tokens should be cached until
+	 *                 they are invalidated.
+	 * @param unit     Time unit of the duration.
+	 * @see #onResolveExpiryTime(String, long)
+	 */
+	public void setTimeToLive(final long duration, @NonNull final TimeUnit unit) {
+		this.mTimeToLive = duration < 0 ? NO_EXPIRY : unit.toMillis(duration);
+		invalidate();
+	}
+
+	/**
+	 * Returns the time for which is a loaded token cached.
+	 *
+	 * @return Time to live in milliseconds or {@link #NO_EXPIRY}.
+	 * @see #setTimeToLive(long, TimeUnit)
+	 */
+	public long getTimeToLive() {
+		return mTimeToLive;
+	}
+
+	/**
+	 * Returns the authentication token provided by this provider.
+	 * <p>
+	 * Cached token is returned without any further calls as long as it is not expired nor
+	 * invalidated, otherwise it is loaded via the associated account manager first.
+	 *
+	 * @return Authentication token or {@code null} if there is no token available at this time.
+	 * @see #invalidate()
+	 */
+	@Nullable
+	public String peekToken() {
+		final long now = System.currentTimeMillis();
+		Entry entry = mEntry;
+		if (entry != null && !entry.isExpired(now)) {
+			return entry.token;
+		}
+		synchronized (mLock) {
+			entry = mEntry;
+			if (entry == null || entry.isExpired(now)) {
+				this.mEntry = entry = loadEntry(now);
+			}
+			return entry.token;
+		}
+	}
+
+	/**
+	 * Loads a new entry with the current authentication token via the associated account manager.
+	 *
+	 * @param now The current time in milliseconds.
+	 * @return The loaded entry.
+	 */
+	@SuppressWarnings("MissingPermission")
+	private Entry loadEntry(final long now) {
+		final Account account = mAccount == null ? ((SingleUserAccountManager<?>) mAccountManager).getAccount() : mAccount;
+		final String token = account == null ? null : mAccountManager.peekAccountAuthToken(account, mAuthTokenType);
+		return new Entry(token, onResolveExpiryTime(token, now));
+	}
+
+	/**
+	 * Invoked whenever a token is loaded to resolve time when the loaded token expires and should
+	 * be loaded again.
+	 * <p>
+	 * Default implementation resolves the expiry time according to the current time to live. This
+	 * may be overridden to use an expiry time carried by the token itself.
+	 *
+	 * @param token    The loaded token. May be {@code null} if there is no token available.
+	 * @param loadTime Time in milliseconds when has been the token loaded.
+	 * @return Expiry time in milliseconds or {@link Long#MAX_VALUE} if the token does not expire.
+	 * @see #setTimeToLive(long, TimeUnit)
+	 */
+	protected long onResolveExpiryTime(@Nullable final String token, final long loadTime) {
+		final long timeToLive = mTimeToLive;
+		return timeToLive == NO_EXPIRY || timeToLive > Long.MAX_VALUE - loadTime ? Long.MAX_VALUE : loadTime + timeToLive;
+	}
+
+	/**
+	 * Invalidates the cached token (if any), so it is loaded again when peeked next time.
+	 */
+	public void invalidate() {
+		synchronized (mLock) {
+			this.mEntry = null;
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Immutable cache entry holding a loaded token along with its expiry time.
+	 */
+	private static final class Entry {
+
+		/**
+		 * Loaded token. May be {@code null}.
+		 */
+		final String token;
+
+		/**
+		 * Time in milliseconds when the token expires.
+		 */
+		final long expiryTime;
+
+		/**
+		 * Creates a new instance of Entry with the given <var>token</var> and <var>expiryTime</var>.
+		 *
+		 * @param token      The loaded token.
+		 * @param expiryTime Time when the token expires.
+		 */
+		Entry(final String token, final long expiryTime) {
+			this.token = token;
+			this.expiryTime = expiryTime;
+		}
+
+		/**
+		 * Checks whether this entry is expired at the specified time.
+		 *
+		 * @param now The current time in milliseconds.
+		 * @return {@code True} if the entry is expired, {@code false} otherwise.
+		 */
+		boolean isExpired(final long now) {
+			return now >= expiryTime;
+		}
+	}
+}
@@ -38,9 +38,11 @@ import android.util.Log;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import universum.studios.android.crypto.Crypto;
 import universum.studios.android.crypto.Encrypto;
@@ -189,6 +191,16 @@ public abstract class UserAccountManager<A extends UserAccount> {
 	 */
 	private final List<AccountWatcher<A>> mWatchers = new ArrayList<>();
 
+	/**
+	 * Set of token providers that cache authentication tokens loaded via this manager and which need
+	 * to be invalidated whenever a token is changed. Providers are held weakly.
+	 *
+	 * @see #notifyAuthTokensChanged()
+	 */
+	private final Set<AccountAuthTokenProvider> mTokenProviders = Collections.newSetFromMap(
+			new WeakHashMap<AccountAuthTokenProvider, Boolean>()
+	);
+
 	/**
 	 * Encrypto implementation that is used to encrypt keys of accounts data managed by this manager.
 	 *
@@ -415,6 +427,7 @@ public abstract class UserAccountManager<A extends UserAccount> {
 				}
 			}
 		}
+		notifyAuthTokensChanged();
 		return true;
 	}
 
@@ -433,6 +446,7 @@ public abstract class UserAccountManager<A extends UserAccount> {
 	@RequiresPermission(PERMISSION_AUTHENTICATE_ACCOUNTS)
 	public void setAccountAuthToken(@NonNull final Account account, @NonNull final String authTokenType, @Nullable final String authToken) {
 		mManager.setAuthToken(account, authTokenType, authToken);
+		notifyAuthTokensChanged();
 	}
 
 	/**
@@ -469,6 +483,7 @@ public abstract class UserAccountManager<A extends UserAccount> {
 	 * @see #setAccountAuthToken(Account, String, String)
 	 * @see #invalidateAccountAuthToken(Account, String)
 	 * @see AccountManager#peekAuthToken(Account, String)
+	 * @see AccountAuthTokenProvider
 	 */
 	@Nullable
 	@RequiresPermission(PERMISSION_AUTHENTICATE_ACCOUNTS)
@@ -489,6 +504,7 @@ public abstract class UserAccountManager<A extends UserAccount> {
 	@RequiresPermission(PERMISSION_MANAGE_ACCOUNTS)
 	public void invalidateAccountAuthToken(@NonNull final Account account, @NonNull final String authToken) {
 		mManager.invalidateAuthToken(account.type, authToken);
+		notifyAuthTokensChanged();
 	}
 
 	/**
@@ -722,6 +738,7 @@ public abstract class UserAccountManager<A extends UserAccount> {
 					mManager.invalidateAuthToken(account.type, mManager.peekAuthToken(account, authTokenType));
 				}
 			}
+			notifyAuthTokensChanged();
 			return true;
 		}
 		return false;
@@ -753,6 +770,35 @@ public abstract class UserAccountManager<A extends UserAccount> {
 		return null;
 	}
 
+	/**
+	 * Registers the given token <var>provider</var> to be invalidated whenever an authentication
+	 * token is changed via this manager.
+	 *
+	 * @param provider The provider to register.
+	 * @see AccountAuthTokenProvider#invalidate()
+	 */
+	final void registerAuthTokenProvider(@NonNull final AccountAuthTokenProvider provider) {
+		synchronized (mTokenProviders) {
+			mTokenProviders.add(provider);
+		}
+	}
+
+	/**
+	 * Invalidates all registered {@link AccountAuthTokenProvider AccountAuthTokenProviders} (if any)
+	 * as some of the authentication tokens managed by this manager has been just changed.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	final void notifyAuthTokensChanged() {
+		final List<AccountAuthTokenProvider> providers;
+		synchronized (mTokenProviders) {
+			if (mTokenProviders.isEmpty()) return;
+			providers = new ArrayList<>(mTokenProviders);
+		}
+		for (final AccountAuthTokenProvider provider : providers) {
+			provider.invalidate();
+		}
+	}
+
 	/**
 	 * Notifies the current {@link AccountWatcher AccountWatchers} (if any) that the given
 	 * <var>userAccount</var> has been just created.
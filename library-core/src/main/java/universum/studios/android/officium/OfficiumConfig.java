@@ -43,6 +43,12 @@ public final class OfficiumConfig {
 	 */
 	public static boolean DEBUG_LOG_ENABLED = false;
 
+	/**
+	 * Flag indicating whether recycled service objects should check that they are not used after
+	 * they have been released back to their pool. Should be enabled only for debug builds.
+	 */
+	public static boolean DEBUG_RECYCLING_CHECKS_ENABLED = false;
+
 	/**
 	 */
 	private OfficiumConfig() {
@@ -0,0 +1,280 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.squareup.otto.Bus;
+import com.squareup.otto.Subscribe;
+import com.squareup.otto.ThreadEnforcer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class AsyncEventBusTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "AsyncEventBusTest";
+
+	private static final int EVENTS_COUNT = 10000;
+
+	@Test
+	public void testPostDoesNotBlockOnSlowHandler() throws Exception {
+		final AsyncEventBus bus = new AsyncEventBus.Builder().build();
+		final CountDownLatch handlerLatch = new CountDownLatch(1);
+		final CountDownLatch deliveredLatch = new CountDownLatch(1);
+		bus.register(new Object() {
+
+			@Subscribe
+			public void onEvent(final LowEvent event) throws InterruptedException {
+				handlerLatch.await(5, TimeUnit.SECONDS);
+				deliveredLatch.countDown();
+			}
+		});
+		final long start = System.currentTimeMillis();
+		bus.post(new LowEvent(0));
+		assertThat(System.currentTimeMillis() - start < 1000, is(true));
+		handlerLatch.countDown();
+		assertThat(deliveredLatch.await(5, TimeUnit.SECONDS), is(true));
+	}
+
+	@Test
+	public void testEventsAreDeliveredInPostOrder() throws Exception {
+		final AsyncEventBus bus = new AsyncEventBus.Builder().capacity(64).build();
+		final TestHandler handler = new TestHandler(EVENTS_COUNT);
+		bus.register(handler);
+		for (int i = 0; i < EVENTS_COUNT; i++) {
+			bus.post(new LowEvent(i));
+		}
+		assertThat(handler.latch.await(10, TimeUnit.SECONDS), is(true));
+		for (int i = 0; i < EVENTS_COUNT; i++) {
+			assertThat(handler.values.get(i), is("low:" + i));
+		}
+	}
+
+	@Test
+	public void testEventsWithHigherPriorityAreDeliveredFirst() {
+		final ManualExecutor executor = new ManualExecutor();
+		final AsyncEventBus bus = new AsyncEventBus.Builder()
+				.executor(executor)
+				.eventPriority(HighEvent.class, 10)
+				.build();
+		final TestHandler handler = new TestHandler(3);
+		bus.register(handler);
+		bus.post(new LowEvent(1));
+		bus.post(new LowEvent(2));
+		bus.post(new HighEvent(3));
+		executor.runAll();
+		assertThat(handler.values, is(list("high:3", "low:1", "low:2")));
+	}
+
+	@Test
+	public void testOverflowDropOldest() {
+		final ManualExecutor executor = new ManualExecutor();
+		final AsyncEventBus bus = new AsyncEventBus.Builder()
+				.executor(executor)
+				.capacity(2)
+				.overflowPolicy(AsyncEventBus.OVERFLOW_DROP_OLDEST)
+				.build();
+		final TestHandler handler = new TestHandler(2);
+		bus.register(handler);
+		bus.post(new LowEvent(1));
+		bus.post(new LowEvent(2));
+		bus.post(new LowEvent(3));
+		assertThat(bus.getPendingCount(), is(2));
+		executor.runAll();
+		assertThat(handler.values, is(list("low:2", "low:3")));
+		assertThat(bus.getDroppedCount(), is(1L));
+	}
+
+	@Test
+	public void testOverflowDropOldestDropsPostedEventWithLowerPriority() {
+		final ManualExecutor executor = new ManualExecutor();
+		final AsyncEventBus bus = new AsyncEventBus.Builder()
+				.executor(executor)
+				.capacity(1)
+				.overflowPolicy(AsyncEventBus.OVERFLOW_DROP_OLDEST)
+				.eventPriority(HighEvent.class, 10)
+				.build();
+		final TestHandler handler = new TestHandler(1);
+		bus.register(handler);
+		bus.post(new HighEvent(1));
+		bus.post(new LowEvent(2));
+		executor.runAll();
+		assertThat(handler.values, is(list("high:1")));
+		assertThat(bus.getDroppedCount(), is(1L));
+	}
+
+	@Test
+	public void testOverflowCoalesce() {
+		final ManualExecutor executor = new ManualExecutor();
+		final AsyncEventBus bus = new AsyncEventBus.Builder()
+				.executor(executor)
+				.capacity(2)
+				.overflowPolicy(AsyncEventBus.OVERFLOW_COALESCE)
+				.build();
+		final TestHandler handler = new TestHandler(2);
+		bus.register(handler);
+		bus.post(new LowEvent(1));
+		bus.post(new HighEvent(2));
+		bus.post(new LowEvent(3));
+		executor.runAll();
+		assertThat(handler.values, is(list("low:3", "high:2")));
+		assertThat(bus.getCoalescedCount(), is(1L));
+		assertThat(bus.getDroppedCount(), is(0L));
+	}
+
+	@Test
+	public void testOverflowBlock() throws Exception {
+		final ManualExecutor executor = new ManualExecutor();
+		final AsyncEventBus bus = new AsyncEventBus.Builder()
+				.executor(executor)
+				.capacity(1)
+				.overflowPolicy(AsyncEventBus.OVERFLOW_BLOCK)
+				.build();
+		final TestHandler handler = new TestHandler(2);
+		bus.register(handler);
+		bus.post(new LowEvent(1));
+		final Thread poster = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				bus.post(new LowEvent(2));
+			}
+		});
+		poster.start();
+		poster.join(200);
+		assertThat(poster.isAlive(), is(true));
+		executor.runAll();
+		poster.join(5000);
+		assertThat(poster.isAlive(), is(false));
+		executor.runAll();
+		assertThat(handler.values, is(list("low:1", "low:2")));
+		assertThat(bus.getDroppedCount(), is(0L));
+	}
+
+	@Test
+	public void testThroughputComparedToSimpleEventBus() throws Exception {
+		final TestHandler simpleTestHandler = new TestHandler(EVENTS_COUNT);
+		final SimpleEventBus simpleBus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		simpleBus.register(simpleTestHandler);
+		final long simpleStart = System.nanoTime();
+		for (int i = 0; i < EVENTS_COUNT; i++) {
+			simpleBus.post(new LowEvent(i));
+		}
+		final long simpleTime = System.nanoTime() - simpleStart;
+		final TestHandler asyncTestHandler = new TestHandler(EVENTS_COUNT);
+		final AsyncEventBus asyncBus = new AsyncEventBus.Builder().capacity(EVENTS_COUNT).build();
+		asyncBus.register(asyncTestHandler);
+		final long asyncStart = System.nanoTime();
+		for (int i = 0; i < EVENTS_COUNT; i++) {
+			asyncBus.post(new LowEvent(i));
+		}
+		final long asyncPostTime = System.nanoTime() - asyncStart;
+		assertThat(asyncTestHandler.latch.await(10, TimeUnit.SECONDS), is(true));
+		final long asyncTime = System.nanoTime() - asyncStart;
+		Log.i(TAG, "Delivered " + EVENTS_COUNT + " events: simple " + TimeUnit.NANOSECONDS.toMillis(simpleTime) +
+				" ms, async " + TimeUnit.NANOSECONDS.toMillis(asyncTime) + " ms (posting " + TimeUnit.NANOSECONDS.toMillis(asyncPostTime) + " ms)");
+		assertThat(asyncTestHandler.values.size(), is(EVENTS_COUNT));
+	}
+
+	private static List<String> list(final String... values) {
+		final List<String> list = new ArrayList<>(values.length);
+		Collections.addAll(list, values);
+		return list;
+	}
+
+	public static final class LowEvent {
+
+		final int value;
+
+		LowEvent(final int value) {
+			this.value = value;
+		}
+	}
+
+	public static final class HighEvent {
+
+		final int value;
+
+		HighEvent(final int value) {
+			this.value = value;
+		}
+	}
+
+	public static final class TestHandler {
+
+		final List<String> values = Collections.synchronizedList(new ArrayList<String>());
+		final CountDownLatch latch;
+
+		TestHandler(final int expectedCount) {
+			this.latch = new CountDownLatch(expectedCount);
+		}
+
+		@Subscribe
+		public void onLowEvent(final LowEvent event) {
+			values.add("low:" + event.value);
+			latch.countDown();
+		}
+
+		@Subscribe
+		public void onHighEvent(final HighEvent event) {
+			values.add("high:" + event.value);
+			latch.countDown();
+		}
+	}
+
+	private static final class ManualExecutor implements Executor {
+
+		final List<Runnable> tasks = new ArrayList<>();
+
+		@Override
+		public synchronized void execute(final Runnable task) {
+			tasks.add(task);
+		}
+
+		void runAll() {
+			for (;;) {
+				final Runnable task;
+				synchronized (this) {
+					if (tasks.isEmpty()) return;
+					task = tasks.remove(0);
+				}
+				task.run();
+			}
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.squareup.otto.Bus;
+import com.squareup.otto.DeadEvent;
+import com.squareup.otto.Subscribe;
+import com.squareup.otto.ThreadEnforcer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import universum.studios.android.officium.event.generated.GeneratedSubscriberIndex;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class IndexedEventBusTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "IndexedEventBusTest";
+
+	private static final int EVENTS_COUNT = 10000;
+
+	@Test
+	public void testPost() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final TestSubscriber subscriber = new TestSubscriber();
+		bus.register(subscriber);
+		bus.post("event");
+		assertThat(subscriber.stringEvents.size(), is(1));
+		assertThat(subscriber.stringEvents.get(0), is("event"));
+		assertThat(subscriber.numberEvents.size(), is(0));
+	}
+
+	@Test
+	public void testPostDispatchesToSupertypeHandlers() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final TestSubscriber subscriber = new TestSubscriber();
+		bus.register(subscriber);
+		bus.post(1);
+		bus.post(2L);
+		assertThat(subscriber.numberEvents.size(), is(2));
+		assertThat(subscriber.integerEventsCount, is(1));
+		assertThat(subscriber.stringEvents.size(), is(0));
+	}
+
+	@Test
+	public void testPostToMultipleSubscribers() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final TestSubscriber firstSubscriber = new TestSubscriber();
+		final TestSubscriber secondSubscriber = new TestSubscriber();
+		bus.register(firstSubscriber);
+		bus.register(secondSubscriber);
+		bus.post("event");
+		assertThat(firstSubscriber.stringEvents.size(), is(1));
+		assertThat(secondSubscriber.stringEvents.size(), is(1));
+	}
+
+	@Test
+	public void testRegisterTwice() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final TestSubscriber subscriber = new TestSubscriber();
+		bus.register(subscriber);
+		bus.register(subscriber);
+		bus.post("event");
+		assertThat(subscriber.stringEvents.size(), is(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRegisterNotIndexedSubscriber() {
+		new IndexedEventBus(new GeneratedSubscriberIndex()).register(new Object());
+	}
+
+	@Test
+	public void testUnregister() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final TestSubscriber firstSubscriber = new TestSubscriber();
+		final TestSubscriber secondSubscriber = new TestSubscriber();
+		bus.register(firstSubscriber);
+		bus.register(secondSubscriber);
+		bus.unregister(firstSubscriber);
+		bus.post("event");
+		assertThat(firstSubscriber.stringEvents.size(), is(0));
+		assertThat(secondSubscriber.stringEvents.size(), is(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnregisterNotRegisteredSubscriber() {
+		new IndexedEventBus(new GeneratedSubscriberIndex()).unregister(new TestSubscriber());
+	}
+
+	@Test
+	public void testPostWithoutHandlers() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final DeadEventSubscriber subscriber = new DeadEventSubscriber();
+		bus.register(subscriber);
+		final Object event = new Object();
+		bus.post(event);
+		assertThat(subscriber.deadEvents.size(), is(1));
+		assertThat(subscriber.deadEvents.get(0).event, is(event));
+	}
+
+	@Test
+	public void testDeliversSameEventsAsSimpleEventBus() {
+		final IndexedEventBus indexedBus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final SimpleEventBus simpleBus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		final TestSubscriber indexedSubscriber = new TestSubscriber();
+		final TestSubscriber simpleSubscriber = new TestSubscriber();
+		indexedBus.register(indexedSubscriber);
+		simpleBus.register(simpleSubscriber);
+		for (int i = 0; i < EVENTS_COUNT; i++) {
+			final Object event = i % 2 == 0 ? Integer.valueOf(i) : Integer.toString(i);
+			indexedBus.post(event);
+			simpleBus.post(event);
+		}
+		assertThat(indexedSubscriber.stringEvents, is(simpleSubscriber.stringEvents));
+		assertThat(indexedSubscriber.numberEvents, is(simpleSubscriber.numberEvents));
+		assertThat(indexedSubscriber.integerEventsCount, is(simpleSubscriber.integerEventsCount));
+	}
+
+	@Test
+	public void testPostDoesNotDispatchToInterfaceHandlers() {
+		final IndexedEventBus indexedBus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		final SimpleEventBus simpleBus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		final InterfaceSubscriber indexedSubscriber = new InterfaceSubscriber();
+		final InterfaceSubscriber simpleSubscriber = new InterfaceSubscriber();
+		indexedBus.register(indexedSubscriber);
+		simpleBus.register(simpleSubscriber);
+		indexedBus.post("event");
+		simpleBus.post("event");
+		assertThat(indexedSubscriber.charSequenceEvents.size(), is(0));
+		assertThat(indexedSubscriber.charSequenceEvents, is(simpleSubscriber.charSequenceEvents));
+	}
+
+	@Test
+	public void testStickyEventsAreReplayedOnRegister() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		bus.postSticky("first");
+		bus.postSticky("second");
+		bus.postSticky(1);
+		final TestSubscriber subscriber = new TestSubscriber();
+		bus.register(subscriber);
+		assertThat(subscriber.stringEvents.size(), is(1));
+		assertThat(subscriber.stringEvents.get(0), is("second"));
+		assertThat(subscriber.numberEvents.size(), is(1));
+		assertThat(subscriber.integerEventsCount, is(1));
+		bus.register(subscriber);
+		assertThat(subscriber.stringEvents.size(), is(1));
+	}
+
+	@Test
+	public void testRemovedStickyEventsAreNotReplayed() {
+		final IndexedEventBus bus = new IndexedEventBus(new GeneratedSubscriberIndex());
+		bus.postSticky("event");
+		assertThat(bus.getStickyEvent(String.class), is("event"));
+		assertThat(bus.removeStickyEvent(String.class), is("event"));
+		final TestSubscriber subscriber = new TestSubscriber();
+		bus.register(subscriber);
+		assertThat(subscriber.stringEvents.size(), is(0));
+	}
+
+	static final class TestSubscriber {
+
+		final List<String> stringEvents = new ArrayList<>();
+		final List<Number> numberEvents = new ArrayList<>();
+		int integerEventsCount;
+
+		@Subscribe
+		public void onStringEvent(final String event) {
+			stringEvents.add(event);
+		}
+
+		@Subscribe
+		public void onNumberEvent(final Number event) {
+			numberEvents.add(event);
+		}
+
+		@Subscribe
+		public void onIntegerEvent(final Integer event) {
+			integerEventsCount++;
+		}
+	}
+
+	static final class InterfaceSubscriber {
+
+		final List<CharSequence> charSequenceEvents = new ArrayList<>();
+
+		@Subscribe
+		public void onCharSequenceEvent(final CharSequence event) {
+			charSequenceEvents.add(event);
+		}
+	}
+
+	static final class DeadEventSubscriber {
+
+		final List<DeadEvent> deadEvents = new ArrayList<>();
+
+		@Subscribe
+		public void onDeadEvent(final DeadEvent event) {
+			deadEvents.add(event);
+		}
+	}
+}
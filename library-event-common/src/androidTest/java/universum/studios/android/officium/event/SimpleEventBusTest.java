@@ -16,25 +16,98 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.event; 
+package universum.studios.android.officium.event;
+
 import android.support.test.runner.AndroidJUnit4;
 
+import com.squareup.otto.Bus;
+import com.squareup.otto.DeadEvent;
+import com.squareup.otto.Subscribe;
+import com.squareup.otto.ThreadEnforcer;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 @RunWith(AndroidJUnit4.class)
 public final class SimpleEventBusTest extends BaseInstrumentedTest {
-    
+
 	@SuppressWarnings("unused")
 	private static final String TAG = "SimpleEventBusTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	@Test
+	public void testStickyEventsAreReplayedOnRegister() {
+		final SimpleEventBus bus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		final TestHandler firstHandler = new TestHandler();
+		bus.register(firstHandler);
+		bus.postSticky("first");
+		bus.postSticky("second");
+		assertThat(firstHandler.events.size(), is(2));
+		final TestHandler secondHandler = new TestHandler();
+		bus.register(secondHandler);
+		assertThat(secondHandler.events.size(), is(1));
+		assertThat(secondHandler.events.get(0), is("second"));
+		assertThat(firstHandler.events.size(), is(2));
+	}
+
+	@Test
+	public void testStickyEventsWithoutHandlersAreNotReplayedAsDeadEvents() {
+		final SimpleEventBus bus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		bus.postSticky(1);
+		final TestHandler handler = new TestHandler();
+		bus.register(handler);
+		assertThat(handler.events.size(), is(0));
+		assertThat(handler.deadEventsCount, is(0));
+	}
+
+	@Test
+	public void testRemovedStickyEventsAreNotReplayed() {
+		final SimpleEventBus bus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		bus.postSticky("event");
+		assertThat(bus.getStickyEvent(String.class), is("event"));
+		bus.removeAllStickyEvents();
+		final TestHandler handler = new TestHandler();
+		bus.register(handler);
+		assertThat(handler.events.size(), is(0));
+	}
+
+	@Test
+	public void testStickyEventCacheReplaySize() {
+		final SimpleEventBus bus = new SimpleEventBus(new Bus(ThreadEnforcer.ANY));
+		bus.setStickyEventCache(new StickyEventCache.Builder().replaySize(3).build());
+		for (int i = 0; i < 5; i++) {
+			bus.postSticky(Integer.toString(i));
+		}
+		final TestHandler handler = new TestHandler();
+		bus.register(handler);
+		assertThat(handler.events.size(), is(3));
+		assertThat(handler.events.get(0), is("2"));
+		assertThat(handler.events.get(2), is("4"));
+	}
+
+	public static final class TestHandler {
+
+		final List<String> events = new ArrayList<>();
+		int deadEventsCount;
+
+		@Subscribe
+		public void onEvent(final String event) {
+			events.add(event);
+		}
+
+		@Subscribe
+		public void onDeadEvent(final DeadEvent event) {
+			deadEventsCount++;
+		}
 	}
 }
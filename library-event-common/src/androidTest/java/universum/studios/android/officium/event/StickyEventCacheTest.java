@@ -0,0 +1,141 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class StickyEventCacheTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "StickyEventCacheTest";
+
+	@Test
+	public void testDefaults() {
+		final StickyEventCache cache = new StickyEventCache.Builder().build();
+		assertThat(cache.getReplaySize(), is(1));
+		assertThat(cache.getTimeToLive(), is(StickyEventCache.NO_EXPIRY));
+		assertThat(cache.getEvents().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testPutRetainsOnlyLatestEvents() {
+		final StickyEventCache cache = new StickyEventCache.Builder().replaySize(2).build();
+		cache.put("first");
+		cache.put("second");
+		cache.put("third");
+		cache.put(1);
+		assertThat(cache.getLatest(String.class), is("third"));
+		assertThat(cache.getLatest(Integer.class), is(1));
+		assertThat(cache.getEvents(), is(Arrays.<Object>asList("second", "third", 1)));
+	}
+
+	@Test
+	public void testGetLatestOfNotRetainedType() {
+		final StickyEventCache cache = new StickyEventCache.Builder().build();
+		cache.put(1);
+		assertThat(cache.getLatest(String.class), is(nullValue()));
+		assertThat(cache.getLatest(Number.class), is(nullValue()));
+	}
+
+	@Test
+	public void testRemove() {
+		final StickyEventCache cache = new StickyEventCache.Builder().replaySize(2).build();
+		cache.put("first");
+		cache.put("second");
+		cache.put(1);
+		assertThat(cache.remove(String.class), is("second"));
+		assertThat(cache.getLatest(String.class), is(nullValue()));
+		assertThat(cache.getEvents(), is(Collections.<Object>singletonList(1)));
+		assertThat(cache.remove(String.class), is(nullValue()));
+	}
+
+	@Test
+	public void testClear() {
+		final StickyEventCache cache = new StickyEventCache.Builder().build();
+		cache.put("event");
+		cache.put(1);
+		cache.clear();
+		assertThat(cache.getEvents().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testExpiredEventsAreNotReplayed() throws Exception {
+		final StickyEventCache cache = new StickyEventCache.Builder().timeToLive(50, TimeUnit.MILLISECONDS).build();
+		cache.put("event");
+		assertThat(cache.getLatest(String.class), is("event"));
+		Thread.sleep(100);
+		assertThat(cache.getLatest(String.class), is(nullValue()));
+		assertThat(cache.getEvents().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testConcurrentPut() throws Exception {
+		final int threadsCount = 4;
+		final int eventsCount = 1000;
+		final StickyEventCache cache = new StickyEventCache.Builder().replaySize(threadsCount * eventsCount).build();
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch finishLatch = new CountDownLatch(threadsCount);
+		for (int i = 0; i < threadsCount; i++) {
+			new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+						for (int j = 0; j < eventsCount; j++) {
+							cache.put(j);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						finishLatch.countDown();
+					}
+				}
+			}).start();
+		}
+		startLatch.countDown();
+		assertThat(finishLatch.await(10, TimeUnit.SECONDS), is(true));
+		final List<Object> events = cache.getEvents();
+		assertThat(events.size(), is(threadsCount * eventsCount));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildWithInvalidReplaySize() {
+		new StickyEventCache.Builder().replaySize(0).build();
+	}
+}
@@ -16,14 +16,27 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.event; 
+package universum.studios.android.officium.event;
+
+import android.os.Looper;
 import android.support.test.runner.AndroidJUnit4;
 
+import com.squareup.otto.Subscribe;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
@@ -33,8 +46,96 @@ public final class UiEventBusTest extends BaseInstrumentedTest {
 	@SuppressWarnings("unused")
 	private static final String TAG = "UiEventBusTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	private static final int EVENTS_COUNT = 5000;
+
+	@Test
+	public void testPostFromBackgroundThread() throws Exception {
+		assertDeliveredInOrderOnMainThread(new UiEventBus(), 100);
+	}
+
+	@Test
+	public void testBatchingEnabled() {
+		final UiEventBus bus = new UiEventBus();
+		assertThat(bus.isBatchingEnabled(), is(false));
+		bus.setBatchingEnabled(true);
+		assertThat(bus.isBatchingEnabled(), is(true));
+	}
+
+	@Test
+	public void testPostFromBackgroundThreadWithBatching() throws Exception {
+		final UiEventBus bus = new UiEventBus();
+		bus.setBatchingEnabled(true);
+		assertDeliveredInOrderOnMainThread(bus, EVENTS_COUNT);
+	}
+
+	@Test
+	public void testPostFromBackgroundThreadWithBatchingAndMaxDrainDuration() throws Exception {
+		final UiEventBus bus = new UiEventBus();
+		bus.setBatchingEnabled(true);
+		bus.setMaxDrainDuration(1, TimeUnit.MILLISECONDS);
+		assertDeliveredInOrderOnMainThread(bus, EVENTS_COUNT);
+	}
+
+	private static void assertDeliveredInOrderOnMainThread(final UiEventBus bus, final int eventsCount) throws Exception {
+		final TestHandler handler = new TestHandler(eventsCount);
+		registerOnMainThread(bus, handler);
+		final Thread poster = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				for (int i = 0; i < eventsCount; i++) {
+					bus.post(new TestEvent(i));
+				}
+			}
+		});
+		poster.start();
+		poster.join(5000);
+		assertThat(handler.latch.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(handler.offMainThreadCount, is(0));
+		for (int i = 0; i < eventsCount; i++) {
+			assertThat(handler.values.get(i), is(i));
+		}
+	}
+
+	private static void registerOnMainThread(final UiEventBus bus, final Object handler) throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		new android.os.Handler(Looper.getMainLooper()).post(new Runnable() {
+
+			@Override
+			public void run() {
+				bus.register(handler);
+				latch.countDown();
+			}
+		});
+		assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+	}
+
+	public static final class TestEvent {
+
+		final int value;
+
+		TestEvent(final int value) {
+			this.value = value;
+		}
+	}
+
+	public static final class TestHandler {
+
+		final List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch latch;
+		volatile int offMainThreadCount;
+
+		TestHandler(final int expectedCount) {
+			this.latch = new CountDownLatch(expectedCount);
+		}
+
+		@Subscribe
+		public void onEvent(final TestEvent event) {
+			if (Looper.getMainLooper().getThread() != Thread.currentThread()) {
+				offMainThreadCount++;
+			}
+			values.add(event.value);
+			latch.countDown();
+		}
 	}
 }
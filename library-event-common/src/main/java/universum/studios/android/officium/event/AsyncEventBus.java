@@ -0,0 +1,612 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import com.squareup.otto.Bus;
+import com.squareup.otto.ThreadEnforcer;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link SimpleEventBus} implementation that delivers posted events <b>asynchronously</b>, so
+ * slow handlers do not block threads that post events.
+ * <p>
+ * Events supplied to {@link #post(Object)} are put into a bounded queue and delivered to the wrapped
+ * {@link Bus} by a single drain task executed via the {@link Builder#executor(Executor) executor}
+ * specified for the bus. There is at most one drain task running at a time. Events of types with
+ * higher {@link Builder#eventPriority(Class, int) priority} are delivered before events with lower
+ * priority which are still queued, so each handler receives events in the order in which they have
+ * been posted only among events of the same priority. What happens when an event is posted while the
+ * queue is full is determined by the {@link Builder#overflowPolicy(int) overflow policy}. Note that
+ * an event coalesced via {@link #OVERFLOW_COALESCE} takes over the queue position of the older event
+ * it replaces, so it may be delivered before events posted earlier than itself.
+ * <p>
+ * As events are delivered on a background thread, the default bus wrapped by AsyncEventBus does not
+ * enforce any thread. Creation of instances of AsyncEventBus is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ */
+public class AsyncEventBus extends SimpleEventBus {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "AsyncEventBus";
+
+	/**
+	 * Overflow policy that blocks the posting thread until there is space in the queue. Events
+	 * posted from within handlers of this bus are always queued to prevent deadlock.
+	 */
+	public static final int OVERFLOW_BLOCK = 0x01;
+
+	/**
+	 * Overflow policy that drops the oldest queued event with the lowest priority. If the posted
+	 * event has lower priority than all queued events, the posted event is dropped instead.
+	 */
+	public static final int OVERFLOW_DROP_OLDEST = 0x02;
+
+	/**
+	 * Overflow policy that replaces a queued event of the same type by the posted one. If there is
+	 * no such event queued, this policy behaves like {@link #OVERFLOW_DROP_OLDEST}.
+	 */
+	public static final int OVERFLOW_COALESCE = 0x03;
+
+	/**
+	 * Defines an annotation for determining set of available overflow policies for {@link AsyncEventBus}.
+	 * <h3>Available policies</h3>
+	 * <ul>
+	 * <li>{@link #OVERFLOW_BLOCK}</li>
+	 * <li>{@link #OVERFLOW_DROP_OLDEST}</li>
+	 * <li>{@link #OVERFLOW_COALESCE}</li>
+	 * </ul>
+	 *
+	 * @see Builder#overflowPolicy(int)
+	 */
+	@IntDef({
+			OVERFLOW_BLOCK,
+			OVERFLOW_DROP_OLDEST,
+			OVERFLOW_COALESCE
+	})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface OverflowPolicy {
+	}
+
+	/**
+	 * Comparator ordering queued events by their priority (higher first) and then by their sequence.
+	 */
+	private static final Comparator<PendingEvent> DELIVERY_ORDER = new Comparator<PendingEvent>() {
+
+		/**
+		 */
+		@Override
+		public int compare(final PendingEvent first, final PendingEvent second) {
+			if (first.priority != second.priority) {
+				return first.priority > second.priority ? -1 : 1;
+			}
+			return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+		}
+	};
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Executor used to execute {@link #mDrainTask}.
+	 */
+	private final Executor mExecutor;
+
+	/**
+	 * Maximum count of queued events.
+	 */
+	private final int mCapacity;
+
+	/**
+	 * Policy determining what happens when an event is posted while the queue is full.
+	 */
+	private final int mOverflowPolicy;
+
+	/**
+	 * Priorities of event types. Event types without priority have priority {@code 0}.
+	 */
+	private final Map<Class<?>, Integer> mEventPriorities;
+
+	/**
+	 * Lock guarding the queue and the drain state.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Queue with events waiting for delivery.
+	 */
+	private final PriorityQueue<PendingEvent> mQueue;
+
+	/**
+	 * Task delivering queued events to the wrapped bus.
+	 */
+	private final Runnable mDrainTask = new Runnable() {
+
+		/**
+		 */
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+
+	/**
+	 * Sequence number assigned to the next queued event.
+	 */
+	private long mSequence;
+
+	/**
+	 * Boolean flag indicating whether the drain task has been scheduled or is running.
+	 */
+	private boolean mDraining;
+
+	/**
+	 * Thread on which is the drain task currently running. May be {@code null}.
+	 */
+	private volatile Thread mDrainThread;
+
+	/**
+	 * Count of events dropped due to overflow of the queue.
+	 */
+	private long mDroppedCount;
+
+	/**
+	 * Count of events coalesced due to overflow of the queue.
+	 */
+	private long mCoalescedCount;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of AsyncEventBus with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new event bus.
+	 */
+	protected AsyncEventBus(@NonNull final Builder builder) {
+		super(builder.bus == null ? new Bus(ThreadEnforcer.ANY) : builder.bus);
+		this.mExecutor = builder.executor == null ? createDefaultExecutor() : builder.executor;
+		this.mCapacity = builder.capacity;
+		this.mOverflowPolicy = builder.overflowPolicy;
+		this.mEventPriorities = builder.eventPriorities.isEmpty() ?
+				Collections.<Class<?>, Integer>emptyMap() :
+				new HashMap<>(builder.eventPriorities);
+		this.mQueue = new PriorityQueue<>(Math.min(mCapacity, 16), DELIVERY_ORDER);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates the default executor used to deliver events. The executor runs a single daemon thread
+	 * that is released when there are no events to be delivered.
+	 *
+	 * @return New executor.
+	 */
+	private static Executor createDefaultExecutor() {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				1,
+				1,
+				30,
+				TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+
+					/**
+					 * Counter used to name created threads.
+					 */
+					private final AtomicInteger counter = new AtomicInteger(0);
+
+					/**
+					 */
+					@Override
+					public Thread newThread(@NonNull final Runnable runnable) {
+						final Thread thread = new Thread(runnable, "AsyncEventBus #" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+		);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Queues the specified <var>event</var> to be delivered asynchronously to all handlers registered
+	 * on this event bus.
+	 * <p>
+	 * If the queue is full, the event is handled according to the overflow policy of this bus.
+	 *
+	 * @param event The desired event to post.
+	 */
+	@Override
+	public void post(@NonNull final Object event) {
+		final int priority = priorityOf(event.getClass());
+		final boolean schedule;
+		synchronized (mLock) {
+			if (mQueue.size() >= mCapacity && !handleOverflow(event, priority)) {
+				return;
+			}
+			mQueue.add(new PendingEvent(event, priority, mSequence++));
+			schedule = !mDraining;
+			mDraining = true;
+		}
+		if (schedule) {
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * Returns the priority specified for the given <var>eventType</var>.
+	 *
+	 * @param eventType The type of event of which priority to return.
+	 * @return Priority of the event type or {@code 0} if there is no priority specified.
+	 */
+	private int priorityOf(final Class<?> eventType) {
+		final Integer priority = mEventPriorities.get(eventType);
+		return priority == null ? 0 : priority;
+	}
+
+	/**
+	 * Handles overflow of the queue when the specified <var>event</var> is being posted.
+	 * <p>
+	 * Must be called while holding {@link #mLock}.
+	 *
+	 * @param event    The posted event.
+	 * @param priority Priority of the posted event.
+	 * @return {@code True} if the posted event should be queued, {@code false} if it has been
+	 * dropped or coalesced.
+	 */
+	private boolean handleOverflow(final Object event, final int priority) {
+		switch (mOverflowPolicy) {
+			case OVERFLOW_BLOCK:
+				if (Thread.currentThread() == mDrainThread) {
+					// Posted from within a handler, waiting for the drain task would never end.
+					return true;
+				}
+				try {
+					while (mQueue.size() >= mCapacity) {
+						mLock.wait();
+					}
+					return true;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					mDroppedCount++;
+					return false;
+				}
+			case OVERFLOW_COALESCE:
+				final Class<?> eventType = event.getClass();
+				for (final PendingEvent pendingEvent : mQueue) {
+					if (pendingEvent.event.getClass() == eventType) {
+						pendingEvent.event = event;
+						mCoalescedCount++;
+						return false;
+					}
+				}
+				return dropOldest(priority);
+			case OVERFLOW_DROP_OLDEST:
+			default:
+				return dropOldest(priority);
+		}
+	}
+
+	/**
+	 * Drops the oldest queued event with the lowest priority if that priority is not higher than
+	 * the specified one.
+	 * <p>
+	 * Must be called while holding {@link #mLock}.
+	 *
+	 * @param priority Priority of the posted event.
+	 * @return {@code True} if a queued event has been dropped, {@code false} if the posted event
+	 * should be dropped instead.
+	 */
+	private boolean dropOldest(final int priority) {
+		mDroppedCount++;
+		PendingEvent oldest = null;
+		for (final PendingEvent pendingEvent : mQueue) {
+			if (oldest == null ||
+					pendingEvent.priority < oldest.priority ||
+					(pendingEvent.priority == oldest.priority && pendingEvent.sequence < oldest.sequence)) {
+				oldest = pendingEvent;
+			}
+		}
+		if (oldest == null || oldest.priority > priority) {
+			return false;
+		}
+		final Iterator<PendingEvent> iterator = mQueue.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next() == oldest) {
+				iterator.remove();
+				break;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Schedules execution of the drain task via the executor of this bus.
+	 */
+	private void scheduleDrain() {
+		try {
+			mExecutor.execute(mDrainTask);
+		} catch (RejectedExecutionException e) {
+			synchronized (mLock) {
+				mDraining = false;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Delivers all queued events to the wrapped bus. If delivery of an event fails, the drain task
+	 * is scheduled again for the remaining events and the failure is propagated.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	final void drain() {
+		mDrainThread = Thread.currentThread();
+		try {
+			for (;;) {
+				final PendingEvent pendingEvent;
+				synchronized (mLock) {
+					pendingEvent = mQueue.poll();
+					if (pendingEvent == null) {
+						mDraining = false;
+						return;
+					}
+					mLock.notifyAll();
+				}
+				try {
+					mBus.post(pendingEvent.event);
+				} catch (RuntimeException e) {
+					final boolean schedule;
+					synchronized (mLock) {
+						schedule = !mQueue.isEmpty();
+						mDraining = schedule;
+					}
+					if (schedule) {
+						scheduleDrain();
+					}
+					throw e;
+				}
+			}
+		} finally {
+			mDrainThread = null;
+		}
+	}
+
+	/**
+	 * Returns the count of events that are waiting for delivery.
+	 *
+	 * @return Count of queued events.
+	 */
+	public int getPendingCount() {
+		synchronized (mLock) {
+			return mQueue.size();
+		}
+	}
+
+	/**
+	 * Returns the count of events that have been dropped due to overflow of the queue.
+	 *
+	 * @return Count of dropped events.
+	 */
+	public long getDroppedCount() {
+		synchronized (mLock) {
+			return mDroppedCount;
+		}
+	}
+
+	/**
+	 * Returns the count of events that have been coalesced with already queued events due to
+	 * overflow of the queue.
+	 *
+	 * @return Count of coalesced events.
+	 */
+	public long getCoalescedCount() {
+		synchronized (mLock) {
+			return mCoalescedCount;
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link AsyncEventBus}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static class Builder {
+
+		/**
+		 * See {@link #bus(Bus)}.
+		 */
+		private Bus bus;
+
+		/**
+		 * See {@link #executor(Executor)}.
+		 */
+		private Executor executor;
+
+		/**
+		 * See {@link #capacity(int)}.
+		 */
+		private int capacity = 256;
+
+		/**
+		 * See {@link #overflowPolicy(int)}.
+		 */
+		private int overflowPolicy = OVERFLOW_BLOCK;
+
+		/**
+		 * See {@link #eventPriority(Class, int)}.
+		 */
+		private final Map<Class<?>, Integer> eventPriorities = new HashMap<>();
+
+		/**
+		 * Specifies a bus to be wrapped by the new event bus.
+		 * <p>
+		 * Default value: <b>new Bus(ThreadEnforcer.ANY)</b>
+		 *
+		 * @param bus The desired bus. Should not enforce the Main thread.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder bus(@NonNull final Bus bus) {
+			this.bus = bus;
+			return this;
+		}
+
+		/**
+		 * Specifies an executor used to deliver events.
+		 * <p>
+		 * Default value: <b>executor with a single daemon thread</b>
+		 *
+		 * @param executor The desired executor.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder executor(@NonNull final Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		/**
+		 * Specifies a maximum count of events waiting for delivery.
+		 * <p>
+		 * Default value: <b>256</b>
+		 *
+		 * @param capacity The desired capacity.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder capacity(@IntRange(from = 1) final int capacity) {
+			this.capacity = capacity;
+			return this;
+		}
+
+		/**
+		 * Specifies a policy determining what happens when an event is posted while the queue is full.
+		 * <p>
+		 * Default value: <b>{@link #OVERFLOW_BLOCK}</b>
+		 *
+		 * @param policy The desired policy.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder overflowPolicy(@OverflowPolicy final int policy) {
+			this.overflowPolicy = policy;
+			return this;
+		}
+
+		/**
+		 * Specifies a priority for events of the given <var>eventType</var>. Queued events with higher
+		 * priority are delivered first. Priority is resolved for the exact class of posted events.
+		 * <p>
+		 * Default value: <b>0</b>
+		 *
+		 * @param eventType The type of events for which to specify the priority.
+		 * @param priority  The desired priority.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder eventPriority(@NonNull final Class<?> eventType, final int priority) {
+			this.eventPriorities.put(eventType, priority);
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of AsyncEventBus.
+		 *
+		 * @return New instance of AsyncEventBus with data specified for this builder.
+		 * @throws IllegalArgumentException If the specified capacity is not positive.
+		 */
+		@NonNull
+		public AsyncEventBus build() {
+			if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive!");
+			return new AsyncEventBus(this);
+		}
+	}
+
+	/**
+	 * Event waiting for delivery.
+	 */
+	private static final class PendingEvent {
+
+		/**
+		 * The event to be delivered. May be replaced when coalescing.
+		 */
+		Object event;
+
+		/**
+		 * Priority of the event.
+		 */
+		final int priority;
+
+		/**
+		 * Sequence number of the event determining its order among events with the same priority.
+		 */
+		final long sequence;
+
+		/**
+		 * Creates a new instance of PendingEvent.
+		 *
+		 * @param event    The event to be delivered.
+		 * @param priority Priority of the event.
+		 * @param sequence Sequence number of the event.
+		 */
+		PendingEvent(final Object event, final int priority, final long sequence) {
+			this.event = event;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+	}
+}
@@ -0,0 +1,391 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.squareup.otto.DeadEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link EventBus} implementation that dispatches events to handler methods of registered
+ * subscribers <b>directly</b>, without reflection, using a {@link SubscriberIndex} generated at
+ * compile time by the <b>officium-event-processor</b>.
+ * <p>
+ * Handler methods are declared the same way as for {@link SimpleEventBus}, that is via Otto's
+ * {@link com.squareup.otto.Subscribe @Subscribe} annotation, so subscribers may be moved between
+ * these two buses without any changes. Only methods declared directly by the class of a registered
+ * subscriber are considered and <b>producers</b> are not supported.
+ * <p>
+ * Handlers are stored in copy-on-write tables keyed by event type. Posting of an event obtains the
+ * current table without any locking, looks up handlers for the event type and all its super classes
+ * (which are resolved only once per event type) and invokes each of them. If there are no handlers
+ * for a posted event, a {@link DeadEvent} wrapping such event is posted instead. Events are dispatched
+ * synchronously on the posting thread, also those posted from within handlers, and the bus does not
+ * enforce any thread.
+ * <p>
+ * Events posted via {@link #postSticky(Object)} are retained in a {@link StickyEventCache} and
+ * dispatched to handlers of each object registered later, synchronously on the registering thread.
+ * Configuration of the cache may be changed via {@link #setStickyEventCache(StickyEventCache)}.
+ *
+ * @author Martin Albedinsky
+ */
+public class IndexedEventBus implements StickyEventBus {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "IndexedEventBus";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Map containing types of posted events mapped to theirs flattened hierarchies.
+	 */
+	private static final Map<Class<?>, Class<?>[]> sEventHierarchies = new ConcurrentHashMap<>();
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Index providing infos for classes of registered subscribers.
+	 */
+	private final SubscriberIndex mIndex;
+
+	/**
+	 * Lock used to synchronize modifications of {@link #mHandlers}.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Current table of handlers mapped to types of events which they handle. This map is never
+	 * modified, it is replaced by a modified copy whenever a subscriber is registered or unregistered.
+	 */
+	private volatile Map<Class<?>, Handler[]> mHandlers = Collections.emptyMap();
+
+	/**
+	 * Cache retaining sticky events posted via this event bus.
+	 */
+	private volatile StickyEventCache mStickyEvents = new StickyEventCache.Builder().build();
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of IndexedEventBus with the specified subscriber <var>index</var>.
+	 *
+	 * @param index The index providing infos for classes of subscribers that will be registered
+	 *              on the new bus. Typically {@code GeneratedSubscriberIndex}.
+	 */
+	public IndexedEventBus(@NonNull final SubscriberIndex index) {
+		this.mIndex = index;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Sets a cache that should be used to retain sticky events posted via this event bus. Sticky
+	 * events retained by the current cache are discarded.
+	 * <p>
+	 * By default, the event bus uses cache retaining only the latest event of each type without
+	 * any expiry.
+	 *
+	 * @param cache The desired cache.
+	 * @see #getStickyEventCache()
+	 */
+	public final void setStickyEventCache(@NonNull final StickyEventCache cache) {
+		this.mStickyEvents = cache;
+	}
+
+	/**
+	 * Returns the cache used to retain sticky events posted via this event bus.
+	 *
+	 * @return Sticky event cache of this bus.
+	 * @see #setStickyEventCache(StickyEventCache)
+	 */
+	@NonNull
+	public final StickyEventCache getStickyEventCache() {
+		return mStickyEvents;
+	}
+
+	/**
+	 * Also dispatches the retained sticky events to handlers of the specified <var>object</var> if
+	 * it has not been registered yet.
+	 *
+	 * @throws IllegalArgumentException If the subscriber index does not contain info for class of
+	 *                                  the specified object.
+	 */
+	@Override
+	public void register(@NonNull final Object object) {
+		final SubscriberInfo info = obtainSubscriberInfo(object);
+		final Class<?>[] eventTypes = info.getEventTypes();
+		boolean registered = false;
+		synchronized (mLock) {
+			final Map<Class<?>, Handler[]> handlers = new HashMap<>(mHandlers);
+			for (int i = 0; i < eventTypes.length; i++) {
+				final Handler[] typeHandlers = handlers.get(eventTypes[i]);
+				if (typeHandlers == null) {
+					handlers.put(eventTypes[i], new Handler[]{new Handler(object, info, i)});
+					registered = true;
+				} else if (indexOf(typeHandlers, object, i) == -1) {
+					final Handler[] newHandlers = new Handler[typeHandlers.length + 1];
+					System.arraycopy(typeHandlers, 0, newHandlers, 0, typeHandlers.length);
+					newHandlers[typeHandlers.length] = new Handler(object, info, i);
+					handlers.put(eventTypes[i], newHandlers);
+					registered = true;
+				}
+			}
+			this.mHandlers = handlers;
+		}
+		if (registered) {
+			replayStickyEvents(object, info);
+		}
+	}
+
+	/**
+	 * Dispatches the retained sticky events to handlers of the specified <var>object</var> only.
+	 *
+	 * @param object The object to which to dispatch the events.
+	 * @param info   Info of the object's class.
+	 */
+	private void replayStickyEvents(final Object object, final SubscriberInfo info) {
+		final List<Object> events = mStickyEvents.getEvents();
+		if (events.isEmpty()) {
+			return;
+		}
+		final Class<?>[] eventTypes = info.getEventTypes();
+		for (final Object event : events) {
+			for (int i = 0; i < eventTypes.length; i++) {
+				if (eventTypes[i].isInstance(event)) {
+					info.dispatch(object, i, event);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the subscriber index does not contain info for class of
+	 *                                  the specified object or if the object is not registered.
+	 */
+	@Override
+	public void unregister(@NonNull final Object object) {
+		final SubscriberInfo info = obtainSubscriberInfo(object);
+		final Class<?>[] eventTypes = info.getEventTypes();
+		synchronized (mLock) {
+			final Map<Class<?>, Handler[]> handlers = new HashMap<>(mHandlers);
+			boolean unregistered = false;
+			for (int i = 0; i < eventTypes.length; i++) {
+				final Handler[] typeHandlers = handlers.get(eventTypes[i]);
+				final int position = typeHandlers == null ? -1 : indexOf(typeHandlers, object, i);
+				if (position == -1) {
+					continue;
+				}
+				if (typeHandlers.length == 1) {
+					handlers.remove(eventTypes[i]);
+				} else {
+					final Handler[] newHandlers = new Handler[typeHandlers.length - 1];
+					System.arraycopy(typeHandlers, 0, newHandlers, 0, position);
+					System.arraycopy(typeHandlers, position + 1, newHandlers, position, newHandlers.length - position);
+					handlers.put(eventTypes[i], newHandlers);
+				}
+				unregistered = true;
+			}
+			if (!unregistered && eventTypes.length > 0) {
+				throw new IllegalArgumentException("Subscriber(" + object + ") is not registered.");
+			}
+			this.mHandlers = handlers;
+		}
+	}
+
+	/**
+	 * Obtains subscriber info for class of the given <var>subscriber</var> from the subscriber index.
+	 *
+	 * @param subscriber The subscriber for which to obtain its info.
+	 * @return Subscriber info.
+	 * @throws IllegalArgumentException If there is no info for the subscriber's class.
+	 */
+	private SubscriberInfo obtainSubscriberInfo(final Object subscriber) {
+		final SubscriberInfo info = mIndex.getSubscriberInfo(subscriber.getClass());
+		if (info == null) {
+			throw new IllegalArgumentException(
+					"No subscriber info for " + subscriber.getClass().getName() + ". " +
+							"Does the class declare any @Subscribe methods and is the officium-event-processor applied?"
+			);
+		}
+		return info;
+	}
+
+	/**
+	 * Returns position of handler for the given <var>subscriber</var> and <var>handlerIndex</var>
+	 * within the specified <var>handlers</var> array.
+	 *
+	 * @param handlers     The handlers to search.
+	 * @param subscriber   The subscriber of the desired handler.
+	 * @param handlerIndex Index of the handler method of the desired handler.
+	 * @return Position of the handler or {@code -1} if there is no such handler.
+	 */
+	private static int indexOf(final Handler[] handlers, final Object subscriber, final int handlerIndex) {
+		for (int i = 0; i < handlers.length; i++) {
+			if (handlers[i].subscriber == subscriber && handlers[i].index == handlerIndex) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 */
+	@Override
+	public void post(@NonNull final Object event) {
+		final Map<Class<?>, Handler[]> handlers = mHandlers;
+		boolean dispatched = false;
+		for (final Class<?> eventType : flattenHierarchy(event.getClass())) {
+			final Handler[] typeHandlers = handlers.get(eventType);
+			if (typeHandlers != null) {
+				for (final Handler handler : typeHandlers) {
+					handler.dispatch(event);
+				}
+				dispatched = true;
+			}
+		}
+		if (!dispatched && !(event instanceof DeadEvent)) {
+			post(new DeadEvent(this, event));
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public void postSticky(@NonNull final Object event) {
+		mStickyEvents.put(event);
+		post(event);
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public <T> T getStickyEvent(@NonNull final Class<T> eventType) {
+		return mStickyEvents.getLatest(eventType);
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public <T> T removeStickyEvent(@NonNull final Class<T> eventType) {
+		return mStickyEvents.remove(eventType);
+	}
+
+	/**
+	 */
+	@Override
+	public void removeAllStickyEvents() {
+		mStickyEvents.clear();
+	}
+
+	/**
+	 * Returns the specified <var>eventType</var> along with all its super classes. Interfaces are
+	 * not included, the same as for Otto's bus, so handlers receive the same events on both buses.
+	 * The hierarchy is resolved only once for each event type.
+	 *
+	 * @param eventType The type of which hierarchy to flatten.
+	 * @return Array with event type and all its super classes.
+	 */
+	private static Class<?>[] flattenHierarchy(final Class<?> eventType) {
+		Class<?>[] hierarchy = sEventHierarchies.get(eventType);
+		if (hierarchy == null) {
+			final List<Class<?>> types = new ArrayList<>();
+			for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+				types.add(type);
+			}
+			hierarchy = types.toArray(new Class<?>[types.size()]);
+			sEventHierarchies.put(eventType, hierarchy);
+		}
+		return hierarchy;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Handler method of a specific registered subscriber.
+	 */
+	private static final class Handler {
+
+		/**
+		 * Subscriber that declares the handler method.
+		 */
+		final Object subscriber;
+
+		/**
+		 * Info of the subscriber's class used to invoke the handler method.
+		 */
+		final SubscriberInfo info;
+
+		/**
+		 * Index of the handler method within the subscriber info.
+		 */
+		final int index;
+
+		/**
+		 * Creates a new instance of Handler for the specified subscriber and its handler method.
+		 *
+		 * @param subscriber The subscriber declaring the handler method.
+		 * @param info       Info of the subscriber's class.
+		 * @param index      Index of the handler method.
+		 */
+		Handler(final Object subscriber, final SubscriberInfo info, final int index) {
+			this.subscriber = subscriber;
+			this.info = info;
+			this.index = index;
+		}
+
+		/**
+		 * Dispatches the given <var>event</var> to the handler method.
+		 *
+		 * @param event The event to be dispatched.
+		 */
+		void dispatch(final Object event) {
+			info.dispatch(subscriber, index, event);
+		}
+	}
+}
@@ -19,17 +19,27 @@
 package universum.studios.android.officium.event;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.squareup.otto.Bus;
+import com.squareup.otto.DeadEvent;
+import com.squareup.otto.ThreadEnforcer;
+
+import java.util.List;
 
 /**
  * An {@link EventBus} implementation that wraps {@link Bus} provided by the <b><a href="http://square.github.io/otto/">Otto</a></b>
  * library. Simple bus need to be created with an instance of Otto's bus via {@link #SimpleEventBus(Bus)}.
  * The wrapped bus may be than obtained via {@link #getBus()} if needed.
+ * <p>
+ * Events posted via {@link #postSticky(Object)} are retained in a {@link StickyEventCache} and
+ * replayed to each object registered later via {@link #register(Object)}. The replay happens
+ * synchronously on the registering thread and only handlers of the registered object receive the
+ * replayed events. Configuration of the cache may be changed via {@link #setStickyEventCache(StickyEventCache)}.
  *
  * @author Martin Albedinsky
  */
-public class SimpleEventBus implements EventBus {
+public class SimpleEventBus implements StickyEventBus {
 
 	/*
 	 * Constants ===================================================================================
@@ -58,6 +68,11 @@ public class SimpleEventBus implements EventBus {
 	@NonNull
 	protected final Bus mBus;
 
+	/**
+	 * Cache retaining sticky events posted via this event bus.
+	 */
+	private volatile StickyEventCache mStickyEvents = new StickyEventCache.Builder().build();
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -95,11 +110,59 @@ public class SimpleEventBus implements EventBus {
 	}
 
 	/**
-	 * Delegates to {@link Bus#register(Object)}.
+	 * Sets a cache that should be used to retain sticky events posted via this event bus. Sticky
+	 * events retained by the current cache are discarded.
+	 * <p>
+	 * By default, the event bus uses cache retaining only the latest event of each type without
+	 * any expiry.
+	 *
+	 * @param cache The desired cache.
+	 * @see #getStickyEventCache()
+	 */
+	public final void setStickyEventCache(@NonNull final StickyEventCache cache) {
+		this.mStickyEvents = cache;
+	}
+
+	/**
+	 * Returns the cache used to retain sticky events posted via this event bus.
+	 *
+	 * @return Sticky event cache of this bus.
+	 * @see #setStickyEventCache(StickyEventCache)
+	 */
+	@NonNull
+	public final StickyEventCache getStickyEventCache() {
+		return mStickyEvents;
+	}
+
+	/**
+	 * Delegates to {@link Bus#register(Object)} and replays the retained sticky events to handlers
+	 * of the specified <var>object</var>.
 	 */
 	@Override
 	public void register(@NonNull final Object object) {
 		mBus.register(object);
+		final List<Object> stickyEvents = mStickyEvents.getEvents();
+		if (!stickyEvents.isEmpty()) {
+			replayStickyEvents(object, stickyEvents);
+		}
+	}
+
+	/**
+	 * Delivers the given sticky <var>events</var> to handlers of the specified <var>object</var> only.
+	 *
+	 * @param object The object to which to deliver the events.
+	 * @param events The events to be delivered.
+	 */
+	private static void replayStickyEvents(final Object object, final List<Object> events) {
+		final Bus replayBus = new ReplayBus();
+		replayBus.register(object);
+		try {
+			for (final Object event : events) {
+				replayBus.post(event);
+			}
+		} finally {
+			replayBus.unregister(object);
+		}
 	}
 
 	/**
@@ -118,7 +181,61 @@ public class SimpleEventBus implements EventBus {
 		mBus.post(event);
 	}
 
+	/**
+	 */
+	@Override
+	public void postSticky(@NonNull final Object event) {
+		mStickyEvents.put(event);
+		post(event);
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public <T> T getStickyEvent(@NonNull final Class<T> eventType) {
+		return mStickyEvents.getLatest(eventType);
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public <T> T removeStickyEvent(@NonNull final Class<T> eventType) {
+		return mStickyEvents.remove(eventType);
+	}
+
+	/**
+	 */
+	@Override
+	public void removeAllStickyEvents() {
+		mStickyEvents.clear();
+	}
+
 	/*
 	 * Inner classes ===============================================================================
 	 */
+
+	/**
+	 * A {@link Bus} implementation used to replay sticky events to a single registered object.
+	 * Replayed events for which the object has no handlers are not delivered as {@link DeadEvent DeadEvents}.
+	 */
+	private static final class ReplayBus extends Bus {
+
+		/**
+		 * Creates a new instance of ReplayBus which does not enforce any thread.
+		 */
+		ReplayBus() {
+			super(ThreadEnforcer.ANY, "officium-sticky-replay");
+		}
+
+		/**
+		 */
+		@Override
+		public void post(@NonNull final Object event) {
+			if (!(event instanceof DeadEvent)) {
+				super.post(event);
+			}
+		}
+	}
 }
@@ -0,0 +1,420 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.os.SystemClock;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache retaining sticky events posted via {@link StickyEventBus#postSticky(Object)} for theirs
+ * later replay to newly registered handlers.
+ * <p>
+ * The cache retains at most {@link Builder#replaySize(int) replay size} of the most recent events
+ * for each event type and each retained event expires after the {@link Builder#timeToLive(long, TimeUnit) time to live}
+ * specified for the cache (if any). Events are stored in immutable arrays which are replaced
+ * atomically, so neither storing nor reading of events requires any locking.
+ * <p>
+ * Creation of instances of StickyEventCache is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ */
+public final class StickyEventCache {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "StickyEventCache";
+
+	/**
+	 * Constant determining that the retained sticky events never expire.
+	 *
+	 * @see Builder#timeToLive(long, TimeUnit)
+	 */
+	public static final long NO_EXPIRY = -1;
+
+	/**
+	 * Empty array of entries.
+	 */
+	private static final Entry[] NO_ENTRIES = new Entry[0];
+
+	/**
+	 * Comparator ordering entries by the order in which have been theirs events posted.
+	 */
+	private static final Comparator<Entry> POST_ORDER = new Comparator<Entry>() {
+
+		/**
+		 */
+		@Override
+		public int compare(final Entry first, final Entry second) {
+			return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+		}
+	};
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum count of events retained for a single event type.
+	 */
+	private final int mReplaySize;
+
+	/**
+	 * Time in milliseconds after which expire the retained events.
+	 */
+	private final long mTimeToLive;
+
+	/**
+	 * Map containing entries of the retained events mapped to theirs types.
+	 */
+	private final ConcurrentMap<Class<?>, AtomicReference<Entry[]>> mEntries = new ConcurrentHashMap<>();
+
+	/**
+	 * Sequence used to number the retained events in order in which have been posted.
+	 */
+	private final AtomicLong mSequence = new AtomicLong(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of StickyEventCache with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new cache.
+	 */
+	private StickyEventCache(final Builder builder) {
+		this.mReplaySize = builder.replaySize;
+		this.mTimeToLive = builder.timeToLive;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the maximum count of events retained by this cache for a single event type.
+	 *
+	 * @return Replay size of this cache.
+	 * @see Builder#replaySize(int)
+	 */
+	@IntRange(from = 1)
+	public int getReplaySize() {
+		return mReplaySize;
+	}
+
+	/**
+	 * Returns the time after which expire the events retained by this cache.
+	 *
+	 * @return Time to live in milliseconds or {@link #NO_EXPIRY}.
+	 * @see Builder#timeToLive(long, TimeUnit)
+	 */
+	public long getTimeToLive() {
+		return mTimeToLive;
+	}
+
+	/**
+	 * Retains the specified <var>event</var> in this cache. If there are already retained events of
+	 * the same type in count of the replay size, the oldest of them is removed.
+	 *
+	 * @param event The event to be retained.
+	 */
+	public void put(@NonNull final Object event) {
+		final long now = SystemClock.elapsedRealtime();
+		final Entry entry = new Entry(event, mSequence.incrementAndGet(), mTimeToLive == NO_EXPIRY ? Long.MAX_VALUE : now + mTimeToLive);
+		final AtomicReference<Entry[]> slot = obtainSlot(event.getClass());
+		Entry[] entries;
+		Entry[] newEntries;
+		do {
+			entries = slot.get();
+			newEntries = appendEntry(entries, entry, now);
+		} while (!slot.compareAndSet(entries, newEntries));
+	}
+
+	/**
+	 * Obtains slot holding entries of events of the specified <var>eventType</var>, creating it if
+	 * it does not exist yet.
+	 *
+	 * @param eventType Type of the events.
+	 * @return Slot with entries of the events.
+	 */
+	private AtomicReference<Entry[]> obtainSlot(final Class<?> eventType) {
+		AtomicReference<Entry[]> slot = mEntries.get(eventType);
+		if (slot == null) {
+			final AtomicReference<Entry[]> newSlot = new AtomicReference<>(NO_ENTRIES);
+			slot = mEntries.putIfAbsent(eventType, newSlot);
+			if (slot == null) {
+				slot = newSlot;
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Creates a new array with the given <var>entry</var> appended after the most recent of the
+	 * given <var>entries</var> that are not expired, so the new array does not exceed the replay size.
+	 *
+	 * @param entries The current entries.
+	 * @param entry   The entry to be appended.
+	 * @param now     Current time used to determine expired entries.
+	 * @return New array of entries.
+	 */
+	private Entry[] appendEntry(final Entry[] entries, final Entry entry, final long now) {
+		int retainedCount = 0;
+		for (int i = entries.length - 1; i >= 0 && retainedCount < mReplaySize - 1; i--) {
+			if (entries[i].isExpired(now)) {
+				break;
+			}
+			retainedCount++;
+		}
+		final Entry[] newEntries = new Entry[retainedCount + 1];
+		System.arraycopy(entries, entries.length - retainedCount, newEntries, 0, retainedCount);
+		newEntries[retainedCount] = entry;
+		return newEntries;
+	}
+
+	/**
+	 * Returns the latest retained event of the specified <var>eventType</var> that is not expired.
+	 * Only events exactly of the specified type are considered.
+	 *
+	 * @param eventType Type of the desired event.
+	 * @param <T>       Type of the event.
+	 * @return The latest event or {@code null} if there is no such event retained.
+	 */
+	@Nullable
+	public <T> T getLatest(@NonNull final Class<T> eventType) {
+		final AtomicReference<Entry[]> slot = mEntries.get(eventType);
+		return slot == null ? null : latestEvent(slot.get(), eventType);
+	}
+
+	/**
+	 * Removes all retained events of the specified <var>eventType</var>.
+	 *
+	 * @param eventType Type of the events to remove.
+	 * @param <T>       Type of the events.
+	 * @return The latest of the removed events that was not expired or {@code null} if there was
+	 * no such event retained.
+	 */
+	@Nullable
+	public <T> T remove(@NonNull final Class<T> eventType) {
+		final AtomicReference<Entry[]> slot = mEntries.get(eventType);
+		return slot == null ? null : latestEvent(slot.getAndSet(NO_ENTRIES), eventType);
+	}
+
+	/**
+	 * Returns event of the latest of the given <var>entries</var> if it is not expired.
+	 *
+	 * @param entries   The entries from which to obtain the event.
+	 * @param eventType Type of the event.
+	 * @param <T>       Type of the event.
+	 * @return The latest event or {@code null} if there are no entries or the latest one is expired.
+	 */
+	private static <T> T latestEvent(final Entry[] entries, final Class<T> eventType) {
+		if (entries.length == 0) {
+			return null;
+		}
+		final Entry entry = entries[entries.length - 1];
+		return entry.isExpired(SystemClock.elapsedRealtime()) ? null : eventType.cast(entry.event);
+	}
+
+	/**
+	 * Removes all events retained by this cache.
+	 */
+	public void clear() {
+		for (final AtomicReference<Entry[]> slot : mEntries.values()) {
+			slot.set(NO_ENTRIES);
+		}
+	}
+
+	/**
+	 * Returns all retained events that are not expired in order in which have been posted.
+	 *
+	 * @return List of events to be replayed. May be empty.
+	 */
+	@NonNull
+	public List<Object> getEvents() {
+		final long now = SystemClock.elapsedRealtime();
+		List<Entry> entries = null;
+		for (final AtomicReference<Entry[]> slot : mEntries.values()) {
+			for (final Entry entry : slot.get()) {
+				if (entry.isExpired(now)) {
+					continue;
+				}
+				if (entries == null) {
+					entries = new ArrayList<>();
+				}
+				entries.add(entry);
+			}
+		}
+		if (entries == null) {
+			return Collections.emptyList();
+		}
+		Collections.sort(entries, POST_ORDER);
+		final List<Object> events = new ArrayList<>(entries.size());
+		for (final Entry entry : entries) {
+			events.add(entry.event);
+		}
+		return events;
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{replaySize: ");
+		builder.append(mReplaySize);
+		builder.append(", timeToLive: ");
+		builder.append(mTimeToLive);
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link StickyEventCache}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link StickyEventCache#getReplaySize()}.
+		 */
+		private int replaySize = 1;
+
+		/**
+		 * See {@link StickyEventCache#getTimeToLive()}.
+		 */
+		private long timeToLive = NO_EXPIRY;
+
+		/**
+		 * Specifies the maximum count of the most recent events retained for a single event type.
+		 * <p>
+		 * Default value: <b>1</b>
+		 *
+		 * @param replaySize The desired replay size.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder replaySize(@IntRange(from = 1) final int replaySize) {
+			this.replaySize = replaySize;
+			return this;
+		}
+
+		/**
+		 * Specifies the time after which expire the retained events, so they are no longer replayed.
+		 * <p>
+		 * Default value: <b>{@link #NO_EXPIRY}</b>
+		 *
+		 * @param duration The desired duration.
+		 * @param unit     Time unit of the duration.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder timeToLive(final long duration, @NonNull final TimeUnit unit) {
+			this.timeToLive = duration == NO_EXPIRY ? NO_EXPIRY : unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of StickyEventCache.
+		 *
+		 * @return New instance of StickyEventCache with data specified for this builder.
+		 * @throws IllegalArgumentException If the replay size is not positive or the time to live
+		 *                                  is negative.
+		 */
+		@NonNull
+		public StickyEventCache build() {
+			if (replaySize < 1) throw new IllegalArgumentException("Replay size must be positive!");
+			if (timeToLive < 0 && timeToLive != NO_EXPIRY) throw new IllegalArgumentException("Time to live cannot be negative!");
+			return new StickyEventCache(this);
+		}
+	}
+
+	/**
+	 * Entry of a single retained event.
+	 */
+	private static final class Entry {
+
+		/**
+		 * The retained event.
+		 */
+		final Object event;
+
+		/**
+		 * Sequence number of the event.
+		 */
+		final long sequence;
+
+		/**
+		 * Time at which the entry expires.
+		 */
+		final long expiryTime;
+
+		/**
+		 * Creates a new instance of Entry for the specified <var>event</var>.
+		 *
+		 * @param event      The retained event.
+		 * @param sequence   Sequence number of the event.
+		 * @param expiryTime Time at which the entry expires.
+		 */
+		Entry(final Object event, final long sequence, final long expiryTime) {
+			this.event = event;
+			this.sequence = sequence;
+			this.expiryTime = expiryTime;
+		}
+
+		/**
+		 * Checks whether this entry is expired at the specified time.
+		 *
+		 * @param now The current time.
+		 * @return {@code True} if expired, {@code false} otherwise.
+		 */
+		boolean isExpired(final long now) {
+			return now >= expiryTime;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Interface for index providing {@link SubscriberInfo} for classes of subscribers that may be
+ * registered on {@link IndexedEventBus}.
+ * <p>
+ * Implementation of this interface is generated by the <b>officium-event-processor</b> as
+ * {@code GeneratedSubscriberIndex} for all classes with methods annotated with Otto's
+ * {@link com.squareup.otto.Subscribe @Subscribe} annotation.
+ *
+ * @author Martin Albedinsky
+ */
+public interface SubscriberIndex {
+
+	/**
+	 * Returns the subscriber info for the specified <var>subscriberClass</var>.
+	 *
+	 * @param subscriberClass Class of the subscriber for which to obtain its info.
+	 * @return Subscriber info or {@code null} if this index does not contain info for the class.
+	 */
+	@Nullable
+	SubscriberInfo getSubscriberInfo(@NonNull Class<?> subscriberClass);
+}
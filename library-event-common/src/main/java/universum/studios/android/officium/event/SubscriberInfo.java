@@ -0,0 +1,61 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Interface describing handler methods of a specific class of subscribers. Each handler method is
+ * identified by its position within the array returned by {@link #getEventTypes()} and is invoked
+ * directly, without any reflection, via {@link #dispatch(Object, int, Object)}.
+ * <p>
+ * Implementations of this interface are generated by the <b>officium-event-processor</b>.
+ *
+ * @author Martin Albedinsky
+ * @see SubscriberIndex
+ */
+public interface SubscriberInfo {
+
+	/**
+	 * Returns the class of subscribers described by this info.
+	 *
+	 * @return Subscriber class.
+	 */
+	@NonNull
+	Class<?> getSubscriberClass();
+
+	/**
+	 * Returns types of events handled by the handler methods described by this info. Index of each
+	 * type is an index of the corresponding handler method.
+	 *
+	 * @return Array of event types. Should not be modified.
+	 */
+	@NonNull
+	Class<?>[] getEventTypes();
+
+	/**
+	 * Dispatches the given <var>event</var> to handler method at the specified <var>handlerIndex</var>
+	 * of the given <var>subscriber</var>.
+	 *
+	 * @param subscriber   The subscriber to which to dispatch the event.
+	 * @param handlerIndex Index of the handler method to invoke.
+	 * @param event        The event to be dispatched. Instance of type at the handler index.
+	 */
+	void dispatch(@NonNull Object subscriber, int handlerIndex, @NonNull Object event);
+}
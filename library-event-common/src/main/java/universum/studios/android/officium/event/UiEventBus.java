@@ -20,15 +20,28 @@ package universum.studios.android.officium.event;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 
 import com.squareup.otto.Bus;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * A {@link SimpleEventBus} implementation that may be used for event buses that should post their
  * events on the Main thread. This event bus implementation uses {@link Handler} with
  * {@link Looper#getMainLooper() main looper} to post the events supplied to {@link #post(Object)}
  * on the Main UI thread.
+ * <p>
+ * By default each event posted from a background thread is posted via the handler separately. When
+ * {@link #setBatchingEnabled(boolean) batching} is enabled, such events are put into a lock-free
+ * queue instead and all events queued at the time are delivered by a single message posted to the
+ * Main thread. Duration of a single delivery may be limited via {@link #setMaxDrainDuration(long, TimeUnit)},
+ * in which case the remaining events are delivered by a next message, so the Main thread may process
+ * other messages, like drawing of frames, in between.
  *
  * @author Martin Albedinsky
  */
@@ -60,6 +73,40 @@ public class UiEventBus extends SimpleEventBus {
 	 */
 	private final Handler mHandler;
 
+	/**
+	 * Queue with events posted from background threads waiting for delivery when batching is enabled.
+	 */
+	private final Queue<Object> mPendingEvents = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Boolean flag indicating whether {@link #mDrainTask} has been posted and not started yet.
+	 */
+	private final AtomicBoolean mDrainScheduled = new AtomicBoolean(false);
+
+	/**
+	 * Task delivering events from {@link #mPendingEvents} on the Main thread.
+	 */
+	private final Runnable mDrainTask = new Runnable() {
+
+		/**
+		 */
+		@Override
+		public void run() {
+			drainPendingEvents();
+		}
+	};
+
+	/**
+	 * Boolean flag indicating whether events posted from background threads should be batched.
+	 */
+	private volatile boolean mBatchingEnabled;
+
+	/**
+	 * Maximum time in milliseconds for which may a single delivery of batched events run. Zero
+	 * means no limit.
+	 */
+	private volatile long mMaxDrainDuration;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -86,6 +133,45 @@ public class UiEventBus extends SimpleEventBus {
 	 * Methods =====================================================================================
 	 */
 
+	/**
+	 * Specifies whether events posted from background threads should be batched and delivered by
+	 * a single message posted to the Main thread.
+	 * <p>
+	 * Default value: <b>false</b>
+	 *
+	 * @param enabled {@code True} to enable batching, {@code false} to post each event separately.
+	 * @see #isBatchingEnabled()
+	 * @see #setMaxDrainDuration(long, TimeUnit)
+	 */
+	public void setBatchingEnabled(final boolean enabled) {
+		this.mBatchingEnabled = enabled;
+	}
+
+	/**
+	 * Returns a boolean flag indicating whether batching of events posted from background threads
+	 * is enabled.
+	 *
+	 * @return {@code True} if batching is enabled, {@code false} otherwise.
+	 * @see #setBatchingEnabled(boolean)
+	 */
+	public boolean isBatchingEnabled() {
+		return mBatchingEnabled;
+	}
+
+	/**
+	 * Specifies for how long may run a single delivery of batched events on the Main thread. Events
+	 * that have not been delivered within this duration are delivered by a next message.
+	 * <p>
+	 * Default value: <b>0, no limit</b>
+	 *
+	 * @param duration The desired duration. Zero for no limit.
+	 * @param unit     Time unit of the duration.
+	 * @see #setBatchingEnabled(boolean)
+	 */
+	public void setMaxDrainDuration(final long duration, @NonNull final TimeUnit unit) {
+		this.mMaxDrainDuration = Math.max(0, unit.toMillis(duration));
+	}
+
 	/**
 	 */
 	@Override
@@ -93,6 +179,9 @@ public class UiEventBus extends SimpleEventBus {
 		// If caller is posting from the Main thread, post directly on bus, otherwise use handler.
 		if (Looper.getMainLooper().getThread().equals(Thread.currentThread())) {
 			mBus.post(event);
+		} else if (mBatchingEnabled) {
+			mPendingEvents.add(event);
+			scheduleDrain();
 		} else {
 			mHandler.post(new Runnable() {
 
@@ -106,6 +195,36 @@ public class UiEventBus extends SimpleEventBus {
 		}
 	}
 
+	/**
+	 * Posts {@link #mDrainTask} to the Main thread if it has not been posted yet.
+	 */
+	private void scheduleDrain() {
+		if (mDrainScheduled.compareAndSet(false, true)) {
+			mHandler.post(mDrainTask);
+		}
+	}
+
+	/**
+	 * Delivers events from {@link #mPendingEvents} to the wrapped bus until the queue is empty or
+	 * the maximum drain duration elapses.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	final void drainPendingEvents() {
+		mDrainScheduled.set(false);
+		final long maxDuration = mMaxDrainDuration;
+		final long deadline = maxDuration > 0 ? SystemClock.uptimeMillis() + maxDuration : 0;
+		Object event;
+		while ((event = mPendingEvents.poll()) != null) {
+			mBus.post(event);
+			if (maxDuration > 0 && SystemClock.uptimeMillis() >= deadline) {
+				if (!mPendingEvents.isEmpty()) {
+					scheduleDrain();
+				}
+				return;
+			}
+		}
+	}
+
 	/*
 	 * Inner classes ===============================================================================
 	 */
@@ -0,0 +1,67 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * An {@link EventBus} that may also post <b>sticky</b> events. Such events are retained by the bus
+ * after being posted and are delivered to each object that is later registered on the bus and has
+ * handlers for them, so the object does not miss events posted before its registration.
+ *
+ * @author Martin Albedinsky
+ */
+public interface StickyEventBus extends EventBus {
+
+	/**
+	 * Posts the specified <var>event</var> to all handlers registered on this event bus and retains
+	 * it for delivery to handlers registered later.
+	 *
+	 * @param event The desired event to post.
+	 * @see #removeStickyEvent(Class)
+	 */
+	void postSticky(@NonNull Object event);
+
+	/**
+	 * Returns the latest sticky event of the specified <var>eventType</var> retained by this bus.
+	 *
+	 * @param eventType Type of the desired event.
+	 * @param <T>       Type of the event.
+	 * @return The latest sticky event or {@code null} if there is no such event retained.
+	 */
+	@Nullable
+	<T> T getStickyEvent(@NonNull Class<T> eventType);
+
+	/**
+	 * Removes all sticky events of the specified <var>eventType</var> retained by this bus, so they
+	 * will not be delivered to handlers registered later.
+	 *
+	 * @param eventType Type of the events to remove.
+	 * @param <T>       Type of the events.
+	 * @return The latest of the removed sticky events or {@code null} if there was no such event retained.
+	 */
+	@Nullable
+	<T> T removeStickyEvent(@NonNull Class<T> eventType);
+
+	/**
+	 * Removes all sticky events retained by this bus.
+	 */
+	void removeAllStickyEvents();
+}
@@ -0,0 +1,128 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class CallLimiterTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "CallLimiterTest";
+
+	@Test
+	public void testMaxConcurrentCalls() {
+		final CallLimiter limiter = new CallLimiter.Builder().maxConcurrentCalls(2).build();
+		final List<String> started = new ArrayList<>();
+		final CallLimiter.Ticket first = createTicket(false, "first", started);
+		final CallLimiter.Ticket second = createTicket(false, "second", started);
+		final CallLimiter.Ticket third = createTicket(false, "third", started);
+		limiter.enqueue(first);
+		limiter.enqueue(second);
+		limiter.enqueue(third);
+		assertThat(started.size(), is(2));
+		assertThat(limiter.getActiveCount(), is(2));
+		assertThat(limiter.getQueueSize(), is(1));
+		limiter.release(first);
+		// Releasing the same ticket twice should have no effect.
+		limiter.release(first);
+		assertThat(started.size(), is(3));
+		assertThat(started.get(2), is("third"));
+		assertThat(limiter.getActiveCount(), is(2));
+		assertThat(limiter.getAcquiredCount(), is(3L));
+		assertThat(limiter.getQueuedCount(), is(1L));
+	}
+
+	@Test
+	public void testPriorityLane() {
+		final CallLimiter limiter = new CallLimiter.Builder().maxConcurrentCalls(1).build();
+		final List<String> started = new ArrayList<>();
+		final CallLimiter.Ticket running = createTicket(false, "running", started);
+		limiter.enqueue(running);
+		limiter.enqueue(createTicket(false, "background", started));
+		limiter.enqueue(createTicket(true, "ui", started));
+		limiter.release(running);
+		assertThat(started.get(1), is("ui"));
+	}
+
+	@Test
+	public void testCancelQueuedTicket() {
+		final CallLimiter limiter = new CallLimiter.Builder().maxConcurrentCalls(1).build();
+		final List<String> started = new ArrayList<>();
+		final CallLimiter.Ticket running = createTicket(false, "running", started);
+		final CallLimiter.Ticket queued = createTicket(false, "queued", started);
+		limiter.enqueue(running);
+		limiter.enqueue(queued);
+		limiter.cancel(queued);
+		assertThat(started.size(), is(2));
+		assertThat(queued.acquired, is(false));
+		assertThat(limiter.getQueueSize(), is(0));
+		limiter.release(queued);
+		assertThat(limiter.getActiveCount(), is(1));
+	}
+
+	@Test
+	public void testRateLimit() throws Exception {
+		final CallLimiter limiter = new CallLimiter.Builder().rateLimit(20, 1).build();
+		final CountDownLatch latch = new CountDownLatch(3);
+		for (int i = 0; i < 3; i++) {
+			limiter.enqueue(new CallLimiter.Ticket(false, new Runnable() {
+
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			}));
+		}
+		assertThat(latch.getCount(), is(2L));
+		assertThat(latch.await(1, TimeUnit.SECONDS), is(true));
+		assertThat(limiter.getQueuedCount(), is(2L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildWithInvalidMaxConcurrentCalls() {
+		new CallLimiter.Builder().maxConcurrentCalls(0).build();
+	}
+
+	private static CallLimiter.Ticket createTicket(final boolean priority, final String name, final List<String> started) {
+		return new CallLimiter.Ticket(priority, new Runnable() {
+
+			@Override
+			public void run() {
+				started.add(name);
+			}
+		});
+	}
+}
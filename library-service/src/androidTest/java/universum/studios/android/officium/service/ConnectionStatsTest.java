@@ -0,0 +1,82 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class ConnectionStatsTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "ConnectionStatsTest";
+
+	@Test
+	public void testOpenedAndReusedConnections() throws Exception {
+		final ConnectionStats stats = new ConnectionStats();
+		final Connection firstConnection = mock(Connection.class);
+		final Connection secondConnection = mock(Connection.class);
+		stats.intercept(mockChain(firstConnection));
+		stats.intercept(mockChain(firstConnection));
+		stats.intercept(mockChain(secondConnection));
+		stats.intercept(mockChain(firstConnection));
+		assertThat(stats.getOpenedCount(), is(2L));
+		assertThat(stats.getReusedCount(), is(2L));
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		final ConnectionStats stats = new ConnectionStats();
+		final Connection connection = mock(Connection.class);
+		stats.intercept(mockChain(connection));
+		stats.reset();
+		assertThat(stats.getOpenedCount(), is(0L));
+		stats.intercept(mockChain(connection));
+		assertThat(stats.getOpenedCount(), is(0L));
+		assertThat(stats.getReusedCount(), is(1L));
+	}
+
+	@Test
+	public void testServiceManagerSharesClient() {
+		final ServiceManager manager = new ServiceManager();
+		assertThat(manager.getSharedClient() == manager.getSharedClient(), is(true));
+		assertThat(manager.getSharedClient().networkInterceptors().contains(manager.getConnectionStats()), is(true));
+		assertThat(manager.newClientBuilder().build().connectionPool() == manager.getSharedClient().connectionPool(), is(true));
+	}
+
+	private static Interceptor.Chain mockChain(final Connection connection) {
+		final Interceptor.Chain chain = mock(Interceptor.Chain.class);
+		when(chain.connection()).thenReturn(connection);
+		return chain;
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class RequestDeduplicatorTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "RequestDeduplicatorTest";
+
+	private static final int REQUESTS_COUNT = 5;
+
+	private MockWebServer mServer;
+	private CountDownLatch mResponseLatch;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mResponseLatch = new CountDownLatch(1);
+		this.mServer = new MockWebServer();
+		mServer.setDispatcher(new Dispatcher() {
+
+			@Override
+			public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+				mResponseLatch.await(5, TimeUnit.SECONDS);
+				return new MockResponse().setBody("items");
+			}
+		});
+		mServer.start();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mResponseLatch.countDown();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testIdenticalRequestsShareSingleExchange() throws Exception {
+		final RequestDeduplicator deduplicator = new RequestDeduplicator();
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(deduplicator).build();
+		final String[] bodies = new String[REQUESTS_COUNT];
+		final List<Thread> threads = new ArrayList<>(REQUESTS_COUNT);
+		for (int i = 0; i < REQUESTS_COUNT; i++) {
+			final int index = i;
+			final Thread thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						bodies[index] = execute(client, "GET");
+					} catch (Exception e) {
+						bodies[index] = e.toString();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (deduplicator.getWaitingCount() < REQUESTS_COUNT - 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		mResponseLatch.countDown();
+		for (final Thread thread : threads) {
+			thread.join(5000);
+		}
+		for (final String body : bodies) {
+			assertThat(body, is("items"));
+		}
+		assertThat(mServer.getRequestCount(), is(1));
+		assertThat(deduplicator.getMissCount(), is(1L));
+		assertThat(deduplicator.getHitCount(), is((long) REQUESTS_COUNT - 1));
+	}
+
+	@Test
+	public void testSequentialRequestsAreNotDeduplicated() throws Exception {
+		mResponseLatch.countDown();
+		final RequestDeduplicator deduplicator = new RequestDeduplicator();
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(deduplicator).build();
+		assertThat(execute(client, "GET"), is("items"));
+		assertThat(execute(client, "GET"), is("items"));
+		assertThat(mServer.getRequestCount(), is(2));
+		assertThat(deduplicator.getMissCount(), is(2L));
+		assertThat(deduplicator.getHitCount(), is(0L));
+	}
+
+	@Test
+	public void testRequestProceedsOnItsOwnWhenFlightFails() throws Exception {
+		final RequestDeduplicator deduplicator = new RequestDeduplicator();
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(deduplicator).build();
+		final Call leaderCall = client.newCall(new Request.Builder().url(mServer.url("/items")).build());
+		final String[] bodies = new String[2];
+		final Thread leader = startThread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					leaderCall.execute().close();
+				} catch (Exception e) {
+					bodies[0] = e.toString();
+				}
+			}
+		});
+		awaitCondition(new Condition() {
+
+			@Override
+			public boolean isMet() {
+				return mServer.getRequestCount() == 1;
+			}
+		});
+		final Thread follower = startExecuteThread(client, bodies, 1);
+		awaitCondition(new Condition() {
+
+			@Override
+			public boolean isMet() {
+				return deduplicator.getWaitingCount() == 1;
+			}
+		});
+		leaderCall.cancel();
+		leader.join(5000);
+		mResponseLatch.countDown();
+		follower.join(5000);
+		assertThat(bodies[1], is("items"));
+		assertThat(mServer.getRequestCount(), is(2));
+		assertThat(deduplicator.getMissCount(), is(2L));
+		assertThat(deduplicator.getHitCount(), is(0L));
+	}
+
+	@Test
+	public void testRequestProceedsOnItsOwnWhenFlightTimesOut() throws Exception {
+		final RequestDeduplicator deduplicator = new RequestDeduplicator(RequestDeduplicator.DEFAULT_MAX_BODY_SIZE, 100);
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(deduplicator).build();
+		final String[] bodies = new String[2];
+		final Thread leader = startExecuteThread(client, bodies, 0);
+		awaitCondition(new Condition() {
+
+			@Override
+			public boolean isMet() {
+				return mServer.getRequestCount() == 1;
+			}
+		});
+		final Thread follower = startExecuteThread(client, bodies, 1);
+		awaitCondition(new Condition() {
+
+			@Override
+			public boolean isMet() {
+				return mServer.getRequestCount() == 2;
+			}
+		});
+		mResponseLatch.countDown();
+		leader.join(5000);
+		follower.join(5000);
+		assertThat(bodies[0], is("items"));
+		assertThat(bodies[1], is("items"));
+		assertThat(deduplicator.getMissCount(), is(2L));
+		assertThat(deduplicator.getHitCount(), is(0L));
+	}
+
+	@Test
+	public void testNonGetRequestsBypassDeduplication() throws Exception {
+		mResponseLatch.countDown();
+		final RequestDeduplicator deduplicator = new RequestDeduplicator();
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(deduplicator).build();
+		execute(client, "DELETE");
+		assertThat(deduplicator.getMissCount(), is(0L));
+		assertThat(deduplicator.getHitCount(), is(0L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInstantiationWithNegativeMaxBodySize() {
+		new RequestDeduplicator(-1);
+	}
+
+	private Thread startExecuteThread(final OkHttpClient client, final String[] bodies, final int index) {
+		return startThread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					bodies[index] = execute(client, "GET");
+				} catch (Exception e) {
+					bodies[index] = e.toString();
+				}
+			}
+		});
+	}
+
+	private static Thread startThread(final Runnable runnable) {
+		final Thread thread = new Thread(runnable);
+		thread.start();
+		return thread;
+	}
+
+	private static void awaitCondition(final Condition condition) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.isMet() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(condition.isMet(), is(true));
+	}
+
+	private interface Condition {
+
+		boolean isMet();
+	}
+
+	private String execute(final OkHttpClient client, final String method) throws Exception {
+		final Response response = client.newCall(new Request.Builder().url(mServer.url("/items")).method(method, null).build()).execute();
+		try {
+			return response.body().string();
+		} finally {
+			response.close();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class RetryPolicyTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "RetryPolicyTest";
+
+	private static final Request GET_REQUEST = new Request.Builder().url("http://localhost/items").build();
+	private static final Request POST_REQUEST = new Request.Builder()
+			.url("http://localhost/items")
+			.post(RequestBody.create(null, new byte[0]))
+			.build();
+
+	@Test
+	public void testShouldRetryForCodes() {
+		final RetryPolicy policy = new RetryPolicy.Builder().maxAttempts(3).build();
+		assertThat(policy.shouldRetry(GET_REQUEST, 503, 1), is(true));
+		assertThat(policy.shouldRetry(GET_REQUEST, 503, 2), is(true));
+		assertThat(policy.shouldRetry(GET_REQUEST, 503, 3), is(false));
+		assertThat(policy.shouldRetry(GET_REQUEST, 404, 1), is(false));
+	}
+
+	@Test
+	public void testShouldRetryForFailures() {
+		final RetryPolicy policy = new RetryPolicy.Builder().build();
+		assertThat(policy.shouldRetry(GET_REQUEST, new IOException(), 1), is(true));
+		assertThat(policy.shouldRetry(GET_REQUEST, new IllegalStateException(), 1), is(false));
+	}
+
+	@Test
+	public void testShouldRetryNonIdempotentRequests() {
+		assertThat(new RetryPolicy.Builder().build().shouldRetry(POST_REQUEST, 503, 1), is(false));
+		assertThat(new RetryPolicy.Builder().retryNonIdempotent(true).build().shouldRetry(POST_REQUEST, 503, 1), is(true));
+	}
+
+	@Test
+	public void testRetryableCodes() {
+		final RetryPolicy policy = new RetryPolicy.Builder().retryableCodes(599, 500).build();
+		assertThat(policy.isRetryableCode(500), is(true));
+		assertThat(policy.isRetryableCode(599), is(true));
+		assertThat(policy.isRetryableCode(503), is(false));
+	}
+
+	@Test
+	public void testComputeBackoff() {
+		final RetryPolicy policy = new RetryPolicy.Builder()
+				.initialBackoff(100, TimeUnit.MILLISECONDS)
+				.maxBackoff(1, TimeUnit.SECONDS)
+				.build();
+		for (int i = 0; i < 100; i++) {
+			assertTrue(policy.computeBackoff(1) <= 100);
+			assertTrue(policy.computeBackoff(3) <= 400);
+			assertTrue(policy.computeBackoff(100) <= 1000);
+			assertTrue(policy.computeBackoff(100) >= 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildWithInvalidMaxAttempts() {
+		new RetryPolicy.Builder().maxAttempts(0).build();
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class SequentialRequestIdGeneratorTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "SequentialRequestIdGeneratorTest";
+
+	private static final int THREADS_COUNT = 8;
+	private static final int IDS_PER_THREAD = 10000;
+
+	@Test
+	public void testIdsAreUniqueAcrossThreads() throws Exception {
+		final RequestIdGenerator generator = new SequentialRequestIdGenerator();
+		final Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final Thread[] threads = new Thread[THREADS_COUNT];
+		for (int i = 0; i < THREADS_COUNT; i++) {
+			threads[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < IDS_PER_THREAD; j++) {
+						ids.add(generator.nextRequestId());
+					}
+				}
+			});
+			threads[i].start();
+		}
+		startLatch.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(ids.size(), is(THREADS_COUNT * IDS_PER_THREAD));
+	}
+
+	@Test
+	public void testIdsAreOrdered() {
+		final RequestIdGenerator generator = new SequentialRequestIdGenerator();
+		String previousId = generator.nextRequestId();
+		for (int i = 0; i < 1000; i++) {
+			final String id = generator.nextRequestId();
+			assertThat(id.length(), is(previousId.length()));
+			assertTrue(id.compareTo(previousId) > 0);
+			previousId = id;
+		}
+	}
+
+	@Test
+	public void testIdsWithPrefix() {
+		final RequestIdGenerator generator = new SequentialRequestIdGenerator("node");
+		assertThat(generator.nextRequestId(), is("node-0000000000001"));
+		assertThat(generator.nextRequestId(), is("node-0000000000002"));
+	}
+
+	@Test
+	public void testIdsWithoutPrefix() {
+		final RequestIdGenerator generator = new SequentialRequestIdGenerator("");
+		for (int i = 0; i < 35; i++) {
+			generator.nextRequestId();
+		}
+		assertThat(generator.nextRequestId(), is("0000000000010"));
+	}
+}
@@ -1,4 +1,4 @@
-    /*
+/*
  * =================================================================================================
  *                             Copyright (C) 2017 Universum Studios
  * =================================================================================================
@@ -16,14 +16,35 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.service; 
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
 import android.support.test.runner.AndroidJUnit4;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 /**
  * @author Martin Albedinsky
  */
@@ -33,8 +54,191 @@ public final class ServiceCallTest extends BaseInstrumentedTest {
 	@SuppressWarnings("unused")
 	private static final String TAG = "ServiceCallTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEnqueueAssociatesCallbackWithGeneratedRequestId() {
+		final ServiceCall<Void> call = new ServiceCall<>((Call<Void>) mock(Call.class))
+				.withServiceId(1)
+				.withRequestIdGenerator(new SequentialRequestIdGenerator("test"));
+		final TestCallback<Void> callback = new TestCallback<>();
+		final String requestId = call.enqueue(callback);
+		assertThat(requestId, is("test-0000000000001"));
+		assertThat(callback.getRequestId(), is(requestId));
+		assertThat(callback.getServiceId(), is(1));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testEnqueueInSameMillisecondGeneratesDistinctIds() {
+		final ServiceCall<Void> call = new ServiceCall<>((Call<Void>) mock(Call.class));
+		assertThat(call.enqueue(new TestCallback<Void>()), is(not(call.enqueue(new TestCallback<Void>()))));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCloneKeepsRequestIdGenerator() {
+		final Call<Void> originalCall = mock(Call.class);
+		when(originalCall.clone()).thenReturn(mock(Call.class));
+		final ServiceCall<Void> call = new ServiceCall<>(originalCall).withRequestIdGenerator(new SequentialRequestIdGenerator("test"));
+		final ServiceCall<Void> clonedCall = (ServiceCall<Void>) call.clone();
+		assertThat(clonedCall.enqueue(new TestCallback<Void>()), is("test-0000000000001"));
+	}
+
+	@Test
+	public void testExecuteWithRetryPolicy() throws Exception {
+		final MockWebServer server = new MockWebServer();
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setBody("items"));
+		server.start();
+		try {
+			final Response<ResponseBody> response = new ServiceCall<>(createServices(server).items())
+					.withRetryPolicy(createRetryPolicy(3))
+					.execute();
+			assertThat(response.isSuccessful(), is(true));
+			assertThat(response.body().string(), is("items"));
+			assertThat(server.getRequestCount(), is(3));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testEnqueueWithRetryPolicy() throws Exception {
+		final MockWebServer server = new MockWebServer();
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setResponseCode(500));
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.start();
+		try {
+			final TestCallback<ResponseBody> callback = new TestCallback<>();
+			new ServiceCall<>(createServices(server).items()).withRetryPolicy(createRetryPolicy(3)).enqueue(callback);
+			assertThat(callback.latch.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(callback.error.isError(), is(true));
+			assertThat(callback.error.getErrorCode(), is(503));
+			assertThat(callback.error.getAttemptCount(), is(3));
+			assertThat(server.getRequestCount(), is(3));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testEnqueueWithoutRetryPolicy() throws Exception {
+		final MockWebServer server = new MockWebServer();
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.start();
+		try {
+			final TestCallback<ResponseBody> callback = new TestCallback<>();
+			new ServiceCall<>(createServices(server).items()).enqueue(callback);
+			assertThat(callback.latch.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(callback.error.getAttemptCount(), is(1));
+			assertThat(server.getRequestCount(), is(1));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testAttemptsAreNotReportedForSubsequentCallWithSameCallback() throws Exception {
+		final MockWebServer server = new MockWebServer();
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setResponseCode(503));
+		server.enqueue(new MockResponse().setResponseCode(500));
+		server.start();
+		try {
+			final TestServices services = createServices(server);
+			final TestCallback<ResponseBody> callback = new TestCallback<>();
+			new ServiceCall<>(services.items()).withRetryPolicy(createRetryPolicy(2)).enqueue(callback);
+			assertThat(callback.latch.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(callback.error.getAttemptCount(), is(2));
+			callback.latch = new CountDownLatch(1);
+			new ServiceCall<>(services.items()).enqueue(callback);
+			assertThat(callback.latch.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(callback.error.getErrorCode(), is(500));
+			assertThat(callback.error.getAttemptCount(), is(1));
+			assertThat(callback.error.getTotalLatency(), is(0L));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testCancelCallQueuedByCallLimiter() throws Exception {
+		final CountDownLatch responseLatch = new CountDownLatch(1);
+		final MockWebServer server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+
+			@Override
+			public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+				responseLatch.await(5, TimeUnit.SECONDS);
+				return new MockResponse().setBody("items");
+			}
+		});
+		server.start();
+		try {
+			final TestServices services = createServices(server);
+			final CallLimiter limiter = new CallLimiter.Builder().maxConcurrentCalls(1).build();
+			final TestCallback<ResponseBody> firstCallback = new TestCallback<>();
+			final TestCallback<ResponseBody> secondCallback = new TestCallback<>();
+			new ServiceCall<>(services.items()).withCallLimiter(limiter).enqueue(firstCallback);
+			final ServiceCall<ResponseBody> secondCall = new ServiceCall<>(services.items()).withCallLimiter(limiter);
+			secondCall.enqueue(secondCallback);
+			assertThat(limiter.getQueueSize(), is(1));
+			secondCall.cancel();
+			assertThat(secondCallback.latch.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(secondCallback.error.isFailure(), is(true));
+			responseLatch.countDown();
+			assertThat(firstCallback.latch.await(5, TimeUnit.SECONDS), is(true));
+			assertThat(limiter.getActiveCount(), is(0));
+			assertThat(server.getRequestCount(), is(1));
+		} finally {
+			responseLatch.countDown();
+			server.shutdown();
+		}
+	}
+
+	private static TestServices createServices(final MockWebServer server) {
+		return new Retrofit.Builder()
+				.baseUrl(server.url("/"))
+				.callbackExecutor(new Executor() {
+
+					@Override
+					public void execute(@NonNull final Runnable command) {
+						command.run();
+					}
+				})
+				.build()
+				.create(TestServices.class);
+	}
+
+	private static RetryPolicy createRetryPolicy(final int maxAttempts) {
+		return new RetryPolicy.Builder()
+				.maxAttempts(maxAttempts)
+				.initialBackoff(10, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	private interface TestServices {
+
+		@GET("items")
+		Call<ResponseBody> items();
+	}
+
+	private static final class TestCallback<T> extends ServiceCallback<T> {
+
+		CountDownLatch latch = new CountDownLatch(1);
+		ServiceError error;
+
+		@Override
+		protected void onDispatchResponse(@NonNull final T responseBody) {
+			latch.countDown();
+		}
+
+		@Override
+		protected void onDispatchError(@NonNull final ServiceError error) {
+			this.error = error;
+			latch.countDown();
+		}
 	}
 }
@@ -22,8 +22,22 @@ import android.support.test.runner.AndroidJUnit4;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Converter;
+import universum.studios.android.officium.OfficiumConfig;
+import universum.studios.android.officium.service.circuit.CircuitOpenException;
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
@@ -33,8 +47,118 @@ public final class ServiceErrorTest extends BaseInstrumentedTest {
 	@SuppressWarnings("unused")
 	private static final String TAG = "ServiceErrorTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	@Test
+	public void testCircuitOpenFailure() {
+		assertThat(new ServiceError(new CircuitOpenException("key")).isCircuitOpen(), is(true));
+		assertThat(new ServiceError(new IOException()).isCircuitOpen(), is(false));
+	}
+
+	@Test
+	public void testDefaultAttempts() {
+		final ServiceError error = new ServiceError(new IOException());
+		assertThat(error.getAttemptCount(), is(1));
+		assertThat(error.getTotalLatency(), is(0L));
+	}
+
+	@Test
+	public void testErrorBodyMayBeReadMultipleTimes() throws Exception {
+		final ServiceError error = new ServiceError(400, ResponseBody.create(MediaType.parse("text/plain"), "bad request"));
+		assertThat(error.getErrorBody().string(), is("bad request"));
+		assertThat(error.getErrorBody().string(), is("bad request"));
+		assertThat(error.getErrorBytes().utf8(), is("bad request"));
+		assertThat(error.getErrorBody().contentType().toString(), is("text/plain"));
+		assertThat(error.isErrorBodyTruncated(), is(false));
+	}
+
+	@Test
+	public void testErrorBodyIsClosedWhenCaptured() {
+		final Buffer source = new Buffer().writeUtf8("error");
+		final ServiceError error = new ServiceError(500, ResponseBody.create(null, source.size(), source));
+		assertThat(error.getErrorBytes().utf8(), is("error"));
+		assertThat(source.size(), is(0L));
+	}
+
+	@Test
+	public void testLargeErrorBodyIsTruncated() {
+		final byte[] bytes = new byte[(int) ServiceError.MAX_ERROR_BODY_SIZE + 10];
+		final ServiceError error = new ServiceError(500, ResponseBody.create(null, bytes));
+		assertThat(error.getErrorBytes().size(), is((int) ServiceError.MAX_ERROR_BODY_SIZE));
+		assertThat(error.isErrorBodyTruncated(), is(true));
+	}
+
+	@Test
+	public void testErrorBodyIsConvertedOnlyOnce() {
+		final AtomicInteger conversions = new AtomicInteger();
+		final ServiceError error = new ServiceError(400, ResponseBody.create(null, "bad request"));
+		error.setErrorBodyConverter(new Converter<ResponseBody, String>() {
+
+			@Override
+			public String convert(final ResponseBody body) throws IOException {
+				conversions.incrementAndGet();
+				return body.string();
+			}
+		});
+		final String first = error.getErrorBodyAs(String.class);
+		assertThat(first, is("bad request"));
+		assertSame(first, error.getErrorBodyAs(String.class));
+		assertSame(first, new ServiceError(error).getErrorBodyAs(String.class));
+		assertThat(conversions.get(), is(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testErrorBodyAsMismatchedClass() {
+		final ServiceError error = new ServiceError(400, ResponseBody.create(null, "bad request"));
+		error.setErrorBodyConverter(new Converter<ResponseBody, String>() {
+
+			@Override
+			public String convert(final ResponseBody body) throws IOException {
+				return body.string();
+			}
+		});
+		error.getErrorBodyAs(Integer.class);
+	}
+
+	@Test
+	public void testRecycledErrorIsReused() {
+		final ServiceError error = ServiceError.obtain(new IOException());
+		error.setServiceId(1);
+		error.setRequestId("request");
+		error.recycle();
+		assertThat(error.isRecycled(), is(true));
+		final ServiceError reused = ServiceError.obtain(500, ResponseBody.create(null, "error"));
+		assertSame(error, reused);
+		assertThat(reused.isRecycled(), is(false));
+		assertThat(reused.isError(), is(true));
+		assertThat(reused.getErrorCode(), is(500));
+		assertThat(reused.getServiceId(), is(ServiceError.NO_SERVICE));
+		assertThat(reused.getRequestId(), is(ServiceError.NO_REQUEST));
+		reused.recycle();
+	}
+
+	@Test
+	public void testRecycleOfNotObtainedError() {
+		final ServiceError error = new ServiceError(new IOException());
+		error.recycle();
+		assertThat(error.isRecycled(), is(false));
+		assertThat(ServiceError.obtain(new IOException()), is(not(error)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRecycleTwice() {
+		final ServiceError error = ServiceError.obtain(new IOException());
+		error.recycle();
+		error.recycle();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUseAfterRecycleWithDebugChecks() {
+		final ServiceError error = ServiceError.obtain(new IOException());
+		error.recycle();
+		OfficiumConfig.DEBUG_RECYCLING_CHECKS_ENABLED = true;
+		try {
+			error.isFailure();
+		} finally {
+			OfficiumConfig.DEBUG_RECYCLING_CHECKS_ENABLED = false;
+		}
 	}
 }
@@ -16,14 +16,35 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.service; 
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
 import android.support.test.runner.AndroidJUnit4;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.lang.annotation.Annotation;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Converter;
+import retrofit2.http.GET;
+import universum.studios.android.officium.service.converter.JsonConverterFactory;
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
@@ -32,9 +53,148 @@ public final class ServiceManagerTest extends BaseInstrumentedTest {
     
 	@SuppressWarnings("unused")
 	private static final String TAG = "ServiceManagerTest";
+	private static final EndPoint END_POINT = new EndPoint() {
+
+		@NonNull
+		@Override
+		public String getBaseUrl() {
+			return "http://localhost/";
+		}
+	};
+
+	@Test
+	public void testServices() {
+		final ServiceManager manager = new ServiceManager(END_POINT);
+		final TestServices services = manager.services(TestServices.class);
+		assertThat(services, is(not((TestServices) null)));
+		assertThat(manager.services(TestServices.class), sameInstance(services));
+	}
+
+	@Test
+	public void testServicesConfiguration() {
+		final ServiceManager manager = new ServiceManager(END_POINT);
+		final ServiceManager.ServicesConfiguration<TestServices> configuration = manager.servicesConfiguration(TestServices.class);
+		assertThat(manager.servicesConfiguration(TestServices.class), sameInstance(configuration));
+		assertThat(configuration.retrofit(), sameInstance(configuration.retrofit()));
+	}
+
+	@Test
+	public void testServicesAfterInvalidate() {
+		final ServiceManager manager = new ServiceManager(END_POINT);
+		final TestServices services = manager.services(TestServices.class);
+		manager.servicesConfiguration(TestServices.class).invalidate();
+		final TestServices newServices = manager.services(TestServices.class);
+		assertThat(newServices, is(not(sameInstance(services))));
+		assertThat(manager.services(TestServices.class), sameInstance(newServices));
+	}
+
+	@Test
+	public void testServicesConfigurationCreatedOnceForConcurrentAccess() throws Exception {
+		final AtomicInteger creationsCount = new AtomicInteger(0);
+		final ServiceManager manager = new ServiceManager(END_POINT) {
+
+			@NonNull
+			@Override
+			protected ServicesConfiguration onCreateServicesConfiguration(@NonNull final Class<?> servicesInterface) {
+				creationsCount.incrementAndGet();
+				return super.onCreateServicesConfiguration(servicesInterface);
+			}
+		};
+		final int threadsCount = 16;
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch finishLatch = new CountDownLatch(threadsCount);
+		final TestServices[] services = new TestServices[threadsCount];
+		for (int i = 0; i < threadsCount; i++) {
+			final int index = i;
+			new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+						services[index] = manager.services(TestServices.class);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						finishLatch.countDown();
+					}
+				}
+			}).start();
+		}
+		startLatch.countDown();
+		finishLatch.await();
+		assertThat(creationsCount.get(), is(1));
+		for (final TestServices threadServices : services) {
+			assertThat(threadServices, sameInstance(services[0]));
+		}
+	}
+
+	@Test
+	public void testServicesCallsWithRetryPolicy() {
+		final ServiceManager manager = new ServiceManager(END_POINT);
+		final TestServices services = manager.services(TestServices.class);
+		assertThat(services.items() instanceof ServiceCall, is(false));
+		final RetryPolicy policy = new RetryPolicy.Builder().build();
+		manager.servicesConfiguration(TestServices.class).setRetryPolicy(policy);
+		final Call<Void> call = services.items();
+		assertThat(call instanceof ServiceCall, is(true));
+		assertThat(new ServiceCall<>(call).getRetryPolicy(), is(policy));
+	}
+
+	@Test
+	public void testServicesConfigurationWithConverterFactory() {
+		final ServiceManager manager = new ServiceManager(END_POINT);
+		final ServiceManager.ServicesConfiguration<TestServices> configuration = manager.servicesConfiguration(TestServices.class);
+		final JsonConverterFactory factory = JsonConverterFactory.create();
+		configuration.setConverterFactory(factory);
+		assertThat(configuration.getConverterFactory(), is((Converter.Factory) factory));
+		assertThat(configuration.retrofit().responseBodyConverter(ErrorResponse.class, new Annotation[0]), is(notNullValue()));
+	}
+
+	@Test
+	public void testPrewarm() throws Exception {
+		final ServiceManager manager = new ServiceManager(END_POINT);
+		final Future<?> future = manager.prewarm(TestServices.class);
+		future.get(5, TimeUnit.SECONDS);
+		assertThat(future.isDone(), is(true));
+		final ServiceManager.ServicesConfiguration<TestServices> configuration = manager.servicesConfiguration(TestServices.class);
+		assertThat(manager.services(TestServices.class), sameInstance(manager.services(TestServices.class)));
+		assertThat(configuration.retrofit(), sameInstance(configuration.retrofit()));
+	}
+
+	@Test(expected = ExecutionException.class)
+	public void testPrewarmWithInvalidServices() throws Exception {
+		new ServiceManager(END_POINT).prewarm(InvalidServices.class).get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testPrewarmWithConnectionPriming() throws Exception {
+		final MockWebServer server = new MockWebServer();
+		server.enqueue(new MockResponse());
+		server.enqueue(new MockResponse());
+		server.start();
+		try {
+			final ServiceManager manager = new ServiceManager();
+			manager.setEndPoint(server.url("/").toString());
+			manager.prewarm(true, TestServices.class).get(5, TimeUnit.SECONDS);
+			assertThat(server.takeRequest().getMethod(), is("HEAD"));
+			assertThat(manager.getConnectionStats().getOpenedCount(), is(1L));
+			manager.services(TestServices.class).items().execute();
+			assertThat(manager.getConnectionStats().getOpenedCount(), is(1L));
+			assertThat(manager.getConnectionStats().getReusedCount(), is(1L));
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	private interface TestServices {
+
+		@GET("items")
+		Call<Void> items();
+	}
+
+	private interface InvalidServices {
 
-    @Test
-	public void test() {
-		// todo:: implement test
+		Call<Void> items();
 	}
 }
@@ -0,0 +1,191 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.JsonReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class StreamingServiceCallbackTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "StreamingServiceCallbackTest";
+
+	private MockWebServer mServer;
+	private TestServices mServices;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mServer = new MockWebServer();
+		mServer.start();
+		this.mServices = new Retrofit.Builder()
+				.baseUrl(mServer.url("/"))
+				.callbackExecutor(new Executor() {
+
+					@Override
+					public void execute(@NonNull final Runnable command) {
+						command.run();
+					}
+				})
+				.build()
+				.create(TestServices.class);
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testElementsAreDispatchedInOrder() throws Exception {
+		mServer.enqueue(new MockResponse().setBody(createArray(50000)));
+		final TestCallback callback = new TestCallback(-1);
+		mServices.numbers().enqueue(callback);
+		assertThat(callback.latch.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(callback.error, is(nullValue()));
+		assertThat(callback.count, is(50000));
+		assertThat(callback.elements.size(), is(50000));
+		for (int i = 0; i < callback.elements.size(); i++) {
+			assertThat(callback.elements.get(i), is(i));
+		}
+	}
+
+	@Test
+	public void testReadingStopsWhenDispatchReturnsFalse() throws Exception {
+		mServer.enqueue(new MockResponse().setBody(createArray(1000)));
+		final TestCallback callback = new TestCallback(10);
+		mServices.numbers().enqueue(callback);
+		assertThat(callback.stopLatch.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(callback.elements.size(), is(10));
+		assertThat(callback.isCanceled(), is(true));
+		assertThat(callback.latch.await(100, TimeUnit.MILLISECONDS), is(false));
+	}
+
+	@Test
+	public void testMalformedBodyDispatchesError() throws Exception {
+		mServer.enqueue(new MockResponse().setBody("[1, 2, {"));
+		final TestCallback callback = new TestCallback(-1);
+		mServices.numbers().enqueue(callback);
+		assertThat(callback.latch.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(callback.error, is(notNullValue()));
+		assertThat(callback.error.isFailure(), is(true));
+		assertThat(callback.elements.size(), is(2));
+	}
+
+	@Test
+	public void testUnsuccessfulResponseDispatchesError() throws Exception {
+		mServer.enqueue(new MockResponse().setResponseCode(404));
+		final TestCallback callback = new TestCallback(-1);
+		mServices.numbers().enqueue(callback);
+		assertThat(callback.latch.await(10, TimeUnit.SECONDS), is(true));
+		assertThat(callback.error, is(notNullValue()));
+		assertThat(callback.error.getErrorCode(), is(404));
+	}
+
+	private static String createArray(final int size) {
+		final StringBuilder builder = new StringBuilder(size * 6);
+		builder.append("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) builder.append(",");
+			builder.append(i);
+		}
+		return builder.append("]").toString();
+	}
+
+	private interface TestServices {
+
+		@Streaming
+		@GET("numbers")
+		Call<ResponseBody> numbers();
+	}
+
+	private static final class TestCallback extends StreamingServiceCallback<Integer> {
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CountDownLatch stopLatch = new CountDownLatch(1);
+		final List<Integer> elements = new ArrayList<>();
+		final int stopAfter;
+		ServiceError error;
+		int count;
+
+		TestCallback(final int stopAfter) {
+			this.stopAfter = stopAfter;
+		}
+
+		@NonNull
+		@Override
+		protected Integer onReadElement(@NonNull final JsonReader reader) throws IOException {
+			return reader.nextInt();
+		}
+
+		@Override
+		protected boolean onDispatchElement(@NonNull final Integer element) {
+			elements.add(element);
+			if (elements.size() == stopAfter) {
+				stopLatch.countDown();
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		protected void onDispatchComplete(final int count) {
+			this.count = count;
+			latch.countDown();
+		}
+
+		@Override
+		protected void onDispatchError(@NonNull final ServiceError error) {
+			this.error = error;
+			latch.countDown();
+		}
+	}
+}
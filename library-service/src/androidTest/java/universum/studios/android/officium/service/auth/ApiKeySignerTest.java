@@ -0,0 +1,64 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import okhttp3.Request;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class ApiKeySignerTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "ApiKeySignerTest";
+
+	@Test
+	public void testSign() {
+		final Request signed = new ApiKeySigner("key").sign(createRequest());
+		assertThat(signed.header(ApiKeySigner.DEFAULT_HEADER_NAME), is("key"));
+	}
+
+	@Test
+	public void testSignWithCustomHeaderName() {
+		final Request signed = new ApiKeySigner("Api-Key", "key").sign(createRequest());
+		assertThat(signed.header("Api-Key"), is("key"));
+	}
+
+	@Test
+	public void testSignDoesNotRebuildAlreadySignedRequest() {
+		final ApiKeySigner signer = new ApiKeySigner("key");
+		final Request signed = signer.sign(createRequest());
+		assertThat(signer.sign(signed), is(sameInstance(signed)));
+	}
+
+	private static Request createRequest() {
+		return new Request.Builder().url("http://localhost/items").build();
+	}
+}
@@ -16,14 +16,28 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.service.auth; 
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.test.runner.AndroidJUnit4;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
@@ -33,8 +47,58 @@ public final class AuthRequestInterceptorTest extends BaseInstrumentedTest {
 	@SuppressWarnings("unused")
 	private static final String TAG = "AuthRequestInterceptorTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	private MockWebServer mServer;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mServer = new MockWebServer();
+		mServer.start();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testInterceptWithToken() throws Exception {
+		final RecordedRequest request = execute(new AuthRequestInterceptor(new TestTokenProvider("token")));
+		assertThat(request.getHeader("Authorization"), is("Bearer token"));
+	}
+
+	@Test
+	public void testInterceptWithoutToken() throws Exception {
+		final RecordedRequest request = execute(new AuthRequestInterceptor(AuthTokenProvider.UNAUTHORIZED));
+		assertThat(request.getHeader("Authorization"), is(nullValue()));
+	}
+
+	@Test
+	public void testInterceptWithSigner() throws Exception {
+		final RecordedRequest request = execute(new AuthRequestInterceptor(new ApiKeySigner("key")));
+		assertThat(request.getHeader(ApiKeySigner.DEFAULT_HEADER_NAME), is("key"));
+	}
+
+	private RecordedRequest execute(final AuthRequestInterceptor interceptor) throws Exception {
+		mServer.enqueue(new MockResponse());
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+		client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute().close();
+		return mServer.takeRequest();
+	}
+
+	private static final class TestTokenProvider implements AuthTokenProvider {
+
+		final String token;
+
+		TestTokenProvider(@NonNull final String token) {
+			this.token = token;
+		}
+
+		@Nullable
+		@Override
+		public String peekToken() {
+			return token;
+		}
 	}
 }
@@ -0,0 +1,216 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.Nullable;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class AuthTokenAuthenticatorTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "AuthTokenAuthenticatorTest";
+
+	private static final int REQUESTS_COUNT = 100;
+	private static final String STALE_TOKEN = "stale";
+	private static final String VALID_TOKEN = "valid";
+
+	private MockWebServer mServer;
+	private AtomicInteger mRejectedCount;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mRejectedCount = new AtomicInteger(0);
+		this.mServer = new MockWebServer();
+		mServer.setDispatcher(new Dispatcher() {
+
+			@Override
+			public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+				if (("Bearer " + VALID_TOKEN).equals(request.getHeader("Authorization"))) {
+					return new MockResponse().setBody("authorized");
+				}
+				mRejectedCount.incrementAndGet();
+				return new MockResponse().setResponseCode(401).setBody("unauthorized");
+			}
+		});
+		mServer.start();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testConcurrentUnauthorizedRequestsShareSingleRefresh() throws Exception {
+		final TestTokenProvider provider = new TestTokenProvider(VALID_TOKEN);
+		final AuthTokenAuthenticator authenticator = new AuthTokenAuthenticator(provider);
+		provider.authenticator = authenticator;
+		final String[] results = executeConcurrently(provider, authenticator);
+		for (final String result : results) {
+			assertThat(result, is("200:authorized"));
+		}
+		assertThat(provider.refreshCount.get(), is(1));
+		assertThat(authenticator.getRefreshCount(), is(1L));
+		assertThat(mRejectedCount.get(), is(REQUESTS_COUNT));
+		assertThat(mServer.getRequestCount(), is(REQUESTS_COUNT * 2));
+	}
+
+	@Test
+	public void testConcurrentUnauthorizedRequestsFailTogetherWhenRefreshFails() throws Exception {
+		final TestTokenProvider provider = new TestTokenProvider(null);
+		final AuthTokenAuthenticator authenticator = new AuthTokenAuthenticator(provider);
+		provider.authenticator = authenticator;
+		final String[] results = executeConcurrently(provider, authenticator);
+		for (final String result : results) {
+			assertThat(result, is("401:unauthorized"));
+		}
+		assertThat(provider.refreshCount.get(), is(1));
+		assertThat(mServer.getRequestCount(), is(REQUESTS_COUNT));
+	}
+
+	@Test
+	public void testRequestWithAlreadyRefreshedTokenIsReplayedWithoutRefresh() throws Exception {
+		final TestTokenProvider provider = new TestTokenProvider(VALID_TOKEN);
+		final AuthTokenAuthenticator authenticator = new AuthTokenAuthenticator(provider);
+		final OkHttpClient client = new OkHttpClient.Builder().authenticator(authenticator).build();
+		provider.token = VALID_TOKEN;
+		final Response response = client.newCall(new Request.Builder()
+				.url(mServer.url("/"))
+				.header("Authorization", "Bearer " + STALE_TOKEN)
+				.build()
+		).execute();
+		assertThat(response.code(), is(200));
+		assertThat(response.body().string(), is("authorized"));
+		assertThat(provider.refreshCount.get(), is(0));
+	}
+
+	@Test
+	public void testRequestIsReplayedAtMostOnce() throws Exception {
+		final TestTokenProvider provider = new TestTokenProvider("invalid");
+		final AuthTokenAuthenticator authenticator = new AuthTokenAuthenticator(provider);
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new AuthRequestInterceptor(provider))
+				.authenticator(authenticator)
+				.build();
+		final Response response = client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute();
+		assertThat(response.code(), is(401));
+		response.close();
+		assertThat(provider.refreshCount.get(), is(1));
+		assertThat(mServer.getRequestCount(), is(2));
+	}
+
+	private String[] executeConcurrently(final TestTokenProvider provider, final AuthTokenAuthenticator authenticator) throws Exception {
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new AuthRequestInterceptor(provider))
+				.authenticator(authenticator)
+				.build();
+		final String[] results = new String[REQUESTS_COUNT];
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>(REQUESTS_COUNT);
+		for (int i = 0; i < REQUESTS_COUNT; i++) {
+			final int index = i;
+			final Thread thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+						final Response response = client.newCall(new Request.Builder().url(mServer.url("/")).build()).execute();
+						results[index] = response.code() + ":" + response.body().string();
+					} catch (Exception e) {
+						results[index] = e.toString();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		startLatch.countDown();
+		for (final Thread thread : threads) {
+			thread.join(10000);
+		}
+		return results;
+	}
+
+	private final class TestTokenProvider implements RefreshableAuthTokenProvider {
+
+		final AtomicInteger refreshCount = new AtomicInteger(0);
+		final String refreshedToken;
+		volatile String token = STALE_TOKEN;
+		volatile AuthTokenAuthenticator authenticator;
+
+		TestTokenProvider(final String refreshedToken) {
+			this.refreshedToken = refreshedToken;
+		}
+
+		@Nullable
+		@Override
+		public String peekToken() {
+			return token;
+		}
+
+		@Nullable
+		@Override
+		public String refreshToken(@Nullable final String staleToken) throws IOException {
+			refreshCount.incrementAndGet();
+			// Hold the refresh until all other rejected requests are parked.
+			final long deadline = System.currentTimeMillis() + 5000;
+			while (authenticator != null && authenticator.getParkedCount() < REQUESTS_COUNT - 1 && System.currentTimeMillis() < deadline) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			if (refreshedToken != null) {
+				this.token = refreshedToken;
+			}
+			return refreshedToken;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.Nullable;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import okhttp3.Request;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class BearerTokenSignerTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "BearerTokenSignerTest";
+
+	private static final int SIGNS_COUNT = 10000;
+
+	@Test
+	public void testSign() {
+		final TestTokenProvider provider = new TestTokenProvider();
+		provider.token = "token";
+		final Request signed = new BearerTokenSigner(provider).sign(createRequest());
+		assertThat(signed.header("Authorization"), is("Bearer token"));
+	}
+
+	@Test
+	public void testSignWithoutToken() {
+		final Request request = createRequest();
+		final Request signed = new BearerTokenSigner(new TestTokenProvider()).sign(request);
+		assertThat(signed, is(sameInstance(request)));
+		assertThat(signed.header("Authorization"), is(nullValue()));
+	}
+
+	@Test
+	public void testSignReusesHeaderValueForSameToken() {
+		final TestTokenProvider provider = new TestTokenProvider();
+		provider.token = "token";
+		final BearerTokenSigner signer = new BearerTokenSigner(provider);
+		final String headerValue = signer.sign(createRequest()).header("Authorization");
+		for (int i = 0; i < SIGNS_COUNT; i++) {
+			assertThat(signer.sign(createRequest()).header("Authorization"), is(sameInstance(headerValue)));
+		}
+	}
+
+	@Test
+	public void testSignComputesNewHeaderValueWhenTokenChanges() {
+		final TestTokenProvider provider = new TestTokenProvider();
+		provider.token = "token";
+		final BearerTokenSigner signer = new BearerTokenSigner(provider);
+		final String headerValue = signer.sign(createRequest()).header("Authorization");
+		provider.token = "refreshed";
+		final String refreshedHeaderValue = signer.sign(createRequest()).header("Authorization");
+		assertThat(refreshedHeaderValue, is(not(headerValue)));
+		assertThat(refreshedHeaderValue, is("Bearer refreshed"));
+	}
+
+	@Test
+	public void testSignDoesNotRebuildAlreadySignedRequest() {
+		final TestTokenProvider provider = new TestTokenProvider();
+		provider.token = "token";
+		final BearerTokenSigner signer = new BearerTokenSigner(provider);
+		final Request signed = signer.sign(createRequest());
+		assertThat(signer.sign(signed), is(sameInstance(signed)));
+	}
+
+	private static Request createRequest() {
+		return new Request.Builder().url("http://localhost/items").build();
+	}
+
+	private static final class TestTokenProvider implements AuthTokenProvider {
+
+		volatile String token;
+
+		@Nullable
+		@Override
+		public String peekToken() {
+			return token;
+		}
+	}
+}
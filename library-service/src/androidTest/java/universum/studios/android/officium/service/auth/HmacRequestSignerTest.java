@@ -0,0 +1,92 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.Charset;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.ByteString;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class HmacRequestSignerTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "HmacRequestSignerTest";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final byte[] SECRET = "secret".getBytes(UTF_8);
+	private static final long TIMESTAMP = 1500000000L;
+
+	@Test
+	public void testSignRequestWithoutBody() throws Exception {
+		final HmacRequestSigner signer = new HmacRequestSigner.Builder("key-id", SECRET).build();
+		final Request signed = signer.sign(new Request.Builder().url("http://localhost/items?page=1").build(), TIMESTAMP);
+		assertThat(signed.header("X-Timestamp"), is(Long.toString(TIMESTAMP)));
+		assertThat(signed.header("Authorization"), is("HMAC key-id:" + hmac("GET\n/items?page=1\n" + TIMESTAMP + "\n")));
+	}
+
+	@Test
+	public void testSignRequestWithBody() throws Exception {
+		final HmacRequestSigner signer = new HmacRequestSigner.Builder("key-id", SECRET)
+				.scheme("Signature")
+				.headerName("X-Signature")
+				.timestampHeaderName("X-Signature-Timestamp")
+				.build();
+		final Request signed = signer.sign(new Request.Builder()
+				.url("http://localhost/items")
+				.post(RequestBody.create(MediaType.parse("text/plain"), "body"))
+				.build(), TIMESTAMP);
+		final String bodyHash = ByteString.encodeUtf8("body").sha256().hex();
+		assertThat(signed.header("X-Signature-Timestamp"), is(Long.toString(TIMESTAMP)));
+		assertThat(signed.header("X-Signature"), is("Signature key-id:" + hmac("POST\n/items\n" + TIMESTAMP + "\n" + bodyHash)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildWithUnsupportedAlgorithm() {
+		new HmacRequestSigner.Builder("key-id", SECRET).algorithm("HmacUnknown").build();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildWithEmptySecret() {
+		new HmacRequestSigner.Builder("key-id", new byte[0]).build();
+	}
+
+	private static String hmac(final String data) throws Exception {
+		final Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+		return ByteString.of(mac.doFinal(data.getBytes(UTF_8))).base64();
+	}
+}
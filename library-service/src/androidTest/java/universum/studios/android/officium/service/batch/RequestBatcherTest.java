@@ -0,0 +1,179 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.batch;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class RequestBatcherTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "RequestBatcherTest";
+
+	private static final MediaType TEXT = MediaType.parse("text/plain");
+
+	private MockWebServer mServer;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mServer = new MockWebServer();
+		mServer.setDispatcher(new Dispatcher() {
+
+			@Override
+			public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+				if ("/batch".equals(request.getPath())) {
+					final StringBuilder body = new StringBuilder();
+					for (final String path : request.getBody().readUtf8().split("\n")) {
+						body.append("item:").append(path).append("\n");
+					}
+					return new MockResponse().setBody(body.toString());
+				}
+				return new MockResponse().setBody("item:" + request.getPath() + "\n");
+			}
+		});
+		mServer.start();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testConcurrentRequestsAreSentInSingleBatch() throws Exception {
+		final RequestBatcher batcher = new RequestBatcher(new LinesCodec(), 3, 5, TimeUnit.SECONDS);
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(batcher).build();
+		final String[] bodies = new String[3];
+		final Thread[] threads = new Thread[bodies.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						bodies[index] = execute(client, "/items/" + index);
+					} catch (IOException e) {
+						bodies[index] = e.toString();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads) {
+			thread.join(5000);
+		}
+		for (int i = 0; i < bodies.length; i++) {
+			assertThat(bodies[i], is("item:/items/" + i + "\n"));
+		}
+		assertThat(mServer.getRequestCount(), is(1));
+		assertThat(batcher.getBatchCount(), is(1L));
+		assertThat(batcher.getBatchedRequestCount(), is(3L));
+	}
+
+	@Test
+	public void testSingleRequestIsSentAsItIs() throws Exception {
+		final RequestBatcher batcher = new RequestBatcher(new LinesCodec(), 3, 10, TimeUnit.MILLISECONDS);
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(batcher).build();
+		assertThat(execute(client, "/items/0"), is("item:/items/0\n"));
+		assertThat(mServer.takeRequest().getPath(), is("/items/0"));
+		assertThat(batcher.getBatchCount(), is(0L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInstantiationWithInvalidBatchSize() {
+		new RequestBatcher(new LinesCodec(), 1, 10, TimeUnit.MILLISECONDS);
+	}
+
+	private String execute(final OkHttpClient client, final String path) throws IOException {
+		final Response response = client.newCall(new Request.Builder().url(mServer.url(path)).build()).execute();
+		try {
+			return response.body().string();
+		} finally {
+			response.close();
+		}
+	}
+
+	private final class LinesCodec implements BatchCodec {
+
+		@Override
+		public boolean isBatchable(@NonNull final Request request) {
+			return "GET".equals(request.method());
+		}
+
+		@NonNull
+		@Override
+		public Request encode(@NonNull final List<Request> requests) throws IOException {
+			final StringBuilder body = new StringBuilder();
+			for (final Request request : requests) {
+				body.append(request.url().encodedPath()).append("\n");
+			}
+			return new Request.Builder().url(mServer.url("/batch")).post(RequestBody.create(TEXT, body.toString())).build();
+		}
+
+		@NonNull
+		@Override
+		public List<Response> decode(@NonNull final List<Request> requests, @NonNull final Response batchResponse) throws IOException {
+			final String[] lines = batchResponse.body().string().split("\n");
+			final List<Response> responses = new ArrayList<>(lines.length);
+			for (int i = 0; i < lines.length; i++) {
+				responses.add(new Response.Builder()
+						.request(requests.get(i))
+						.protocol(Protocol.HTTP_1_1)
+						.code(200)
+						.message("OK")
+						.body(ResponseBody.create(TEXT, lines[i] + "\n"))
+						.build());
+			}
+			return responses;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.cache;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class CachePolicyTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "CachePolicyTest";
+
+	@Test
+	public void testFreshness() {
+		final CachePolicy policy = new CachePolicy.Builder()
+				.timeToLive(1, TimeUnit.SECONDS)
+				.staleWhileRevalidate(2, TimeUnit.SECONDS)
+				.build();
+		assertThat(policy.isFresh(0), is(true));
+		assertThat(policy.isFresh(1000), is(true));
+		assertThat(policy.isFresh(1001), is(false));
+		assertThat(policy.isStaleUsable(1000), is(false));
+		assertThat(policy.isStaleUsable(1001), is(true));
+		assertThat(policy.isStaleUsable(3000), is(true));
+		assertThat(policy.isStaleUsable(3001), is(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildWithNegativeTimeToLive() {
+		new CachePolicy.Builder().timeToLive(-1, TimeUnit.SECONDS).build();
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.cache;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class ResponseCacheInterceptorTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "ResponseCacheInterceptorTest";
+
+	private MockWebServer mServer;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mServer = new MockWebServer();
+		mServer.start();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testFreshResponseIsServedFromCache() throws Exception {
+		mServer.enqueue(new MockResponse().setBody("items"));
+		final ResponseCache cache = new ResponseCache.Builder().build();
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new ResponseCacheInterceptor(cache, new CachePolicy.Builder().timeToLive(1, TimeUnit.MINUTES).build(), null))
+				.build();
+		for (int i = 0; i < 5; i++) {
+			assertThat(execute(client, "/items?a=1&b=2"), is("items"));
+		}
+		assertThat(execute(client, "/items?b=2&a=1"), is("items"));
+		assertThat(mServer.getRequestCount(), is(1));
+		assertThat(cache.getMissCount(), is(1L));
+		assertThat(cache.getHitCount(), is(5L));
+	}
+
+	@Test
+	public void testExpiredResponseIsRequestedAgain() throws Exception {
+		mServer.enqueue(new MockResponse().setBody("first"));
+		mServer.enqueue(new MockResponse().setBody("second"));
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new ResponseCacheInterceptor(new ResponseCache.Builder().build(), new CachePolicy.Builder().build(), null))
+				.build();
+		assertThat(execute(client, "/items"), is("first"));
+		Thread.sleep(5);
+		assertThat(execute(client, "/items"), is("second"));
+		assertThat(mServer.getRequestCount(), is(2));
+	}
+
+	@Test
+	public void testStaleResponseIsServedWhileRevalidated() throws Exception {
+		mServer.enqueue(new MockResponse().setBody("first"));
+		mServer.enqueue(new MockResponse().setBody("second"));
+		final ResponseCache cache = new ResponseCache.Builder().build();
+		final CachePolicy policy = new CachePolicy.Builder().staleWhileRevalidate(1, TimeUnit.MINUTES).build();
+		final OkHttpClient revalidationClient = new OkHttpClient();
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new ResponseCacheInterceptor(cache, policy, revalidationClient))
+				.build();
+		assertThat(execute(client, "/items"), is("first"));
+		Thread.sleep(5);
+		assertThat(execute(client, "/items"), is("first"));
+		mServer.takeRequest(1, TimeUnit.SECONDS);
+		mServer.takeRequest(1, TimeUnit.SECONDS);
+		assertThat(mServer.getRequestCount(), is(2));
+	}
+
+	@Test
+	public void testNonGetRequestBypassesCache() throws Exception {
+		mServer.enqueue(new MockResponse().setBody("first"));
+		mServer.enqueue(new MockResponse().setBody("second"));
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new ResponseCacheInterceptor(new ResponseCache.Builder().build(), new CachePolicy.Builder().timeToLive(1, TimeUnit.MINUTES).build(), null))
+				.build();
+		for (int i = 0; i < 2; i++) {
+			final Response response = client.newCall(new Request.Builder().url(mServer.url("/items")).method("HEAD", null).build()).execute();
+			response.close();
+		}
+		assertThat(mServer.getRequestCount(), is(2));
+	}
+
+	@Test
+	public void testResponsesNotMeantForSharedReuseAreNotStored() throws Exception {
+		final MockResponse[] responses = {
+				new MockResponse().setHeader("Cache-Control", "no-cache"),
+				new MockResponse().setHeader("Cache-Control", "private"),
+				new MockResponse().setHeader("Set-Cookie", "session=1"),
+				new MockResponse().setHeader("Vary", "X-Client-Id"),
+				new MockResponse().setHeader("Vary", "*")
+		};
+		final ResponseCache cache = new ResponseCache.Builder().build();
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new ResponseCacheInterceptor(cache, new CachePolicy.Builder().timeToLive(1, TimeUnit.MINUTES).build(), null))
+				.build();
+		for (final MockResponse response : responses) {
+			mServer.enqueue(response.setBody("first"));
+			mServer.enqueue(new MockResponse().setBody("second"));
+			assertThat(execute(client, "/items"), is("first"));
+			assertThat(execute(client, "/items"), is("second"));
+			cache.evictAll();
+		}
+		assertThat(mServer.getRequestCount(), is(responses.length * 2));
+	}
+
+	@Test
+	public void testResponseVaryingOnKeyHeadersIsStored() throws Exception {
+		mServer.enqueue(new MockResponse().setHeader("Vary", "Accept, Accept-Language").setBody("items"));
+		final OkHttpClient client = new OkHttpClient.Builder()
+				.addInterceptor(new ResponseCacheInterceptor(new ResponseCache.Builder().build(), new CachePolicy.Builder().timeToLive(1, TimeUnit.MINUTES).build(), null))
+				.build();
+		assertThat(execute(client, "/items"), is("items"));
+		assertThat(execute(client, "/items"), is("items"));
+		assertThat(mServer.getRequestCount(), is(1));
+	}
+
+	private String execute(final OkHttpClient client, final String path) throws Exception {
+		final Response response = client.newCall(new Request.Builder().url(mServer.url(path)).build()).execute();
+		try {
+			return response.body().string();
+		} finally {
+			response.close();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.cache;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import okhttp3.Request;
+import okio.ByteString;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class ResponseCacheTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "ResponseCacheTest";
+
+	@Test
+	public void testKeyIgnoresQueryParametersOrder() {
+		final String first = ResponseCache.key(new Request.Builder().url("http://localhost/items?a=1&b=2").build());
+		final String second = ResponseCache.key(new Request.Builder().url("http://localhost/items?b=2&a=1").build());
+		assertThat(first, is(second));
+	}
+
+	@Test
+	public void testKeyDiffersByAuthorization() {
+		final String first = ResponseCache.key(new Request.Builder().url("http://localhost/items").header("Authorization", "first").build());
+		final String second = ResponseCache.key(new Request.Builder().url("http://localhost/items").header("Authorization", "second").build());
+		assertThat(first, is(not(second)));
+	}
+
+	@Test
+	public void testKeyDiffersByCookie() {
+		final String first = ResponseCache.key(new Request.Builder().url("http://localhost/items").header("Cookie", "session=1").build());
+		final String second = ResponseCache.key(new Request.Builder().url("http://localhost/items").header("Cookie", "session=2").build());
+		assertThat(first, is(not(second)));
+	}
+
+	@Test
+	public void testPutAndGet() {
+		final ResponseCache cache = new ResponseCache.Builder().build();
+		cache.put("key", createEntry(16));
+		assertThat(cache.get("key"), is(notNullValue()));
+		cache.remove("key");
+		assertThat(cache.get("key"), is(nullValue()));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		final ResponseCache cache = new ResponseCache.Builder().maxMemorySize(1024).maxEntrySize(512).build();
+		cache.put("first", createEntry(300));
+		cache.put("second", createEntry(300));
+		// Access first entry so the second one becomes the least recently used.
+		cache.get("first");
+		cache.put("third", createEntry(300));
+		assertThat(cache.get("first"), is(notNullValue()));
+		assertThat(cache.get("second"), is(nullValue()));
+		assertThat(cache.get("third"), is(notNullValue()));
+	}
+
+	private static ResponseCache.Entry createEntry(final int bodySize) {
+		return new ResponseCache.Entry(200, "OK", "text/plain", System.currentTimeMillis(), ByteString.of(new byte[bodySize]));
+	}
+}
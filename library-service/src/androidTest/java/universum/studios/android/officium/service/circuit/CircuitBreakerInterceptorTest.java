@@ -0,0 +1,105 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class CircuitBreakerInterceptorTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "CircuitBreakerInterceptorTest";
+
+	private MockWebServer mServer;
+
+	@Before
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mServer = new MockWebServer();
+		mServer.start();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mServer.shutdown();
+	}
+
+	@Test
+	public void testOpenCircuitFailsFast() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			mServer.enqueue(new MockResponse().setResponseCode(503));
+		}
+		final Circuit circuit = new CircuitBreaker.Builder()
+				.slidingWindowSize(2)
+				.minimumCalls(2)
+				.openDuration(1, TimeUnit.MINUTES)
+				.build()
+				.circuit(mServer.url("/").toString());
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new CircuitBreakerInterceptor(circuit)).build();
+		execute(client);
+		execute(client);
+		assertThat(circuit.getState(), is(Circuit.OPEN));
+		try {
+			execute(client);
+			fail("Request should be rejected by open circuit.");
+		} catch (CircuitOpenException e) {
+			assertThat(e.getCircuitKey(), is(circuit.getKey()));
+		}
+		assertThat(mServer.getRequestCount(), is(2));
+	}
+
+	@Test
+	public void testClientErrorsAreNotFailures() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			mServer.enqueue(new MockResponse().setResponseCode(404));
+		}
+		final Circuit circuit = new CircuitBreaker.Builder().slidingWindowSize(2).minimumCalls(2).build().circuit("key");
+		final OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new CircuitBreakerInterceptor(circuit)).build();
+		for (int i = 0; i < 3; i++) {
+			execute(client);
+		}
+		assertThat(circuit.getState(), is(Circuit.CLOSED));
+		assertThat(mServer.getRequestCount(), is(3));
+	}
+
+	private void execute(final OkHttpClient client) throws Exception {
+		client.newCall(new Request.Builder().url(mServer.url("/items")).build()).execute().close();
+	}
+}
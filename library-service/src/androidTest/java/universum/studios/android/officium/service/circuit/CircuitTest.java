@@ -0,0 +1,150 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class CircuitTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "CircuitTest";
+
+	@Test
+	public void testOpensWhenFailureRateReachesThreshold() {
+		final Circuit circuit = createBreaker(TimeUnit.MINUTES.toMillis(1)).circuit("key");
+		circuit.recordResult(false);
+		circuit.recordResult(true);
+		circuit.recordResult(false);
+		assertThat(circuit.getState(), is(Circuit.CLOSED));
+		circuit.recordResult(true);
+		assertThat(circuit.getState(), is(Circuit.OPEN));
+		assertThat(circuit.tryAcquirePermission(), is(false));
+	}
+
+	@Test
+	public void testSlidingWindowForgetsOldResults() {
+		final Circuit circuit = createBreaker(TimeUnit.MINUTES.toMillis(1)).circuit("key");
+		circuit.recordResult(true);
+		for (int i = 0; i < 10; i++) {
+			circuit.recordResult(false);
+		}
+		assertThat(circuit.getFailureRate(), is(0f));
+		assertThat(circuit.getState(), is(Circuit.CLOSED));
+	}
+
+	@Test
+	public void testHalfOpenClosesAfterSuccessfulTrials() {
+		final CircuitBreaker breaker = createBreaker(0);
+		final List<Integer> states = new ArrayList<>();
+		breaker.registerOnStateChangeListener(new OnCircuitStateChangeListener() {
+
+			@Override
+			public void onCircuitStateChanged(@NonNull final Circuit circuit, final int previousState, final int state) {
+				states.add(state);
+			}
+		});
+		final Circuit circuit = breaker.circuit("key");
+		openCircuit(circuit);
+		assertThat(circuit.tryAcquirePermission(), is(true));
+		assertThat(circuit.getState(), is(Circuit.HALF_OPEN));
+		assertThat(circuit.tryAcquirePermission(), is(true));
+		assertThat(circuit.tryAcquirePermission(), is(false));
+		circuit.recordResult(false);
+		circuit.recordResult(false);
+		assertThat(circuit.getState(), is(Circuit.CLOSED));
+		assertThat(states.size(), is(3));
+		assertThat(states.get(0), is(Circuit.OPEN));
+		assertThat(states.get(1), is(Circuit.HALF_OPEN));
+		assertThat(states.get(2), is(Circuit.CLOSED));
+	}
+
+	@Test
+	public void testHalfOpenReopensAfterFailedTrial() {
+		final Circuit circuit = createBreaker(0).circuit("key");
+		openCircuit(circuit);
+		assertThat(circuit.tryAcquirePermission(), is(true));
+		circuit.recordResult(true);
+		assertThat(circuit.getState(), is(Circuit.OPEN));
+	}
+
+	@Test
+	public void testHalfOpenReleasedPermission() {
+		final Circuit circuit = createBreaker(0).circuit("key");
+		openCircuit(circuit);
+		assertThat(circuit.tryAcquirePermission(), is(true));
+		assertThat(circuit.tryAcquirePermission(), is(true));
+		assertThat(circuit.tryAcquirePermission(), is(false));
+		circuit.releasePermission();
+		assertThat(circuit.getState(), is(Circuit.HALF_OPEN));
+		assertThat(circuit.tryAcquirePermission(), is(true));
+	}
+
+	@Test
+	public void testReset() {
+		final Circuit circuit = createBreaker(TimeUnit.MINUTES.toMillis(1)).circuit("key");
+		openCircuit(circuit);
+		circuit.reset();
+		assertThat(circuit.getState(), is(Circuit.CLOSED));
+		assertThat(circuit.tryAcquirePermission(), is(true));
+	}
+
+	@Test
+	public void testCircuitsByKey() {
+		final CircuitBreaker breaker = createBreaker(0);
+		assertThat(breaker.circuit("first"), sameInstance(breaker.circuit("first")));
+		assertThat(breaker.circuit("first") == breaker.circuit("second"), is(false));
+		assertThat(CircuitBreaker.key("http://localhost/", null), is("http://localhost/"));
+		assertThat(CircuitBreaker.key("http://localhost/", String.class), is("http://localhost/#java.lang.String"));
+	}
+
+	private static CircuitBreaker createBreaker(final long openDuration) {
+		return new CircuitBreaker.Builder()
+				.failureRateThreshold(50)
+				.slidingWindowSize(10)
+				.minimumCalls(4)
+				.openDuration(openDuration, TimeUnit.MILLISECONDS)
+				.halfOpenCalls(2)
+				.build();
+	}
+
+	private static void openCircuit(final Circuit circuit) {
+		for (int i = 0; i < 4; i++) {
+			circuit.recordResult(true);
+		}
+		assertThat(circuit.getState(), is(Circuit.OPEN));
+	}
+}
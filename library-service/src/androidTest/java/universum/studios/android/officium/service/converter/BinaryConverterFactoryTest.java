@@ -0,0 +1,121 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import retrofit2.Converter;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class BinaryConverterFactoryTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "BinaryConverterFactoryTest";
+
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testWriteAndRead() throws Exception {
+		final BinaryConverterFactory factory = new BinaryConverterFactory.Builder()
+				.registerAdapter(TestItem.class, new TestItemAdapter())
+				.build();
+		final Converter<TestItem, RequestBody> requestConverter = (Converter<TestItem, RequestBody>) factory.requestBodyConverter(TestItem.class, NO_ANNOTATIONS, NO_ANNOTATIONS, null);
+		final Converter<ResponseBody, TestItem> responseConverter = (Converter<ResponseBody, TestItem>) factory.responseBodyConverter(TestItem.class, NO_ANNOTATIONS, null);
+		final TestItem item = new TestItem();
+		item.id = -150;
+		item.name = "item";
+		item.enabled = true;
+		final RequestBody requestBody = requestConverter.convert(item);
+		assertThat(requestBody.contentType(), is(BinaryConverterFactory.MEDIA_TYPE));
+		final Buffer buffer = new Buffer();
+		requestBody.writeTo(buffer);
+		assertThat(buffer.size(), is(8L));
+		final TestItem readItem = responseConverter.convert(ResponseBody.create(null, buffer.size(), buffer));
+		assertThat(readItem.id, is(-150L));
+		assertThat(readItem.name, is("item"));
+		assertThat(readItem.enabled, is(true));
+	}
+
+	@Test
+	public void testUnregisteredType() {
+		final BinaryConverterFactory factory = new BinaryConverterFactory.Builder().build();
+		assertThat(factory.responseBodyConverter(TestItem.class, NO_ANNOTATIONS, null), is(nullValue()));
+	}
+
+	@Test
+	public void testVarints() throws Exception {
+		final Buffer buffer = new Buffer();
+		BinaryFormat.writeVarint(buffer, 300);
+		BinaryFormat.writeSignedVarint(buffer, Long.MIN_VALUE);
+		BinaryFormat.writeString(buffer, null);
+		BinaryFormat.writeString(buffer, "");
+		assertThat(BinaryFormat.readVarint(buffer), is(300L));
+		assertThat(BinaryFormat.readSignedVarint(buffer), is(Long.MIN_VALUE));
+		assertThat(BinaryFormat.readString(buffer), is(nullValue()));
+		assertThat(BinaryFormat.readString(buffer), is(""));
+		assertThat(buffer.size(), is(0L));
+	}
+
+	private static final class TestItem {
+
+		long id;
+		String name;
+		boolean enabled;
+	}
+
+	private static final class TestItemAdapter implements BinaryAdapter<TestItem> {
+
+		@Override
+		public TestItem read(@NonNull final BufferedSource source) throws IOException {
+			final TestItem item = new TestItem();
+			item.id = BinaryFormat.readSignedVarint(source);
+			item.name = BinaryFormat.readString(source);
+			item.enabled = BinaryFormat.readBoolean(source);
+			return item;
+		}
+
+		@Override
+		public void write(@NonNull final BufferedSink sink, @NonNull final TestItem value) throws IOException {
+			BinaryFormat.writeSignedVarint(sink, value.id);
+			BinaryFormat.writeString(sink, value.name);
+			BinaryFormat.writeBoolean(sink, value.enabled);
+		}
+	}
+}
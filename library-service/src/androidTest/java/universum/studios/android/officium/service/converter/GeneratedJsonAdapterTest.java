@@ -0,0 +1,105 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Converter;
+import universum.studios.android.officium.service.ServiceResponse;
+import universum.studios.android.officium.service.converter.generated.GeneratedJsonAdapters;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class GeneratedJsonAdapterTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "GeneratedJsonAdapterTest";
+
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+	@Test
+	public void testGeneratedAdapterIsRegistered() {
+		final JsonConverterFactory factory = GeneratedJsonAdapters.registerInto(new JsonConverterFactory.Builder()).build();
+		assertThat(factory.adapter(TestResponse.class), instanceOf(GeneratedJsonAdapterTest_TestResponse_JsonAdapter.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testWriteAndRead() throws Exception {
+		final JsonConverterFactory factory = GeneratedJsonAdapters.registerInto(new JsonConverterFactory.Builder()).build();
+		final Converter<TestResponse, RequestBody> requestConverter = (Converter<TestResponse, RequestBody>) factory.requestBodyConverter(TestResponse.class, NO_ANNOTATIONS, NO_ANNOTATIONS, null);
+		final Converter<ResponseBody, TestResponse> responseConverter = (Converter<ResponseBody, TestResponse>) factory.responseBodyConverter(TestResponse.class, NO_ANNOTATIONS, null);
+		final TestResponse response = new TestResponse();
+		response.id = 10;
+		response.name = "response";
+		response.score = 0.5f;
+		response.tags = Arrays.asList("first", "second");
+		response.child = new TestResponse();
+		response.child.id = 11;
+		final Buffer buffer = new Buffer();
+		requestConverter.convert(response).writeTo(buffer);
+		final TestResponse readResponse = responseConverter.convert(ResponseBody.create(null, buffer.readUtf8()));
+		assertThat(readResponse.id, is(10L));
+		assertThat(readResponse.name, is("response"));
+		assertThat(readResponse.score, is(0.5f));
+		assertThat(readResponse.count, is(nullValue()));
+		assertThat(readResponse.tags, is(response.tags));
+		assertThat(readResponse.child.id, is(11L));
+		assertThat(readResponse.child.child, is(nullValue()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testReadSkipsUnknownAndNullValues() throws Exception {
+		final JsonConverterFactory factory = GeneratedJsonAdapters.registerInto(new JsonConverterFactory.Builder()).build();
+		final Converter<ResponseBody, TestResponse> converter = (Converter<ResponseBody, TestResponse>) factory.responseBodyConverter(TestResponse.class, NO_ANNOTATIONS, null);
+		final TestResponse response = converter.convert(ResponseBody.create(null, "{\"unknown\": {\"a\": [1]}, \"id\": null, \"count\": 3}"));
+		assertThat(response.id, is(0L));
+		assertThat(response.count, is(3));
+	}
+
+	@GenerateJsonAdapter
+	public static final class TestResponse extends ServiceResponse {
+
+		long id;
+		String name;
+		float score;
+		Integer count;
+		List<String> tags;
+		TestResponse child;
+	}
+}
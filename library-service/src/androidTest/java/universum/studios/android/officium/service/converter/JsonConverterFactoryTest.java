@@ -0,0 +1,176 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.JsonReader;
+import android.util.JsonWriter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Converter;
+import universum.studios.android.officium.service.ErrorResponse;
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class JsonConverterFactoryTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "JsonConverterFactoryTest";
+
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testReadErrorResponse() throws Exception {
+		final JsonConverterFactory factory = JsonConverterFactory.create();
+		final Converter<ResponseBody, ErrorResponse> converter = (Converter<ResponseBody, ErrorResponse>) factory.responseBodyConverter(ErrorResponse.class, NO_ANNOTATIONS, null);
+		final ErrorResponse response = converter.convert(ResponseBody.create(null, "{\"error\": {\"code\": 401, \"message\": \"Unauthorized\"}, \"unknown\": [1, 2]}"));
+		assertThat(response.getErrorCode(), is(401));
+		assertThat(response.getErrorMessage(), is("Unauthorized"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testReadAndWriteList() throws Exception {
+		final JsonConverterFactory factory = JsonConverterFactory.create();
+		final Type type = TestItems.class.getField("items").getGenericType();
+		final Converter<List<TestItem>, RequestBody> requestConverter = (Converter<List<TestItem>, RequestBody>) factory.requestBodyConverter(type, NO_ANNOTATIONS, NO_ANNOTATIONS, null);
+		final Converter<ResponseBody, List<TestItem>> responseConverter = (Converter<ResponseBody, List<TestItem>>) factory.responseBodyConverter(type, NO_ANNOTATIONS, null);
+		final RequestBody requestBody = requestConverter.convert(Arrays.asList(new TestItem(1, "first", null), new TestItem(2, null, new TestItem(3, "child", null))));
+		final Buffer buffer = new Buffer();
+		requestBody.writeTo(buffer);
+		final List<TestItem> items = responseConverter.convert(ResponseBody.create(null, buffer.readUtf8()));
+		assertThat(items.size(), is(2));
+		assertThat(items.get(0).id, is(1L));
+		assertThat(items.get(0).name, is("first"));
+		assertThat(items.get(0).child, is(nullValue()));
+		assertThat(items.get(1).name, is(nullValue()));
+		assertThat(items.get(1).child.id, is(3L));
+		assertThat(items.get(1).child.name, is("child"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRegisteredAdapterIsUsed() throws Exception {
+		final JsonConverterFactory factory = new JsonConverterFactory.Builder()
+				.registerAdapter(TestItem.class, new JsonAdapter<TestItem>() {
+
+					@Override
+					public TestItem read(@NonNull final JsonReader reader) throws IOException {
+						return new TestItem(reader.nextLong(), null, null);
+					}
+
+					@Override
+					public void write(@NonNull final JsonWriter writer, final TestItem value) throws IOException {
+						writer.value(value.id);
+					}
+				})
+				.build();
+		final Converter<ResponseBody, TestItem> converter = (Converter<ResponseBody, TestItem>) factory.responseBodyConverter(TestItem.class, NO_ANNOTATIONS, null);
+		assertThat(converter.convert(ResponseBody.create(null, "42")).id, is(42L));
+	}
+
+	@Test
+	public void testUnsupportedType() {
+		final JsonConverterFactory factory = JsonConverterFactory.create();
+		assertThat(factory.responseBodyConverter(Runnable.class, NO_ANNOTATIONS, null), is(nullValue()));
+		assertThat(factory.responseBodyConverter(Date.class, NO_ANNOTATIONS, null), is(nullValue()));
+	}
+
+	@Test
+	public void testTypeWithUnsupportedFieldIsNotClaimed() {
+		final JsonConverterFactory factory = JsonConverterFactory.create();
+		assertThat(factory.responseBodyConverter(TestDatedItem.class, NO_ANNOTATIONS, null), is(nullValue()));
+		assertThat(factory.requestBodyConverter(TestDatedItem.class, NO_ANNOTATIONS, NO_ANNOTATIONS, null), is(nullValue()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testReadAndWriteEnum() throws Exception {
+		final JsonConverterFactory factory = JsonConverterFactory.create();
+		final Converter<TestStatusItem, RequestBody> requestConverter = (Converter<TestStatusItem, RequestBody>) factory.requestBodyConverter(TestStatusItem.class, NO_ANNOTATIONS, NO_ANNOTATIONS, null);
+		final Converter<ResponseBody, TestStatusItem> responseConverter = (Converter<ResponseBody, TestStatusItem>) factory.responseBodyConverter(TestStatusItem.class, NO_ANNOTATIONS, null);
+		final TestStatusItem item = new TestStatusItem();
+		item.status = TestStatus.ACTIVE;
+		final Buffer buffer = new Buffer();
+		requestConverter.convert(item).writeTo(buffer);
+		assertThat(buffer.readUtf8(), is("{\"status\":\"ACTIVE\"}"));
+		assertThat(responseConverter.convert(ResponseBody.create(null, "{\"status\": \"INACTIVE\"}")).status, is(TestStatus.INACTIVE));
+	}
+
+	@SuppressWarnings("unused")
+	public static final class TestItems {
+
+		public List<TestItem> items;
+	}
+
+	public enum TestStatus {
+		ACTIVE, INACTIVE
+	}
+
+	public static final class TestStatusItem {
+
+		TestStatus status;
+	}
+
+	@SuppressWarnings("unused")
+	public static final class TestDatedItem {
+
+		String name;
+		Date date;
+	}
+
+	public static final class TestItem {
+
+		long id;
+		String name;
+		TestItem child;
+
+		@SuppressWarnings("unused")
+		TestItem() {
+			// Used by JsonConverterFactory.
+		}
+
+		TestItem(final long id, final String name, final TestItem child) {
+			this.id = id;
+			this.name = name;
+			this.child = child;
+		}
+	}
+}
@@ -83,6 +83,15 @@ public abstract class BaseServiceObject implements ServiceObject {
 		if (requestId != null && TextUtils.isEmpty(serviceObject.getRequestId())) serviceObject.setRequestId(requestId);
 	}
 
+	/**
+	 * Clears association of this object with its service and request, so it may be associated
+	 * again. Used when a recycled service object is being reused.
+	 */
+	void clearAssociation() {
+		this.mServiceId = null;
+		this.mRequestId = null;
+	}
+
 	/**
 	 * @throws UnsupportedOperationException If service id has been already specified for this
 	 *                                       service object.
@@ -0,0 +1,541 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limiter that caps count of concurrently executed service calls (bulkhead) and rate at which may
+ * be new calls started (token bucket).
+ * <p>
+ * Calls that cannot be started immediately wait in a queue without blocking any thread, except
+ * synchronously executed calls that block their calling thread. Calls started from the main thread
+ * are queued in a <b>priority lane</b> which is always served first, so a burst of background calls,
+ * like ones made by a sync adapter, does not starve calls made by the UI. Queued calls may be
+ * canceled via {@link ServiceCall#cancel()}.
+ * <p>
+ * Call limiter may be specified for all services of a services interface via
+ * {@link ServiceManager.ServicesConfiguration#setCallLimiter(CallLimiter)} or for a single call
+ * via {@link ServiceCall#withCallLimiter(CallLimiter)}. The same limiter may be shared by multiple
+ * services interfaces. Limiter holds its permit for a call until the call's result is delivered,
+ * including possible retries of the call.
+ * <p>
+ * Creation of instances of CallLimiter is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ */
+public final class CallLimiter {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CallLimiter";
+
+	/**
+	 * Constant used to indicate that there is no limit.
+	 */
+	public static final int UNLIMITED = -1;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum count of concurrently executed calls or {@link #UNLIMITED}.
+	 */
+	public final int maxConcurrentCalls;
+
+	/**
+	 * Count of calls that may be started per second or {@link #UNLIMITED}.
+	 */
+	public final double callsPerSecond;
+
+	/**
+	 * Maximum count of calls that may be started at once when rate is limited.
+	 */
+	public final int burst;
+
+	/**
+	 * Lock guarding state of this limiter.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Queue with tickets of calls started from the main thread.
+	 */
+	private final Queue<Ticket> mPriorityQueue = new ArrayDeque<>();
+
+	/**
+	 * Queue with tickets of all other calls.
+	 */
+	private final Queue<Ticket> mQueue = new ArrayDeque<>();
+
+	/**
+	 * Count of currently executed calls.
+	 */
+	private int mActiveCount;
+
+	/**
+	 * Count of tokens currently available in the bucket.
+	 */
+	private double mTokens;
+
+	/**
+	 * Time in nanoseconds when has been the bucket refilled for the last time.
+	 */
+	private long mRefilledAt;
+
+	/**
+	 * Flag indicating whether there is draining of queues scheduled.
+	 */
+	private boolean mDrainScheduled;
+
+	/**
+	 * Count of calls that have acquired their permit.
+	 */
+	private long mAcquiredCount;
+
+	/**
+	 * Count of calls that had to wait in queue before acquiring their permit.
+	 */
+	private long mQueuedCount;
+
+	/**
+	 * Total time in nanoseconds spent by calls waiting in queues.
+	 */
+	private long mTotalQueueWait;
+
+	/**
+	 * Maximum time in nanoseconds spent by a single call waiting in queue.
+	 */
+	private long mMaxQueueWait;
+
+	/**
+	 * Runnable used to drain queues after the bucket has been refilled.
+	 */
+	private final Runnable mDrainRunnable = new Runnable() {
+
+		/**
+		 */
+		@Override
+		public void run() {
+			synchronized (mLock) {
+				mDrainScheduled = false;
+			}
+			drain();
+		}
+	};
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CallLimiter with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new limiter.
+	 */
+	private CallLimiter(final Builder builder) {
+		this.maxConcurrentCalls = builder.maxConcurrentCalls;
+		this.callsPerSecond = builder.callsPerSecond;
+		this.burst = builder.burst;
+		this.mTokens = burst;
+		this.mRefilledAt = System.nanoTime();
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Enqueues the given <var>ticket</var> to acquire permit for its call. If the permit may be
+	 * acquired immediately, the ticket's action is run on the current thread.
+	 *
+	 * @param ticket The ticket to be enqueued.
+	 */
+	void enqueue(final Ticket ticket) {
+		synchronized (mLock) {
+			if (!mPriorityQueue.isEmpty() || !mQueue.isEmpty() || !hasCapacity() || !tryConsumeToken()) {
+				ticket.enqueuedAt = System.nanoTime();
+				(ticket.priority ? mPriorityQueue : mQueue).add(ticket);
+				if (hasCapacity()) {
+					scheduleDrain();
+				}
+				return;
+			}
+			acquire(ticket);
+		}
+		ticket.action.run();
+	}
+
+	/**
+	 * Cancels the given <var>ticket</var>. If the ticket is still waiting in queue, it is removed
+	 * from the queue and its action is run on the current thread without acquiring permit.
+	 *
+	 * @param ticket The ticket to be canceled.
+	 */
+	void cancel(final Ticket ticket) {
+		synchronized (mLock) {
+			if (!(ticket.priority ? mPriorityQueue : mQueue).remove(ticket)) {
+				return;
+			}
+		}
+		ticket.action.run();
+	}
+
+	/**
+	 * Releases permit of the given <var>ticket</var> if it has been acquired and not released yet.
+	 *
+	 * @param ticket The ticket of which permit to release.
+	 */
+	void release(final Ticket ticket) {
+		synchronized (mLock) {
+			if (!ticket.acquired || ticket.released) {
+				return;
+			}
+			ticket.released = true;
+			this.mActiveCount--;
+		}
+		drain();
+	}
+
+	/**
+	 * Acquires permits for as many queued tickets as possible and runs their actions. Priority
+	 * tickets are served first.
+	 */
+	private void drain() {
+		List<Ticket> acquiredTickets = null;
+		synchronized (mLock) {
+			while (!mPriorityQueue.isEmpty() || !mQueue.isEmpty()) {
+				if (!hasCapacity()) {
+					break;
+				}
+				if (!tryConsumeToken()) {
+					scheduleDrain();
+					break;
+				}
+				final Ticket ticket = mPriorityQueue.isEmpty() ? mQueue.poll() : mPriorityQueue.poll();
+				acquire(ticket);
+				recordQueueWait(System.nanoTime() - ticket.enqueuedAt);
+				if (acquiredTickets == null) {
+					acquiredTickets = new ArrayList<>(1);
+				}
+				acquiredTickets.add(ticket);
+			}
+		}
+		if (acquiredTickets != null) {
+			for (final Ticket ticket : acquiredTickets) {
+				ticket.action.run();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether there may be executed another call with respect to the concurrency limit.
+	 * <p>
+	 * This method should be called only while holding {@link #mLock}.
+	 *
+	 * @return {@code True} if there is a free permit, {@code false} otherwise.
+	 */
+	private boolean hasCapacity() {
+		return maxConcurrentCalls == UNLIMITED || mActiveCount < maxConcurrentCalls;
+	}
+
+	/**
+	 * Marks the given <var>ticket</var> as holding permit of this limiter.
+	 * <p>
+	 * This method should be called only while holding {@link #mLock}.
+	 *
+	 * @param ticket The ticket that has acquired permit.
+	 */
+	private void acquire(final Ticket ticket) {
+		ticket.acquired = true;
+		this.mActiveCount++;
+		this.mAcquiredCount++;
+	}
+
+	/**
+	 * Consumes a single token from the bucket if the rate is limited.
+	 * <p>
+	 * This method should be called only while holding {@link #mLock}.
+	 *
+	 * @return {@code True} if token has been consumed or the rate is not limited, {@code false} if
+	 * there is no token available.
+	 */
+	private boolean tryConsumeToken() {
+		if (callsPerSecond == UNLIMITED) {
+			return true;
+		}
+		final long now = System.nanoTime();
+		this.mTokens = Math.min(burst, mTokens + (now - mRefilledAt) * callsPerSecond / TimeUnit.SECONDS.toNanos(1));
+		this.mRefilledAt = now;
+		if (mTokens < 1) {
+			return false;
+		}
+		this.mTokens--;
+		return true;
+	}
+
+	/**
+	 * Schedules draining of queues at time when the next token will be available in the bucket.
+	 * <p>
+	 * This method should be called only while holding {@link #mLock}.
+	 */
+	private void scheduleDrain() {
+		if (mDrainScheduled) {
+			return;
+		}
+		this.mDrainScheduled = true;
+		final long delay = callsPerSecond == UNLIMITED ? 0 : (long) Math.ceil((1 - mTokens) * TimeUnit.SECONDS.toNanos(1) / callsPerSecond);
+		ServiceExecutors.scheduler().schedule(mDrainRunnable, delay, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records the specified time spent by a call waiting in queue.
+	 * <p>
+	 * This method should be called only while holding {@link #mLock}.
+	 *
+	 * @param wait The wait time in nanoseconds.
+	 */
+	private void recordQueueWait(final long wait) {
+		this.mQueuedCount++;
+		this.mTotalQueueWait += wait;
+		this.mMaxQueueWait = Math.max(mMaxQueueWait, wait);
+	}
+
+	/**
+	 * Returns the count of calls that are currently executed with permit of this limiter.
+	 *
+	 * @return Count of active calls.
+	 */
+	public int getActiveCount() {
+		synchronized (mLock) {
+			return mActiveCount;
+		}
+	}
+
+	/**
+	 * Returns the count of calls that are currently waiting in queues of this limiter.
+	 *
+	 * @return Count of waiting calls.
+	 */
+	public int getQueueSize() {
+		synchronized (mLock) {
+			return mPriorityQueue.size() + mQueue.size();
+		}
+	}
+
+	/**
+	 * Returns the count of calls that have acquired permit of this limiter so far.
+	 *
+	 * @return Count of acquired permits.
+	 */
+	public long getAcquiredCount() {
+		synchronized (mLock) {
+			return mAcquiredCount;
+		}
+	}
+
+	/**
+	 * Returns the count of calls that had to wait in queue before acquiring permit of this limiter.
+	 *
+	 * @return Count of queued calls.
+	 */
+	public long getQueuedCount() {
+		synchronized (mLock) {
+			return mQueuedCount;
+		}
+	}
+
+	/**
+	 * Returns the total time spent by calls waiting in queues of this limiter.
+	 *
+	 * @return Total wait time in milliseconds.
+	 * @see #getMaxQueueWaitTime()
+	 */
+	public long getTotalQueueWaitTime() {
+		synchronized (mLock) {
+			return TimeUnit.NANOSECONDS.toMillis(mTotalQueueWait);
+		}
+	}
+
+	/**
+	 * Returns the maximum time spent by a single call waiting in queue of this limiter.
+	 *
+	 * @return Maximum wait time in milliseconds.
+	 * @see #getTotalQueueWaitTime()
+	 */
+	public long getMaxQueueWaitTime() {
+		synchronized (mLock) {
+			return TimeUnit.NANOSECONDS.toMillis(mMaxQueueWait);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(128);
+		builder.append(getClass().getSimpleName());
+		synchronized (mLock) {
+			builder.append("{active: ");
+			builder.append(mActiveCount);
+			builder.append(", queued: ");
+			builder.append(mPriorityQueue.size() + mQueue.size());
+			builder.append(", acquired: ");
+			builder.append(mAcquiredCount);
+			builder.append(", totalQueueWait: ");
+			builder.append(TimeUnit.NANOSECONDS.toMillis(mTotalQueueWait));
+			builder.append(", maxQueueWait: ");
+			builder.append(TimeUnit.NANOSECONDS.toMillis(mMaxQueueWait));
+		}
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Ticket of a single call waiting for or holding permit of {@link CallLimiter}.
+	 */
+	static final class Ticket {
+
+		/**
+		 * Flag indicating whether the call has been started from the main thread.
+		 */
+		final boolean priority;
+
+		/**
+		 * Action to be run when the permit is acquired or the ticket is canceled while waiting.
+		 */
+		final Runnable action;
+
+		/**
+		 * Time in nanoseconds when has been this ticket enqueued.
+		 */
+		long enqueuedAt;
+
+		/**
+		 * Flag indicating whether this ticket has acquired its permit.
+		 */
+		volatile boolean acquired;
+
+		/**
+		 * Flag indicating whether permit of this ticket has been released.
+		 */
+		boolean released;
+
+		/**
+		 * Creates a new instance of Ticket with the specified <var>priority</var> and <var>action</var>.
+		 *
+		 * @param priority {@code True} if the call has been started from the main thread.
+		 * @param action   Action to be run when the permit is acquired.
+		 */
+		Ticket(final boolean priority, final Runnable action) {
+			this.priority = priority;
+			this.action = action;
+		}
+	}
+
+	/**
+	 * Builder that can be used to create a new instance of {@link CallLimiter}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link CallLimiter#maxConcurrentCalls}.
+		 */
+		private int maxConcurrentCalls = UNLIMITED;
+
+		/**
+		 * See {@link CallLimiter#callsPerSecond}.
+		 */
+		private double callsPerSecond = UNLIMITED;
+
+		/**
+		 * See {@link CallLimiter#burst}.
+		 */
+		private int burst = 1;
+
+		/**
+		 * Specifies the maximum count of calls that may be executed at the same time.
+		 * <p>
+		 * Default value: <b>{@link #UNLIMITED}</b>
+		 *
+		 * @param maxCalls The desired count or {@link #UNLIMITED}.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder maxConcurrentCalls(final int maxCalls) {
+			this.maxConcurrentCalls = maxCalls;
+			return this;
+		}
+
+		/**
+		 * Specifies the rate at which may be started new calls.
+		 * <p>
+		 * Default value: <b>{@link #UNLIMITED}</b>
+		 *
+		 * @param callsPerSecond The desired count of calls per second or {@link #UNLIMITED}.
+		 * @param burst          Maximum count of calls that may be started at once after the
+		 *                       limiter has been idle.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder rateLimit(final double callsPerSecond, final int burst) {
+			this.callsPerSecond = callsPerSecond;
+			this.burst = burst;
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of CallLimiter.
+		 *
+		 * @return New instance of CallLimiter with data specified for this builder.
+		 * @throws IllegalArgumentException If some of the specified limits is not valid.
+		 */
+		@NonNull
+		public CallLimiter build() {
+			if (maxConcurrentCalls != UNLIMITED && maxConcurrentCalls < 1) throw new IllegalArgumentException("Max concurrent calls must be at least 1!");
+			if (callsPerSecond != UNLIMITED && callsPerSecond <= 0) throw new IllegalArgumentException("Calls per second must be positive!");
+			if (burst < 1) throw new IllegalArgumentException("Burst must be at least 1!");
+			return new CallLimiter(this);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * A network {@link Interceptor} implementation that counts how many connections have been opened
+ * and how many times an already opened connection has been reused for a network request.
+ * <p>
+ * {@link ServiceManager} attaches its connection stats to its shared client, so these statistics
+ * may be obtained via {@link ServiceManager#getConnectionStats()} and cover all services clients
+ * that share the same connection pool.
+ *
+ * @author Martin Albedinsky
+ */
+public final class ConnectionStats implements Interceptor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ConnectionStats";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Map containing connections already seen by these stats. Connections are held weakly so they
+	 * may be freely evicted from the connection pool.
+	 */
+	private final Map<Connection, Boolean> mSeenConnections = new WeakHashMap<>();
+
+	/**
+	 * Count of connections that have been opened for network requests.
+	 */
+	private final AtomicLong mOpenedCount = new AtomicLong(0);
+
+	/**
+	 * Count of network requests for which has been reused already opened connection.
+	 */
+	private final AtomicLong mReusedCount = new AtomicLong(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public Response intercept(@NonNull final Chain chain) throws IOException {
+		final Connection connection = chain.connection();
+		if (connection != null) {
+			final boolean reused;
+			synchronized (mSeenConnections) {
+				reused = mSeenConnections.put(connection, Boolean.TRUE) != null;
+			}
+			if (reused) mReusedCount.incrementAndGet();
+			else mOpenedCount.incrementAndGet();
+		}
+		return chain.proceed(chain.request());
+	}
+
+	/**
+	 * Returns the count of connections that have been opened for network requests.
+	 *
+	 * @return Count of newly opened connections.
+	 * @see #getReusedCount()
+	 */
+	public long getOpenedCount() {
+		return mOpenedCount.get();
+	}
+
+	/**
+	 * Returns the count of network requests for which has been reused an already opened connection.
+	 *
+	 * @return Count of connection reuses.
+	 * @see #getOpenedCount()
+	 */
+	public long getReusedCount() {
+		return mReusedCount.get();
+	}
+
+	/**
+	 * Resets both counters of these stats. Connections that have been already seen will be still
+	 * treated as reused.
+	 */
+	public void reset() {
+		mOpenedCount.set(0);
+		mReusedCount.set(0);
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{opened: ");
+		builder.append(mOpenedCount.get());
+		builder.append(", reused: ");
+		builder.append(mReusedCount.get());
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,347 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import universum.studios.android.officium.service.cache.ResponseCache;
+
+/**
+ * An {@link Interceptor} implementation that collapses identical <b>GET</b> requests which are in
+ * flight at the same time into a single network exchange.
+ * <p>
+ * The first request for a specific key proceeds to the network while all identical requests that
+ * arrive before it finishes wait for its response. The response body is buffered once and each of
+ * the waiting requests receives its own copy of it, so each {@link ServiceCall} still converts its
+ * own body and its {@link ServiceCallback} associates that body with its own service and request id.
+ * Requests are considered identical when they have the same {@link ResponseCache#key(Request) key}.
+ * Responses with body larger than {@link #getMaxBodySize()} are not shared and the waiting requests
+ * proceed to the network on their own. The same applies when the first request fails, as its failure
+ * (for example cancellation or timeout of its call) may be specific to its caller, or when it does
+ * not finish within {@link #getMaxWaitTime()}.
+ * <p>
+ * A deduplicator may be specified for services configuration via
+ * {@link ServiceManager.ServicesConfiguration#setRequestDeduplicator(RequestDeduplicator)}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class RequestDeduplicator implements Interceptor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "RequestDeduplicator";
+
+	/**
+	 * Default maximum size of response body in bytes that may be shared among identical requests.
+	 */
+	public static final long DEFAULT_MAX_BODY_SIZE = 256 * 1024;
+
+	/**
+	 * Default maximum time in milliseconds for which an identical request waits for response of the
+	 * request that is in flight. Matches the default read timeout of {@link okhttp3.OkHttpClient}.
+	 */
+	public static final long DEFAULT_MAX_WAIT_TIME = 10000;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum size of response body that may be shared among identical requests.
+	 */
+	private final long mMaxBodySize;
+
+	/**
+	 * Maximum time in milliseconds for which an identical request waits for the in-flight request.
+	 */
+	private final long mMaxWaitTime;
+
+	/**
+	 * Map containing flights of requests that are currently in flight mapped to their keys.
+	 */
+	private final ConcurrentMap<String, Flight> mFlights = new ConcurrentHashMap<>();
+
+	/**
+	 * Count of requests that have been served by response of an identical in-flight request.
+	 */
+	private final AtomicLong mHitCount = new AtomicLong(0);
+
+	/**
+	 * Count of requests that have proceeded to the network.
+	 */
+	private final AtomicLong mMissCount = new AtomicLong(0);
+
+	/**
+	 * Count of requests that are currently waiting for an identical in-flight request.
+	 */
+	private final AtomicInteger mWaitingCount = new AtomicInteger(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Same as {@link #RequestDeduplicator(long)} with {@link #DEFAULT_MAX_BODY_SIZE}.
+	 */
+	public RequestDeduplicator() {
+		this(DEFAULT_MAX_BODY_SIZE);
+	}
+
+	/**
+	 * Same as {@link #RequestDeduplicator(long, long)} with {@link #DEFAULT_MAX_WAIT_TIME}.
+	 */
+	public RequestDeduplicator(final long maxBodySize) {
+		this(maxBodySize, DEFAULT_MAX_WAIT_TIME);
+	}
+
+	/**
+	 * Creates a new instance of RequestDeduplicator with the specified <var>maxBodySize</var> and
+	 * <var>maxWaitTime</var>.
+	 *
+	 * @param maxBodySize Maximum size of response body in bytes that may be shared among identical
+	 *                    requests.
+	 * @param maxWaitTime Maximum time in milliseconds for which an identical request waits for the
+	 *                    request that is in flight before it proceeds to the network on its own.
+	 *                    Should not exceed read timeout of the client's calls.
+	 * @throws IllegalArgumentException If the specified size or time is negative.
+	 */
+	public RequestDeduplicator(final long maxBodySize, final long maxWaitTime) {
+		if (maxBodySize < 0) throw new IllegalArgumentException("Max body size cannot be negative!");
+		if (maxWaitTime < 0) throw new IllegalArgumentException("Max wait time cannot be negative!");
+		this.mMaxBodySize = maxBodySize;
+		this.mMaxWaitTime = maxWaitTime;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the maximum size of response body that may be shared among identical requests.
+	 *
+	 * @return Max body size in bytes.
+	 */
+	public long getMaxBodySize() {
+		return mMaxBodySize;
+	}
+
+	/**
+	 * Returns the maximum time for which an identical request waits for the request that is in flight.
+	 *
+	 * @return Max wait time in milliseconds.
+	 */
+	public long getMaxWaitTime() {
+		return mMaxWaitTime;
+	}
+
+	/**
+	 * Returns the count of requests that have been served by response of an identical request that
+	 * has been already in flight.
+	 *
+	 * @return Count of collapsed requests.
+	 * @see #getMissCount()
+	 */
+	public long getHitCount() {
+		return mHitCount.get();
+	}
+
+	/**
+	 * Returns the count of requests that have proceeded to the network as there has been no identical
+	 * request in flight or its response could not be shared.
+	 *
+	 * @return Count of requests that have not been collapsed.
+	 * @see #getHitCount()
+	 */
+	public long getMissCount() {
+		return mMissCount.get();
+	}
+
+	/**
+	 * Returns the count of requests that are currently waiting for an identical in-flight request.
+	 *
+	 * @return Count of waiting requests.
+	 */
+	int getWaitingCount() {
+		return mWaitingCount.get();
+	}
+
+	/**
+	 */
+	@Override
+	public Response intercept(@NonNull final Chain chain) throws IOException {
+		final Request request = chain.request();
+		if (!"GET".equals(request.method())) {
+			return chain.proceed(request);
+		}
+		final String key = ResponseCache.key(request);
+		final Flight flight = new Flight();
+		final Flight inFlight = mFlights.putIfAbsent(key, flight);
+		if (inFlight == null) {
+			mMissCount.incrementAndGet();
+			return fly(key, flight, chain);
+		}
+		final boolean landed;
+		mWaitingCount.incrementAndGet();
+		try {
+			landed = inFlight.latch.await(mMaxWaitTime, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for identical request.");
+		} finally {
+			mWaitingCount.decrementAndGet();
+		}
+		// Failure of the in-flight request may be caused by its own call being cancelled or timed
+		// out, so rather than sharing it, proceed with this request on its own.
+		if (!landed || inFlight.failed || inFlight.response == null) {
+			mMissCount.incrementAndGet();
+			return chain.proceed(request);
+		}
+		mHitCount.incrementAndGet();
+		return inFlight.shareWith(request);
+	}
+
+	/**
+	 * Proceeds with the request of the given <var>chain</var> as the only request for the specified
+	 * <var>key</var> and publishes its result into the given <var>flight</var>.
+	 *
+	 * @param key    The key of the request.
+	 * @param flight The flight into which to publish result of the request.
+	 * @param chain  The chain with the request to proceed with.
+	 * @return Response for the request.
+	 * @throws IOException If the request fails.
+	 */
+	private Response fly(final String key, final Flight flight, final Chain chain) throws IOException {
+		try {
+			final Response response = chain.proceed(chain.request());
+			final ResponseBody body = response.body();
+			if (body == null || body.contentLength() > mMaxBodySize) {
+				return response;
+			}
+			final BufferedSource source = body.source();
+			if (source.request(mMaxBodySize + 1)) {
+				return response;
+			}
+			flight.response = response;
+			flight.contentType = body.contentType();
+			flight.body = source.buffer().snapshot();
+			return response;
+		} catch (IOException | RuntimeException e) {
+			flight.failed = true;
+			throw e;
+		} finally {
+			mFlights.remove(key, flight);
+			flight.latch.countDown();
+		}
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{hits: ");
+		builder.append(mHitCount.get());
+		builder.append(", misses: ");
+		builder.append(mMissCount.get());
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Holds result of a single request that is in flight. All fields are published to the waiting
+	 * requests via {@link #latch}.
+	 */
+	private static final class Flight {
+
+		/**
+		 * Latch released when the request finishes.
+		 */
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		/**
+		 * Received response with body that may be shared. May be {@code null} if the body cannot
+		 * be shared.
+		 */
+		Response response;
+
+		/**
+		 * Content type of the received response body.
+		 */
+		MediaType contentType;
+
+		/**
+		 * Buffered bytes of the received response body.
+		 */
+		ByteString body;
+
+		/**
+		 * Flag indicating whether the request has failed.
+		 */
+		boolean failed;
+
+		/**
+		 * Creates a copy of the received response for the specified <var>request</var> with its own
+		 * copy of the response body.
+		 *
+		 * @param request The request for which to create the response.
+		 * @return New response with the shared body.
+		 */
+		Response shareWith(final Request request) {
+			return response.newBuilder()
+					.request(request)
+					.body(ResponseBody.create(contentType, body.size(), new Buffer().write(body)))
+					.build();
+		}
+	}
+}
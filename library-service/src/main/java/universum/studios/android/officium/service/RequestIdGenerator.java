@@ -0,0 +1,58 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Interface for generators that may be used by {@link ServiceCall} to generate unique ids for
+ * service requests that are being executed asynchronously.
+ * <p>
+ * Generator may be specified for a specific service call via {@link ServiceCall#withRequestIdGenerator(RequestIdGenerator)}.
+ * If not specified, {@link #DEFAULT} generator is used.
+ *
+ * @author Martin Albedinsky
+ * @see SequentialRequestIdGenerator
+ */
+public interface RequestIdGenerator {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Default generator used by all service calls for which has not been specified other generator.
+	 * This generator generates ids that are unique and monotonic within the current process.
+	 */
+	RequestIdGenerator DEFAULT = new SequentialRequestIdGenerator();
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Generates a new unique id for a service request.
+	 * <p>
+	 * <b>Note</b>, that this method may be called from multiple threads at the same time.
+	 *
+	 * @return Unique request id. Should not be empty.
+	 */
+	@NonNull
+	String nextRequestId();
+}
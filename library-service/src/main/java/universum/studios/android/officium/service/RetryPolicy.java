@@ -0,0 +1,368 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Request;
+import universum.studios.android.officium.service.circuit.CircuitOpenException;
+
+/**
+ * Policy that determines whether and when should be a failed service request retried.
+ * <p>
+ * A request is retried only while its count of attempts is less than {@link #maxAttempts} and only
+ * if it is idempotent (<b>GET, HEAD, PUT, DELETE, OPTIONS, TRACE</b>) or the policy allows to
+ * retry also non-idempotent requests. Error responses are retried only for one of the retryable
+ * status codes, failures only if they are {@link IOException IOExceptions} other than
+ * {@link CircuitOpenException} which should fail fast. Delay before each
+ * retry is computed using exponential backoff with <b>full jitter</b>, that is a random delay
+ * between {@code 0} and the current exponential backoff, so clients failing at the same time do
+ * not retry at the same time.
+ * <p>
+ * Retry policy may be specified for all services of a services interface via
+ * {@link ServiceManager.ServicesConfiguration#setRetryPolicy(RetryPolicy)} or for a single call
+ * via {@link ServiceCall#withRetryPolicy(RetryPolicy)}.
+ * <p>
+ * Creation of instances of RetryPolicy is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ */
+public final class RetryPolicy {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "RetryPolicy";
+
+	/**
+	 * Default value for {@link #maxAttempts}.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	/**
+	 * Default value for {@link #initialBackoff}.
+	 */
+	public static final long DEFAULT_INITIAL_BACKOFF = 500;
+
+	/**
+	 * Default value for {@link #maxBackoff}.
+	 */
+	public static final long DEFAULT_MAX_BACKOFF = 30000;
+
+	/**
+	 * Default status codes for which are error responses retried.
+	 */
+	private static final int[] DEFAULT_RETRYABLE_CODES = {408, 429, 500, 502, 503, 504};
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Random used to compute jitter of backoff delays.
+	 */
+	private static final Random RANDOM = new Random();
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum count of attempts for a single request, including the first one.
+	 */
+	public final int maxAttempts;
+
+	/**
+	 * Backoff in milliseconds before the first retry.
+	 */
+	public final long initialBackoff;
+
+	/**
+	 * Maximum backoff in milliseconds before any retry.
+	 */
+	public final long maxBackoff;
+
+	/**
+	 * Flag indicating whether also non-idempotent requests may be retried.
+	 */
+	public final boolean retryNonIdempotent;
+
+	/**
+	 * Sorted status codes for which are error responses retried.
+	 */
+	private final int[] retryableCodes;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of RetryPolicy with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new policy.
+	 */
+	private RetryPolicy(final Builder builder) {
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoff = builder.initialBackoff;
+		this.maxBackoff = builder.maxBackoff;
+		this.retryNonIdempotent = builder.retryNonIdempotent;
+		this.retryableCodes = builder.retryableCodes.clone();
+		Arrays.sort(retryableCodes);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Checks whether the specified <var>request</var> which has received an error response with
+	 * the given <var>code</var> should be retried.
+	 *
+	 * @param request The request to check.
+	 * @param code    Status code of the received error response.
+	 * @param attempt Count of attempts made for the request so far.
+	 * @return {@code True} if the request should be retried, {@code false} otherwise.
+	 */
+	public boolean shouldRetry(@NonNull final Request request, final int code, final int attempt) {
+		return canRetry(request, attempt) && isRetryableCode(code);
+	}
+
+	/**
+	 * Checks whether the specified <var>request</var> which has failed with the given <var>failure</var>
+	 * should be retried.
+	 *
+	 * @param request The request to check.
+	 * @param failure The failure of the request.
+	 * @param attempt Count of attempts made for the request so far.
+	 * @return {@code True} if the request should be retried, {@code false} otherwise.
+	 */
+	public boolean shouldRetry(@NonNull final Request request, @NonNull final Throwable failure, final int attempt) {
+		return canRetry(request, attempt) && failure instanceof IOException && !(failure instanceof CircuitOpenException);
+	}
+
+	/**
+	 * Checks whether the specified <var>request</var> may be retried at all after the given count
+	 * of attempts.
+	 *
+	 * @param request The request to check.
+	 * @param attempt Count of attempts made for the request so far.
+	 * @return {@code True} if the request may be retried, {@code false} otherwise.
+	 */
+	private boolean canRetry(final Request request, final int attempt) {
+		return attempt < maxAttempts && (retryNonIdempotent || isIdempotent(request.method()));
+	}
+
+	/**
+	 * Checks whether the specified HTTP <var>method</var> is idempotent.
+	 *
+	 * @param method The method to check.
+	 * @return {@code True} if requests with the method may be safely repeated, {@code false} otherwise.
+	 */
+	private static boolean isIdempotent(final String method) {
+		switch (method) {
+			case "GET":
+			case "HEAD":
+			case "PUT":
+			case "DELETE":
+			case "OPTIONS":
+			case "TRACE":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Checks whether error responses with the specified status <var>code</var> should be retried.
+	 *
+	 * @param code The status code to check.
+	 * @return {@code True} if the code is one of the retryable codes, {@code false} otherwise.
+	 */
+	public boolean isRetryableCode(final int code) {
+		return Arrays.binarySearch(retryableCodes, code) >= 0;
+	}
+
+	/**
+	 * Computes delay before the next retry after the specified count of attempts.
+	 * <p>
+	 * The delay is a random value between {@code 0} and {@code initialBackoff * 2^(attempt - 1)},
+	 * bounded by {@link #maxBackoff}.
+	 *
+	 * @param attempt Count of attempts made for the request so far. Should be at least {@code 1}.
+	 * @return Delay in milliseconds.
+	 */
+	public long computeBackoff(final int attempt) {
+		final int shift = Math.min(Math.max(attempt - 1, 0), 62);
+		final long backoff = initialBackoff > (maxBackoff >> shift) ? maxBackoff : initialBackoff << shift;
+		return (long) (RANDOM.nextDouble() * (backoff + 1));
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(128);
+		builder.append(getClass().getSimpleName());
+		builder.append("{maxAttempts: ");
+		builder.append(maxAttempts);
+		builder.append(", initialBackoff: ");
+		builder.append(initialBackoff);
+		builder.append(", maxBackoff: ");
+		builder.append(maxBackoff);
+		builder.append(", retryNonIdempotent: ");
+		builder.append(retryNonIdempotent);
+		builder.append(", retryableCodes: ");
+		builder.append(Arrays.toString(retryableCodes));
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link RetryPolicy}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link RetryPolicy#maxAttempts}.
+		 */
+		private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+		/**
+		 * See {@link RetryPolicy#initialBackoff}.
+		 */
+		private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+		/**
+		 * See {@link RetryPolicy#maxBackoff}.
+		 */
+		private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+		/**
+		 * See {@link RetryPolicy#retryNonIdempotent}.
+		 */
+		private boolean retryNonIdempotent;
+
+		/**
+		 * See {@link RetryPolicy#isRetryableCode(int)}.
+		 */
+		private int[] retryableCodes = DEFAULT_RETRYABLE_CODES;
+
+		/**
+		 * Specifies the maximum count of attempts for a single request, including the first one.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_MAX_ATTEMPTS}</b>
+		 *
+		 * @param maxAttempts The desired count.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder maxAttempts(final int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Specifies the backoff before the first retry. Backoff before each following retry is
+		 * doubled.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_INITIAL_BACKOFF} ms</b>
+		 *
+		 * @param duration The desired duration.
+		 * @param unit     Time unit of the duration.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder initialBackoff(final long duration, @NonNull final TimeUnit unit) {
+			this.initialBackoff = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * Specifies the maximum backoff before any retry.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_MAX_BACKOFF} ms</b>
+		 *
+		 * @param duration The desired duration.
+		 * @param unit     Time unit of the duration.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder maxBackoff(final long duration, @NonNull final TimeUnit unit) {
+			this.maxBackoff = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * Specifies status codes for which should be error responses retried.
+		 * <p>
+		 * Default value: <b>408, 429, 500, 502, 503, 504</b>
+		 *
+		 * @param codes The desired status codes.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder retryableCodes(@NonNull final int... codes) {
+			this.retryableCodes = codes;
+			return this;
+		}
+
+		/**
+		 * Specifies whether also non-idempotent requests, like <b>POST</b>, may be retried.
+		 * <p>
+		 * Default value: <b>false</b>
+		 *
+		 * @param retry {@code True} to retry also non-idempotent requests, {@code false} otherwise.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder retryNonIdempotent(final boolean retry) {
+			this.retryNonIdempotent = retry;
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of RetryPolicy.
+		 *
+		 * @return New instance of RetryPolicy with data specified for this builder.
+		 * @throws IllegalArgumentException If max attempts is less than {@code 1} or some of the
+		 *                                  backoffs is negative.
+		 */
+		@NonNull
+		public RetryPolicy build() {
+			if (maxAttempts < 1) throw new IllegalArgumentException("Max attempts must be at least 1!");
+			if (initialBackoff < 0) throw new IllegalArgumentException("Initial backoff cannot be negative!");
+			if (maxBackoff < 0) throw new IllegalArgumentException("Max backoff cannot be negative!");
+			return new RetryPolicy(this);
+		}
+	}
+}
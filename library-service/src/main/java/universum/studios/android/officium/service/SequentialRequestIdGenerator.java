@@ -0,0 +1,139 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RequestIdGenerator} implementation that generates request ids from an atomic sequence.
+ * <p>
+ * Each generated id consists of a prefix, which by default is time of creation of the generator,
+ * and of the next value of the sequence. Both parts are formatted in radix {@code 36} and the
+ * sequence part is padded with zeros to a fixed length, so ids generated by the same generator
+ * are unique, have the same length and are ordered also lexicographically. Generating of an id
+ * requires no locking and allocates only the resulting string.
+ *
+ * @author Martin Albedinsky
+ */
+public final class SequentialRequestIdGenerator implements RequestIdGenerator {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SequentialRequestIdGenerator";
+
+	/**
+	 * Radix in which are formatted both parts of generated ids.
+	 */
+	private static final int RADIX = 36;
+
+	/**
+	 * Count of characters required to format {@link Long#MAX_VALUE} in {@link #RADIX}.
+	 */
+	private static final int SEQUENCE_LENGTH = Long.toString(Long.MAX_VALUE, RADIX).length();
+
+	/**
+	 * Separator of the prefix and sequence part of generated ids.
+	 */
+	private static final char SEPARATOR = '-';
+
+	/**
+	 * Digits used to format the sequence part of generated ids.
+	 */
+	private static final char[] DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Characters of the prefix along with separator that are copied into each generated id.
+	 */
+	private final char[] mPrefix;
+
+	/**
+	 * Sequence from which are obtained values for generated ids.
+	 */
+	private final AtomicLong mSequence = new AtomicLong(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of SequentialRequestIdGenerator with the current time as prefix of
+	 * generated ids.
+	 */
+	public SequentialRequestIdGenerator() {
+		this(Long.toString(System.currentTimeMillis(), RADIX));
+	}
+
+	/**
+	 * Creates a new instance of SequentialRequestIdGenerator with the specified <var>prefix</var>.
+	 *
+	 * @param prefix The prefix for generated ids, for example an id of the current node. May be
+	 *               empty to generate ids without prefix.
+	 */
+	public SequentialRequestIdGenerator(@NonNull final String prefix) {
+		if (prefix.length() == 0) {
+			this.mPrefix = new char[0];
+		} else {
+			this.mPrefix = new char[prefix.length() + 1];
+			prefix.getChars(0, prefix.length(), mPrefix, 0);
+			mPrefix[prefix.length()] = SEPARATOR;
+		}
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@NonNull
+	@Override
+	public String nextRequestId() {
+		long value = mSequence.incrementAndGet();
+		final char[] chars = new char[mPrefix.length + SEQUENCE_LENGTH];
+		System.arraycopy(mPrefix, 0, chars, 0, mPrefix.length);
+		for (int i = chars.length - 1; i >= mPrefix.length; i--) {
+			chars[i] = DIGITS[(int) (value % RADIX)];
+			value /= RADIX;
+		}
+		return new String(chars);
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -18,11 +18,18 @@
  */
 package universum.studios.android.officium.service;
 
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import okhttp3.Request;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -34,9 +41,16 @@ import retrofit2.Response;
  * Each instance of service call need to be created with the original call via {@link #ServiceCall(Call)}
  * constructor along with id of the corresponding service via {@link #withServiceId(int)}. The provided
  * service id is than attached to the callback when {@link #enqueue(ServiceCallback)} is called
- * along with the request id which this method returns. Subclasses may implement {@link #requestId()}
- * to generate custom unique id for a specific request. In such case, do not forget to properly override
- * also {@link #clone()} method.
+ * along with the request id which this method returns. Request ids are by default generated via
+ * {@link RequestIdGenerator#DEFAULT} generator which may be changed via {@link #withRequestIdGenerator(RequestIdGenerator)}.
+ * Subclasses may also implement {@link #requestId()} to generate custom unique id for a specific
+ * request. In such case, do not forget to properly override also {@link #clone()} method.
+ * <p>
+ * Failed requests may be retried according to a {@link RetryPolicy} specified via {@link #withRetryPolicy(RetryPolicy)}
+ * or inherited from the services configuration when this call wraps a call created by the services
+ * PROXY. Asynchronous retries are scheduled on a scheduler shared by all service calls. In the
+ * same way, count of concurrently executed calls and their rate may be limited by {@link CallLimiter}
+ * specified via {@link #withCallLimiter(CallLimiter)}.
  *
  * @author Martin Albedinsky
  */
@@ -73,17 +87,63 @@ public class ServiceCall<T> implements Call<T> {
 	 */
 	private Integer mServiceId;
 
+	/**
+	 * Generator used to generate ids for requests of this call.
+	 */
+	private RequestIdGenerator mRequestIdGenerator = RequestIdGenerator.DEFAULT;
+
+	/**
+	 * Policy used to retry failed requests of this call. May be {@code null} if requests should
+	 * not be retried.
+	 */
+	private RetryPolicy mRetryPolicy;
+
+	/**
+	 * Limiter used to limit execution of this call. May be {@code null} if execution of this call
+	 * should not be limited.
+	 */
+	private CallLimiter mCallLimiter;
+
+	/**
+	 * Ticket of this call waiting for or holding permit of {@link #mCallLimiter}. May be {@code null}
+	 * if this call has not been executed with limiter.
+	 */
+	private volatile CallLimiter.Ticket mLimiterTicket;
+
+	/**
+	 * Call of the current attempt of retried request. May be {@code null} if no request has been
+	 * retried yet.
+	 */
+	private volatile Call<T> mAttemptCall;
+
+	/**
+	 * Flag indicating whether this call has been canceled via {@link #cancel()}.
+	 */
+	private volatile boolean mCanceled;
+
 	/*
 	 * Constructors ================================================================================
 	 */
 
 	/**
 	 * Creates a new instance of ServiceCall with the given original Retrofit <var>call</var>.
+	 * <p>
+	 * If the given call is also a service call, like one created by the services PROXY when its
+	 * configuration has {@link RetryPolicy} or {@link CallLimiter} specified, the new service call
+	 * delegates directly to its original call and inherits its retry policy and call limiter.
 	 *
 	 * @param call The Retrofit call to which will be this service call delegating its methods.
 	 */
+	@SuppressWarnings("unchecked")
 	public ServiceCall(@NonNull final Call<T> call) {
-		this.mCall = call;
+		if (call instanceof ServiceCall) {
+			final ServiceCall<T> serviceCall = (ServiceCall<T>) call;
+			this.mCall = serviceCall.mCall;
+			this.mRetryPolicy = serviceCall.mRetryPolicy;
+			this.mCallLimiter = serviceCall.mCallLimiter;
+		} else {
+			this.mCall = call;
+		}
 	}
 
 	/*
@@ -108,10 +168,156 @@ public class ServiceCall<T> implements Call<T> {
 	}
 
 	/**
+	 * Specifies a generator to be used to generate ids for requests of this call.
+	 * <p>
+	 * Default value: <b>{@link RequestIdGenerator#DEFAULT}</b>
+	 *
+	 * @param generator The desired generator.
+	 * @return This service call to allow methods chaining.
+	 * @see #requestId()
+	 */
+	public ServiceCall<T> withRequestIdGenerator(@NonNull final RequestIdGenerator generator) {
+		this.mRequestIdGenerator = generator;
+		return this;
+	}
+
+	/**
+	 * Specifies a policy to be used to retry failed requests of this call.
+	 *
+	 * @param policy The desired policy. May be {@code null} to not retry failed requests.
+	 * @return This service call to allow methods chaining.
+	 * @see ServiceError#getAttemptCount()
+	 */
+	public ServiceCall<T> withRetryPolicy(@Nullable final RetryPolicy policy) {
+		this.mRetryPolicy = policy;
+		return this;
+	}
+
+	/**
+	 * Returns the policy used to retry failed requests of this call.
+	 *
+	 * @return This call's retry policy or {@code null} if failed requests are not retried.
+	 * @see #withRetryPolicy(RetryPolicy)
+	 */
+	@Nullable
+	public RetryPolicy getRetryPolicy() {
+		return mRetryPolicy;
+	}
+
+	/**
+	 * Specifies a limiter to be used to limit execution of this call. The limiter should be specified
+	 * before this call is executed.
+	 *
+	 * @param limiter The desired limiter. May be {@code null} to not limit execution of this call.
+	 * @return This service call to allow methods chaining.
+	 */
+	public ServiceCall<T> withCallLimiter(@Nullable final CallLimiter limiter) {
+		this.mCallLimiter = limiter;
+		return this;
+	}
+
+	/**
+	 * Returns the limiter used to limit execution of this call.
+	 *
+	 * @return This call's limiter or {@code null} if execution of this call is not limited.
+	 * @see #withCallLimiter(CallLimiter)
+	 */
+	@Nullable
+	public CallLimiter getCallLimiter() {
+		return mCallLimiter;
+	}
+
+	/**
+	 * If there is {@link CallLimiter} specified for this call, the calling thread waits until the
+	 * limiter permits execution of this call. If there is {@link RetryPolicy} specified for this
+	 * call, the calling thread also waits between retries of the failed request.
 	 */
 	@Override
 	public Response<T> execute() throws IOException {
-		return mCall.execute();
+		final CallLimiter limiter = mCallLimiter;
+		if (limiter == null) {
+			return executeAttempts();
+		}
+		final CountDownLatch permitLatch = new CountDownLatch(1);
+		final CallLimiter.Ticket ticket = new CallLimiter.Ticket(isMainThread(), new Runnable() {
+
+			/**
+			 */
+			@Override
+			public void run() {
+				permitLatch.countDown();
+			}
+		});
+		this.mLimiterTicket = ticket;
+		limiter.enqueue(ticket);
+		try {
+			permitLatch.await();
+		} catch (InterruptedException e) {
+			limiter.cancel(ticket);
+			limiter.release(ticket);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for call limiter.");
+		}
+		try {
+			if (mCanceled) {
+				throw new IOException("Canceled");
+			}
+			return executeAttempts();
+		} finally {
+			limiter.release(ticket);
+		}
+	}
+
+	/**
+	 * Executes request of this call synchronously and retries it according to the retry policy
+	 * of this call (if any).
+	 *
+	 * @return Response of the last attempt.
+	 * @throws IOException If the last attempt has failed.
+	 */
+	private Response<T> executeAttempts() throws IOException {
+		final RetryPolicy policy = mRetryPolicy;
+		if (policy == null) {
+			return mCall.execute();
+		}
+		final Request request = mCall.request();
+		Call<T> call = mCall;
+		for (int attempt = 1; ; attempt++) {
+			this.mAttemptCall = call;
+			try {
+				final Response<T> response = call.execute();
+				if (response.isSuccessful() || !policy.shouldRetry(request, response.code(), attempt)) {
+					return response;
+				}
+				closeErrorBody(response);
+			} catch (IOException e) {
+				if (mCanceled || !policy.shouldRetry(request, e, attempt)) {
+					throw e;
+				}
+			}
+			try {
+				TimeUnit.MILLISECONDS.sleep(policy.computeBackoff(attempt));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to retry request.");
+			}
+			if (mCanceled) {
+				throw new IOException("Canceled");
+			}
+			call = mCall.clone();
+		}
+	}
+
+	/**
+	 * Closes error body of the given <var>response</var> that will not be delivered.
+	 *
+	 * @param response The response of which error body to close.
+	 */
+	private static void closeErrorBody(final Response<?> response) {
+		final ResponseBody errorBody = response.errorBody();
+		if (errorBody != null) {
+			errorBody.close();
+		}
 	}
 
 	/**
@@ -140,21 +346,56 @@ public class ServiceCall<T> implements Call<T> {
 	 * Called to obtain a unique id for the current service request that has been requested to be
 	 * executed asynchronously via {@link #enqueue(ServiceCallback)}.
 	 * <p>
-	 * This implementation returns a string representation of the current time in milliseconds as
-	 * {@link Long#toString(long) Long.toString(System.currentTimeMillis())}.
+	 * This implementation returns id generated by the generator specified via
+	 * {@link #withRequestIdGenerator(RequestIdGenerator)}.
 	 *
 	 * @return Unique id for the current request that will be attached to the service callback.
 	 */
 	@NonNull
 	protected String requestId() {
-		return Long.toString(System.currentTimeMillis());
+		return mRequestIdGenerator.nextRequestId();
 	}
 
 	/**
+	 * If there is {@link CallLimiter} specified for this call, the request is enqueued when the
+	 * limiter permits execution of this call. If there is {@link RetryPolicy} specified for this
+	 * call, failed request is retried and the given <var>callback</var> receives only result of
+	 * the last attempt.
 	 */
 	@Override
 	public void enqueue(@NonNull final Callback<T> callback) {
-		mCall.enqueue(callback);
+		final RetryPolicy policy = mRetryPolicy;
+		final CallLimiter limiter = mCallLimiter;
+		if (policy == null && limiter == null) {
+			mCall.enqueue(callback);
+			return;
+		}
+		final AttemptsCallback attemptsCallback = new AttemptsCallback(policy, callback);
+		if (limiter == null) {
+			attemptsCallback.start();
+			return;
+		}
+		final CallLimiter.Ticket ticket = new CallLimiter.Ticket(isMainThread(), new Runnable() {
+
+			/**
+			 */
+			@Override
+			public void run() {
+				attemptsCallback.start();
+			}
+		});
+		attemptsCallback.limiterTicket = ticket;
+		this.mLimiterTicket = ticket;
+		limiter.enqueue(ticket);
+	}
+
+	/**
+	 * Checks whether the current thread is the main thread.
+	 *
+	 * @return {@code True} if called from the main thread, {@code false} otherwise.
+	 */
+	private static boolean isMainThread() {
+		return Looper.myLooper() == Looper.getMainLooper();
 	}
 
 	/**
@@ -168,14 +409,24 @@ public class ServiceCall<T> implements Call<T> {
 	 */
 	@Override
 	public void cancel() {
+		this.mCanceled = true;
+		final Call<T> attemptCall = mAttemptCall;
+		if (attemptCall != null && attemptCall != mCall) {
+			attemptCall.cancel();
+		}
 		mCall.cancel();
+		final CallLimiter.Ticket ticket = mLimiterTicket;
+		if (ticket != null) {
+			// Call waiting for permit of the limiter is started as canceled so its failure is delivered.
+			mCallLimiter.cancel(ticket);
+		}
 	}
 
 	/**
 	 */
 	@Override
 	public boolean isCanceled() {
-		return mCall.isCanceled();
+		return mCanceled || mCall.isCanceled();
 	}
 
 	/**
@@ -187,17 +438,138 @@ public class ServiceCall<T> implements Call<T> {
 
 	/**
 	 * Creates a new clone of this service call with the original <b>Retrofit</b> call also cloned
-	 * and with the same service id as specified via {@link #withServiceId(int)} (if any).
+	 * and with the same service id as specified via {@link #withServiceId(int)} (if any) and the
+	 * same request id generator, retry policy and call limiter.
 	 */
 	@Override
 	@SuppressWarnings("CloneDoesntCallSuperClone")
 	public Call<T> clone() {
 		final ServiceCall<T> serviceCall = new ServiceCall<>(mCall.clone());
 		serviceCall.mServiceId = mServiceId;
+		serviceCall.mRequestIdGenerator = mRequestIdGenerator;
+		serviceCall.mRetryPolicy = mRetryPolicy;
+		serviceCall.mCallLimiter = mCallLimiter;
 		return serviceCall;
 	}
 
 	/*
 	 * Inner classes ===============================================================================
 	 */
+
+	/**
+	 * A {@link Callback} implementation that retries failed request of the enclosing service call
+	 * according to a {@link RetryPolicy} (if any) and delivers result of the last attempt to the
+	 * original callback. Before the result is delivered, permit of {@link CallLimiter} (if any)
+	 * is released.
+	 */
+	private final class AttemptsCallback implements Callback<T>, Runnable {
+
+		/**
+		 * Policy according to which to retry the failed request. May be {@code null} to not retry.
+		 */
+		private final RetryPolicy policy;
+
+		/**
+		 * Callback to which to deliver result of the last attempt.
+		 */
+		private final Callback<T> callback;
+
+		/**
+		 * Time when the request has been enqueued.
+		 */
+		private final long startTime;
+
+		/**
+		 * Ticket holding permit of the call limiter. May be {@code null} if the call is not limited.
+		 */
+		CallLimiter.Ticket limiterTicket;
+
+		/**
+		 * Count of attempts made so far.
+		 */
+		private int attempt = 1;
+
+		/**
+		 * Creates a new instance of AttemptsCallback with the specified <var>policy</var> and
+		 * <var>callback</var>.
+		 *
+		 * @param policy   The policy according to which to retry the failed request. May be {@code null}.
+		 * @param callback The callback to which to deliver result of the last attempt.
+		 */
+		AttemptsCallback(final RetryPolicy policy, final Callback<T> callback) {
+			this.policy = policy;
+			this.callback = callback;
+			this.startTime = SystemClock.elapsedRealtime();
+		}
+
+		/**
+		 * Starts the first attempt.
+		 */
+		void start() {
+			mAttemptCall = mCall;
+			mCall.enqueue(this);
+		}
+
+		/**
+		 */
+		@Override
+		public void onResponse(@NonNull final Call<T> call, @NonNull final Response<T> response) {
+			if (!response.isSuccessful() && !mCanceled && policy != null && policy.shouldRetry(call.request(), response.code(), attempt)) {
+				closeErrorBody(response);
+				scheduleRetry();
+			} else {
+				onDeliver();
+				callback.onResponse(call, response);
+			}
+		}
+
+		/**
+		 */
+		@Override
+		public void onFailure(@NonNull final Call<T> call, @NonNull final Throwable failure) {
+			if (!call.isCanceled() && !mCanceled && policy != null && policy.shouldRetry(call.request(), failure, attempt)) {
+				scheduleRetry();
+			} else {
+				onDeliver();
+				callback.onFailure(call, failure);
+			}
+		}
+
+		/**
+		 * Schedules the next attempt on the shared scheduler.
+		 */
+		private void scheduleRetry() {
+			ServiceExecutors.scheduler().schedule(this, policy.computeBackoff(attempt), TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * Starts the next attempt. If the enclosing service call has been canceled meanwhile, the
+		 * attempt is started as canceled, so its failure is delivered in the same way as any other
+		 * result.
+		 */
+		@Override
+		public void run() {
+			this.attempt++;
+			final Call<T> call = mCall.clone();
+			mAttemptCall = call;
+			if (mCanceled) {
+				call.cancel();
+			}
+			call.enqueue(this);
+		}
+
+		/**
+		 * Invoked before result of the last attempt is delivered to the original callback.
+		 */
+		private void onDeliver() {
+			if (limiterTicket != null) {
+				mCallLimiter.release(limiterTicket);
+			}
+			if (callback instanceof ServiceCallback) {
+				final ServiceCallback serviceCallback = (ServiceCallback) callback;
+				serviceCallback.mAttemptCount = attempt;
+				serviceCallback.mTotalLatency = SystemClock.elapsedRealtime() - startTime;
+			}
+		}
+	}
 }
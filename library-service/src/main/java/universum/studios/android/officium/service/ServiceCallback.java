@@ -27,6 +27,10 @@ import retrofit2.Response;
 /**
  * Base implementation of {@link Callback} that may be used to receive a response for a particular
  * service request asynchronously and dispatch it to its receivers.
+ * <p>
+ * Errors dispatched via {@link #onDispatchError(ServiceError)} are by default new instances which
+ * are never recycled. Callbacks that dispatch errors to a single receiver that releases them once
+ * processed may enable pooling of errors via {@link #setErrorPoolingEnabled(boolean)}.
  *
  * @param <R> Type of the response body to be received by this callback.
  * @author Martin Albedinsky
@@ -54,6 +58,26 @@ public abstract class ServiceCallback<R> extends BaseServiceObject implements Ca
 	 * Members =====================================================================================
 	 */
 
+	/**
+	 * Count of attempts made for the request of which result is delivered to this callback.
+	 * Specified by {@link ServiceCall} when the request has been retried and reset whenever a result
+	 * is dispatched, so it does not leak into results of subsequent calls.
+	 */
+	int mAttemptCount = 1;
+
+	/**
+	 * Total time in milliseconds of all attempts made for the request of which result is delivered
+	 * to this callback. Specified by {@link ServiceCall} when the request has been retried and reset
+	 * whenever a result is dispatched.
+	 */
+	long mTotalLatency;
+
+	/**
+	 * Flag indicating whether errors dispatched by this callback should be obtained from the pool
+	 * of recycled errors.
+	 */
+	private boolean mErrorPoolingEnabled;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -62,6 +86,35 @@ public abstract class ServiceCallback<R> extends BaseServiceObject implements Ca
 	 * Methods =====================================================================================
 	 */
 
+	/**
+	 * Sets a flag indicating whether errors dispatched by this callback should be obtained from the
+	 * pool of recycled errors via {@link ServiceError#obtain(int, okhttp3.ResponseBody)} or
+	 * {@link ServiceError#obtain(Throwable)}.
+	 * <p>
+	 * Pooling should be enabled only if the dispatched errors are delivered to a single receiver
+	 * that recycles them, as a recycled error is cleared for all of its receivers.
+	 * <p>
+	 * Default value: <b>false</b>
+	 *
+	 * @param enabled {@code True} to obtain errors from the pool, {@code false} to create new ones.
+	 * @see #isErrorPoolingEnabled()
+	 * @see ServiceError#recycle()
+	 */
+	public final void setErrorPoolingEnabled(final boolean enabled) {
+		this.mErrorPoolingEnabled = enabled;
+	}
+
+	/**
+	 * Returns the flag indicating whether errors dispatched by this callback are obtained from the
+	 * pool of recycled errors.
+	 *
+	 * @return {@code True} if pooling of errors is enabled, {@code false} otherwise.
+	 * @see #setErrorPoolingEnabled(boolean)
+	 */
+	public final boolean isErrorPoolingEnabled() {
+		return mErrorPoolingEnabled;
+	}
+
 	/**
 	 */
 	@Override
@@ -71,10 +124,14 @@ public abstract class ServiceCallback<R> extends BaseServiceObject implements Ca
 			if (responseBody instanceof ServiceObject) {
 				associateWith((ServiceObject) responseBody, mServiceId, mRequestId);
 			}
+			resetAttempts();
 			onDispatchResponse(responseBody);
 		} else {
-			final ServiceError error = new ServiceError(response.code(), response.errorBody());
+			final ServiceError error = mErrorPoolingEnabled ?
+					ServiceError.obtain(response.code(), response.errorBody()) :
+					new ServiceError(response.code(), response.errorBody());
 			associateWith(error, mServiceId, mRequestId);
+			attachAttempts(error);
 			onDispatchError(error);
 		}
 	}
@@ -92,13 +149,41 @@ public abstract class ServiceCallback<R> extends BaseServiceObject implements Ca
 	 */
 	@Override
 	public void onFailure(@NonNull final Call<R> call, @NonNull final Throwable failure) {
-		final ServiceError error = new ServiceError(failure);
+		final ServiceError error = mErrorPoolingEnabled ? ServiceError.obtain(failure) : new ServiceError(failure);
 		associateWith(error, mServiceId, mRequestId);
+		attachAttempts(error);
 		onDispatchError(error);
 	}
 
+	/**
+	 * Attaches count of attempts and total latency of the request to the given <var>error</var> and
+	 * resets them for this callback.
+	 *
+	 * @param error The error to which to attach the attempts info.
+	 * @see ServiceError#getAttemptCount()
+	 * @see ServiceError#getTotalLatency()
+	 */
+	private void attachAttempts(final ServiceError error) {
+		error.mAttemptCount = mAttemptCount;
+		error.mTotalLatency = mTotalLatency;
+		resetAttempts();
+	}
+
+	/**
+	 * Resets count of attempts and total latency to theirs initial values, so a result of the next
+	 * request that is not retried is not reported with attempts of the previous one.
+	 */
+	private void resetAttempts() {
+		this.mAttemptCount = 1;
+		this.mTotalLatency = 0;
+	}
+
 	/**
 	 * Invoked to dispatch the given <var>error</var> object to its receivers.
+	 * <p>
+	 * If {@link #isErrorPoolingEnabled() pooling of errors} is enabled, the error is obtained via
+	 * {@link ServiceError#obtain(int, okhttp3.ResponseBody)} or {@link ServiceError#obtain(Throwable)},
+	 * so it may be recycled by its receiver.
 	 *
 	 * @param error The error to be dispatched.
 	 * @see #onDispatchResponse(Object)
@@ -23,8 +23,14 @@ import android.support.annotation.Nullable;
 
 import java.io.IOException;
 
+import okhttp3.MediaType;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
 import retrofit2.Converter;
+import universum.studios.android.officium.OfficiumConfig;
+import universum.studios.android.officium.service.circuit.CircuitOpenException;
 
 /**
  * A {@link BaseServiceObject} implementation that represents an error occurred during service execution.
@@ -33,6 +39,18 @@ import retrofit2.Converter;
  * respectively. Or it may be defined as a failure that has caused the associated service and request
  * to fail. In such case {@link #isFailure()} will return {@code true} and the occurred failure may
  * be obtained via {@link #getFailure()}.
+ * <p>
+ * Bytes of the error body are captured when the error is created, up to {@link #MAX_ERROR_BODY_SIZE},
+ * and the original body is closed immediately so its connection may be returned to the connection
+ * pool. The captured bytes may be then read any number of times via {@link #getErrorBody()} or
+ * {@link #getErrorBytes()} and converted via {@link #getErrorBodyAs(Class)} which converts them
+ * only once.
+ * <p>
+ * Errors created frequently, for example during outages, may be obtained via {@link #obtain(int, ResponseBody)}
+ * or {@link #obtain(Throwable)} and released via {@link #recycle()} once they are no longer needed
+ * so they may be reused. Recycling is optional and errors that are not recycled are simply garbage
+ * collected. If {@link OfficiumConfig#DEBUG_RECYCLING_CHECKS_ENABLED} is enabled, accessing
+ * data of an already recycled error throws an exception.
  *
  * @author Martin Albedinsky
  */
@@ -47,6 +65,19 @@ public class ServiceError extends BaseServiceObject {
 	 */
 	// private static final String TAG = "ServiceError";
 
+	/**
+	 * Maximum count of bytes of the error body that are captured by a service error. Bytes of larger
+	 * bodies are truncated to this size.
+	 *
+	 * @see #isErrorBodyTruncated()
+	 */
+	public static final long MAX_ERROR_BODY_SIZE = 64 * 1024;
+
+	/**
+	 * Maximum count of recycled errors held in the pool.
+	 */
+	private static final int MAX_POOL_SIZE = 16;
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -55,6 +86,11 @@ public class ServiceError extends BaseServiceObject {
 	 * Static members ==============================================================================
 	 */
 
+	/**
+	 * Pool holding recycled errors.
+	 */
+	private static final ServiceObjectPool<ServiceError> POOL = new ServiceObjectPool<>(MAX_POOL_SIZE);
+
 	/*
 	 * Members =====================================================================================
 	 */
@@ -65,22 +101,32 @@ public class ServiceError extends BaseServiceObject {
 	 *
 	 * @see #isFailure()
 	 */
-	private final Throwable mFailure;
+	private Throwable mFailure;
 
 	/**
 	 * Error code specified for this service error along with error body.
 	 *
 	 * @see #isFailure()
 	 */
-	private final int mErrorCode;
+	private int mErrorCode;
 
 	/**
-	 * Error body specified for this service error along with error code. May be {@code null} if this
-	 * error represents a failure.
+	 * Bytes captured from the error body specified for this service error along with error code.
+	 * May be {@code null} if this error represents a failure.
 	 *
 	 * @see #isFailure()
 	 */
-	private final ResponseBody mErrorBody;
+	private ByteString mErrorBytes;
+
+	/**
+	 * Content type of the error body. May be {@code null} if not specified by the server.
+	 */
+	private MediaType mErrorContentType;
+
+	/**
+	 * Flag indicating whether the error body has been larger than {@link #MAX_ERROR_BODY_SIZE}.
+	 */
+	private boolean mErrorBodyTruncated;
 
 	/**
 	 * Converter used to convert error body to the desired object.
@@ -89,13 +135,60 @@ public class ServiceError extends BaseServiceObject {
 	 */
 	private Converter<ResponseBody, ?> mErrorBodyConverter;
 
+	/**
+	 * Error body converted via the current converter. Valid only if {@link #mErrorBodyConverted}
+	 * is {@code true}.
+	 */
+	private Object mConvertedErrorBody;
+
+	/**
+	 * Flag indicating whether the error body has been already converted via the current converter.
+	 */
+	private boolean mErrorBodyConverted;
+
+	/**
+	 * Count of attempts made for the request that has resulted in this error.
+	 *
+	 * @see #getAttemptCount()
+	 */
+	int mAttemptCount = 1;
+
+	/**
+	 * Total time in milliseconds of all attempts made for the request that has resulted in this
+	 * error.
+	 *
+	 * @see #getTotalLatency()
+	 */
+	long mTotalLatency;
+
+	/**
+	 * Flag indicating whether this error has been obtained from the pool and thus may be recycled.
+	 *
+	 * @see #recycle()
+	 */
+	private boolean mRecyclable;
+
+	/**
+	 * Flag indicating whether this error has been already recycled.
+	 */
+	private volatile boolean mRecycled;
+
 	/*
 	 * Constructors ================================================================================
 	 */
 
+	/**
+	 * Creates a new empty instance of ServiceError to be set up when obtained from the pool.
+	 */
+	private ServiceError() {
+		super();
+	}
+
 	/**
 	 * Creates a new instance of ServiceError with the specified <var>errorCode</var> and <var>errorBody</var>
 	 * received from the server as error response for the associated service and request.
+	 * <p>
+	 * Bytes of the given body are read up to {@link #MAX_ERROR_BODY_SIZE} and the body is closed.
 	 *
 	 * @param errorCode The error/response code returned by the server.
 	 * @param errorBody The body of error response returned by the server.
@@ -104,9 +197,7 @@ public class ServiceError extends BaseServiceObject {
 	 */
 	public ServiceError(final int errorCode, @NonNull final ResponseBody errorBody) {
 		super();
-		this.mErrorCode = errorCode;
-		this.mErrorBody = errorBody;
-		this.mFailure = null;
+		setUpError(errorCode, errorBody);
 	}
 
 	/**
@@ -118,30 +209,111 @@ public class ServiceError extends BaseServiceObject {
 	 */
 	public ServiceError(@NonNull final Throwable failure) {
 		super();
-		this.mErrorCode = 0;
-		this.mErrorBody = null;
 		this.mFailure = failure;
 	}
 
 	/**
 	 * Creates a new instance of ServiceError with data of the given one.
 	 * <p>
-	 * <b>Note</b>, that this is same as creating <b>shallow</b> copy of the error object.
+	 * <b>Note</b>, that this is same as creating <b>shallow</b> copy of the error object. Captured
+	 * error body bytes are immutable so they are shared between both errors.
 	 *
 	 * @param other The other service error of which data to copy to the new one.
 	 */
 	public ServiceError(@NonNull final ServiceError other) {
 		super();
 		this.mErrorCode = other.mErrorCode;
-		this.mErrorBody = other.mErrorBody;
+		this.mErrorBytes = other.mErrorBytes;
+		this.mErrorContentType = other.mErrorContentType;
+		this.mErrorBodyTruncated = other.mErrorBodyTruncated;
 		this.mFailure = other.mFailure;
-		this.mErrorBodyConverter = other.mErrorBodyConverter;
+		synchronized (other) {
+			this.mErrorBodyConverter = other.mErrorBodyConverter;
+			this.mConvertedErrorBody = other.mConvertedErrorBody;
+			this.mErrorBodyConverted = other.mErrorBodyConverted;
+		}
+		this.mAttemptCount = other.mAttemptCount;
+		this.mTotalLatency = other.mTotalLatency;
 	}
 
 	/*
 	 * Methods =====================================================================================
 	 */
 
+	/**
+	 * Obtains a service error for the specified <var>errorCode</var> and <var>errorBody</var> from
+	 * the pool of recycled errors or creates a new one if the pool is empty.
+	 *
+	 * @param errorCode The error/response code returned by the server.
+	 * @param errorBody The body of error response returned by the server.
+	 * @return Service error ready to be used. Should be released via {@link #recycle()} when no
+	 * longer needed.
+	 * @see #ServiceError(int, ResponseBody)
+	 */
+	@NonNull
+	public static ServiceError obtain(final int errorCode, @NonNull final ResponseBody errorBody) {
+		final ServiceError error = obtainFromPool();
+		error.setUpError(errorCode, errorBody);
+		return error;
+	}
+
+	/**
+	 * Obtains a service error for the specified <var>failure</var> from the pool of recycled errors
+	 * or creates a new one if the pool is empty.
+	 *
+	 * @param failure The failure that has caused the associated service and request to fail.
+	 * @return Service error ready to be used. Should be released via {@link #recycle()} when no
+	 * longer needed.
+	 * @see #ServiceError(Throwable)
+	 */
+	@NonNull
+	public static ServiceError obtain(@NonNull final Throwable failure) {
+		final ServiceError error = obtainFromPool();
+		error.mFailure = failure;
+		return error;
+	}
+
+	/**
+	 * Obtains an empty recyclable error from the pool or creates a new one.
+	 *
+	 * @return Empty service error.
+	 */
+	private static ServiceError obtainFromPool() {
+		ServiceError error = POOL.acquire();
+		if (error == null) {
+			error = new ServiceError();
+		}
+		error.mRecyclable = true;
+		error.mRecycled = false;
+		return error;
+	}
+
+	/**
+	 * Sets up this error as an error response with the specified <var>errorCode</var> and captures
+	 * bytes of the given <var>errorBody</var>, which is then closed.
+	 *
+	 * @param errorCode The error/response code returned by the server.
+	 * @param errorBody The body of error response returned by the server.
+	 */
+	private void setUpError(final int errorCode, final ResponseBody errorBody) {
+		this.mErrorCode = errorCode;
+		this.mErrorContentType = errorBody.contentType();
+		ByteString bytes = ByteString.EMPTY;
+		boolean truncated = false;
+		try {
+			final BufferedSource source = errorBody.source();
+			truncated = source.request(MAX_ERROR_BODY_SIZE + 1);
+			final Buffer buffer = source.buffer();
+			bytes = buffer.readByteString(Math.min(buffer.size(), MAX_ERROR_BODY_SIZE));
+		} catch (IOException e) {
+			// Body could not be read, treat it as empty.
+		} finally {
+			errorBody.close();
+		}
+		this.mErrorBytes = bytes;
+		this.mErrorBodyTruncated = truncated;
+	}
+
 	/**
 	 * Checks whether this service error represents an error response that has been received from
 	 * the server for the associated service and request.
@@ -152,7 +324,8 @@ public class ServiceError extends BaseServiceObject {
 	 * @see #isFailure()
 	 */
 	public final boolean isError() {
-		return mErrorBody != null;
+		assertNotRecycled();
+		return mErrorBytes != null;
 	}
 
 	/**
@@ -164,22 +337,53 @@ public class ServiceError extends BaseServiceObject {
 	 * @see #getErrorBody()
 	 */
 	public int getErrorCode() {
-		if (mErrorBody == null) throw new IllegalStateException("Not an error but a failure!");
+		assertNotRecycled();
+		if (mErrorBytes == null) throw new IllegalStateException("Not an error but a failure!");
 		return mErrorCode;
 	}
 
 	/**
 	 * Returns the error body of the response send by the server as result to call to the associated
 	 * service and request.
+	 * <p>
+	 * Each call to this method returns a new body backed by the captured bytes, so the returned
+	 * body may be freely consumed.
 	 *
 	 * @return Error body specified for this service error.
 	 * @throws IllegalStateException If this error is not an error response but a failure.
 	 * @see #getErrorCode()
+	 * @see #getErrorBytes()
 	 */
 	@NonNull
 	public ResponseBody getErrorBody() {
-		if (mErrorBody == null) throw new IllegalStateException("Not an error but a failure!");
-		return mErrorBody;
+		assertNotRecycled();
+		if (mErrorBytes == null) throw new IllegalStateException("Not an error but a failure!");
+		return ResponseBody.create(mErrorContentType, mErrorBytes.size(), new Buffer().write(mErrorBytes));
+	}
+
+	/**
+	 * Returns the bytes captured from the error body of the response send by the server.
+	 *
+	 * @return Bytes of the error body, at most {@link #MAX_ERROR_BODY_SIZE} of them.
+	 * @throws IllegalStateException If this error is not an error response but a failure.
+	 * @see #isErrorBodyTruncated()
+	 */
+	@NonNull
+	public ByteString getErrorBytes() {
+		assertNotRecycled();
+		if (mErrorBytes == null) throw new IllegalStateException("Not an error but a failure!");
+		return mErrorBytes;
+	}
+
+	/**
+	 * Checks whether the error body send by the server has been larger than {@link #MAX_ERROR_BODY_SIZE}
+	 * so only its beginning has been captured.
+	 *
+	 * @return {@code True} if the error body has been truncated, {@code false} otherwise.
+	 */
+	public boolean isErrorBodyTruncated() {
+		assertNotRecycled();
+		return mErrorBodyTruncated;
 	}
 
 	/**
@@ -189,12 +393,19 @@ public class ServiceError extends BaseServiceObject {
 	 * @param converter The desired converter to be used for conversion. May be {@code null} to clear
 	 *                  the current one.
 	 */
-	public void setErrorBodyConverter(@Nullable final Converter<ResponseBody, ?> converter) {
-		this.mErrorBodyConverter = converter;
+	public synchronized void setErrorBodyConverter(@Nullable final Converter<ResponseBody, ?> converter) {
+		if (mErrorBodyConverter != converter) {
+			this.mErrorBodyConverter = converter;
+			this.mConvertedErrorBody = null;
+			this.mErrorBodyConverted = false;
+		}
 	}
 
 	/**
 	 * Returns the error body of this service error as the desired type.
+	 * <p>
+	 * The error body is converted only once for the current converter and the converted object is
+	 * returned for all subsequent calls.
 	 *
 	 * @param classOfT Class ot the type to which to convert the error body.
 	 * @param <T>      The desired type as which to return error body or {@code null} if conversion fails.
@@ -203,20 +414,22 @@ public class ServiceError extends BaseServiceObject {
 	 * @throws IllegalStateException If no converter has been specified.
 	 */
 	@Nullable
-	public <T> T getErrorBodyAs(@NonNull final Class<T> classOfT) {
-		if (mErrorBody == null) throw new IllegalStateException("Not an error but a failure!");
+	public synchronized <T> T getErrorBodyAs(@NonNull final Class<T> classOfT) {
+		assertNotRecycled();
+		if (mErrorBytes == null) throw new IllegalStateException("Not an error but a failure!");
 		if (mErrorBodyConverter == null) throw new IllegalStateException("No error body converter specified!");
-		T errorBody = null;
-		try {
-			errorBody = (T) mErrorBodyConverter.convert(mErrorBody);
-		} catch (IOException e) {
-			e.printStackTrace();
-		} catch (ClassCastException e) {
-			throw new IllegalArgumentException("Specified class(" + classOfT + ") does not match that specified for converter!", e);
-		} finally {
-			mErrorBody.close();
+		if (!mErrorBodyConverted) {
+			try {
+				mConvertedErrorBody = mErrorBodyConverter.convert(getErrorBody());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			this.mErrorBodyConverted = true;
+		}
+		if (mConvertedErrorBody != null && !classOfT.isInstance(mConvertedErrorBody)) {
+			throw new IllegalArgumentException("Specified class(" + classOfT + ") does not match that specified for converter!");
 		}
-		return errorBody;
+		return classOfT.cast(mConvertedErrorBody);
 	}
 
 	/**
@@ -228,6 +441,7 @@ public class ServiceError extends BaseServiceObject {
 	 * @see #isError()
 	 */
 	public final boolean isFailure() {
+		assertNotRecycled();
 		return mFailure != null;
 	}
 
@@ -239,10 +453,103 @@ public class ServiceError extends BaseServiceObject {
 	 */
 	@NonNull
 	public Throwable getFailure() {
+		assertNotRecycled();
 		if (mFailure == null) throw new IllegalStateException("Not a failure but an error!");
 		return mFailure;
 	}
 
+	/**
+	 * Checks whether this error is a failure caused by an open circuit that has rejected the request
+	 * without any network exchange.
+	 *
+	 * @return {@code True} if the failure of this error is {@link CircuitOpenException},
+	 * {@code false} otherwise.
+	 * @see ServiceManager#setCircuitBreaker(universum.studios.android.officium.service.circuit.CircuitBreaker)
+	 */
+	public final boolean isCircuitOpen() {
+		assertNotRecycled();
+		return mFailure instanceof CircuitOpenException;
+	}
+
+	/**
+	 * Returns the count of attempts made for the request that has resulted in this error. The
+	 * count is greater than {@code 1} only if the request has been retried according to a
+	 * {@link RetryPolicy}.
+	 *
+	 * @return Count of attempts, including the first one.
+	 * @see ServiceCall#withRetryPolicy(RetryPolicy)
+	 */
+	public int getAttemptCount() {
+		assertNotRecycled();
+		return mAttemptCount;
+	}
+
+	/**
+	 * Returns the total time of all attempts made for the request that has resulted in this error,
+	 * including delays between retries.
+	 *
+	 * @return Total latency in milliseconds or {@code 0} if the request has not been executed with
+	 * a {@link RetryPolicy}.
+	 * @see #getAttemptCount()
+	 */
+	public long getTotalLatency() {
+		assertNotRecycled();
+		return mTotalLatency;
+	}
+
+	/**
+	 * Releases this error back to the pool so it may be reused. This error must not be used after
+	 * this call.
+	 * <p>
+	 * Errors that have not been obtained via one of {@code obtain(...)} methods are not pooled and
+	 * for them this method does nothing.
+	 *
+	 * @throws IllegalStateException If this error has been already recycled.
+	 */
+	public void recycle() {
+		if (!mRecyclable) {
+			return;
+		}
+		synchronized (this) {
+			if (mRecycled) throw new IllegalStateException("Service error is already recycled!");
+			this.mRecycled = true;
+			this.mFailure = null;
+			this.mErrorCode = 0;
+			this.mErrorBytes = null;
+			this.mErrorContentType = null;
+			this.mErrorBodyTruncated = false;
+			this.mErrorBodyConverter = null;
+			this.mConvertedErrorBody = null;
+			this.mErrorBodyConverted = false;
+			this.mAttemptCount = 1;
+			this.mTotalLatency = 0;
+			clearAssociation();
+		}
+		POOL.release(this);
+	}
+
+	/**
+	 * Checks whether this error has been already recycled via {@link #recycle()}.
+	 *
+	 * @return {@code True} if this error has been recycled and should not be used anymore,
+	 * {@code false} otherwise.
+	 */
+	public boolean isRecycled() {
+		return mRecycled;
+	}
+
+	/**
+	 * Asserts that this error has not been recycled if {@link OfficiumConfig#DEBUG_RECYCLING_CHECKS_ENABLED}
+	 * is enabled.
+	 *
+	 * @throws IllegalStateException If this error has been already recycled.
+	 */
+	private void assertNotRecycled() {
+		if (mRecycled && OfficiumConfig.DEBUG_RECYCLING_CHECKS_ENABLED) {
+			throw new IllegalStateException("Cannot use already recycled service error!");
+		}
+	}
+
 	/**
 	 */
 	@Override
@@ -256,9 +563,11 @@ public class ServiceError extends BaseServiceObject {
 		builder.append(", errorCode: ");
 		builder.append(isFailure ? "NONE" : mErrorCode);
 		builder.append(", errorBody: ");
-		builder.append(isFailure ? "NONE" : mErrorBody);
+		builder.append(isFailure ? "NONE" : mErrorBytes);
 		builder.append(", failure: ");
 		builder.append(isFailure ? mFailure : "NONE");
+		builder.append(", attemptCount: ");
+		builder.append(mAttemptCount);
 		return builder.append("}").toString();
 	}
 
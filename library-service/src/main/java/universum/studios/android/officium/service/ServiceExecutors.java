@@ -0,0 +1,187 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holder of executors shared by all service calls and services configurations.
+ *
+ * @author Martin Albedinsky
+ */
+final class ServiceExecutors {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ServiceExecutors";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private ServiceExecutors() {
+		// Not allowed to be instantiated publicly.
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the scheduler shared by all service calls to schedule delayed work, like retries of
+	 * failed requests. The scheduler uses a single daemon thread, so scheduled work should only
+	 * dispatch further asynchronous work and never block.
+	 *
+	 * @return Shared scheduler.
+	 */
+	@NonNull
+	static ScheduledExecutorService scheduler() {
+		return SchedulerHolder.SCHEDULER;
+	}
+
+	/**
+	 * Returns the executor shared by all services to perform background work that may block, like
+	 * warming up of services configurations. Threads of the executor are daemon threads that are
+	 * terminated when idle.
+	 *
+	 * @return Shared background executor.
+	 */
+	@NonNull
+	static ExecutorService background() {
+		return BackgroundHolder.BACKGROUND;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Holder of the shared scheduler so it is created only when first requested.
+	 */
+	private static final class SchedulerHolder {
+
+		/**
+		 * Shared scheduler instance.
+		 */
+		static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+		/**
+		 * Creates a new scheduler with a single daemon thread.
+		 *
+		 * @return Scheduler ready to be used.
+		 */
+		private static ScheduledExecutorService createScheduler() {
+			return new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("Officium-Scheduler-"));
+		}
+	}
+
+	/**
+	 * Holder of the shared background executor so it is created only when first requested.
+	 */
+	private static final class BackgroundHolder {
+
+		/**
+		 * Shared background executor instance.
+		 */
+		static final ExecutorService BACKGROUND = createBackground();
+
+		/**
+		 * Creates a new executor with count of daemon threads bounded by count of available
+		 * processors.
+		 *
+		 * @return Executor ready to be used.
+		 */
+		private static ExecutorService createBackground() {
+			final int threadsCount = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					threadsCount,
+					threadsCount,
+					30,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(),
+					new DaemonThreadFactory("Officium-Background-")
+			);
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		}
+	}
+
+	/**
+	 * A {@link ThreadFactory} implementation creating named daemon threads.
+	 */
+	private static final class DaemonThreadFactory implements ThreadFactory {
+
+		/**
+		 * Prefix for names of created threads.
+		 */
+		private final String namePrefix;
+
+		/**
+		 * Counter used to name created threads.
+		 */
+		private final AtomicInteger counter = new AtomicInteger(0);
+
+		/**
+		 * Creates a new instance of DaemonThreadFactory with the specified <var>namePrefix</var>.
+		 *
+		 * @param namePrefix Prefix for names of created threads.
+		 */
+		DaemonThreadFactory(final String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		/**
+		 */
+		@Override
+		public Thread newThread(@NonNull final Runnable runnable) {
+			final Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -23,10 +23,35 @@ import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Converter;
 import retrofit2.Retrofit;
+import universum.studios.android.officium.service.batch.RequestBatcher;
+import universum.studios.android.officium.service.cache.CachePolicy;
+import universum.studios.android.officium.service.cache.ResponseCache;
+import universum.studios.android.officium.service.cache.ResponseCacheInterceptor;
+import universum.studios.android.officium.service.circuit.Circuit;
+import universum.studios.android.officium.service.circuit.CircuitBreaker;
+import universum.studios.android.officium.service.circuit.CircuitBreakerInterceptor;
 
 /**
  * Manager that may be used for accessing of multiple instances of services (theirs PROXYies) and
@@ -39,6 +64,25 @@ import retrofit2.Retrofit;
  * caches its services PROXY instance and re-creates it only in case of configuration change. Also
  * ServiceManager caches each instance of these configuration objects and maps them to theirs
  * corresponding services interface.
+ * <p>
+ * Accessing of already created services PROXYies and configurations is lock-free, so ServiceManager
+ * may be safely and cheaply used from multiple threads at once. Only creation of a new configuration
+ * object is serialized so each services interface has always exactly one configuration.
+ *
+ * <h3>Shared client</h3>
+ * All services configurations created by ServiceManager use the same {@link OkHttpClient} which
+ * may be obtained via {@link #getSharedClient()} or specified via {@link #setSharedClient(OkHttpClient)}.
+ * This means that all services share a single connection pool, dispatcher and cache. If a specific
+ * services interface requires a different client configuration, such client should be created via
+ * {@link #newClientBuilder()} and specified via {@link ServicesConfiguration#setClient(OkHttpClient)},
+ * so it still shares the connection pool and dispatcher with other services. Statistics about opened
+ * and reused connections may be obtained via {@link #getConnectionStats()}.
+ *
+ * <h3>Warm-up</h3>
+ * Creation of services PROXY and resolving of its service methods for the first call may take
+ * noticeable time. Services configurations for interfaces that will be used shortly after
+ * application start may be created and warmed up in parallel on a background thread via
+ * {@link #prewarm(Class[])}, which may also open connection to the end point in advance.
  *
  * @author Martin Albedinsky
  */
@@ -67,14 +111,39 @@ public class ServiceManager {
 
 	/**
 	 * Map containing services configuration objects mapped to class of services that they configure.
+	 * This map is read without any locking, see {@link #obtainServicesConfiguration(Class)}.
+	 */
+	private final Map<Class<?>, ServicesConfiguration> mServices = new ConcurrentHashMap<>(4);
+
+	/**
+	 * Lock used to synchronize creation of new services configuration objects.
 	 */
-	private final Map<Class<?>, ServicesConfiguration> mServices = new HashMap<>(1);
+	private final Object mServicesCreationLock = new Object();
+
+	/**
+	 * Stats counting opened and reused connections of {@link #mSharedClient}.
+	 */
+	private final ConnectionStats mConnectionStats = new ConnectionStats();
+
+	/**
+	 * Client shared by all services configurations created by this manager.
+	 *
+	 * @see #getSharedClient()
+	 */
+	private volatile OkHttpClient mSharedClient;
 
 	/**
 	 * End point for services managed by this manager.
 	 */
 	private EndPoint mEndPoint;
 
+	/**
+	 * Circuit breaker used by all services configurations created by this manager.
+	 *
+	 * @see #setCircuitBreaker(CircuitBreaker)
+	 */
+	private CircuitBreaker mCircuitBreaker;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -146,6 +215,158 @@ public class ServiceManager {
 		return mEndPoint;
 	}
 
+	/**
+	 * Sets a client to be shared by all services configurations of this manager.
+	 * <p>
+	 * The connection stats of this manager are attached to the given client as network interceptor.
+	 * All already created services configurations that use the current shared client will be updated
+	 * to use the new one.
+	 *
+	 * @param client The desired client to be shared. May be {@code null} to use default client
+	 *               created via {@link #onCreateSharedClient()}.
+	 * @see #getSharedClient()
+	 */
+	public void setSharedClient(@Nullable final OkHttpClient client) {
+		synchronized (mServicesCreationLock) {
+			final OkHttpClient previousClient = mSharedClient;
+			this.mSharedClient = client == null ? null : attachConnectionStats(client);
+			if (previousClient == null) {
+				return;
+			}
+			final OkHttpClient sharedClient = getSharedClient();
+			for (final ServicesConfiguration configuration : mServices.values()) {
+				if (configuration.getClient() == previousClient) configuration.setClient(sharedClient);
+			}
+		}
+	}
+
+	/**
+	 * Returns the client that is shared by all services configurations of this manager.
+	 * <p>
+	 * If there is no client specified, a default one is created via {@link #onCreateSharedClient()}.
+	 *
+	 * @return Shared client with connection stats of this manager attached.
+	 * @see #setSharedClient(OkHttpClient)
+	 * @see #newClientBuilder()
+	 */
+	@NonNull
+	public OkHttpClient getSharedClient() {
+		OkHttpClient client = mSharedClient;
+		if (client == null) {
+			synchronized (mServicesCreationLock) {
+				client = mSharedClient;
+				if (client == null) {
+					client = attachConnectionStats(onCreateSharedClient());
+					this.mSharedClient = client;
+				}
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Invoked whenever {@link #getSharedClient()} is called and there is no shared client created
+	 * or specified yet.
+	 * <p>
+	 * Default implementation creates a new instance of OkHttpClient with default configuration.
+	 *
+	 * @return New client to be shared by services configurations of this manager.
+	 */
+	@NonNull
+	protected OkHttpClient onCreateSharedClient() {
+		return new OkHttpClient();
+	}
+
+	/**
+	 * Attaches connection stats of this manager to the given <var>client</var> if they are not
+	 * attached yet.
+	 *
+	 * @param client The client to which to attach the stats.
+	 * @return Client with attached connection stats.
+	 */
+	private OkHttpClient attachConnectionStats(final OkHttpClient client) {
+		return client.networkInterceptors().contains(mConnectionStats) ?
+				client :
+				client.newBuilder().addNetworkInterceptor(mConnectionStats).build();
+	}
+
+	/**
+	 * Returns a new builder created from the shared client of this manager. Clients built by such
+	 * builder share the connection pool and dispatcher with the shared client so they may be used
+	 * to override client configuration for a specific services interface.
+	 *
+	 * @return New builder derived from the shared client.
+	 * @see #getSharedClient()
+	 * @see ServicesConfiguration#setClient(OkHttpClient)
+	 */
+	@NonNull
+	public OkHttpClient.Builder newClientBuilder() {
+		return getSharedClient().newBuilder();
+	}
+
+	/**
+	 * Returns the stats of connections used by the shared client of this manager and all clients
+	 * derived from it.
+	 *
+	 * @return Connection stats of this manager.
+	 * @see #newClientBuilder()
+	 */
+	@NonNull
+	public ConnectionStats getConnectionStats() {
+		return mConnectionStats;
+	}
+
+	/**
+	 * Sets a circuit breaker to be used by all services configurations of this manager.
+	 * <p>
+	 * Each services configuration executes its requests through a circuit keyed by base url of the
+	 * end point of this manager and also by its services interface if the breaker has
+	 * {@link CircuitBreaker#perServicesInterface} enabled. All already created services configurations
+	 * are updated to use circuits of the new breaker. Circuits are attached only if this manager
+	 * has an end point specified.
+	 *
+	 * @param breaker The desired circuit breaker. May be {@code null} to not use circuit breaker.
+	 * @see #getCircuitBreaker()
+	 * @see ServicesConfiguration#setCircuit(Circuit)
+	 */
+	public void setCircuitBreaker(@Nullable final CircuitBreaker breaker) {
+		synchronized (mServicesCreationLock) {
+			this.mCircuitBreaker = breaker;
+			for (final ServicesConfiguration configuration : mServices.values()) {
+				configuration.setCircuit(obtainCircuit(configuration.servicesInterface));
+			}
+		}
+	}
+
+	/**
+	 * Returns the circuit breaker used by services configurations of this manager.
+	 *
+	 * @return This manager's circuit breaker or {@code null} if there is no breaker specified.
+	 * @see #setCircuitBreaker(CircuitBreaker)
+	 */
+	@Nullable
+	public CircuitBreaker getCircuitBreaker() {
+		return mCircuitBreaker;
+	}
+
+	/**
+	 * Obtains circuit of the current circuit breaker for the specified <var>servicesInterface</var>.
+	 *
+	 * @param servicesInterface Class of the services interface for which to obtain circuit.
+	 * @return Circuit for the services interface or {@code null} if there is no circuit breaker or
+	 * end point specified.
+	 */
+	private Circuit obtainCircuit(final Class<?> servicesInterface) {
+		final CircuitBreaker breaker = mCircuitBreaker;
+		if (breaker == null || mEndPoint == null) {
+			return null;
+		}
+		return breaker.circuit(CircuitBreaker.key(
+				mEndPoint.getBaseUrl(),
+				breaker.perServicesInterface ? servicesInterface : null
+		));
+	}
+
 	/**
 	 * Returns the PROXY instance for the requested <var>servicesInterface</var>. The returned PROXY
 	 * can be immediately used for services invocation that are declared by the given services interface.
@@ -160,8 +381,72 @@ public class ServiceManager {
 	 */
 	@SuppressWarnings("unchecked")
 	public <S> S services(@NonNull final Class<S> servicesInterface) {
-		this.ensureHasServicesConfiguration(servicesInterface);
-		return (S) mServices.get(servicesInterface).services();
+		return (S) obtainServicesConfiguration(servicesInterface).services();
+	}
+
+	/**
+	 * Same as {@link #prewarm(boolean, Class[])} without priming of connection to the end point.
+	 *
+	 * @param servicesInterfaces Classes of the services interfaces to be warmed up.
+	 * @return Future that completes once all the specified services configurations are warmed up.
+	 */
+	@NonNull
+	public Future<?> prewarm(@NonNull final Class<?>... servicesInterfaces) {
+		return prewarm(false, servicesInterfaces);
+	}
+
+	/**
+	 * Warms up services configurations for the specified <var>servicesInterfaces</var> in parallel
+	 * on a shared background executor, so the first services call does not need to do so on the
+	 * calling thread.
+	 * <p>
+	 * Warm-up of each configuration builds its Retrofit instance and services PROXY with
+	 * {@link Retrofit.Builder#validateEagerly(boolean) eager validation}, so metadata of all service
+	 * methods of the services interface are resolved in advance without any service method being
+	 * invoked. If a services interface contains invalid service methods, the returned future fails
+	 * with the validation error.
+	 *
+	 * @param primeConnection {@code True} to also open connection to the end point of this manager
+	 *                        (if any) via a {@code HEAD} request to its base url, so DNS lookup and
+	 *                        TLS handshake are already done for the first services call.
+	 * @param servicesInterfaces Classes of the services interfaces to be warmed up.
+	 * @return Future that completes once all the specified services configurations are warmed up
+	 * and the connection is primed. Failure to prime the connection is not reported through the
+	 * future.
+	 * @see #services(Class)
+	 */
+	@NonNull
+	public Future<?> prewarm(final boolean primeConnection, @NonNull final Class<?>... servicesInterfaces) {
+		final List<Future<?>> futures = new ArrayList<>(servicesInterfaces.length + 1);
+		for (final Class<?> servicesInterface : servicesInterfaces) {
+			futures.add(ServiceExecutors.background().submit(new Runnable() {
+
+				/**
+				 */
+				@Override
+				public void run() {
+					obtainServicesConfiguration(servicesInterface).prewarm();
+				}
+			}));
+		}
+		final EndPoint endPoint = mEndPoint;
+		if (primeConnection && endPoint != null) {
+			futures.add(ServiceExecutors.background().submit(new Runnable() {
+
+				/**
+				 */
+				@Override
+				public void run() {
+					final Request request = new Request.Builder().url(endPoint.getBaseUrl()).head().build();
+					try {
+						getSharedClient().newCall(request).execute().close();
+					} catch (IOException e) {
+						// Connection will be opened again by the first services call.
+					}
+				}
+			}));
+		}
+		return new CompositeFuture(futures);
 	}
 
 	/**
@@ -175,24 +460,32 @@ public class ServiceManager {
 	 */
 	@SuppressWarnings("unchecked")
 	public <S> ServicesConfiguration<S> servicesConfiguration(@NonNull final Class<S> servicesInterface) {
-		this.ensureHasServicesConfiguration(servicesInterface);
-		return mServices.get(servicesInterface);
+		return obtainServicesConfiguration(servicesInterface);
 	}
 
 	/**
-	 * Ensures that the services configuration object is created for the given <var>servicesInterface</var>.
+	 * Obtains the services configuration object for the given <var>servicesInterface</var>. If there
+	 * is no configuration created yet, a new one is created via {@link #onCreateServicesConfiguration(Class)}.
+	 * <p>
+	 * Already created configurations are returned without any locking. Creation of a new configuration
+	 * is performed at most once per services interface even if multiple threads request it at the
+	 * same time.
 	 *
-	 * @param servicesInterface The services interface for which to create new configuration if it
-	 *                          is not created yet.
+	 * @param servicesInterface The services interface for which to obtain its configuration.
+	 * @return Services configuration for the services interface.
 	 */
-	private void ensureHasServicesConfiguration(final Class<?> servicesInterface) {
-		synchronized (mServices) {
-			final ServicesConfiguration servicesConfiguration = mServices.get(servicesInterface);
-			if (servicesConfiguration == null) mServices.put(
-					servicesInterface,
-					onCreateServicesConfiguration(servicesInterface)
-			);
+	private ServicesConfiguration obtainServicesConfiguration(final Class<?> servicesInterface) {
+		ServicesConfiguration servicesConfiguration = mServices.get(servicesInterface);
+		if (servicesConfiguration == null) {
+			synchronized (mServicesCreationLock) {
+				servicesConfiguration = mServices.get(servicesInterface);
+				if (servicesConfiguration == null) {
+					servicesConfiguration = onCreateServicesConfiguration(servicesInterface);
+					mServices.put(servicesInterface, servicesConfiguration);
+				}
+			}
 		}
+		return servicesConfiguration;
 	}
 
 	/**
@@ -200,7 +493,8 @@ public class ServiceManager {
 	 * for the first time for the specified <var>servicesInterface</var>.
 	 * <p>
 	 * Default implementation creates a new instance of ServicesConfiguration with the given services
-	 * interface and end point specified for this manager (if any).
+	 * interface, end point specified for this manager (if any), the shared client and circuit of
+	 * the circuit breaker (if any).
 	 * <p>
 	 * Custom implementations of ServiceManager may override this method to perform default services
 	 * configuration for them specific.
@@ -214,6 +508,8 @@ public class ServiceManager {
 	protected ServicesConfiguration onCreateServicesConfiguration(@NonNull final Class<?> servicesInterface) {
 		final ServicesConfiguration configuration = new ServicesConfiguration<>(servicesInterface);
 		if (mEndPoint != null) configuration.retrofitBuilder().baseUrl(mEndPoint.getBaseUrl());
+		configuration.setClient(getSharedClient());
+		configuration.setCircuit(obtainCircuit(servicesInterface));
 		return configuration;
 	}
 
@@ -221,6 +517,78 @@ public class ServiceManager {
 	 * Inner classes ===============================================================================
 	 */
 
+	/**
+	 * A {@link Future} implementation that completes once all of its futures complete.
+	 */
+	private static final class CompositeFuture implements Future<Void> {
+
+		/**
+		 * Futures of which completion this future awaits.
+		 */
+		private final List<Future<?>> futures;
+
+		/**
+		 * Creates a new instance of CompositeFuture for the specified <var>futures</var>.
+		 *
+		 * @param futures The futures of which completion to await.
+		 */
+		CompositeFuture(final List<Future<?>> futures) {
+			this.futures = futures;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+			boolean canceled = false;
+			for (final Future<?> future : futures) {
+				canceled |= future.cancel(mayInterruptIfRunning);
+			}
+			return canceled;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean isCancelled() {
+			for (final Future<?> future : futures) {
+				if (future.isCancelled()) return true;
+			}
+			return false;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean isDone() {
+			for (final Future<?> future : futures) {
+				if (!future.isDone()) return false;
+			}
+			return true;
+		}
+
+		/**
+		 */
+		@Override
+		public Void get() throws InterruptedException, ExecutionException {
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+			return null;
+		}
+
+		/**
+		 */
+		@Override
+		public Void get(final long timeout, @NonNull final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+			for (final Future<?> future : futures) {
+				future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+			return null;
+		}
+	}
+
 	/**
 	 * Class used for configuration of a specific Retrofit services interface. Each configuration
 	 * object manages a single instance of {@link Retrofit} along with its corresponding
@@ -231,45 +599,109 @@ public class ServiceManager {
 	 * is requested via {@link ServiceManager#services(Class)}. This instance of PROXY is re-created
 	 * only in case where there has been performed some configuration change and {@link #invalidate()}
 	 * has been called to indicate the services PROXY is no longer valid.
+	 * <p>
+	 * The current Retrofit instance along with its services PROXY is held as an immutable snapshot,
+	 * so accessing of valid services does not require any locking. Only re-creation of the snapshot
+	 * after the configuration has been invalidated is synchronized.
 	 *
 	 * @param <S> Type of the services interface specific for this configuration.
 	 */
 	public static final class ServicesConfiguration<S> {
 
 		/**
-		 * Builder used to create an instance of {@link #retrofit} for the current configuration
+		 * Builder used to create an instance of {@link Retrofit} for the current configuration
 		 * parameters.
 		 */
 		private final Retrofit.Builder BUILDER = new Retrofit.Builder();
 
 		/**
-		 * Class of services interface used to create {@link #services} PROXY by {@link #retrofit}.
+		 * Class of services interface used to create services PROXY held by {@link #snapshot}.
 		 */
 		private final Class<S> servicesInterface;
 
 		/**
-		 * Current instance (if any) of services PROXY created using {@link #retrofit} for the
-		 * current configuration.
+		 * Current snapshot (if any) holding instance of {@link Retrofit} along with services PROXY
+		 * created for the current configuration.
+		 *
+		 * @see #ensureValid()
+		 */
+		private volatile Snapshot<S> snapshot;
+
+		/**
+		 * Generation of this services configuration incremented whenever {@link #invalidate()} is
+		 * called. If the current {@link #snapshot} has been created for different generation, it
+		 * should be re-created the next time services are requested via {@link #services()}.
+		 */
+		private final AtomicInteger generation = new AtomicInteger(0);
+
+		/**
+		 * Client specified for this configuration.
+		 *
+		 * @see #setClient(OkHttpClient)
+		 */
+		private volatile OkHttpClient client;
+
+		/**
+		 * Flag indicating whether {@link #BUILDER} currently uses client composed from {@link #client}
+		 * with interceptors specific for this configuration.
+		 *
+		 * @see #prepareClient()
+		 */
+		private boolean clientComposed;
+
+		/**
+		 * Cache used to cache responses of services of this configuration.
 		 *
-		 * @see #services()
+		 * @see #setResponseCache(ResponseCache, CachePolicy)
 		 */
-		private S services;
+		private volatile ResponseCache responseCache;
 
 		/**
-		 * Retrofit instance created by {@link #BUILDER} for the current configuration parameters.
-		 * This retrofit instance is used to create an instance of services PROXY whenever
-		 * {@link #services()} is invoked and there has been registered configuration change.
+		 * Policy used along with {@link #responseCache}.
+		 */
+		private volatile CachePolicy cachePolicy;
+
+		/**
+		 * Deduplicator used to collapse identical in-flight requests of services of this configuration.
+		 *
+		 * @see #setRequestDeduplicator(RequestDeduplicator)
+		 */
+		private volatile RequestDeduplicator requestDeduplicator;
+
+		/**
+		 * Batcher used to send requests of services of this configuration in batches.
+		 *
+		 * @see #setRequestBatcher(RequestBatcher)
+		 */
+		private volatile RequestBatcher requestBatcher;
+
+		/**
+		 * Policy used to retry failed requests of services of this configuration.
 		 *
-		 * @see Retrofit#create(Class)
+		 * @see #setRetryPolicy(RetryPolicy)
 		 */
-		private Retrofit retrofit;
+		private volatile RetryPolicy retryPolicy;
 
 		/**
-		 * Flag indicating whether this services configuration has changed or not. If {@code true}
-		 * the current instance of {@link #retrofit} should be updated the next time services
-		 * are requested via {@link #services()}.
+		 * Limiter used to limit execution of calls of services of this configuration.
+		 *
+		 * @see #setCallLimiter(CallLimiter)
+		 */
+		private volatile CallLimiter callLimiter;
+
+		/**
+		 * Circuit through which are executed requests of services of this configuration.
+		 *
+		 * @see #setCircuit(Circuit)
 		 */
-		private boolean changed = true;
+		private volatile Circuit circuit;
+
+		/**
+		 * Converter factory selected to convert bodies of services of this configuration.
+		 *
+		 * @see #setConverterFactory(Converter.Factory)
+		 */
+		private volatile Converter.Factory converterFactory;
 
 		/**
 		 * Creates a new instance of ServicesConfiguration for the specified <var>servicesInterface</var>
@@ -280,6 +712,8 @@ public class ServiceManager {
 		 */
 		private ServicesConfiguration(@NonNull final Class<S> servicesInterface) {
 			this.servicesInterface = servicesInterface;
+			BUILDER.addCallAdapterFactory(new PolicyCallAdapterFactory());
+			BUILDER.addConverterFactory(new SelectedConverterFactory());
 		}
 
 		/**
@@ -298,13 +732,275 @@ public class ServiceManager {
 			return BUILDER;
 		}
 
+		/**
+		 * Specifies a client to be used by services of this configuration and invalidates this
+		 * configuration.
+		 * <p>
+		 * Client for a specific services interface should be preferably created via
+		 * {@link ServiceManager#newClientBuilder()}, so it shares connection pool and dispatcher
+		 * with other services.
+		 *
+		 * @param client The desired client.
+		 * @see #getClient()
+		 */
+		public void setClient(@NonNull final OkHttpClient client) {
+			synchronized (BUILDER) {
+				BUILDER.client(client);
+				this.client = client;
+			}
+			invalidate();
+		}
+
+		/**
+		 * Returns the client specified for this configuration.
+		 *
+		 * @return This configuration's client or {@code null} if no client has been specified via
+		 * {@link #setClient(OkHttpClient)}.
+		 */
+		@Nullable
+		public OkHttpClient getClient() {
+			return client;
+		}
+
+		/**
+		 * Specifies a cache to be used to cache responses of services of this configuration according
+		 * to the given <var>policy</var> and invalidates this configuration.
+		 * <p>
+		 * Caching is opt-in, so by default responses are not cached. Only responses of <b>GET</b>
+		 * requests are cached. The same cache may be specified for multiple services configurations
+		 * with different policies.
+		 * <p>
+		 * <b>Note</b>, that caching requires client specified via {@link #setClient(OkHttpClient)},
+		 * which is by default the shared client of {@link ServiceManager}. Client specified directly
+		 * via {@link #retrofitBuilder()} is not used while the cache is specified.
+		 *
+		 * @param cache  The desired cache. May be {@code null} to disable caching.
+		 * @param policy The policy determining freshness of cached responses. May be {@code null}
+		 *               only if the cache is {@code null}.
+		 * @see ResponseCacheInterceptor
+		 */
+		public void setResponseCache(@Nullable final ResponseCache cache, @Nullable final CachePolicy policy) {
+			if (cache != null && policy == null) throw new IllegalArgumentException("No cache policy specified!");
+			synchronized (BUILDER) {
+				this.responseCache = cache;
+				this.cachePolicy = policy;
+			}
+			invalidate();
+		}
+
+		/**
+		 * Returns the cache used to cache responses of services of this configuration.
+		 *
+		 * @return This configuration's response cache or {@code null} if caching is disabled.
+		 * @see #setResponseCache(ResponseCache, CachePolicy)
+		 */
+		@Nullable
+		public ResponseCache getResponseCache() {
+			return responseCache;
+		}
+
+		/**
+		 * Returns the policy used along with the response cache of this configuration.
+		 *
+		 * @return This configuration's cache policy or {@code null} if caching is disabled.
+		 * @see #setResponseCache(ResponseCache, CachePolicy)
+		 */
+		@Nullable
+		public CachePolicy getCachePolicy() {
+			return cachePolicy;
+		}
+
+		/**
+		 * Specifies a deduplicator to be used to collapse identical <b>GET</b> requests of services
+		 * of this configuration that are in flight at the same time into a single network exchange
+		 * and invalidates this configuration.
+		 * <p>
+		 * Deduplication is opt-in, so by default each request has its own network exchange. When
+		 * used along with a response cache, requests served by the cache are not deduplicated.
+		 * <p>
+		 * <b>Note</b>, that deduplication requires client specified via {@link #setClient(OkHttpClient)},
+		 * which is by default the shared client of {@link ServiceManager}.
+		 *
+		 * @param deduplicator The desired deduplicator. May be {@code null} to disable deduplication.
+		 * @see #getRequestDeduplicator()
+		 */
+		public void setRequestDeduplicator(@Nullable final RequestDeduplicator deduplicator) {
+			synchronized (BUILDER) {
+				this.requestDeduplicator = deduplicator;
+			}
+			invalidate();
+		}
+
+		/**
+		 * Returns the deduplicator used to collapse identical in-flight requests of services of this
+		 * configuration.
+		 *
+		 * @return This configuration's deduplicator or {@code null} if deduplication is disabled.
+		 * @see #setRequestDeduplicator(RequestDeduplicator)
+		 */
+		@Nullable
+		public RequestDeduplicator getRequestDeduplicator() {
+			return requestDeduplicator;
+		}
+
+		/**
+		 * Specifies a batcher to be used to send compatible requests of services of this configuration
+		 * to a batch end point of the server and invalidates this configuration.
+		 * <p>
+		 * Batching is opt-in, so by default each request has its own network exchange. When used
+		 * along with a response cache or deduplicator, only requests that are not served by them
+		 * are batched.
+		 * <p>
+		 * <b>Note</b>, that batching requires client specified via {@link #setClient(OkHttpClient)},
+		 * which is by default the shared client of {@link ServiceManager}.
+		 *
+		 * @param batcher The desired batcher. May be {@code null} to disable batching.
+		 * @see #getRequestBatcher()
+		 */
+		public void setRequestBatcher(@Nullable final RequestBatcher batcher) {
+			synchronized (BUILDER) {
+				this.requestBatcher = batcher;
+			}
+			invalidate();
+		}
+
+		/**
+		 * Returns the batcher used to send requests of services of this configuration in batches.
+		 *
+		 * @return This configuration's batcher or {@code null} if batching is disabled.
+		 * @see #setRequestBatcher(RequestBatcher)
+		 */
+		@Nullable
+		public RequestBatcher getRequestBatcher() {
+			return requestBatcher;
+		}
+
+		/**
+		 * Specifies a policy to be used to retry failed requests of services of this configuration.
+		 * <p>
+		 * When specified, each {@link Call} created by the services PROXY is a {@link ServiceCall}
+		 * with this policy attached. Such call may be wrapped into custom {@link ServiceCall}
+		 * implementation which will inherit the policy. Change of the policy is reflected in all
+		 * calls created afterwards, so this configuration does not need to be invalidated.
+		 *
+		 * @param policy The desired policy. May be {@code null} to not retry failed requests.
+		 * @see #getRetryPolicy()
+		 * @see ServiceCall#withRetryPolicy(RetryPolicy)
+		 */
+		public void setRetryPolicy(@Nullable final RetryPolicy policy) {
+			this.retryPolicy = policy;
+		}
+
+		/**
+		 * Returns the policy used to retry failed requests of services of this configuration.
+		 *
+		 * @return This configuration's retry policy or {@code null} if failed requests are not retried.
+		 * @see #setRetryPolicy(RetryPolicy)
+		 */
+		@Nullable
+		public RetryPolicy getRetryPolicy() {
+			return retryPolicy;
+		}
+
+		/**
+		 * Specifies a limiter to be used to limit count of concurrently executed calls of services
+		 * of this configuration and rate at which may be such calls started.
+		 * <p>
+		 * When specified, each {@link Call} created by the services PROXY is a {@link ServiceCall}
+		 * with this limiter attached, in the same way as described for {@link #setRetryPolicy(RetryPolicy)}.
+		 * The same limiter may be specified for multiple configurations to limit their calls together.
+		 *
+		 * @param limiter The desired limiter. May be {@code null} to not limit execution of calls.
+		 * @see #getCallLimiter()
+		 * @see ServiceCall#withCallLimiter(CallLimiter)
+		 */
+		public void setCallLimiter(@Nullable final CallLimiter limiter) {
+			this.callLimiter = limiter;
+		}
+
+		/**
+		 * Returns the limiter used to limit execution of calls of services of this configuration.
+		 *
+		 * @return This configuration's call limiter or {@code null} if execution of calls is not limited.
+		 * @see #setCallLimiter(CallLimiter)
+		 */
+		@Nullable
+		public CallLimiter getCallLimiter() {
+			return callLimiter;
+		}
+
+		/**
+		 * Specifies a circuit through which should be executed requests of services of this
+		 * configuration and invalidates this configuration.
+		 * <p>
+		 * When the circuit is open, requests fail immediately with
+		 * {@link universum.studios.android.officium.service.circuit.CircuitOpenException CircuitOpenException}
+		 * without any network exchange.
+		 * <p>
+		 * <b>Note</b>, that circuit requires client specified via {@link #setClient(OkHttpClient)},
+		 * which is by default the shared client of {@link ServiceManager}.
+		 *
+		 * @param circuit The desired circuit. May be {@code null} to not use circuit breaking.
+		 * @see ServiceManager#setCircuitBreaker(CircuitBreaker)
+		 * @see ServiceError#isCircuitOpen()
+		 */
+		public void setCircuit(@Nullable final Circuit circuit) {
+			synchronized (BUILDER) {
+				this.circuit = circuit;
+			}
+			invalidate();
+		}
+
+		/**
+		 * Returns the circuit through which are executed requests of services of this configuration.
+		 *
+		 * @return This configuration's circuit or {@code null} if circuit breaking is not used.
+		 * @see #setCircuit(Circuit)
+		 */
+		@Nullable
+		public Circuit getCircuit() {
+			return circuit;
+		}
+
+		/**
+		 * Specifies a converter factory to be used to convert request and response bodies of
+		 * services of this configuration and invalidates this configuration.
+		 * <p>
+		 * The selected factory takes precedence over converter factories added via {@link #retrofitBuilder()},
+		 * which are still used for types that the selected factory does not support. Factories
+		 * like {@link universum.studios.android.officium.service.converter.JsonConverterFactory JsonConverterFactory}
+		 * or {@link universum.studios.android.officium.service.converter.BinaryConverterFactory BinaryConverterFactory}
+		 * may be shared by multiple configurations, so their cached adapters are shared as well.
+		 *
+		 * @param factory The desired factory. May be {@code null} to use only factories added via
+		 *                {@link #retrofitBuilder()}.
+		 * @see #getConverterFactory()
+		 */
+		public void setConverterFactory(@Nullable final Converter.Factory factory) {
+			synchronized (BUILDER) {
+				this.converterFactory = factory;
+			}
+			invalidate();
+		}
+
+		/**
+		 * Returns the converter factory selected for services of this configuration.
+		 *
+		 * @return This configuration's converter factory or {@code null} if there is no factory selected.
+		 * @see #setConverterFactory(Converter.Factory)
+		 */
+		@Nullable
+		public Converter.Factory getConverterFactory() {
+			return converterFactory;
+		}
+
 		/**
 		 * Invalidates the current configuration. Next call to {@link ServiceManager#services(Class)}
 		 * with services interface associated with this configuration will create a new instance
 		 * of the desired services PROXY.
 		 */
 		public void invalidate() {
-			this.changed = true;
+			generation.incrementAndGet();
 		}
 
 		/**
@@ -316,8 +1012,7 @@ public class ServiceManager {
 		 */
 		@NonNull
 		public Retrofit retrofit() {
-			this.ensureValid();
-			return retrofit;
+			return ensureValid().retrofit;
 		}
 
 		/**
@@ -328,21 +1023,215 @@ public class ServiceManager {
 		 */
 		@NonNull
 		private S services() {
-			this.ensureValid();
-			return services;
+			return ensureValid().services;
+		}
+
+		/**
+		 * Ensures that this configuration is valid and resolves metadata of all service methods
+		 * of its services interface via eager validation of its Retrofit instance. No service
+		 * method is invoked.
+		 *
+		 * @throws IllegalArgumentException If the services interface contains invalid service methods.
+		 * @see ServiceManager#prewarm(boolean, Class[])
+		 */
+		private void prewarm() {
+			ensureValid(true);
+		}
+
+		/**
+		 * Same as {@link #ensureValid(boolean)} without eager validation.
+		 */
+		private Snapshot<S> ensureValid() {
+			return ensureValid(false);
 		}
 
 		/**
 		 * Ensures that the current Retrofit instance and services PROXY are valid according to the
 		 * current configuration.
+		 * <p>
+		 * If the current snapshot is still valid it is returned without any locking, otherwise a new
+		 * one is created while holding lock on {@link #BUILDER}, so only one thread performs the
+		 * re-creation and other threads requesting services at the same time wait for its result.
+		 *
+		 * @param validateEagerly {@code True} if metadata of all service methods should be resolved
+		 *                        when the services PROXY is created, {@code false} to resolve them
+		 *                        lazily.
+		 * @return Valid snapshot for the current configuration.
 		 */
-		private void ensureValid() {
-			synchronized (BUILDER) {
-				if (changed) {
-					this.retrofit = BUILDER.build();
-					this.services = retrofit.create(servicesInterface);
-					this.changed = false;
+		private Snapshot<S> ensureValid(final boolean validateEagerly) {
+			Snapshot<S> snapshot = this.snapshot;
+			if (snapshot == null || snapshot.generation != generation.get() || (validateEagerly && !snapshot.validated)) {
+				synchronized (BUILDER) {
+					snapshot = this.snapshot;
+					final int currentGeneration = generation.get();
+					if (snapshot == null || snapshot.generation != currentGeneration || (validateEagerly && !snapshot.validated)) {
+						prepareClient();
+						Retrofit retrofit = BUILDER.build();
+						if (validateEagerly) {
+							// Derived builder is used so eager validation set up by the user, if any,
+							// is not overridden for the configuration's builder.
+							retrofit = retrofit.newBuilder().validateEagerly(true).build();
+						}
+						snapshot = new Snapshot<>(retrofit, retrofit.create(servicesInterface), currentGeneration, validateEagerly);
+						this.snapshot = snapshot;
+					}
+				}
+			}
+			return snapshot;
+		}
+
+		/**
+		 * Prepares client used by {@link #BUILDER} for the current configuration. If there are some
+		 * interceptors specific for this configuration, a new client is derived from {@link #client}
+		 * with these interceptors added, otherwise {@link #client} is used as it is.
+		 * <p>
+		 * This method should be called only while holding lock on {@link #BUILDER}.
+		 */
+		private void prepareClient() {
+			final OkHttpClient client = this.client;
+			if (client == null) {
+				return;
+			}
+			final List<Interceptor> interceptors = new ArrayList<>(4);
+			if (responseCache != null) {
+				interceptors.add(new ResponseCacheInterceptor(responseCache, cachePolicy, client));
+			}
+			if (requestDeduplicator != null) {
+				interceptors.add(requestDeduplicator);
+			}
+			if (requestBatcher != null) {
+				interceptors.add(requestBatcher);
+			}
+			if (circuit != null) {
+				interceptors.add(new CircuitBreakerInterceptor(circuit));
+			}
+			if (interceptors.isEmpty()) {
+				if (clientComposed) {
+					BUILDER.client(client);
+					this.clientComposed = false;
+				}
+			} else {
+				final OkHttpClient.Builder clientBuilder = client.newBuilder();
+				for (final Interceptor interceptor : interceptors) {
+					clientBuilder.addInterceptor(interceptor);
 				}
+				BUILDER.client(clientBuilder.build());
+				this.clientComposed = true;
+			}
+		}
+
+		/**
+		 * Immutable holder for instance of {@link Retrofit} and services PROXY created by that Retrofit
+		 * for a specific generation of services configuration.
+		 *
+		 * @param <S> Type of the services interface.
+		 */
+		private static final class Snapshot<S> {
+
+			/**
+			 * Retrofit instance built for the configuration's generation.
+			 */
+			final Retrofit retrofit;
+
+			/**
+			 * Services PROXY created by {@link #retrofit}.
+			 */
+			final S services;
+
+			/**
+			 * Generation of the configuration for which has been this snapshot created.
+			 */
+			final int generation;
+
+			/**
+			 * Flag indicating whether metadata of all service methods have been resolved when
+			 * {@link #services} has been created.
+			 */
+			final boolean validated;
+
+			/**
+			 * Creates a new instance of Snapshot with the specified <var>retrofit</var>, <var>services</var>
+			 * and <var>generation</var>.
+			 *
+			 * @param retrofit   The retrofit instance built for the configuration.
+			 * @param services   The services PROXY created by the retrofit instance.
+			 * @param generation Generation of the configuration.
+			 * @param validated  {@code True} if the services PROXY has been validated eagerly.
+			 */
+			Snapshot(final Retrofit retrofit, final S services, final int generation, final boolean validated) {
+				this.retrofit = retrofit;
+				this.services = services;
+				this.generation = generation;
+				this.validated = validated;
+			}
+		}
+
+		/**
+		 * A {@link CallAdapter.Factory} implementation that attaches policies of the enclosing
+		 * configuration to calls created by the services PROXY. Adapting itself is delegated to the
+		 * next factory that is able to adapt the requested call type.
+		 */
+		private final class PolicyCallAdapterFactory extends CallAdapter.Factory {
+
+			/**
+			 */
+			@Override
+			public CallAdapter<?> get(@NonNull final Type returnType, @NonNull final Annotation[] annotations, @NonNull final Retrofit retrofit) {
+				if (getRawType(returnType) != Call.class) {
+					return null;
+				}
+				final CallAdapter<?> delegate = retrofit.nextCallAdapter(this, returnType, annotations);
+				return new CallAdapter<Object>() {
+
+					/**
+					 */
+					@Override
+					public Type responseType() {
+						return delegate.responseType();
+					}
+
+					/**
+					 */
+					@Override
+					@SuppressWarnings("unchecked")
+					public <R> Object adapt(@NonNull final Call<R> call) {
+						final Object adaptedCall = delegate.adapt(call);
+						final RetryPolicy policy = retryPolicy;
+						final CallLimiter limiter = callLimiter;
+						if (policy == null && limiter == null) {
+							return adaptedCall;
+						}
+						return new ServiceCall<>((Call<R>) adaptedCall).withRetryPolicy(policy).withCallLimiter(limiter);
+					}
+				};
+			}
+		}
+
+		/**
+		 * A {@link Converter.Factory} implementation that delegates to the converter factory selected
+		 * for the enclosing configuration (if any).
+		 */
+		private final class SelectedConverterFactory extends Converter.Factory {
+
+			/**
+			 */
+			@Override
+			public Converter<ResponseBody, ?> responseBodyConverter(@NonNull final Type type, @NonNull final Annotation[] annotations, @NonNull final Retrofit retrofit) {
+				final Converter.Factory factory = converterFactory;
+				return factory == null ? null : factory.responseBodyConverter(type, annotations, retrofit);
+			}
+
+			/**
+			 */
+			@Override
+			public Converter<?, RequestBody> requestBodyConverter(
+					@NonNull final Type type,
+					@NonNull final Annotation[] parameterAnnotations,
+					@NonNull final Annotation[] methodAnnotations,
+					@NonNull final Retrofit retrofit
+			) {
+				final Converter.Factory factory = converterFactory;
+				return factory == null ? null : factory.requestBodyConverter(type, parameterAnnotations, methodAnnotations, retrofit);
 			}
 		}
 	}
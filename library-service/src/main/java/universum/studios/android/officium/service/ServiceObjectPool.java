@@ -0,0 +1,124 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A simple synchronized pool that holds a limited count of released service objects so they may
+ * be reused instead of allocating new ones.
+ *
+ * @param <T> Type of the objects held by the pool.
+ * @author Martin Albedinsky
+ */
+final class ServiceObjectPool<T extends BaseServiceObject> {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ServiceObjectPool";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Array holding the released objects.
+	 */
+	private final Object[] mObjects;
+
+	/**
+	 * Count of objects currently held in the pool.
+	 */
+	private int mSize;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of ServiceObjectPool with the specified <var>maxSize</var>.
+	 *
+	 * @param maxSize Maximum count of objects that may be held by the pool.
+	 */
+	ServiceObjectPool(final int maxSize) {
+		if (maxSize <= 0) throw new IllegalArgumentException("Pool size must be greater than 0!");
+		this.mObjects = new Object[maxSize];
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Acquires an object from this pool.
+	 *
+	 * @return Previously released object or {@code null} if the pool is empty.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	synchronized T acquire() {
+		if (mSize == 0) {
+			return null;
+		}
+		final T object = (T) mObjects[--mSize];
+		mObjects[mSize] = null;
+		return object;
+	}
+
+	/**
+	 * Releases the given <var>object</var> into this pool. The object is dropped if the pool is full.
+	 *
+	 * @param object The object to be released.
+	 * @return {@code True} if the object has been stored in the pool, {@code false} otherwise.
+	 */
+	synchronized boolean release(@NonNull final T object) {
+		if (mSize == mObjects.length) {
+			return false;
+		}
+		mObjects[mSize++] = object;
+		return true;
+	}
+
+	/**
+	 * Returns the count of objects currently held in this pool.
+	 *
+	 * @return Count of pooled objects.
+	 */
+	synchronized int size() {
+		return mSize;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
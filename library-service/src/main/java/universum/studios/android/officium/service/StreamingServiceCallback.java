@@ -0,0 +1,238 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service;
+
+import android.support.annotation.NonNull;
+import android.util.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * A {@link ServiceCallback} implementation that reads a response body containing a JSON array
+ * incrementally and dispatches its elements one by one as they are parsed, instead of converting
+ * the whole body at once.
+ * <p>
+ * The service method used for such callback should return {@code Call<ResponseBody>} and should
+ * be annotated with {@link retrofit2.http.Streaming @Streaming} so the body is not buffered by
+ * Retrofit before being delivered to this callback. Elements are read from the body's
+ * {@link okio.BufferedSource} only when the previous element has been dispatched, so a slow receiver
+ * naturally slows down reading from the network and only a single element is held in memory at a
+ * time. Reading may be stopped at any time via {@link #cancel()} or by returning {@code false}
+ * from {@link #onDispatchElement(Object)}.
+ * <p>
+ * The body is read on the executor specified for the callback, which is by default the background
+ * executor shared by all services, as Retrofit by default delivers responses on the main thread.
+ * A custom executor may be specified, but it must never be the main thread's one.
+ *
+ * @param <E> Type of the elements to be read from the response body.
+ * @author Martin Albedinsky
+ */
+public abstract class StreamingServiceCallback<E> extends ServiceCallback<ResponseBody> {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "StreamingServiceCallback";
+
+	/**
+	 * Charset used when the response body does not specify its own one.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Executor used to read the response body.
+	 */
+	private final Executor mExecutor;
+
+	/**
+	 * Flag indicating whether reading of the response body has been canceled.
+	 */
+	private volatile boolean mCanceled;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of StreamingServiceCallback that reads the response body on the
+	 * background executor shared by all services. Elements are thus dispatched on a background
+	 * thread.
+	 */
+	protected StreamingServiceCallback() {
+		this(ServiceExecutors.background());
+	}
+
+	/**
+	 * Creates a new instance of StreamingServiceCallback that reads the response body on the
+	 * specified <var>executor</var>.
+	 *
+	 * @param executor The executor on which to read the response body and dispatch its elements.
+	 */
+	protected StreamingServiceCallback(@NonNull final Executor executor) {
+		this.mExecutor = executor;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public void onResponse(@NonNull final Call<ResponseBody> call, @NonNull final Response<ResponseBody> response) {
+		if (!response.isSuccessful() || response.body() == null) {
+			super.onResponse(call, response);
+			return;
+		}
+		mExecutor.execute(new Runnable() {
+
+			/**
+			 */
+			@Override
+			public void run() {
+				read(call, response.body());
+			}
+		});
+	}
+
+	/**
+	 * Reads elements from the given response <var>body</var> and dispatches them until the end of
+	 * the array is reached or this callback is canceled.
+	 *
+	 * @param call The call for which has been the body received.
+	 * @param body The body to be read.
+	 */
+	private void read(final Call<ResponseBody> call, final ResponseBody body) {
+		final MediaType contentType = body.contentType();
+		final Charset charset = contentType == null ? UTF_8 : contentType.charset(UTF_8);
+		final JsonReader reader = new JsonReader(new InputStreamReader(body.source().inputStream(), charset));
+		int count = 0;
+		try {
+			reader.beginArray();
+			while (!mCanceled && reader.hasNext()) {
+				final E element = onReadElement(reader);
+				if (element instanceof ServiceObject) {
+					associateWith((ServiceObject) element, mServiceId, mRequestId);
+				}
+				count++;
+				if (!onDispatchElement(element)) {
+					mCanceled = true;
+				}
+			}
+			if (!mCanceled) {
+				reader.endArray();
+				onDispatchComplete(count);
+			}
+		} catch (IOException | RuntimeException e) {
+			if (!mCanceled) onFailure(call, e);
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// Ignored as there is nothing to be done with it.
+			}
+			body.close();
+		}
+	}
+
+	/**
+	 * Invoked to read a single element of the response array from the given <var>reader</var>.
+	 * Implementations are expected to consume exactly one JSON value.
+	 *
+	 * @param reader The reader positioned at the next element of the array.
+	 * @return The read element.
+	 * @throws IOException If reading of the element fails or its JSON is malformed.
+	 */
+	@NonNull
+	protected abstract E onReadElement(@NonNull JsonReader reader) throws IOException;
+
+	/**
+	 * Invoked to dispatch the given <var>element</var> to its receivers. The next element is not
+	 * read from the response body until this method returns.
+	 *
+	 * @param element The element to be dispatched.
+	 * @return {@code True} to continue reading of the response body, {@code false} to stop reading
+	 * and close the body. No other callbacks are invoked when reading is stopped.
+	 */
+	protected abstract boolean onDispatchElement(@NonNull E element);
+
+	/**
+	 * Invoked when all elements of the response body have been read and dispatched.
+	 *
+	 * @param count Total count of the dispatched elements.
+	 */
+	protected abstract void onDispatchComplete(int count);
+
+	/**
+	 * This implementation throws an exception as response body of a streaming callback is never
+	 * dispatched as a whole.
+	 *
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	protected final void onDispatchResponse(@NonNull final ResponseBody responseBody) {
+		throw new UnsupportedOperationException("Streaming callback dispatches only elements of the response body!");
+	}
+
+	/**
+	 * Cancels reading of the response body. The body is closed after reading of the current element
+	 * finishes and no other elements are dispatched.
+	 */
+	public void cancel() {
+		this.mCanceled = true;
+	}
+
+	/**
+	 * Returns a boolean flag indicating whether reading of the response body has been canceled
+	 * either via {@link #cancel()} or by {@link #onDispatchElement(Object)}.
+	 *
+	 * @return {@code True} if reading has been canceled, {@code false} otherwise.
+	 */
+	public boolean isCanceled() {
+		return mCanceled;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
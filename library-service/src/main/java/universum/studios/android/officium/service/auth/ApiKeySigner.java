@@ -0,0 +1,106 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.NonNull;
+
+import okhttp3.Request;
+
+/**
+ * A {@link RequestSigner} implementation that attaches a static API key to requests via header
+ * with the specified name. Requests that already carry the API key are not rebuilt.
+ *
+ * @author Martin Albedinsky
+ */
+public final class ApiKeySigner implements RequestSigner {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ApiKeySigner";
+
+	/**
+	 * Default name of the header containing API key.
+	 */
+	public static final String DEFAULT_HEADER_NAME = "X-Api-Key";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Name of the header containing API key.
+	 */
+	private final String mHeaderName;
+
+	/**
+	 * API key attached to requests.
+	 */
+	private final String mApiKey;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Same as {@link #ApiKeySigner(String, String)} with {@link #DEFAULT_HEADER_NAME} as header name.
+	 */
+	public ApiKeySigner(@NonNull final String apiKey) {
+		this(DEFAULT_HEADER_NAME, apiKey);
+	}
+
+	/**
+	 * Creates a new instance of ApiKeySigner with the given <var>apiKey</var>.
+	 *
+	 * @param headerName Name of the header via which to attach the API key.
+	 * @param apiKey     The API key to be attached to requests.
+	 */
+	public ApiKeySigner(@NonNull final String headerName, @NonNull final String apiKey) {
+		mHeaderName = headerName;
+		mApiKey = apiKey;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@NonNull
+	@Override
+	public Request sign(@NonNull final Request request) {
+		return mApiKey.equals(request.header(mHeaderName)) ? request : request.newBuilder().header(mHeaderName, mApiKey).build();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
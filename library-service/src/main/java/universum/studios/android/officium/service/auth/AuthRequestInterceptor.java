@@ -19,12 +19,10 @@
 package universum.studios.android.officium.service.auth;
 
 import android.support.annotation.NonNull;
-import android.text.TextUtils;
 
 import java.io.IOException;
 
 import okhttp3.Interceptor;
-import okhttp3.Request;
 import okhttp3.Response;
 
 /**
@@ -35,7 +33,14 @@ import okhttp3.Response;
  * is than used to peek the authorization token via {@link AuthTokenProvider#peekToken()} whenever
  * {@link #intercept(Chain)} is invoked. If the peeked token is valid the interceptor will add a new
  * header into request with name: <b>Authorization</b> and value: <b>Bearer TOKEN_VALUE</b>. If token
- * provider does not provide valid token, request remains unchanged.
+ * provider does not provide valid token, request remains unchanged. The header value is computed
+ * only when the peeked token changes, see {@link BearerTokenSigner}.
+ * <p>
+ * Requests may be also authorized by other schemes via {@link #AuthRequestInterceptor(RequestSigner)}
+ * constructor, for example by {@link ApiKeySigner} or {@link HmacRequestSigner}.
+ * <p>
+ * To also refresh the authorization token whenever the server responds with <b>401 Unauthorized</b>,
+ * the interceptor may be combined with {@link AuthTokenAuthenticator} specified for the same client.
  *
  * @author Martin Albedinsky
  */
@@ -50,6 +55,16 @@ public final class AuthRequestInterceptor implements Interceptor {
 	 */
 	// private static final String TAG = "AuthRequestInterceptor";
 
+	/**
+	 * Name of the header containing authorization token.
+	 */
+	static final String HEADER_NAME = "Authorization";
+
+	/**
+	 * Prefix of the authorization token value within {@link #HEADER_NAME} header.
+	 */
+	static final String TOKEN_PREFIX = "Bearer ";
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -63,9 +78,9 @@ public final class AuthRequestInterceptor implements Interceptor {
 	 */
 
 	/**
-	 * Provider that can provide authorization token.
+	 * Signer used to authorize requests.
 	 */
-	private final AuthTokenProvider tokenProvider;
+	private final RequestSigner signer;
 
 	/*
 	 * Constructors ================================================================================
@@ -79,7 +94,18 @@ public final class AuthRequestInterceptor implements Interceptor {
 	 * @see #intercept(Chain)
 	 */
 	public AuthRequestInterceptor(@NonNull final AuthTokenProvider tokenProvider) {
-		this.tokenProvider = tokenProvider;
+		this(new BearerTokenSigner(tokenProvider));
+	}
+
+	/**
+	 * Creates a new instance of AuthRequestInterceptor with the given request <var>signer</var>.
+	 *
+	 * @param signer The desired signer that will be used by the new interceptor to sign requests
+	 *               when intercepting them.
+	 * @see #intercept(Chain)
+	 */
+	public AuthRequestInterceptor(@NonNull final RequestSigner signer) {
+		this.signer = signer;
 	}
 
 	/*
@@ -90,12 +116,7 @@ public final class AuthRequestInterceptor implements Interceptor {
 	 */
 	@Override
 	public Response intercept(@NonNull final Chain chain) throws IOException {
-		final String authToken = tokenProvider.peekToken();
-		final Request request = chain.request();
-		return TextUtils.isEmpty(authToken) ? chain.proceed(request) : chain.proceed(request.newBuilder()
-				.header("Authorization", "Bearer " + authToken)
-				.build()
-		);
+		return chain.proceed(signer.sign(chain.request()));
 	}
 
 	/*
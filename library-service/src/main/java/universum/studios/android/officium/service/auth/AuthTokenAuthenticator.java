@@ -0,0 +1,246 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.text.TextUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * An {@link Authenticator} implementation that refreshes the authorization token via
+ * {@link RefreshableAuthTokenProvider} whenever the server responds with <b>401 Unauthorized</b>
+ * and replays the rejected request with the refreshed token.
+ * <p>
+ * Refreshes are coalesced, so there is at most one refresh running at a time. Requests rejected
+ * while the refresh is running are parked until it finishes and then all of them are replayed with
+ * the refreshed token. If the refresh fails, all parked requests fail together either with the
+ * original 401 response (if the provider could not refresh the token) or with an {@link IOException}
+ * (if the refresh itself failed). Requests rejected with a token that has been already refreshed
+ * are replayed immediately without another refresh. Each request is replayed at most once.
+ * <p>
+ * This authenticator is meant to be used along with {@link AuthRequestInterceptor} created for the
+ * same token provider:
+ * <pre>
+ * new OkHttpClient.Builder()
+ *         .addInterceptor(new AuthRequestInterceptor(provider))
+ *         .authenticator(new AuthTokenAuthenticator(provider))
+ *         .build();
+ * </pre>
+ *
+ * @author Martin Albedinsky
+ */
+public final class AuthTokenAuthenticator implements Authenticator {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "AuthTokenAuthenticator";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Provider used to peek and refresh the authorization token.
+	 */
+	private final RefreshableAuthTokenProvider mTokenProvider;
+
+	/**
+	 * Lock guarding {@link #mRefresh}.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Refresh that is currently running. May be {@code null} if there is no refresh running.
+	 */
+	private Refresh mRefresh;
+
+	/**
+	 * Count of refreshes performed by this authenticator.
+	 */
+	private final AtomicLong mRefreshCount = new AtomicLong(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of AuthTokenAuthenticator with the given <var>tokenProvider</var>.
+	 *
+	 * @param tokenProvider The desired provider that will be used by the new authenticator to peek
+	 *                      and refresh the authorization token.
+	 */
+	public AuthTokenAuthenticator(@NonNull final RefreshableAuthTokenProvider tokenProvider) {
+		mTokenProvider = tokenProvider;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public Request authenticate(@Nullable final Route route, @NonNull final Response response) throws IOException {
+		if (response.priorResponse() != null) {
+			// The request has been already replayed and it has been still rejected.
+			return null;
+		}
+		final Request request = response.request();
+		final String staleToken = tokenOf(request);
+		final Refresh refresh;
+		final boolean refreshing;
+		synchronized (mLock) {
+			final String token = mTokenProvider.peekToken();
+			if (!TextUtils.isEmpty(token) && !token.equals(staleToken)) {
+				return withToken(request, token);
+			}
+			refreshing = mRefresh == null;
+			if (refreshing) {
+				mRefresh = new Refresh();
+			} else {
+				mRefresh.parkedCount++;
+			}
+			refresh = mRefresh;
+		}
+		if (refreshing) {
+			try {
+				refresh.token = mTokenProvider.refreshToken(staleToken);
+			} catch (IOException e) {
+				refresh.failure = e;
+			} finally {
+				mRefreshCount.incrementAndGet();
+				synchronized (mLock) {
+					mRefresh = null;
+				}
+				refresh.latch.countDown();
+			}
+		} else {
+			try {
+				refresh.latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for authorization token refresh.");
+			}
+		}
+		if (refresh.failure != null) {
+			throw new IOException("Authorization token refresh failed.", refresh.failure);
+		}
+		return TextUtils.isEmpty(refresh.token) ? null : withToken(request, refresh.token);
+	}
+
+	/**
+	 * Returns the authorization token that has been sent along with the specified <var>request</var>.
+	 *
+	 * @param request The request of which token to return.
+	 * @return The sent token or {@code null} if the request has been sent without token.
+	 */
+	private static String tokenOf(final Request request) {
+		final String header = request.header(AuthRequestInterceptor.HEADER_NAME);
+		return header != null && header.startsWith(AuthRequestInterceptor.TOKEN_PREFIX) ?
+				header.substring(AuthRequestInterceptor.TOKEN_PREFIX.length()) :
+				null;
+	}
+
+	/**
+	 * Creates a copy of the specified <var>request</var> with the given authorization <var>token</var>.
+	 *
+	 * @param request The request to be copied.
+	 * @param token   The token to be attached to the copy.
+	 * @return New request ready to be replayed.
+	 */
+	private static Request withToken(final Request request, final String token) {
+		return request.newBuilder().header(AuthRequestInterceptor.HEADER_NAME, AuthRequestInterceptor.TOKEN_PREFIX + token).build();
+	}
+
+	/**
+	 * Returns the count of token refreshes performed by this authenticator.
+	 *
+	 * @return Count of refreshes, both successful and failed.
+	 */
+	public long getRefreshCount() {
+		return mRefreshCount.get();
+	}
+
+	/**
+	 * Returns the count of requests parked until the currently running refresh finishes.
+	 *
+	 * @return Count of parked requests or {@code 0} if there is no refresh running.
+	 */
+	@VisibleForTesting
+	int getParkedCount() {
+		synchronized (mLock) {
+			return mRefresh == null ? 0 : mRefresh.parkedCount;
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Holds result of a single token refresh shared by all requests waiting for it.
+	 */
+	private static final class Refresh {
+
+		/**
+		 * Latch released when the refresh finishes.
+		 */
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		/**
+		 * Count of requests waiting for this refresh. Guarded by {@link #mLock}.
+		 */
+		int parkedCount;
+
+		/**
+		 * Refreshed token. Published to the waiting threads via {@link #latch}.
+		 */
+		String token;
+
+		/**
+		 * Failure of the refresh. Published to the waiting threads via {@link #latch}.
+		 */
+		IOException failure;
+	}
+}
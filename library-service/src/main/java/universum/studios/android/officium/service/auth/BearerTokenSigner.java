@@ -0,0 +1,147 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import okhttp3.Request;
+
+/**
+ * A {@link RequestSigner} implementation that attaches an authorization token provided by
+ * {@link AuthTokenProvider} to requests via header with name: <b>Authorization</b> and value:
+ * <b>Bearer TOKEN_VALUE</b>. If the token provider does not provide valid token, requests remain
+ * unchanged.
+ * <p>
+ * The header value is computed only when the provided token changes, so requests signed with the
+ * same token share the same header value. Requests that already carry that header value are not
+ * rebuilt at all.
+ *
+ * @author Martin Albedinsky
+ */
+public final class BearerTokenSigner implements RequestSigner {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "BearerTokenSigner";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Provider used to peek the authorization token.
+	 */
+	private final AuthTokenProvider mTokenProvider;
+
+	/**
+	 * Header value computed for the last peeked token. May be {@code null} if no token has been
+	 * peeked yet.
+	 */
+	private volatile HeaderValue mHeaderValue;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of BearerTokenSigner with the given authorization <var>tokenProvider</var>.
+	 *
+	 * @param tokenProvider The desired provider that will be used by the new signer to peek the
+	 *                      authorization token when signing requests.
+	 */
+	public BearerTokenSigner(@NonNull final AuthTokenProvider tokenProvider) {
+		mTokenProvider = tokenProvider;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@NonNull
+	@Override
+	public Request sign(@NonNull final Request request) {
+		final String authToken = mTokenProvider.peekToken();
+		if (TextUtils.isEmpty(authToken)) {
+			return request;
+		}
+		HeaderValue headerValue = mHeaderValue;
+		if (headerValue == null || !headerValue.matches(authToken)) {
+			mHeaderValue = headerValue = new HeaderValue(authToken);
+		}
+		return headerValue.value.equals(request.header(AuthRequestInterceptor.HEADER_NAME)) ?
+				request :
+				request.newBuilder().header(AuthRequestInterceptor.HEADER_NAME, headerValue.value).build();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Immutable pair of an authorization token and its precomputed header value.
+	 */
+	private static final class HeaderValue {
+
+		/**
+		 * Token from which has been the value computed.
+		 */
+		final String token;
+
+		/**
+		 * Header value for the token.
+		 */
+		final String value;
+
+		/**
+		 * Creates a new instance of HeaderValue for the specified <var>token</var>.
+		 *
+		 * @param token The token for which to compute the header value.
+		 */
+		HeaderValue(final String token) {
+			this.token = token;
+			this.value = AuthRequestInterceptor.TOKEN_PREFIX + token;
+		}
+
+		/**
+		 * Checks whether this header value has been computed for the specified <var>token</var>.
+		 *
+		 * @param token The token to check.
+		 * @return {@code True} if the token matches, {@code false} otherwise.
+		 */
+		boolean matches(final String token) {
+			return this.token == token || this.token.equals(token);
+		}
+	}
+}
@@ -0,0 +1,317 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * A {@link RequestSigner} implementation that signs requests with a <b>HMAC</b> computed from a
+ * shared secret key.
+ * <p>
+ * The signature is computed over the following string (lines separated by {@code \n}):
+ * <pre>
+ * METHOD
+ * ENCODED_PATH[?ENCODED_QUERY]
+ * TIMESTAMP
+ * HEX_SHA256_OF_BODY (empty if there is no body)
+ * </pre>
+ * where the timestamp is the current time in seconds. The timestamp is attached to the request via
+ * {@link Builder#timestampHeaderName(String)} header and the signature via {@link Builder#headerName(String)}
+ * header with value: <b>SCHEME KEY_ID:BASE64_SIGNATURE</b>.
+ * <p>
+ * Instances of {@link Mac} are not thread-safe, so each thread signing requests uses its own
+ * instance initialized only once.
+ * <p>
+ * Creation of instances of HmacRequestSigner is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ */
+public final class HmacRequestSigner implements RequestSigner {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "HmacRequestSigner";
+
+	/**
+	 * Charset used to encode the signed string.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Name of the header containing signature.
+	 */
+	private final String mHeaderName;
+
+	/**
+	 * Name of the header containing timestamp.
+	 */
+	private final String mTimestampHeaderName;
+
+	/**
+	 * Prefix of the signature header value containing scheme and key id.
+	 */
+	private final String mHeaderValuePrefix;
+
+	/**
+	 * Thread local instances of Mac initialized with the secret key.
+	 */
+	private final ThreadLocal<Mac> mMac;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of HmacRequestSigner with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new signer.
+	 */
+	private HmacRequestSigner(final Builder builder) {
+		mHeaderName = builder.headerName;
+		mTimestampHeaderName = builder.timestampHeaderName;
+		mHeaderValuePrefix = builder.scheme + " " + builder.keyId + ":";
+		final SecretKeySpec key = new SecretKeySpec(builder.secret, builder.algorithm);
+		mMac = new ThreadLocal<Mac>() {
+
+			/**
+			 */
+			@Override
+			protected Mac initialValue() {
+				try {
+					return createMac(key);
+				} catch (GeneralSecurityException e) {
+					// Should not happen as the key has been verified by the builder.
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of Mac initialized with the specified <var>key</var>.
+	 *
+	 * @param key The key for the Mac.
+	 * @return Initialized Mac.
+	 * @throws GeneralSecurityException If the key algorithm is not supported or the key is invalid.
+	 */
+	static Mac createMac(final SecretKeySpec key) throws GeneralSecurityException {
+		final Mac mac = Mac.getInstance(key.getAlgorithm());
+		mac.init(key);
+		return mac;
+	}
+
+	/**
+	 */
+	@NonNull
+	@Override
+	public Request sign(@NonNull final Request request) throws IOException {
+		return sign(request, System.currentTimeMillis() / 1000);
+	}
+
+	/**
+	 * Signs the specified <var>request</var> with the given <var>timestamp</var>.
+	 *
+	 * @param request   The request to be signed.
+	 * @param timestamp Timestamp in seconds.
+	 * @return Signed request.
+	 * @throws IOException If reading of the request body fails.
+	 */
+	@NonNull
+	Request sign(final Request request, final long timestamp) throws IOException {
+		final String timestampValue = Long.toString(timestamp);
+		final HttpUrl url = request.url();
+		final String query = url.encodedQuery();
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(request.method());
+		builder.append('\n');
+		builder.append(url.encodedPath());
+		if (query != null) builder.append('?').append(query);
+		builder.append('\n');
+		builder.append(timestampValue);
+		builder.append('\n');
+		final RequestBody body = request.body();
+		if (body != null) {
+			final Buffer buffer = new Buffer();
+			body.writeTo(buffer);
+			builder.append(buffer.readByteString().sha256().hex());
+		}
+		final byte[] signature = mMac.get().doFinal(builder.toString().getBytes(UTF_8));
+		return request.newBuilder()
+				.header(mTimestampHeaderName, timestampValue)
+				.header(mHeaderName, mHeaderValuePrefix + ByteString.of(signature).base64())
+				.build();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link HmacRequestSigner}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * Id of the key sent along with the signature.
+		 */
+		private final String keyId;
+
+		/**
+		 * Shared secret key.
+		 */
+		private final byte[] secret;
+
+		/**
+		 * See {@link #algorithm(String)}.
+		 */
+		private String algorithm = "HmacSHA256";
+
+		/**
+		 * See {@link #scheme(String)}.
+		 */
+		private String scheme = "HMAC";
+
+		/**
+		 * See {@link #headerName(String)}.
+		 */
+		private String headerName = AuthRequestInterceptor.HEADER_NAME;
+
+		/**
+		 * See {@link #timestampHeaderName(String)}.
+		 */
+		private String timestampHeaderName = "X-Timestamp";
+
+		/**
+		 * Creates a new instance of Builder with the specified <var>keyId</var> and <var>secret</var>.
+		 *
+		 * @param keyId  Id of the key that will be sent along with the signature.
+		 * @param secret The shared secret key. The array is copied.
+		 */
+		public Builder(@NonNull final String keyId, @NonNull final byte[] secret) {
+			this.keyId = keyId;
+			this.secret = secret.clone();
+		}
+
+		/**
+		 * Specifies a name of the Mac algorithm used to compute signatures.
+		 * <p>
+		 * Default value: <b>HmacSHA256</b>
+		 *
+		 * @param algorithm The desired algorithm name.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder algorithm(@NonNull final String algorithm) {
+			this.algorithm = algorithm;
+			return this;
+		}
+
+		/**
+		 * Specifies a scheme that prefixes value of the signature header.
+		 * <p>
+		 * Default value: <b>HMAC</b>
+		 *
+		 * @param scheme The desired scheme.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder scheme(@NonNull final String scheme) {
+			this.scheme = scheme;
+			return this;
+		}
+
+		/**
+		 * Specifies a name of the header containing signature.
+		 * <p>
+		 * Default value: <b>Authorization</b>
+		 *
+		 * @param headerName The desired header name.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder headerName(@NonNull final String headerName) {
+			this.headerName = headerName;
+			return this;
+		}
+
+		/**
+		 * Specifies a name of the header containing timestamp of the signature.
+		 * <p>
+		 * Default value: <b>X-Timestamp</b>
+		 *
+		 * @param timestampHeaderName The desired header name.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder timestampHeaderName(@NonNull final String timestampHeaderName) {
+			this.timestampHeaderName = timestampHeaderName;
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of HmacRequestSigner.
+		 *
+		 * @return New instance of HmacRequestSigner with data specified for this builder.
+		 * @throws IllegalArgumentException If the secret is empty or the specified algorithm is
+		 *                                  not supported.
+		 */
+		@NonNull
+		public HmacRequestSigner build() {
+			if (secret.length == 0) throw new IllegalArgumentException("Secret cannot be empty!");
+			try {
+				createMac(new SecretKeySpec(secret, algorithm));
+			} catch (GeneralSecurityException e) {
+				throw new IllegalArgumentException("Algorithm(" + algorithm + ") is not supported!", e);
+			}
+			return new HmacRequestSigner(this);
+		}
+	}
+}
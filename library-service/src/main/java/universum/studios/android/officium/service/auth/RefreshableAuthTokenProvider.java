@@ -0,0 +1,54 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+
+/**
+ * An {@link AuthTokenProvider} that can also refresh its authorization token whenever the server
+ * rejects it as no longer valid.
+ * <p>
+ * Refresh is requested by {@link AuthTokenAuthenticator} which guarantees that there is at most one
+ * refresh running at a time for a single authenticator. After successful refresh the provider is
+ * expected to return the refreshed token also from {@link #peekToken()}, so requests that are sent
+ * afterwards already carry the valid token.
+ *
+ * @author Martin Albedinsky
+ * @see AuthTokenAuthenticator
+ */
+public interface RefreshableAuthTokenProvider extends AuthTokenProvider {
+
+	/**
+	 * Refreshes the authorization token of this provider.
+	 * <p>
+	 * This method is invoked on a background thread and is expected to block until the refresh
+	 * finishes.
+	 *
+	 * @param staleToken The token that has been rejected by the server. May be {@code null} if the
+	 *                   rejected request has been sent without any token.
+	 * @return Refreshed authorization token or {@code null} if the token cannot be refreshed.
+	 * @throws IOException If refresh fails due to an I/O error.
+	 */
+	@Nullable
+	@WorkerThread
+	String refreshToken(@Nullable String staleToken) throws IOException;
+}
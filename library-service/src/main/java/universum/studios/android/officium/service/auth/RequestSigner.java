@@ -0,0 +1,51 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.auth;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Request;
+
+/**
+ * Interface for signers that attach authorization data to requests before they are sent to the
+ * server.
+ * <p>
+ * Signers are used by {@link AuthRequestInterceptor} and may be invoked concurrently from multiple
+ * threads, so their implementations need to be thread-safe.
+ *
+ * @author Martin Albedinsky
+ * @see BearerTokenSigner
+ * @see ApiKeySigner
+ * @see HmacRequestSigner
+ */
+public interface RequestSigner {
+
+	/**
+	 * Signs the specified <var>request</var>.
+	 *
+	 * @param request The request to be signed.
+	 * @return Signed request. May be the same request if there is nothing to sign it with or if it
+	 * is already signed.
+	 * @throws IOException If signing fails, for example due to an error when reading the request body.
+	 */
+	@NonNull
+	Request sign(@NonNull Request request) throws IOException;
+}
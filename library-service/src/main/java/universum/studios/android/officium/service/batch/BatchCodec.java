@@ -0,0 +1,71 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.batch;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interface for codecs used by {@link RequestBatcher} to encode multiple requests into a single
+ * batch request and to decode the batch response back into responses for the original requests.
+ * <p>
+ * Implementations are specific for a concrete batch end point of a server.
+ *
+ * @author Martin Albedinsky
+ */
+public interface BatchCodec {
+
+	/**
+	 * Checks whether the specified <var>request</var> may be sent as part of a batch request.
+	 *
+	 * @param request The request to check.
+	 * @return {@code True} if the request may be batched, {@code false} if it should be sent on
+	 * its own.
+	 */
+	boolean isBatchable(@NonNull Request request);
+
+	/**
+	 * Encodes the specified <var>requests</var> into a single batch request.
+	 *
+	 * @param requests The requests to be encoded. Always contains at least two requests.
+	 * @return Batch request to be sent instead of the given requests.
+	 * @throws IOException If encoding fails.
+	 */
+	@NonNull
+	Request encode(@NonNull List<Request> requests) throws IOException;
+
+	/**
+	 * Decodes the specified <var>batchResponse</var> into responses for the given <var>requests</var>.
+	 * <p>
+	 * The batch response is closed after this method returns, so bodies of the decoded responses
+	 * should not reference body of the batch response.
+	 *
+	 * @param requests      The requests encoded into the batch request, in the same order.
+	 * @param batchResponse The response received for the batch request.
+	 * @return Responses for the requests, in the same order and of the same size as the requests.
+	 * @throws IOException If decoding fails or the batch response is not valid.
+	 */
+	@NonNull
+	List<Response> decode(@NonNull List<Request> requests, @NonNull Response batchResponse) throws IOException;
+}
@@ -0,0 +1,393 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.batch;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * An {@link Interceptor} implementation that collects compatible requests over a small time and
+ * size window and sends them to the server as a single batch request.
+ * <p>
+ * The first batchable request opens a new batch and waits until the batch is full or its window
+ * elapses. Requests arriving meanwhile join the batch and wait for its result. The batch is then
+ * encoded and decoded via {@link BatchCodec} and each request receives its own response, so each
+ * service call converts its own body and its service callback associates it with its own service
+ * and request id. If a batch contains only a single request, the request is sent as it is.
+ * <p>
+ * The batch is sent via the call of its first request. If that call is canceled or times out, the
+ * other requests of the batch are not failed, but proceed to the network on their own. Each of the
+ * other requests waits for result of the batch at most for {@link #getMaxWaitTime()}.
+ * <p>
+ * <b>Note</b>, that each waiting request occupies a slot of the client's dispatcher, so the
+ * effective batch size of asynchronous calls is limited also by the dispatcher's maximum count of
+ * requests per host.
+ *
+ * @author Martin Albedinsky
+ */
+public final class RequestBatcher implements Interceptor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "RequestBatcher";
+
+	/**
+	 * Default maximum time in milliseconds for which a request waits for result of its batch.
+	 * Matches the default read timeout of {@link okhttp3.OkHttpClient}.
+	 */
+	public static final long DEFAULT_MAX_WAIT_TIME = 10000;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Codec used to encode and decode batches.
+	 */
+	private final BatchCodec mCodec;
+
+	/**
+	 * Maximum count of requests in a single batch.
+	 */
+	private final int mMaxBatchSize;
+
+	/**
+	 * Time in milliseconds for which is a batch open for new requests.
+	 */
+	private final long mWindow;
+
+	/**
+	 * Time in milliseconds for which a request waits for result of its batch.
+	 */
+	private final long mMaxWaitTime;
+
+	/**
+	 * Lock guarding {@link #mOpenBatch}.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Batch that is currently open for new requests. May be {@code null}.
+	 */
+	private Batch mOpenBatch;
+
+	/**
+	 * Count of batch requests that have been sent.
+	 */
+	private final AtomicLong mBatchCount = new AtomicLong(0);
+
+	/**
+	 * Count of requests that have been sent as part of a batch request.
+	 */
+	private final AtomicLong mBatchedRequestCount = new AtomicLong(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Same as {@link #RequestBatcher(BatchCodec, int, long, long, TimeUnit)} with {@link #DEFAULT_MAX_WAIT_TIME}.
+	 */
+	public RequestBatcher(@NonNull final BatchCodec codec, final int maxBatchSize, final long window, @NonNull final TimeUnit unit) {
+		this(codec, maxBatchSize, unit.toMillis(window), DEFAULT_MAX_WAIT_TIME, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Creates a new instance of RequestBatcher with the specified <var>codec</var>, window and
+	 * max wait time.
+	 *
+	 * @param codec        The codec used to encode and decode batches.
+	 * @param maxBatchSize Maximum count of requests in a single batch.
+	 * @param window       Time for which should be a batch open for new requests.
+	 * @param maxWaitTime  Time for which a request waits for result of its batch before it fails
+	 *                     with {@link SocketTimeoutException}. Should not exceed read timeout of
+	 *                     the client's calls.
+	 * @param unit         Time unit of the window and max wait time.
+	 * @throws IllegalArgumentException If the batch size is less than {@code 2} or the window or
+	 *                                  max wait time is negative.
+	 */
+	public RequestBatcher(@NonNull final BatchCodec codec, final int maxBatchSize, final long window, final long maxWaitTime, @NonNull final TimeUnit unit) {
+		if (maxBatchSize < 2) throw new IllegalArgumentException("Max batch size must be at least 2!");
+		if (window < 0) throw new IllegalArgumentException("Window cannot be negative!");
+		if (maxWaitTime < 0) throw new IllegalArgumentException("Max wait time cannot be negative!");
+		this.mCodec = codec;
+		this.mMaxBatchSize = maxBatchSize;
+		this.mWindow = unit.toMillis(window);
+		this.mMaxWaitTime = unit.toMillis(maxWaitTime);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the maximum time for which a request waits for result of its batch.
+	 *
+	 * @return Max wait time in milliseconds.
+	 */
+	public long getMaxWaitTime() {
+		return mMaxWaitTime;
+	}
+
+	/**
+	 * Returns the count of batch requests that have been sent so far.
+	 *
+	 * @return Count of batches.
+	 */
+	public long getBatchCount() {
+		return mBatchCount.get();
+	}
+
+	/**
+	 * Returns the count of requests that have been sent as part of a batch request so far.
+	 *
+	 * @return Count of batched requests.
+	 */
+	public long getBatchedRequestCount() {
+		return mBatchedRequestCount.get();
+	}
+
+	/**
+	 */
+	@Override
+	public Response intercept(@NonNull final Chain chain) throws IOException {
+		final Request request = chain.request();
+		if (!mCodec.isBatchable(request)) {
+			return chain.proceed(request);
+		}
+		final Batch batch;
+		final int index;
+		synchronized (mLock) {
+			if (mOpenBatch == null) {
+				this.mOpenBatch = new Batch();
+			}
+			batch = mOpenBatch;
+			index = batch.requests.size();
+			batch.requests.add(request);
+			if (batch.requests.size() >= mMaxBatchSize) {
+				this.mOpenBatch = null;
+				batch.fullLatch.countDown();
+			}
+		}
+		return index == 0 ? send(batch, chain) : batch.awaitResponse(index, chain, mMaxWaitTime);
+	}
+
+	/**
+	 * Waits until the given <var>batch</var> is full or its window elapses and then sends it via
+	 * the specified <var>chain</var> of its first request.
+	 *
+	 * @param batch The batch to be sent.
+	 * @param chain The chain of the first request of the batch.
+	 * @return Response for the first request of the batch.
+	 * @throws IOException If sending of the batch fails.
+	 */
+	private Response send(final Batch batch, final Chain chain) throws IOException {
+		boolean interrupted = false;
+		try {
+			batch.fullLatch.await(mWindow, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			interrupted = true;
+		}
+		synchronized (mLock) {
+			if (mOpenBatch == batch) this.mOpenBatch = null;
+		}
+		// From now on, the batch is closed so its requests may be accessed without locking.
+		final List<Request> requests = batch.requests;
+		try {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+				batch.abandon();
+				throw new InterruptedIOException("Interrupted while collecting batch.");
+			}
+			if (requests.size() == 1) {
+				return chain.proceed(chain.request());
+			}
+			final List<Response> responses;
+			final Response batchResponse = chain.proceed(mCodec.encode(requests));
+			try {
+				responses = mCodec.decode(requests, batchResponse);
+			} finally {
+				batchResponse.close();
+			}
+			if (responses.size() != requests.size()) {
+				throw new IOException("Batch codec decoded " + responses.size() + " responses for " + requests.size() + " requests!");
+			}
+			mBatchCount.incrementAndGet();
+			mBatchedRequestCount.addAndGet(requests.size());
+			batch.complete(responses, null);
+			return responses.get(0).newBuilder().request(chain.request()).build();
+		} catch (IOException e) {
+			if (isCallSpecificFailure(e)) batch.abandon();
+			else batch.complete(null, e);
+			throw e;
+		} catch (RuntimeException e) {
+			batch.complete(null, new IOException("Failed to process batch.", e));
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks whether the specified <var>failure</var> has been caused by cancellation or timeout
+	 * of the call via which has been the batch sent rather than by failure of the transport.
+	 *
+	 * @param failure The failure to check.
+	 * @return {@code True} if the failure is specific to the call, {@code false} otherwise.
+	 */
+	private static boolean isCallSpecificFailure(final IOException failure) {
+		// OkHttp 3.5 does not expose the call via chain, so its cancellation is recognized only
+		// by the thrown exception.
+		return failure instanceof InterruptedIOException || "Canceled".equals(failure.getMessage());
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{batches: ");
+		builder.append(mBatchCount.get());
+		builder.append(", batchedRequests: ");
+		builder.append(mBatchedRequestCount.get());
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Holds requests of a single batch and publishes its result to the waiting requests.
+	 */
+	private static final class Batch {
+
+		/**
+		 * Requests of this batch. Modified only while holding lock of the batcher and only while
+		 * this batch is open.
+		 */
+		final List<Request> requests = new ArrayList<>();
+
+		/**
+		 * Latch released when this batch becomes full.
+		 */
+		final CountDownLatch fullLatch = new CountDownLatch(1);
+
+		/**
+		 * Latch released when result of this batch is available.
+		 */
+		final CountDownLatch doneLatch = new CountDownLatch(1);
+
+		/**
+		 * Responses decoded for requests of this batch. May be {@code null} if the batch has failed.
+		 */
+		List<Response> responses;
+
+		/**
+		 * Failure of this batch. May be {@code null} if the batch has not failed.
+		 */
+		IOException failure;
+
+		/**
+		 * Flag indicating whether this batch has been abandoned by its first request, so the other
+		 * requests should proceed on their own.
+		 */
+		boolean abandoned;
+
+		/**
+		 * Abandons this batch, so the waiting requests proceed to the network on their own.
+		 */
+		void abandon() {
+			if (doneLatch.getCount() == 0) {
+				return;
+			}
+			this.abandoned = true;
+			doneLatch.countDown();
+		}
+
+		/**
+		 * Publishes result of this batch to the waiting requests.
+		 *
+		 * @param responses The decoded responses. May be {@code null} if the batch has failed.
+		 * @param failure   The failure of the batch. May be {@code null} if the batch has not failed.
+		 */
+		void complete(final List<Response> responses, final IOException failure) {
+			if (doneLatch.getCount() == 0) {
+				return;
+			}
+			this.responses = responses;
+			this.failure = failure;
+			doneLatch.countDown();
+		}
+
+		/**
+		 * Waits for result of this batch and returns response for request at the specified
+		 * <var>index</var>.
+		 *
+		 * @param index       Index of the request in this batch.
+		 * @param chain       The chain with the request for which to return response.
+		 * @param maxWaitTime Time in milliseconds for which to wait for the result.
+		 * @return Response for the request.
+		 * @throws IOException If the batch has failed or the waiting has timed out or has been
+		 *                     interrupted.
+		 */
+		Response awaitResponse(final int index, final Chain chain, final long maxWaitTime) throws IOException {
+			try {
+				if (!doneLatch.await(maxWaitTime, TimeUnit.MILLISECONDS)) {
+					throw new SocketTimeoutException("Timed out while waiting for batch.");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for batch.");
+			}
+			if (abandoned) {
+				return chain.proceed(chain.request());
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			return responses.get(index).newBuilder().request(chain.request()).build();
+		}
+	}
+}
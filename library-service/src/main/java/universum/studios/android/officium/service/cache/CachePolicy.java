@@ -0,0 +1,187 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.cache;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy that determines for how long may be responses stored in {@link ResponseCache} used for
+ * a specific services interface.
+ * <p>
+ * A cached response is <b>fresh</b> for the duration of its <var>time to live</var> and is returned
+ * without any network request. After that, the response is <b>stale</b> but it may be still returned
+ * for the duration of <var>stale while revalidate</var> window while the cache revalidates it with
+ * a background network request. Responses older than both of these durations are not used at all.
+ * <p>
+ * Creation of instances of CachePolicy is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ * @see ResponseCacheInterceptor
+ */
+public final class CachePolicy {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CachePolicy";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Time in milliseconds for which is a cached response considered to be fresh.
+	 */
+	public final long timeToLive;
+
+	/**
+	 * Time in milliseconds after {@link #timeToLive} for which may be a stale response returned while
+	 * being revalidated.
+	 */
+	public final long staleWhileRevalidate;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CachePolicy with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new policy.
+	 */
+	private CachePolicy(final Builder builder) {
+		this.timeToLive = builder.timeToLive;
+		this.staleWhileRevalidate = builder.staleWhileRevalidate;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Checks whether a response with the specified <var>age</var> is fresh according to this policy.
+	 *
+	 * @param age Age of the cached response in milliseconds.
+	 * @return {@code True} if the response may be used without revalidation, {@code false} otherwise.
+	 */
+	public boolean isFresh(final long age) {
+		return age <= timeToLive;
+	}
+
+	/**
+	 * Checks whether a response with the specified <var>age</var> may be still used while being
+	 * revalidated according to this policy.
+	 *
+	 * @param age Age of the cached response in milliseconds.
+	 * @return {@code True} if the response is stale but still usable, {@code false} otherwise.
+	 */
+	public boolean isStaleUsable(final long age) {
+		return age > timeToLive && age <= timeToLive + staleWhileRevalidate;
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{timeToLive: ");
+		builder.append(timeToLive);
+		builder.append(", staleWhileRevalidate: ");
+		builder.append(staleWhileRevalidate);
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link CachePolicy}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link CachePolicy#timeToLive}.
+		 */
+		private long timeToLive;
+
+		/**
+		 * See {@link CachePolicy#staleWhileRevalidate}.
+		 */
+		private long staleWhileRevalidate;
+
+		/**
+		 * Specifies for how long should be cached responses considered fresh.
+		 *
+		 * @param duration The desired duration.
+		 * @param unit     Time unit of the duration.
+		 * @return This builder to allow methods chaining.
+		 * @see CachePolicy#timeToLive
+		 */
+		public Builder timeToLive(final long duration, @NonNull final TimeUnit unit) {
+			this.timeToLive = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * Specifies for how long after their time to live may be stale responses returned while
+		 * being revalidated.
+		 *
+		 * @param duration The desired duration.
+		 * @param unit     Time unit of the duration.
+		 * @return This builder to allow methods chaining.
+		 * @see CachePolicy#staleWhileRevalidate
+		 */
+		public Builder staleWhileRevalidate(final long duration, @NonNull final TimeUnit unit) {
+			this.staleWhileRevalidate = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of CachePolicy.
+		 *
+		 * @return New instance of CachePolicy with data specified for this builder.
+		 * @throws IllegalArgumentException If some of the specified durations is negative.
+		 */
+		@NonNull
+		public CachePolicy build() {
+			if (timeToLive < 0) throw new IllegalArgumentException("Time to live cannot be negative!");
+			if (staleWhileRevalidate < 0) throw new IllegalArgumentException("Stale while revalidate cannot be negative!");
+			return new CachePolicy(this);
+		}
+	}
+}
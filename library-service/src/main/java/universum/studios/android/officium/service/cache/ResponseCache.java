@@ -0,0 +1,734 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import universum.studios.android.officium.OfficiumConfig;
+
+/**
+ * Cache that stores bodies of successful responses keyed by their normalized {@link Request}. Each
+ * response cache has a bounded in-memory tier with <b>least recently used</b> eviction and optionally
+ * also a bounded disk tier which is used whenever there is no entry for a requested key in memory.
+ * <p>
+ * Responses are stored into and obtained from the cache by {@link ResponseCacheInterceptor} according
+ * to its {@link CachePolicy}. A single response cache may be shared by multiple interceptors, so
+ * multiple services interfaces may use the same memory and disk budget with different policies.
+ * <p>
+ * Creation of instances of ResponseCache is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ * @see ResponseCacheInterceptor
+ */
+public final class ResponseCache {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "ResponseCache";
+
+	/**
+	 * Default maximum size in bytes of the in-memory tier.
+	 */
+	public static final long DEFAULT_MAX_MEMORY_SIZE = 1024 * 1024;
+
+	/**
+	 * Default maximum size in bytes of body of a single cached response.
+	 */
+	public static final long DEFAULT_MAX_ENTRY_SIZE = 256 * 1024;
+
+	/**
+	 * Names of request headers that take part in normalized key of a request.
+	 */
+	private static final String[] KEY_HEADERS = {"Accept", "Accept-Language", "Authorization", "Cookie"};
+
+	/**
+	 * Suffix for temporary files of the disk tier.
+	 */
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum size in bytes of the in-memory tier.
+	 */
+	private final long mMaxMemorySize;
+
+	/**
+	 * Maximum size in bytes of body of a single cached response.
+	 */
+	private final long mMaxEntrySize;
+
+	/**
+	 * Directory of the disk tier. May be {@code null} if disk tier is not used.
+	 */
+	private final File mDirectory;
+
+	/**
+	 * Maximum size in bytes of the disk tier.
+	 */
+	private final long mMaxDiskSize;
+
+	/**
+	 * Map containing entries of the in-memory tier in access order.
+	 */
+	private final LinkedHashMap<String, Entry> mMemoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Current size in bytes of entries of the in-memory tier.
+	 */
+	private long mMemorySize;
+
+	/**
+	 * Lock used to synchronize operations upon the disk tier.
+	 */
+	private final Object mDiskLock = new Object();
+
+	/**
+	 * Current size in bytes of files of the disk tier. Computed lazily, {@code -1} if not computed yet.
+	 */
+	private long mDiskSize = -1;
+
+	/**
+	 * Count of requests that have been served from this cache.
+	 */
+	private final AtomicLong mHitCount = new AtomicLong(0);
+
+	/**
+	 * Count of requests that could not be served from this cache.
+	 */
+	private final AtomicLong mMissCount = new AtomicLong(0);
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of ResponseCache with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new cache.
+	 */
+	private ResponseCache(final Builder builder) {
+		this.mMaxMemorySize = builder.maxMemorySize;
+		this.mMaxEntrySize = builder.maxEntrySize;
+		this.mDirectory = builder.directory;
+		this.mMaxDiskSize = builder.maxDiskSize;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a normalized key for the specified <var>request</var>. The key is composed of request
+	 * method, url with its query parameters sorted by name and values of headers that may affect
+	 * content of the response, so requests that differ only in order of query parameters have the
+	 * same key.
+	 *
+	 * @param request The request for which to create its key.
+	 * @return Key that may be used to store and obtain response for the request.
+	 */
+	@NonNull
+	public static String key(@NonNull final Request request) {
+		final HttpUrl url = request.url();
+		final StringBuilder builder = new StringBuilder(128);
+		builder.append(request.method());
+		builder.append(' ');
+		builder.append(url.scheme());
+		builder.append("://");
+		builder.append(url.host());
+		builder.append(':');
+		builder.append(url.port());
+		builder.append(url.encodedPath());
+		final int querySize = url.querySize();
+		if (querySize > 0) {
+			final List<String> parameters = new ArrayList<>(querySize);
+			for (int i = 0; i < querySize; i++) {
+				final String value = url.queryParameterValue(i);
+				parameters.add(value == null ? url.queryParameterName(i) : url.queryParameterName(i) + "=" + value);
+			}
+			Collections.sort(parameters);
+			builder.append('?');
+			builder.append(TextUtils.join("&", parameters));
+		}
+		for (final String headerName : KEY_HEADERS) {
+			final String headerValue = request.header(headerName);
+			if (headerValue != null) {
+				builder.append('\n');
+				builder.append(headerName);
+				builder.append(':');
+				builder.append(headerValue);
+			}
+		}
+		return ByteString.encodeUtf8(builder.toString()).md5().hex();
+	}
+
+	/**
+	 * Checks whether all the request headers named by the specified <var>vary</var> header values
+	 * take part in the normalized {@link #key(Request) key}, so responses that vary on them may be
+	 * stored under that key.
+	 *
+	 * @param vary Values of the Vary response header.
+	 * @return {@code True} if the key covers all varying headers, {@code false} otherwise.
+	 */
+	static boolean isVaryCoveredByKey(@NonNull final List<String> vary) {
+		for (final String value : vary) {
+			for (final String headerName : value.split(",")) {
+				final String name = headerName.trim();
+				if (name.length() > 0 && !isKeyHeader(name)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the specified <var>headerName</var> takes part in the normalized key.
+	 *
+	 * @param headerName The name of header to check.
+	 * @return {@code True} if the header is one of key headers, {@code false} otherwise.
+	 */
+	private static boolean isKeyHeader(final String headerName) {
+		for (final String keyHeader : KEY_HEADERS) {
+			if (keyHeader.equalsIgnoreCase(headerName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the maximum size in bytes of body of a single response that may be stored in this cache.
+	 *
+	 * @return Maximum size of cached response body.
+	 */
+	public long getMaxEntrySize() {
+		return mMaxEntrySize;
+	}
+
+	/**
+	 * Returns the current size in bytes of the in-memory tier of this cache.
+	 *
+	 * @return Size of the in-memory tier.
+	 */
+	public long getMemorySize() {
+		synchronized (mMemoryEntries) {
+			return mMemorySize;
+		}
+	}
+
+	/**
+	 * Returns the count of requests that have been served from this cache.
+	 *
+	 * @return Count of cache hits.
+	 * @see #getMissCount()
+	 */
+	public long getHitCount() {
+		return mHitCount.get();
+	}
+
+	/**
+	 * Returns the count of requests that could not be served from this cache.
+	 *
+	 * @return Count of cache misses.
+	 * @see #getHitCount()
+	 */
+	public long getMissCount() {
+		return mMissCount.get();
+	}
+
+	/**
+	 * Records a cache hit or miss.
+	 *
+	 * @param hit {@code True} to record hit, {@code false} to record miss.
+	 */
+	void recordRequest(final boolean hit) {
+		if (hit) mHitCount.incrementAndGet();
+		else mMissCount.incrementAndGet();
+	}
+
+	/**
+	 * Returns the entry stored in this cache for the specified <var>key</var>. If there is no entry
+	 * in the in-memory tier, the disk tier (if used) is checked and the found entry is moved also
+	 * into the in-memory tier.
+	 *
+	 * @param key The key of the desired entry.
+	 * @return Cached entry or {@code null} if there is no entry for the key.
+	 * @see #key(Request)
+	 */
+	@Nullable
+	public Entry get(@NonNull final String key) {
+		synchronized (mMemoryEntries) {
+			final Entry entry = mMemoryEntries.get(key);
+			if (entry != null) return entry;
+		}
+		final Entry entry = readFromDisk(key);
+		if (entry != null) putIntoMemory(key, entry);
+		return entry;
+	}
+
+	/**
+	 * Stores the given <var>entry</var> into this cache under the specified <var>key</var>. Entries
+	 * with body larger than {@link #getMaxEntrySize()} are ignored.
+	 *
+	 * @param key   The key for the entry.
+	 * @param entry The entry to be stored.
+	 * @see #key(Request)
+	 */
+	public void put(@NonNull final String key, @NonNull final Entry entry) {
+		if (entry.body.size() > mMaxEntrySize) return;
+		putIntoMemory(key, entry);
+		writeToDisk(key, entry);
+	}
+
+	/**
+	 * Stores the given <var>entry</var> into the in-memory tier and evicts the least recently used
+	 * entries if the tier exceeds its maximum size.
+	 *
+	 * @param key   The key for the entry.
+	 * @param entry The entry to be stored.
+	 */
+	private void putIntoMemory(final String key, final Entry entry) {
+		synchronized (mMemoryEntries) {
+			final Entry previousEntry = mMemoryEntries.put(key, entry);
+			if (previousEntry != null) mMemorySize -= previousEntry.size();
+			mMemorySize += entry.size();
+			final Iterator<Entry> iterator = mMemoryEntries.values().iterator();
+			while (mMemorySize > mMaxMemorySize && iterator.hasNext()) {
+				mMemorySize -= iterator.next().size();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes entry stored under the specified <var>key</var> from both tiers of this cache.
+	 *
+	 * @param key The key of the entry to be removed.
+	 */
+	public void remove(@NonNull final String key) {
+		synchronized (mMemoryEntries) {
+			final Entry entry = mMemoryEntries.remove(key);
+			if (entry != null) mMemorySize -= entry.size();
+		}
+		if (mDirectory != null) {
+			synchronized (mDiskLock) {
+				deleteDiskFile(new File(mDirectory, key));
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries from both tiers of this cache.
+	 */
+	public void evictAll() {
+		synchronized (mMemoryEntries) {
+			mMemoryEntries.clear();
+			this.mMemorySize = 0;
+		}
+		if (mDirectory != null) {
+			synchronized (mDiskLock) {
+				final File[] files = mDirectory.listFiles();
+				if (files != null) {
+					for (final File file : files) {
+						deleteDiskFile(file);
+					}
+				}
+				this.mDiskSize = 0;
+			}
+		}
+	}
+
+	/**
+	 * Reads entry stored under the specified <var>key</var> from the disk tier.
+	 *
+	 * @param key The key of the desired entry.
+	 * @return Entry read from disk or {@code null} if there is no such entry or disk tier is not used.
+	 */
+	private Entry readFromDisk(final String key) {
+		if (mDirectory == null) {
+			return null;
+		}
+		synchronized (mDiskLock) {
+			final File file = new File(mDirectory, key);
+			if (!file.exists()) {
+				return null;
+			}
+			BufferedSource source = null;
+			try {
+				source = Okio.buffer(Okio.source(file));
+				final int code = Integer.parseInt(source.readUtf8Line());
+				final long receivedAt = Long.parseLong(source.readUtf8Line());
+				final String contentType = source.readUtf8Line();
+				final String message = source.readUtf8Line();
+				return new Entry(
+						code,
+						message,
+						TextUtils.isEmpty(contentType) ? null : contentType,
+						receivedAt,
+						source.readByteString()
+				);
+			} catch (IOException | RuntimeException e) {
+				if (OfficiumConfig.LOG_ENABLED) {
+					Log.w(TAG, "Failed to read cached response from disk. Removing it.", e);
+				}
+				deleteDiskFile(file);
+				return null;
+			} finally {
+				closeQuietly(source);
+			}
+		}
+	}
+
+	/**
+	 * Writes the given <var>entry</var> into the disk tier under the specified <var>key</var> and
+	 * evicts the oldest files if the tier exceeds its maximum size.
+	 *
+	 * @param key   The key for the entry.
+	 * @param entry The entry to be written.
+	 */
+	private void writeToDisk(final String key, final Entry entry) {
+		if (mDirectory == null) {
+			return;
+		}
+		synchronized (mDiskLock) {
+			if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+				return;
+			}
+			ensureDiskSizeComputed();
+			final File file = new File(mDirectory, key);
+			final File tempFile = new File(mDirectory, key + TEMP_FILE_SUFFIX);
+			BufferedSink sink = null;
+			try {
+				sink = Okio.buffer(Okio.sink(tempFile));
+				sink.writeDecimalLong(entry.code).writeByte('\n');
+				sink.writeDecimalLong(entry.receivedAt).writeByte('\n');
+				sink.writeUtf8(entry.contentType == null ? "" : entry.contentType).writeByte('\n');
+				sink.writeUtf8(entry.message == null ? "" : entry.message).writeByte('\n');
+				sink.write(entry.body);
+				sink.close();
+				sink = null;
+				deleteDiskFile(file);
+				if (tempFile.renameTo(file)) {
+					this.mDiskSize += file.length();
+				}
+			} catch (IOException e) {
+				if (OfficiumConfig.LOG_ENABLED) {
+					Log.w(TAG, "Failed to write response to disk.", e);
+				}
+			} finally {
+				closeQuietly(sink);
+				if (tempFile.exists() && !tempFile.delete() && OfficiumConfig.DEBUG_LOG_ENABLED) {
+					Log.d(TAG, "Failed to delete temporary file(" + tempFile + ").");
+				}
+			}
+			trimDiskToSize();
+		}
+	}
+
+	/**
+	 * Computes the current size of the disk tier if it has not been computed yet.
+	 */
+	private void ensureDiskSizeComputed() {
+		if (mDiskSize < 0) {
+			long size = 0;
+			final File[] files = mDirectory.listFiles();
+			if (files != null) {
+				for (final File file : files) {
+					size += file.length();
+				}
+			}
+			this.mDiskSize = size;
+		}
+	}
+
+	/**
+	 * Deletes the oldest files of the disk tier until its size fits the maximum size.
+	 */
+	private void trimDiskToSize() {
+		if (mDiskSize <= mMaxDiskSize) {
+			return;
+		}
+		final File[] files = mDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+
+			/**
+			 */
+			@Override
+			public int compare(final File first, final File second) {
+				final long firstModified = first.lastModified();
+				final long secondModified = second.lastModified();
+				return firstModified < secondModified ? -1 : (firstModified == secondModified ? 0 : 1);
+			}
+		});
+		for (int i = 0; i < files.length && mDiskSize > mMaxDiskSize; i++) {
+			deleteDiskFile(files[i]);
+		}
+	}
+
+	/**
+	 * Deletes the specified <var>file</var> of the disk tier and updates size of the tier.
+	 *
+	 * @param file The file to be deleted.
+	 */
+	private void deleteDiskFile(final File file) {
+		final long length = file.length();
+		if (file.delete() && mDiskSize >= 0) {
+			this.mDiskSize = Math.max(0, mDiskSize - length);
+		}
+	}
+
+	/**
+	 * Closes the given <var>closeable</var> ignoring any exception.
+	 *
+	 * @param closeable The closeable to be closed. May be {@code null}.
+	 */
+	private static void closeQuietly(final Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException ignored) {
+				// Nothing to do here.
+			}
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Entry of {@link ResponseCache} holding data of a single cached response.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Entry {
+
+		/**
+		 * Approximate size in bytes of an entry without its body.
+		 */
+		private static final int OVERHEAD_SIZE = 128;
+
+		/**
+		 * Code of the cached response.
+		 */
+		public final int code;
+
+		/**
+		 * Message of the cached response. May be {@code null}.
+		 */
+		public final String message;
+
+		/**
+		 * Content type of body of the cached response. May be {@code null}.
+		 */
+		public final String contentType;
+
+		/**
+		 * Time in milliseconds (wall clock) when has been the cached response received.
+		 */
+		public final long receivedAt;
+
+		/**
+		 * Body of the cached response.
+		 */
+		public final ByteString body;
+
+		/**
+		 * Creates a new instance of Entry with the specified response data.
+		 *
+		 * @param code        The code of the response.
+		 * @param message     The message of the response.
+		 * @param contentType The content type of the response body.
+		 * @param receivedAt  The time when has been the response received.
+		 * @param body        The body of the response.
+		 */
+		public Entry(final int code, @Nullable final String message, @Nullable final String contentType, final long receivedAt, @NonNull final ByteString body) {
+			this.code = code;
+			this.message = message;
+			this.contentType = contentType;
+			this.receivedAt = receivedAt;
+			this.body = body;
+		}
+
+		/**
+		 * Returns the approximate size of this entry in memory.
+		 *
+		 * @return Size of this entry in bytes.
+		 */
+		long size() {
+			return body.size() + OVERHEAD_SIZE;
+		}
+
+		/**
+		 * Returns the age of this entry.
+		 *
+		 * @param now The current time in milliseconds (wall clock).
+		 * @return Age in milliseconds.
+		 */
+		public long age(final long now) {
+			return Math.max(0, now - receivedAt);
+		}
+
+		/**
+		 * Creates a new response from data of this entry for the specified <var>request</var>.
+		 *
+		 * @param request The request for which to create the response.
+		 * @return New response with body of this entry.
+		 */
+		@NonNull
+		public Response toResponse(@NonNull final Request request) {
+			final Response.Builder builder = new Response.Builder()
+					.request(request)
+					.protocol(Protocol.HTTP_1_1)
+					.code(code)
+					.message(message == null ? "" : message)
+					.body(ResponseBody.create(
+							contentType == null ? null : MediaType.parse(contentType),
+							body.size(),
+							new Buffer().write(body)
+					));
+			if (contentType != null) builder.header("Content-Type", contentType);
+			return builder.build();
+		}
+	}
+
+	/**
+	 * Builder that can be used to create a new instance of {@link ResponseCache}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link ResponseCache#mMaxMemorySize}.
+		 */
+		private long maxMemorySize = DEFAULT_MAX_MEMORY_SIZE;
+
+		/**
+		 * See {@link ResponseCache#mMaxEntrySize}.
+		 */
+		private long maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+		/**
+		 * See {@link ResponseCache#mDirectory}.
+		 */
+		private File directory;
+
+		/**
+		 * See {@link ResponseCache#mMaxDiskSize}.
+		 */
+		private long maxDiskSize;
+
+		/**
+		 * Specifies a maximum size of the in-memory tier.
+		 *
+		 * @param maxSize The desired size in bytes.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder maxMemorySize(final long maxSize) {
+			this.maxMemorySize = maxSize;
+			return this;
+		}
+
+		/**
+		 * Specifies a maximum size of body of a single response that may be cached.
+		 *
+		 * @param maxSize The desired size in bytes.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder maxEntrySize(final long maxSize) {
+			this.maxEntrySize = maxSize;
+			return this;
+		}
+
+		/**
+		 * Specifies a directory and its maximum size for the disk tier. By default the disk tier
+		 * is not used.
+		 *
+		 * @param directory The desired directory into which to store cached responses. Should be
+		 *                  used exclusively by the cache.
+		 * @param maxSize   The desired size in bytes.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder disk(@NonNull final File directory, final long maxSize) {
+			this.directory = directory;
+			this.maxDiskSize = maxSize;
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of ResponseCache.
+		 *
+		 * @return New instance of ResponseCache with data specified for this builder.
+		 * @throws IllegalArgumentException If some of the specified sizes is not positive.
+		 */
+		@NonNull
+		public ResponseCache build() {
+			if (maxMemorySize <= 0) throw new IllegalArgumentException("Max memory size must be positive!");
+			if (maxEntrySize <= 0) throw new IllegalArgumentException("Max entry size must be positive!");
+			if (directory != null && maxDiskSize <= 0) throw new IllegalArgumentException("Max disk size must be positive!");
+			return new ResponseCache(this);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * An {@link Interceptor} implementation that serves <b>GET</b> requests from a {@link ResponseCache}
+ * according to a {@link CachePolicy}.
+ * <p>
+ * Fresh cached responses are returned without any network request. Stale responses that are still
+ * usable according to the policy are returned immediately and revalidated in the background via
+ * the revalidation call factory specified for the interceptor (if any). All other requests proceed
+ * to the network and successful responses with body that fits {@link ResponseCache#getMaxEntrySize()}
+ * are stored into the cache. Requests with {@code no-cache} or {@code no-store} cache control always
+ * bypass the cache. Responses with {@code no-cache}, {@code no-store} or {@code private} cache control,
+ * responses that set cookies and responses that vary on headers other than those taking part in
+ * the {@link ResponseCache#key(Request) key} are never stored.
+ *
+ * @author Martin Albedinsky
+ */
+public final class ResponseCacheInterceptor implements Interceptor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ResponseCacheInterceptor";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Cache used to store and obtain responses.
+	 */
+	private final ResponseCache mCache;
+
+	/**
+	 * Policy determining freshness of cached responses.
+	 */
+	private final CachePolicy mPolicy;
+
+	/**
+	 * Factory used to create calls revalidating stale responses. May be {@code null}.
+	 */
+	private final Call.Factory mRevalidationCallFactory;
+
+	/**
+	 * Set containing keys of requests that are being currently revalidated.
+	 */
+	private final Set<String> mRevalidatingKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of ResponseCacheInterceptor with the given <var>cache</var> and
+	 * <var>policy</var>.
+	 *
+	 * @param cache                   The cache to be used to store and obtain responses.
+	 * @param policy                  The policy determining freshness of cached responses.
+	 * @param revalidationCallFactory Factory used to create calls revalidating stale responses.
+	 *                                Such factory should not use this interceptor. May be {@code null}
+	 *                                in which case stale responses are never returned.
+	 */
+	public ResponseCacheInterceptor(
+			@NonNull final ResponseCache cache,
+			@NonNull final CachePolicy policy,
+			@Nullable final Call.Factory revalidationCallFactory
+	) {
+		mCache = cache;
+		mPolicy = policy;
+		mRevalidationCallFactory = revalidationCallFactory;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public Response intercept(@NonNull final Chain chain) throws IOException {
+		final Request request = chain.request();
+		if (!isCacheable(request)) {
+			return chain.proceed(request);
+		}
+		final String key = ResponseCache.key(request);
+		final ResponseCache.Entry entry = mCache.get(key);
+		if (entry != null) {
+			final long age = entry.age(System.currentTimeMillis());
+			if (mPolicy.isFresh(age)) {
+				mCache.recordRequest(true);
+				return entry.toResponse(request);
+			}
+			if (mRevalidationCallFactory != null && mPolicy.isStaleUsable(age)) {
+				mCache.recordRequest(true);
+				revalidate(key, request);
+				return entry.toResponse(request);
+			}
+		}
+		mCache.recordRequest(false);
+		return store(key, chain.proceed(request));
+	}
+
+	/**
+	 * Checks whether the specified <var>request</var> may be served from the cache.
+	 *
+	 * @param request The request to check.
+	 * @return {@code True} if the request is cacheable, {@code false} otherwise.
+	 */
+	private static boolean isCacheable(final Request request) {
+		if (!"GET".equals(request.method())) {
+			return false;
+		}
+		final CacheControl cacheControl = request.cacheControl();
+		return !cacheControl.noCache() && !cacheControl.noStore();
+	}
+
+	/**
+	 * Checks whether the specified <var>response</var> may be stored into the cache.
+	 *
+	 * @param response The response to check.
+	 * @return {@code True} if the response is storable, {@code false} otherwise.
+	 */
+	private static boolean isStorable(final Response response) {
+		if (response.code() != 200 || response.body() == null) {
+			return false;
+		}
+		final CacheControl cacheControl = response.cacheControl();
+		return !cacheControl.noCache() &&
+				!cacheControl.noStore() &&
+				!cacheControl.isPrivate() &&
+				response.headers("Set-Cookie").isEmpty() &&
+				ResponseCache.isVaryCoveredByKey(response.headers("Vary"));
+	}
+
+	/**
+	 * Stores the given <var>response</var> into the cache under the specified <var>key</var> if it
+	 * is {@link #isStorable(Response) storable} and its body fits the maximum entry size.
+	 * <p>
+	 * The response body is only buffered, not consumed, so the returned response may be read as usual.
+	 *
+	 * @param key      The key for the response.
+	 * @param response The response to be stored.
+	 * @return The same response.
+	 * @throws IOException If reading of the response body fails.
+	 */
+	private Response store(final String key, final Response response) throws IOException {
+		if (!isStorable(response)) {
+			return response;
+		}
+		final ResponseBody body = response.body();
+		final long maxEntrySize = mCache.getMaxEntrySize();
+		if (body.contentLength() > maxEntrySize) {
+			return response;
+		}
+		final BufferedSource source = body.source();
+		if (source.request(maxEntrySize + 1)) {
+			return response;
+		}
+		final MediaType contentType = body.contentType();
+		mCache.put(key, new ResponseCache.Entry(
+				response.code(),
+				response.message(),
+				contentType == null ? null : contentType.toString(),
+				System.currentTimeMillis(),
+				source.buffer().snapshot()
+		));
+		return response;
+	}
+
+	/**
+	 * Revalidates response for the specified <var>request</var> in the background. If there is
+	 * already running revalidation for the same key, this method does nothing.
+	 *
+	 * @param key     The key of the request.
+	 * @param request The request for which to revalidate its cached response.
+	 */
+	private void revalidate(final String key, final Request request) {
+		if (!mRevalidatingKeys.add(key)) {
+			return;
+		}
+		mRevalidationCallFactory.newCall(request).enqueue(new Callback() {
+
+			/**
+			 */
+			@Override
+			public void onResponse(@NonNull final Call call, @NonNull final Response response) throws IOException {
+				try {
+					store(key, response);
+				} finally {
+					response.close();
+					mRevalidatingKeys.remove(key);
+				}
+			}
+
+			/**
+			 */
+			@Override
+			public void onFailure(@NonNull final Call call, @NonNull final IOException failure) {
+				mRevalidatingKeys.remove(key);
+			}
+		});
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
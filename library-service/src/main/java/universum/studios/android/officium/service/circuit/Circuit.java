@@ -0,0 +1,365 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.os.SystemClock;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A single circuit of {@link CircuitBreaker} that tracks results of requests for a specific key,
+ * like base url of an end point.
+ * <p>
+ * Circuit starts in {@link #CLOSED} state in which all requests are permitted and their results
+ * are recorded into a sliding window of the last {@link CircuitBreaker#slidingWindowSize} results.
+ * When the window contains at least {@link CircuitBreaker#minimumCalls} results and the rate of
+ * failed ones reaches {@link CircuitBreaker#failureRateThreshold}, the circuit becomes {@link #OPEN}
+ * and rejects all requests. After {@link CircuitBreaker#openDuration} the circuit becomes
+ * {@link #HALF_OPEN} and permits {@link CircuitBreaker#halfOpenCalls} trial requests. If all of
+ * them succeed the circuit becomes closed again, if any of them fails the circuit becomes open
+ * again.
+ *
+ * @author Martin Albedinsky
+ */
+public final class Circuit {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "Circuit";
+
+	/**
+	 * State indicating that {@link Circuit} permits all requests.
+	 */
+	public static final int CLOSED = 0x00;
+
+	/**
+	 * State indicating that {@link Circuit} rejects all requests.
+	 */
+	public static final int OPEN = 0x01;
+
+	/**
+	 * State indicating that {@link Circuit} permits only a limited count of trial requests.
+	 */
+	public static final int HALF_OPEN = 0x02;
+
+	/**
+	 * Defines an annotation for determining set of available states for {@link Circuit}.
+	 * <h3>Available states</h3>
+	 * <ul>
+	 * <li>{@link #CLOSED}</li>
+	 * <li>{@link #OPEN}</li>
+	 * <li>{@link #HALF_OPEN}</li>
+	 * </ul>
+	 *
+	 * @see #getState()
+	 */
+	@IntDef({
+			CLOSED,
+			OPEN,
+			HALF_OPEN
+	})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface State {
+	}
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Breaker to which this circuit belongs.
+	 */
+	private final CircuitBreaker mBreaker;
+
+	/**
+	 * Key of this circuit.
+	 */
+	private final String mKey;
+
+	/**
+	 * Lock guarding state and sliding window of this circuit.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Sliding window with results of the last requests. {@code True} for failed ones.
+	 */
+	private final boolean[] mWindow;
+
+	/**
+	 * Index in {@link #mWindow} at which to record the next result.
+	 */
+	private int mWindowIndex;
+
+	/**
+	 * Count of results recorded in {@link #mWindow}.
+	 */
+	private int mWindowCount;
+
+	/**
+	 * Count of failed results recorded in {@link #mWindow}.
+	 */
+	private int mWindowFailures;
+
+	/**
+	 * Current state of this circuit.
+	 */
+	private volatile int mState = CLOSED;
+
+	/**
+	 * Time when this circuit has been opened.
+	 */
+	private long mOpenedAt;
+
+	/**
+	 * Count of trial requests permitted in the current half open state.
+	 */
+	private int mHalfOpenPermitted;
+
+	/**
+	 * Count of successful trial requests in the current half open state.
+	 */
+	private int mHalfOpenSucceeded;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of Circuit with the specified <var>key</var>.
+	 *
+	 * @param breaker The breaker to which the new circuit belongs.
+	 * @param key     Key of the new circuit.
+	 */
+	Circuit(final CircuitBreaker breaker, final String key) {
+		this.mBreaker = breaker;
+		this.mKey = key;
+		this.mWindow = new boolean[breaker.slidingWindowSize];
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the key of this circuit.
+	 *
+	 * @return This circuit's key.
+	 * @see CircuitBreaker#key(String, Class)
+	 */
+	@NonNull
+	public String getKey() {
+		return mKey;
+	}
+
+	/**
+	 * Returns the current state of this circuit.
+	 * <p>
+	 * <b>Note</b>, that open circuit becomes half open only when a request is made after its open
+	 * duration has elapsed.
+	 *
+	 * @return One of {@link #CLOSED}, {@link #OPEN} or {@link #HALF_OPEN}.
+	 */
+	@State
+	public int getState() {
+		return mState;
+	}
+
+	/**
+	 * Returns the rate of failed requests in the current sliding window of this circuit.
+	 *
+	 * @return Failure rate in percents or {@code 0} if there are no results recorded.
+	 */
+	public float getFailureRate() {
+		synchronized (mLock) {
+			return mWindowCount == 0 ? 0 : mWindowFailures * 100f / mWindowCount;
+		}
+	}
+
+	/**
+	 * Acquires permission to execute a request through this circuit.
+	 *
+	 * @return {@code True} if the request may be executed, {@code false} if it should be rejected.
+	 */
+	boolean tryAcquirePermission() {
+		final int previousState;
+		synchronized (mLock) {
+			switch (mState) {
+				case CLOSED:
+					return true;
+				case OPEN:
+					if (SystemClock.elapsedRealtime() - mOpenedAt < mBreaker.openDuration) {
+						return false;
+					}
+					previousState = moveToState(HALF_OPEN);
+					this.mHalfOpenPermitted = 1;
+					break;
+				case HALF_OPEN:
+				default:
+					if (mHalfOpenPermitted >= mBreaker.halfOpenCalls) {
+						return false;
+					}
+					this.mHalfOpenPermitted++;
+					return true;
+			}
+		}
+		mBreaker.notifyStateChanged(this, previousState, HALF_OPEN);
+		return true;
+	}
+
+	/**
+	 * Records result of a request executed through this circuit.
+	 *
+	 * @param failed {@code True} if the request has failed, {@code false} otherwise.
+	 */
+	void recordResult(final boolean failed) {
+		final int previousState;
+		final int state;
+		synchronized (mLock) {
+			switch (mState) {
+				case CLOSED:
+					if (!recordIntoWindow(failed)) {
+						return;
+					}
+					this.mOpenedAt = SystemClock.elapsedRealtime();
+					previousState = moveToState(OPEN);
+					break;
+				case HALF_OPEN:
+					if (failed) {
+						this.mOpenedAt = SystemClock.elapsedRealtime();
+						previousState = moveToState(OPEN);
+					} else if (++mHalfOpenSucceeded >= mBreaker.halfOpenCalls) {
+						clearWindow();
+						previousState = moveToState(CLOSED);
+					} else {
+						return;
+					}
+					break;
+				case OPEN:
+				default:
+					// Results of requests permitted before this circuit has been opened do not matter.
+					return;
+			}
+			state = mState;
+		}
+		mBreaker.notifyStateChanged(this, previousState, state);
+	}
+
+	/**
+	 * Releases permission acquired via {@link #tryAcquirePermission()} without recording any result,
+	 * for example when the request has been canceled by its caller. If this circuit is half open,
+	 * the released permission may be acquired by another trial request.
+	 */
+	void releasePermission() {
+		synchronized (mLock) {
+			if (mState == HALF_OPEN && mHalfOpenPermitted > 0) this.mHalfOpenPermitted--;
+		}
+	}
+
+	/**
+	 * Records the specified result into the sliding window.
+	 *
+	 * @param failed {@code True} if the request has failed, {@code false} otherwise.
+	 * @return {@code True} if the failure rate threshold has been reached, {@code false} otherwise.
+	 */
+	private boolean recordIntoWindow(final boolean failed) {
+		if (mWindowCount == mWindow.length) {
+			if (mWindow[mWindowIndex]) mWindowFailures--;
+		} else {
+			this.mWindowCount++;
+		}
+		mWindow[mWindowIndex] = failed;
+		if (failed) mWindowFailures++;
+		this.mWindowIndex = (mWindowIndex + 1) % mWindow.length;
+		return mWindowCount >= mBreaker.minimumCalls && mWindowFailures * 100f / mWindowCount >= mBreaker.failureRateThreshold;
+	}
+
+	/**
+	 * Clears all results recorded in the sliding window.
+	 */
+	private void clearWindow() {
+		this.mWindowIndex = 0;
+		this.mWindowCount = 0;
+		this.mWindowFailures = 0;
+	}
+
+	/**
+	 * Moves this circuit into the specified <var>state</var>.
+	 *
+	 * @param state The desired state.
+	 * @return The previous state.
+	 */
+	private int moveToState(final int state) {
+		final int previousState = mState;
+		this.mState = state;
+		this.mHalfOpenPermitted = 0;
+		this.mHalfOpenSucceeded = 0;
+		return previousState;
+	}
+
+	/**
+	 * Resets this circuit into {@link #CLOSED} state with no recorded results.
+	 */
+	public void reset() {
+		final int previousState;
+		synchronized (mLock) {
+			clearWindow();
+			previousState = moveToState(CLOSED);
+		}
+		if (previousState != CLOSED) {
+			mBreaker.notifyStateChanged(this, previousState, CLOSED);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{key: ");
+		builder.append(mKey);
+		builder.append(", state: ");
+		builder.append(mState);
+		builder.append(", failureRate: ");
+		builder.append(getFailureRate());
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
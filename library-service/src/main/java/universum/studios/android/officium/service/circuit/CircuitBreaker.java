@@ -0,0 +1,360 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker that protects clients from waiting on a degraded server. Requests are tracked
+ * by {@link Circuit Circuits} identified by keys, where each key is composed of base url of an
+ * end point and optionally of name of a services interface, see {@link #key(String, Class)}.
+ * <p>
+ * Circuit breaker may be specified for all services of {@link universum.studios.android.officium.service.ServiceManager ServiceManager}
+ * or for a single services configuration. Requests rejected by an open circuit fail immediately
+ * with {@link CircuitOpenException}. Changes of states of circuits may be observed via
+ * {@link OnCircuitStateChangeListener}.
+ * <p>
+ * Creation of instances of CircuitBreaker is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ * @see CircuitBreakerInterceptor
+ */
+public final class CircuitBreaker {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CircuitBreaker";
+
+	/**
+	 * Default value for {@link #failureRateThreshold}.
+	 */
+	public static final float DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+
+	/**
+	 * Default value for {@link #slidingWindowSize}.
+	 */
+	public static final int DEFAULT_SLIDING_WINDOW_SIZE = 20;
+
+	/**
+	 * Default value for {@link #minimumCalls}.
+	 */
+	public static final int DEFAULT_MINIMUM_CALLS = 10;
+
+	/**
+	 * Default value for {@link #openDuration}.
+	 */
+	public static final long DEFAULT_OPEN_DURATION = 30000;
+
+	/**
+	 * Default value for {@link #halfOpenCalls}.
+	 */
+	public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Rate of failed requests in percents at which a circuit is opened.
+	 */
+	public final float failureRateThreshold;
+
+	/**
+	 * Count of the last request results from which is computed failure rate.
+	 */
+	public final int slidingWindowSize;
+
+	/**
+	 * Minimum count of recorded results before a circuit may be opened.
+	 */
+	public final int minimumCalls;
+
+	/**
+	 * Time in milliseconds for which an opened circuit rejects all requests.
+	 */
+	public final long openDuration;
+
+	/**
+	 * Count of trial requests permitted by a half open circuit.
+	 */
+	public final int halfOpenCalls;
+
+	/**
+	 * Flag indicating whether there should be a separate circuit for each services interface.
+	 */
+	public final boolean perServicesInterface;
+
+	/**
+	 * Map containing all circuits of this breaker mapped to their keys.
+	 */
+	private final ConcurrentMap<String, Circuit> mCircuits = new ConcurrentHashMap<>(4);
+
+	/**
+	 * List of listeners registered to be notified about changes of states of circuits.
+	 */
+	private final List<OnCircuitStateChangeListener> mListeners = new CopyOnWriteArrayList<>();
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CircuitBreaker with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new breaker.
+	 */
+	private CircuitBreaker(final Builder builder) {
+		this.failureRateThreshold = builder.failureRateThreshold;
+		this.slidingWindowSize = builder.slidingWindowSize;
+		this.minimumCalls = builder.minimumCalls;
+		this.openDuration = builder.openDuration;
+		this.halfOpenCalls = builder.halfOpenCalls;
+		this.perServicesInterface = builder.perServicesInterface;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a key for circuit of the specified <var>baseUrl</var> and <var>servicesInterface</var>.
+	 *
+	 * @param baseUrl           Base url of the end point.
+	 * @param servicesInterface Class of the services interface. May be {@code null} to create key
+	 *                          for the whole end point.
+	 * @return Circuit key.
+	 */
+	@NonNull
+	public static String key(@NonNull final String baseUrl, @Nullable final Class<?> servicesInterface) {
+		return servicesInterface == null ? baseUrl : baseUrl + "#" + servicesInterface.getName();
+	}
+
+	/**
+	 * Returns the circuit for the specified <var>key</var>. If there is no such circuit yet, a new
+	 * one in {@link Circuit#CLOSED} state is created.
+	 *
+	 * @param key Key of the desired circuit.
+	 * @return Circuit with the key.
+	 * @see #key(String, Class)
+	 */
+	@NonNull
+	public Circuit circuit(@NonNull final String key) {
+		Circuit circuit = mCircuits.get(key);
+		if (circuit == null) {
+			final Circuit newCircuit = new Circuit(this, key);
+			circuit = mCircuits.putIfAbsent(key, newCircuit);
+			if (circuit == null) {
+				circuit = newCircuit;
+			}
+		}
+		return circuit;
+	}
+
+	/**
+	 * Registers a listener to be notified about changes of states of circuits of this breaker.
+	 *
+	 * @param listener The desired listener.
+	 * @see #unregisterOnStateChangeListener(OnCircuitStateChangeListener)
+	 */
+	public void registerOnStateChangeListener(@NonNull final OnCircuitStateChangeListener listener) {
+		if (!mListeners.contains(listener)) mListeners.add(listener);
+	}
+
+	/**
+	 * Unregisters the given listener from this breaker.
+	 *
+	 * @param listener The listener to be unregistered.
+	 * @see #registerOnStateChangeListener(OnCircuitStateChangeListener)
+	 */
+	public void unregisterOnStateChangeListener(@NonNull final OnCircuitStateChangeListener listener) {
+		mListeners.remove(listener);
+	}
+
+	/**
+	 * Notifies all registered listeners that state of the specified <var>circuit</var> has changed.
+	 *
+	 * @param circuit       The circuit of which state has changed.
+	 * @param previousState The previous state of the circuit.
+	 * @param state         The new state of the circuit.
+	 */
+	void notifyStateChanged(final Circuit circuit, final int previousState, final int state) {
+		for (final OnCircuitStateChangeListener listener : mListeners) {
+			listener.onCircuitStateChanged(circuit, previousState, state);
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link CircuitBreaker}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link CircuitBreaker#failureRateThreshold}.
+		 */
+		private float failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+
+		/**
+		 * See {@link CircuitBreaker#slidingWindowSize}.
+		 */
+		private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+
+		/**
+		 * See {@link CircuitBreaker#minimumCalls}.
+		 */
+		private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+
+		/**
+		 * See {@link CircuitBreaker#openDuration}.
+		 */
+		private long openDuration = DEFAULT_OPEN_DURATION;
+
+		/**
+		 * See {@link CircuitBreaker#halfOpenCalls}.
+		 */
+		private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+		/**
+		 * See {@link CircuitBreaker#perServicesInterface}.
+		 */
+		private boolean perServicesInterface;
+
+		/**
+		 * Specifies the rate of failed requests at which should be a circuit opened.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_FAILURE_RATE_THRESHOLD} %</b>
+		 *
+		 * @param threshold The desired threshold in percents from range {@code (0, 100]}.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder failureRateThreshold(final float threshold) {
+			this.failureRateThreshold = threshold;
+			return this;
+		}
+
+		/**
+		 * Specifies the count of the last request results from which should be computed failure rate.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_SLIDING_WINDOW_SIZE}</b>
+		 *
+		 * @param size The desired size.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder slidingWindowSize(final int size) {
+			this.slidingWindowSize = size;
+			return this;
+		}
+
+		/**
+		 * Specifies the minimum count of recorded results before a circuit may be opened.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_MINIMUM_CALLS}</b>
+		 *
+		 * @param minimumCalls The desired count. Should not be greater than the sliding window size.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder minimumCalls(final int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+			return this;
+		}
+
+		/**
+		 * Specifies for how long should an opened circuit reject all requests.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_OPEN_DURATION} ms</b>
+		 *
+		 * @param duration The desired duration.
+		 * @param unit     Time unit of the duration.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder openDuration(final long duration, @NonNull final TimeUnit unit) {
+			this.openDuration = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * Specifies the count of trial requests that should be permitted by a half open circuit.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_HALF_OPEN_CALLS}</b>
+		 *
+		 * @param count The desired count.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder halfOpenCalls(final int count) {
+			this.halfOpenCalls = count;
+			return this;
+		}
+
+		/**
+		 * Specifies whether there should be a separate circuit for each services interface instead
+		 * of a single circuit for the whole end point.
+		 * <p>
+		 * Default value: <b>false</b>
+		 *
+		 * @param perServicesInterface {@code True} to use circuit per services interface,
+		 *                             {@code false} otherwise.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder perServicesInterface(final boolean perServicesInterface) {
+			this.perServicesInterface = perServicesInterface;
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of CircuitBreaker.
+		 *
+		 * @return New instance of CircuitBreaker with data specified for this builder.
+		 * @throws IllegalArgumentException If some of the specified parameters is not valid.
+		 */
+		@NonNull
+		public CircuitBreaker build() {
+			if (failureRateThreshold <= 0 || failureRateThreshold > 100) throw new IllegalArgumentException("Failure rate threshold must be from range (0, 100]!");
+			if (slidingWindowSize < 1) throw new IllegalArgumentException("Sliding window size must be at least 1!");
+			if (minimumCalls < 1 || minimumCalls > slidingWindowSize) throw new IllegalArgumentException("Minimum calls must be from range [1, slidingWindowSize]!");
+			if (openDuration < 0) throw new IllegalArgumentException("Open duration cannot be negative!");
+			if (halfOpenCalls < 1) throw new IllegalArgumentException("Half open calls must be at least 1!");
+			return new CircuitBreaker(this);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * An {@link Interceptor} implementation that executes requests through a single {@link Circuit}.
+ * <p>
+ * Requests rejected by the circuit fail immediately with {@link CircuitOpenException}. Results of
+ * permitted requests are recorded into the circuit, where failures with {@link IOException} and
+ * responses with server error code ({@code 5xx}) are considered to be failed requests. Requests
+ * canceled by their caller or failed due to an unchecked exception are not recorded and only
+ * release their permission.
+ *
+ * @author Martin Albedinsky
+ */
+public final class CircuitBreakerInterceptor implements Interceptor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CircuitBreakerInterceptor";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Circuit through which are requests executed.
+	 */
+	private final Circuit mCircuit;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CircuitBreakerInterceptor for the specified <var>circuit</var>.
+	 *
+	 * @param circuit The circuit through which to execute requests.
+	 * @see CircuitBreaker#circuit(String)
+	 */
+	public CircuitBreakerInterceptor(@NonNull final Circuit circuit) {
+		this.mCircuit = circuit;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the circuit through which are requests executed.
+	 *
+	 * @return This interceptor's circuit.
+	 */
+	@NonNull
+	public Circuit getCircuit() {
+		return mCircuit;
+	}
+
+	/**
+	 */
+	@Override
+	public Response intercept(@NonNull final Chain chain) throws IOException {
+		if (!mCircuit.tryAcquirePermission()) {
+			throw new CircuitOpenException(mCircuit.getKey());
+		}
+		boolean recorded = false;
+		try {
+			final Response response = chain.proceed(chain.request());
+			mCircuit.recordResult(response.code() >= 500);
+			recorded = true;
+			return response;
+		} catch (IOException e) {
+			if (!isCanceled(e)) {
+				mCircuit.recordResult(true);
+				recorded = true;
+			}
+			throw e;
+		} finally {
+			if (!recorded) mCircuit.releasePermission();
+		}
+	}
+
+	/**
+	 * Checks whether the specified <var>failure</var> has been caused by cancellation of the call
+	 * by its caller rather than by failure of the backend.
+	 *
+	 * @param failure The failure to check.
+	 * @return {@code True} if the call has been canceled, {@code false} otherwise.
+	 */
+	private static boolean isCanceled(final IOException failure) {
+		// OkHttp 3.5 does not expose the call via chain, so its cancellation is recognized only
+		// by the thrown exception. Timeouts are still considered to be failures of the backend.
+		return "Canceled".equals(failure.getMessage()) ||
+				(failure instanceof InterruptedIOException && !(failure instanceof SocketTimeoutException));
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,91 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * An {@link IOException} thrown by {@link CircuitBreakerInterceptor} when a request is rejected
+ * without any network exchange because its {@link Circuit} is open.
+ *
+ * @author Martin Albedinsky
+ */
+public class CircuitOpenException extends IOException {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CircuitOpenException";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Key of the circuit that has rejected the request.
+	 */
+	private final String mCircuitKey;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CircuitOpenException for circuit with the specified <var>circuitKey</var>.
+	 *
+	 * @param circuitKey Key of the circuit that has rejected the request.
+	 */
+	public CircuitOpenException(@NonNull final String circuitKey) {
+		super("Circuit(" + circuitKey + ") is open.");
+		this.mCircuitKey = circuitKey;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the key of the circuit that has rejected the request.
+	 *
+	 * @return Circuit key.
+	 * @see Circuit#getKey()
+	 */
+	@NonNull
+	public String getCircuitKey() {
+		return mCircuitKey;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,45 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.circuit;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Listener that may be used to receive callback whenever a state of a {@link Circuit} of
+ * {@link CircuitBreaker} is changed.
+ *
+ * @author Martin Albedinsky
+ * @see CircuitBreaker#registerOnStateChangeListener(OnCircuitStateChangeListener)
+ */
+public interface OnCircuitStateChangeListener {
+
+	/**
+	 * Invoked whenever a state of the specified <var>circuit</var> has been changed.
+	 * <p>
+	 * <b>Note</b>, that this callback is invoked on the thread that has executed the request which
+	 * caused the change, so implementations should only dispatch the change further, for example
+	 * by posting an event on an event bus.
+	 *
+	 * @param circuit       The circuit of which state has changed.
+	 * @param previousState The previous state of the circuit.
+	 * @param state         The new state of the circuit.
+	 * @see Circuit#getState()
+	 */
+	void onCircuitStateChanged(@NonNull Circuit circuit, @Circuit.State int previousState, @Circuit.State int state);
+}
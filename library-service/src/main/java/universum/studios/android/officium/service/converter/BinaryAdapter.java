@@ -0,0 +1,57 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+
+/**
+ * Adapter used by {@link BinaryConverterFactory} to read and write objects of a specific type from
+ * and to a compact binary representation. Helpers for the primitive encodings are available in
+ * {@link BinaryFormat}.
+ *
+ * @param <T> Type of the objects that the adapter reads and writes.
+ * @author Martin Albedinsky
+ */
+public interface BinaryAdapter<T> {
+
+	/**
+	 * Reads a single object from the given <var>source</var>.
+	 *
+	 * @param source The source from which to read the object.
+	 * @return The read object.
+	 * @throws IOException If reading fails or the data are malformed.
+	 */
+	@Nullable
+	T read(@NonNull BufferedSource source) throws IOException;
+
+	/**
+	 * Writes the given <var>value</var> into the given <var>sink</var>.
+	 *
+	 * @param sink  The sink into which to write the value.
+	 * @param value The value to be written.
+	 * @throws IOException If writing fails.
+	 */
+	void write(@NonNull BufferedSink sink, @NonNull T value) throws IOException;
+}
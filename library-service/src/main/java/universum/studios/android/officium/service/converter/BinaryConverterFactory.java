@@ -0,0 +1,225 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * A {@link Converter.Factory} implementation that converts request and response bodies from and
+ * to a compact binary representation via {@link BinaryAdapter BinaryAdapters} registered for
+ * the factory.
+ * <p>
+ * The factory does not use reflection at all. Types for which there is no adapter registered are
+ * left to other converter factories.
+ * <p>
+ * Creation of instances of BinaryConverterFactory is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ * @see BinaryFormat
+ */
+public final class BinaryConverterFactory extends Converter.Factory {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "BinaryConverterFactory";
+
+	/**
+	 * Media type of request bodies created by this factory.
+	 */
+	public static final MediaType MEDIA_TYPE = MediaType.parse("application/octet-stream");
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Map of adapters registered for this factory mapped to their types.
+	 */
+	private final Map<Type, BinaryAdapter<?>> mAdapters;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of BinaryConverterFactory with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new factory.
+	 */
+	private BinaryConverterFactory(final Builder builder) {
+		this.mAdapters = new HashMap<>(builder.adapters);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public Converter<ResponseBody, ?> responseBodyConverter(@NonNull final Type type, @NonNull final Annotation[] annotations, @NonNull final Retrofit retrofit) {
+		final BinaryAdapter<?> adapter = mAdapters.get(type);
+		return adapter == null ? null : new ResponseConverter<>(adapter);
+	}
+
+	/**
+	 */
+	@Override
+	public Converter<?, RequestBody> requestBodyConverter(
+			@NonNull final Type type,
+			@NonNull final Annotation[] parameterAnnotations,
+			@NonNull final Annotation[] methodAnnotations,
+			@NonNull final Retrofit retrofit
+	) {
+		final BinaryAdapter<?> adapter = mAdapters.get(type);
+		return adapter == null ? null : new RequestConverter<>(adapter);
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link BinaryConverterFactory}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link BinaryConverterFactory#mAdapters}.
+		 */
+		private final Map<Type, BinaryAdapter<?>> adapters = new HashMap<>();
+
+		/**
+		 * Registers an adapter to be used to convert objects of the specified <var>type</var>.
+		 * <p>
+		 * Default value: <b>none</b>
+		 *
+		 * @param type    The type of objects converted by the adapter.
+		 * @param adapter The desired adapter.
+		 * @param <T>     Type of the objects.
+		 * @return This builder to allow methods chaining.
+		 */
+		public <T> Builder registerAdapter(@NonNull final Class<T> type, @NonNull final BinaryAdapter<T> adapter) {
+			this.adapters.put(type, adapter);
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of BinaryConverterFactory.
+		 *
+		 * @return New instance of BinaryConverterFactory with adapters registered for this builder.
+		 */
+		@NonNull
+		public BinaryConverterFactory build() {
+			return new BinaryConverterFactory(this);
+		}
+	}
+
+	/**
+	 * Converter reading response bodies via a binary adapter.
+	 *
+	 * @param <T> Type of the converted objects.
+	 */
+	private static final class ResponseConverter<T> implements Converter<ResponseBody, T> {
+
+		/**
+		 * Adapter used to read objects.
+		 */
+		private final BinaryAdapter<T> adapter;
+
+		/**
+		 * Creates a new instance of ResponseConverter with the specified <var>adapter</var>.
+		 *
+		 * @param adapter The adapter used to read objects.
+		 */
+		ResponseConverter(final BinaryAdapter<T> adapter) {
+			this.adapter = adapter;
+		}
+
+		/**
+		 */
+		@Override
+		public T convert(@NonNull final ResponseBody body) throws IOException {
+			try {
+				return adapter.read(body.source());
+			} finally {
+				body.close();
+			}
+		}
+	}
+
+	/**
+	 * Converter writing request bodies via a binary adapter.
+	 *
+	 * @param <T> Type of the converted objects.
+	 */
+	private static final class RequestConverter<T> implements Converter<T, RequestBody> {
+
+		/**
+		 * Adapter used to write objects.
+		 */
+		private final BinaryAdapter<T> adapter;
+
+		/**
+		 * Creates a new instance of RequestConverter with the specified <var>adapter</var>.
+		 *
+		 * @param adapter The adapter used to write objects.
+		 */
+		RequestConverter(final BinaryAdapter<T> adapter) {
+			this.adapter = adapter;
+		}
+
+		/**
+		 */
+		@Override
+		public RequestBody convert(@NonNull final T value) throws IOException {
+			final Buffer buffer = new Buffer();
+			adapter.write(buffer, value);
+			return RequestBody.create(MEDIA_TYPE, buffer.readByteString());
+		}
+	}
+}
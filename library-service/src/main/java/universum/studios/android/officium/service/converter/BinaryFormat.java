@@ -0,0 +1,162 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.charset.Charset;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+
+/**
+ * Utility class with helpers for the compact binary encoding used by {@link BinaryAdapter BinaryAdapters}.
+ * <p>
+ * Integral values are encoded as <b>varints</b> (7 bits per byte, least significant group first)
+ * with signed values additionally <b>zig-zag</b> encoded, so small values take a single byte.
+ * Strings are encoded as UTF-8 bytes prefixed with their varint length, where {@code null} string
+ * is encoded as length {@code 0} and empty string as length {@code 1} followed by no bytes.
+ *
+ * @author Martin Albedinsky
+ */
+public final class BinaryFormat {
+
+	/**
+	 * Charset used to encode strings.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 */
+	private BinaryFormat() {
+		// Not allowed to be instantiated publicly.
+	}
+
+	/**
+	 * Writes the given unsigned <var>value</var> as varint.
+	 *
+	 * @param sink  The sink into which to write.
+	 * @param value The value to be written.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeVarint(@NonNull final BufferedSink sink, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			sink.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		sink.writeByte((int) value);
+	}
+
+	/**
+	 * Reads an unsigned varint value.
+	 *
+	 * @param source The source from which to read.
+	 * @return The read value.
+	 * @throws IOException If reading fails or the varint is malformed.
+	 */
+	public static long readVarint(@NonNull final BufferedSource source) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte b = source.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new ProtocolException("Malformed varint!");
+	}
+
+	/**
+	 * Writes the given signed <var>value</var> as zig-zag encoded varint.
+	 *
+	 * @param sink  The sink into which to write.
+	 * @param value The value to be written.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeSignedVarint(@NonNull final BufferedSink sink, final long value) throws IOException {
+		writeVarint(sink, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Reads a signed zig-zag encoded varint value.
+	 *
+	 * @param source The source from which to read.
+	 * @return The read value.
+	 * @throws IOException If reading fails or the varint is malformed.
+	 */
+	public static long readSignedVarint(@NonNull final BufferedSource source) throws IOException {
+		final long value = readVarint(source);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Writes the given <var>value</var> as a single byte.
+	 *
+	 * @param sink  The sink into which to write.
+	 * @param value The value to be written.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeBoolean(@NonNull final BufferedSink sink, final boolean value) throws IOException {
+		sink.writeByte(value ? 1 : 0);
+	}
+
+	/**
+	 * Reads a boolean value written as a single byte.
+	 *
+	 * @param source The source from which to read.
+	 * @return The read value.
+	 * @throws IOException If reading fails.
+	 */
+	public static boolean readBoolean(@NonNull final BufferedSource source) throws IOException {
+		return source.readByte() != 0;
+	}
+
+	/**
+	 * Writes the given <var>value</var> as UTF-8 bytes prefixed with their length.
+	 *
+	 * @param sink  The sink into which to write.
+	 * @param value The value to be written. May be {@code null}.
+	 * @throws IOException If writing fails.
+	 */
+	public static void writeString(@NonNull final BufferedSink sink, @Nullable final String value) throws IOException {
+		if (value == null) {
+			writeVarint(sink, 0);
+			return;
+		}
+		final byte[] bytes = value.getBytes(UTF_8);
+		writeVarint(sink, bytes.length + 1);
+		sink.write(bytes);
+	}
+
+	/**
+	 * Reads a string written via {@link #writeString(BufferedSink, String)}.
+	 *
+	 * @param source The source from which to read.
+	 * @return The read string. May be {@code null}.
+	 * @throws IOException If reading fails.
+	 */
+	@Nullable
+	public static String readString(@NonNull final BufferedSource source) throws IOException {
+		final long length = readVarint(source);
+		return length == 0 ? null : source.readUtf8(length - 1);
+	}
+}
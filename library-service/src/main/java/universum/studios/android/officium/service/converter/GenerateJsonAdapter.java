@@ -0,0 +1,49 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation that marks a class, typically a {@link universum.studios.android.officium.service.ServiceResponse ServiceResponse}
+ * subclass, for which should be a {@link JsonAdapter} generated at compile time by the
+ * <b>officium-service-processor</b> annotation processor.
+ * <p>
+ * For class named {@code Foo} the processor generates adapter named {@code Foo_JsonAdapter} in the
+ * same package, which reads and writes fields of the class directly without any reflection. The
+ * annotated class must be a public top level or public static nested class with non-private
+ * no-argument constructor and all its non-static and non-transient fields must be non-final and
+ * accessible from its package. All generated adapters are registered by the generated {@code GeneratedJsonAdapters}
+ * class:
+ * <pre>
+ * configuration.setConverterFactory(
+ *         GeneratedJsonAdapters.registerInto(new JsonConverterFactory.Builder()).build()
+ * );
+ * </pre>
+ *
+ * @author Martin Albedinsky
+ * @see JsonConverterFactory
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateJsonAdapter {
+}
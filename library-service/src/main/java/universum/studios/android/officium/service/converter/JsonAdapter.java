@@ -0,0 +1,78 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.JsonReader;
+import android.util.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Adapter used by {@link JsonConverterFactory} to read and write objects of a specific type from
+ * and to JSON streams.
+ *
+ * @param <T> Type of the objects that the adapter reads and writes.
+ * @author Martin Albedinsky
+ */
+public interface JsonAdapter<T> {
+
+	/**
+	 * Factory that creates a {@link JsonAdapter} bound to a specific {@link JsonConverterFactory},
+	 * so the created adapter may obtain adapters for nested types from that converter factory.
+	 *
+	 * @author Martin Albedinsky
+	 * @see JsonConverterFactory.Builder#registerAdapterFactory(Type, Factory)
+	 */
+	interface Factory {
+
+		/**
+		 * Creates a new adapter bound to the given <var>converterFactory</var>.
+		 * <p>
+		 * <b>Note</b>, that the converter factory is not fully initialized at the time of this call,
+		 * so adapters for nested types should be obtained from it lazily.
+		 *
+		 * @param converterFactory The converter factory for which to create adapter.
+		 * @return New JSON adapter.
+		 */
+		@NonNull
+		JsonAdapter<?> create(@NonNull JsonConverterFactory converterFactory);
+	}
+
+	/**
+	 * Reads a single JSON value from the given <var>reader</var>.
+	 *
+	 * @param reader The reader positioned at the value to be read.
+	 * @return Object read from the JSON value. May be {@code null} for JSON {@code null}.
+	 * @throws IOException If reading fails or the JSON is malformed.
+	 */
+	@Nullable
+	T read(@NonNull JsonReader reader) throws IOException;
+
+	/**
+	 * Writes the given <var>value</var> as a single JSON value into the given <var>writer</var>.
+	 *
+	 * @param writer The writer into which to write the value.
+	 * @param value  The value to be written. May be {@code null}.
+	 * @throws IOException If writing fails.
+	 */
+	void write(@NonNull JsonWriter writer, @Nullable T value) throws IOException;
+}
@@ -0,0 +1,972 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.converter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import universum.studios.android.officium.service.BaseServiceObject;
+
+/**
+ * A {@link Converter.Factory} implementation that converts request and response bodies from and
+ * to JSON using streaming {@link JsonReader} and {@link JsonWriter}, so bodies are never held in
+ * memory as an intermediate tree.
+ * <p>
+ * Objects are read and written via {@link JsonAdapter JsonAdapters}. Adapters may be registered
+ * for specific types via {@link Builder#registerAdapter(Type, JsonAdapter)}, which is the fastest
+ * option as it does not involve any reflection. Such adapters may be also generated at compile time
+ * for classes annotated with {@link GenerateJsonAdapter @GenerateJsonAdapter}. For other types the factory creates adapters on
+ * its own:
+ * <ul>
+ * <li>strings, primitives and their boxed types,</li>
+ * <li>enums, which are read and written by their constant names,</li>
+ * <li>{@link List Lists} and {@link Collection Collections} of supported types,</li>
+ * <li>classes with no-argument constructor that are not part of the platform, which are read and
+ * written field by field (all non-static and non-transient fields, excluding those of
+ * {@link BaseServiceObject}) and of which all fields are of supported types.</li>
+ * </ul>
+ * Created adapters, including reflective data of classes, are cached for the whole lifetime of the
+ * factory, so the reflection cost is paid only once per type. Types for which no adapter can be
+ * created, including classes with a field of unsupported type, like {@link Map} or {@link java.util.Date},
+ * are left to other converter factories.
+ *
+ * @author Martin Albedinsky
+ */
+public final class JsonConverterFactory extends Converter.Factory {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "JsonConverterFactory";
+
+	/**
+	 * Media type of request bodies created by this factory.
+	 */
+	public static final MediaType MEDIA_TYPE = MediaType.parse("application/json; charset=UTF-8");
+
+	/**
+	 * Charset used to write request bodies.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Adapter for {@link String} values.
+	 */
+	private static final JsonAdapter<String> STRING_ADAPTER = new JsonAdapter<String>() {
+
+		/**
+		 */
+		@Override
+		public String read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return reader.nextString();
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final String value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value);
+		}
+	};
+
+	/**
+	 * Adapter for {@link Integer} values.
+	 */
+	private static final JsonAdapter<Integer> INTEGER_ADAPTER = new JsonAdapter<Integer>() {
+
+		/**
+		 */
+		@Override
+		public Integer read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return reader.nextInt();
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final Integer value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value.longValue());
+		}
+	};
+
+	/**
+	 * Adapter for {@link Long} values.
+	 */
+	private static final JsonAdapter<Long> LONG_ADAPTER = new JsonAdapter<Long>() {
+
+		/**
+		 */
+		@Override
+		public Long read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return reader.nextLong();
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final Long value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value.longValue());
+		}
+	};
+
+	/**
+	 * Adapter for {@link Double} values.
+	 */
+	private static final JsonAdapter<Double> DOUBLE_ADAPTER = new JsonAdapter<Double>() {
+
+		/**
+		 */
+		@Override
+		public Double read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return reader.nextDouble();
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final Double value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value.doubleValue());
+		}
+	};
+
+	/**
+	 * Adapter for {@link Float} values.
+	 */
+	private static final JsonAdapter<Float> FLOAT_ADAPTER = new JsonAdapter<Float>() {
+
+		/**
+		 */
+		@Override
+		public Float read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return (float) reader.nextDouble();
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final Float value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value.doubleValue());
+		}
+	};
+
+	/**
+	 * Adapter for {@link Boolean} values.
+	 */
+	private static final JsonAdapter<Boolean> BOOLEAN_ADAPTER = new JsonAdapter<Boolean>() {
+
+		/**
+		 */
+		@Override
+		public Boolean read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return reader.nextBoolean();
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final Boolean value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value.booleanValue());
+		}
+	};
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Cache of adapters mapped to their types. Contains both the registered and the created adapters.
+	 */
+	private final ConcurrentHashMap<Type, JsonAdapter<?>> mAdapters = new ConcurrentHashMap<>();
+
+	/**
+	 * Types of which adapters are being currently created on the current thread. Fields of such
+	 * types have theirs adapters resolved lazily, so classes may reference themselves.
+	 */
+	private final ThreadLocal<Set<Type>> mCreatingTypes = new ThreadLocal<Set<Type>>() {
+
+		/**
+		 */
+		@Override
+		protected Set<Type> initialValue() {
+			return new HashSet<>(4);
+		}
+	};
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of JsonConverterFactory with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new factory.
+	 */
+	private JsonConverterFactory(final Builder builder) {
+		mAdapters.put(String.class, STRING_ADAPTER);
+		mAdapters.put(Integer.class, INTEGER_ADAPTER);
+		mAdapters.put(int.class, INTEGER_ADAPTER);
+		mAdapters.put(Long.class, LONG_ADAPTER);
+		mAdapters.put(long.class, LONG_ADAPTER);
+		mAdapters.put(Double.class, DOUBLE_ADAPTER);
+		mAdapters.put(double.class, DOUBLE_ADAPTER);
+		mAdapters.put(Float.class, FLOAT_ADAPTER);
+		mAdapters.put(float.class, FLOAT_ADAPTER);
+		mAdapters.put(Boolean.class, BOOLEAN_ADAPTER);
+		mAdapters.put(boolean.class, BOOLEAN_ADAPTER);
+		mAdapters.putAll(builder.adapters);
+		for (final Map.Entry<Type, JsonAdapter.Factory> entry : builder.adapterFactories.entrySet()) {
+			mAdapters.put(entry.getKey(), entry.getValue().create(this));
+		}
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of JsonConverterFactory without any registered adapters.
+	 *
+	 * @return New JSON converter factory.
+	 */
+	@NonNull
+	public static JsonConverterFactory create() {
+		return new Builder().build();
+	}
+
+	/**
+	 */
+	@Override
+	public Converter<ResponseBody, ?> responseBodyConverter(@NonNull final Type type, @NonNull final Annotation[] annotations, @NonNull final Retrofit retrofit) {
+		final JsonAdapter<?> adapter = adapter(type);
+		return adapter == null ? null : new ResponseConverter<>(adapter);
+	}
+
+	/**
+	 */
+	@Override
+	public Converter<?, RequestBody> requestBodyConverter(
+			@NonNull final Type type,
+			@NonNull final Annotation[] parameterAnnotations,
+			@NonNull final Annotation[] methodAnnotations,
+			@NonNull final Retrofit retrofit
+	) {
+		final JsonAdapter<?> adapter = adapter(type);
+		return adapter == null ? null : new RequestConverter<>(adapter);
+	}
+
+	/**
+	 * Returns a type representing {@link List} of elements of the specified <var>elementType</var>
+	 * that may be used to obtain adapter for such list via {@link #adapter(Type)}.
+	 *
+	 * @param elementType Type of the list elements.
+	 * @return Parameterized list type.
+	 */
+	@NonNull
+	public static Type listType(@NonNull final Type elementType) {
+		return new ListType(elementType);
+	}
+
+	/**
+	 * Returns the adapter for the specified <var>type</var>, creating and caching a new one if
+	 * there is no adapter for that type yet.
+	 *
+	 * @param type The type for which to obtain adapter.
+	 * @param <T>  Type of the objects converted by the adapter.
+	 * @return Adapter for the type or {@code null} if objects of that type cannot be converted by
+	 * this factory.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <T> JsonAdapter<T> adapter(@NonNull final Type type) {
+		JsonAdapter<?> adapter = mAdapters.get(type);
+		if (adapter == null) {
+			adapter = createAdapter(type);
+			if (adapter == null) {
+				return null;
+			}
+			final JsonAdapter<?> current = mAdapters.putIfAbsent(type, adapter);
+			if (current != null) {
+				adapter = current;
+			}
+		}
+		return (JsonAdapter<T>) adapter;
+	}
+
+	/**
+	 * Creates a new adapter for the specified <var>type</var>.
+	 *
+	 * @param type The type for which to create adapter.
+	 * @return New adapter or {@code null} if the type is not supported.
+	 */
+	private JsonAdapter<?> createAdapter(final Type type) {
+		if (type instanceof ParameterizedType) {
+			final ParameterizedType parameterizedType = (ParameterizedType) type;
+			final Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+			if (rawType == List.class || rawType == Collection.class || rawType == ArrayList.class) {
+				Type elementType = parameterizedType.getActualTypeArguments()[0];
+				if (elementType instanceof WildcardType) {
+					elementType = ((WildcardType) elementType).getUpperBounds()[0];
+				}
+				return isCreating(elementType) || adapter(elementType) != null ? new ListAdapter<>(this, elementType) : null;
+			}
+			return null;
+		}
+		if (type instanceof Class) {
+			final Class<?> classOfType = (Class<?>) type;
+			if (classOfType.isEnum()) {
+				return createEnumAdapter(classOfType);
+			}
+			if (classOfType.isInterface() || classOfType.isArray() || classOfType.isPrimitive() || Modifier.isAbstract(classOfType.getModifiers()) || isPlatformClass(classOfType)) {
+				return null;
+			}
+			final Set<Type> creatingTypes = mCreatingTypes.get();
+			creatingTypes.add(type);
+			try {
+				return ObjectAdapter.create(this, classOfType);
+			} finally {
+				creatingTypes.remove(type);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a new adapter for the specified enum class.
+	 *
+	 * @param enumClass The enum class for which to create adapter.
+	 * @param <E>       Type of the enum.
+	 * @return New enum adapter.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E extends Enum<E>> JsonAdapter<E> createEnumAdapter(final Class<?> enumClass) {
+		return new EnumAdapter<>((Class<E>) enumClass);
+	}
+
+	/**
+	 * Checks whether adapter for the specified <var>type</var> is being currently created on the
+	 * current thread.
+	 *
+	 * @param type The type to check.
+	 * @return {@code True} if adapter for the type is being created, {@code false} otherwise.
+	 */
+	private boolean isCreating(final Type type) {
+		return mCreatingTypes.get().contains(type);
+	}
+
+	/**
+	 * Checks whether the specified <var>classOfType</var> is a class of the platform, like
+	 * {@link java.util.Date} or {@link HashMap}, which is not read and written field by field as
+	 * its fields are implementation details.
+	 *
+	 * @param classOfType The class to check.
+	 * @return {@code True} if the class is part of the platform, {@code false} otherwise.
+	 */
+	private static boolean isPlatformClass(final Class<?> classOfType) {
+		final String name = classOfType.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.");
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link JsonConverterFactory}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * See {@link JsonConverterFactory#mAdapters}.
+		 */
+		private final Map<Type, JsonAdapter<?>> adapters = new HashMap<>();
+
+		/**
+		 * Factories creating adapters to be registered for the built converter factory.
+		 */
+		private final Map<Type, JsonAdapter.Factory> adapterFactories = new HashMap<>();
+
+		/**
+		 * Registers an adapter to be used to convert objects of the specified <var>type</var>
+		 * instead of the adapter that would be otherwise created by the factory.
+		 * <p>
+		 * Default value: <b>none</b>
+		 *
+		 * @param type    The type of objects converted by the adapter.
+		 * @param adapter The desired adapter.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder registerAdapter(@NonNull final Type type, @NonNull final JsonAdapter<?> adapter) {
+			this.adapters.put(type, adapter);
+			return this;
+		}
+
+		/**
+		 * Registers a factory that creates adapter to be used to convert objects of the specified
+		 * <var>type</var>. The adapter is created when the converter factory is being built, so
+		 * it may obtain adapters for nested types from that converter factory.
+		 * <p>
+		 * Default value: <b>none</b>
+		 *
+		 * @param type    The type of objects converted by the created adapter.
+		 * @param factory The factory creating the desired adapter.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder registerAdapterFactory(@NonNull final Type type, @NonNull final JsonAdapter.Factory factory) {
+			this.adapterFactories.put(type, factory);
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of JsonConverterFactory.
+		 *
+		 * @return New instance of JsonConverterFactory with adapters registered for this builder.
+		 */
+		@NonNull
+		public JsonConverterFactory build() {
+			return new JsonConverterFactory(this);
+		}
+	}
+
+	/**
+	 * A {@link ParameterizedType} implementation representing {@link List} of a specific element type.
+	 */
+	private static final class ListType implements ParameterizedType {
+
+		/**
+		 * Type arguments of the list type containing only the element type.
+		 */
+		private final Type[] typeArguments;
+
+		/**
+		 * Creates a new instance of ListType with the specified <var>elementType</var>.
+		 *
+		 * @param elementType Type of the list elements.
+		 */
+		ListType(final Type elementType) {
+			this.typeArguments = new Type[]{elementType};
+		}
+
+		/**
+		 */
+		@Override
+		public Type[] getActualTypeArguments() {
+			return typeArguments.clone();
+		}
+
+		/**
+		 */
+		@Override
+		public Type getRawType() {
+			return List.class;
+		}
+
+		/**
+		 */
+		@Override
+		public Type getOwnerType() {
+			return null;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean equals(final Object other) {
+			if (!(other instanceof ParameterizedType)) return false;
+			final ParameterizedType type = (ParameterizedType) other;
+			return type.getOwnerType() == null && List.class.equals(type.getRawType()) && Arrays.equals(typeArguments, type.getActualTypeArguments());
+		}
+
+		/**
+		 */
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(typeArguments) ^ List.class.hashCode();
+		}
+
+		/**
+		 */
+		@Override
+		public String toString() {
+			return List.class.getName() + "<" + typeArguments[0] + ">";
+		}
+	}
+
+	/**
+	 * Adapter reading and writing JSON arrays as lists.
+	 *
+	 * @param <E> Type of the list elements.
+	 */
+	private static final class ListAdapter<E> implements JsonAdapter<List<E>> {
+
+		/**
+		 * Factory used to obtain adapter for elements.
+		 */
+		private final JsonConverterFactory factory;
+
+		/**
+		 * Type of the list elements.
+		 */
+		private final Type elementType;
+
+		/**
+		 * Creates a new instance of ListAdapter for the specified <var>elementType</var>.
+		 *
+		 * @param factory     The factory used to obtain adapter for elements.
+		 * @param elementType Type of the list elements.
+		 */
+		ListAdapter(final JsonConverterFactory factory, final Type elementType) {
+			this.factory = factory;
+			this.elementType = elementType;
+		}
+
+		/**
+		 */
+		@Override
+		public List<E> read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			final JsonAdapter<E> elementAdapter = factory.adapter(elementType);
+			final List<E> list = new ArrayList<>();
+			reader.beginArray();
+			while (reader.hasNext()) {
+				list.add(elementAdapter.read(reader));
+			}
+			reader.endArray();
+			return list;
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final List<E> value) throws IOException {
+			if (value == null) {
+				writer.nullValue();
+				return;
+			}
+			final JsonAdapter<E> elementAdapter = factory.adapter(elementType);
+			writer.beginArray();
+			for (final E element : value) {
+				elementAdapter.write(writer, element);
+			}
+			writer.endArray();
+		}
+	}
+
+	/**
+	 * Adapter reading and writing enum constants as JSON strings with names of the constants.
+	 *
+	 * @param <E> Type of the enum.
+	 */
+	private static final class EnumAdapter<E extends Enum<E>> implements JsonAdapter<E> {
+
+		/**
+		 * Class of the enum.
+		 */
+		private final Class<E> enumClass;
+
+		/**
+		 * Creates a new instance of EnumAdapter for the specified <var>enumClass</var>.
+		 *
+		 * @param enumClass Class of the enum.
+		 */
+		EnumAdapter(final Class<E> enumClass) {
+			this.enumClass = enumClass;
+		}
+
+		/**
+		 * @throws IllegalStateException If there is no constant with the read name.
+		 */
+		@Override
+		public E read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			final String name = reader.nextString();
+			try {
+				return Enum.valueOf(enumClass, name);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalStateException("No constant(" + name + ") in " + enumClass + "!", e);
+			}
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final E value) throws IOException {
+			if (value == null) writer.nullValue();
+			else writer.value(value.name());
+		}
+	}
+
+	/**
+	 * Adapter reading and writing JSON objects as instances of a specific class field by field.
+	 * Reflective data of the class and adapters for its fields are resolved once when the adapter
+	 * is created. Only adapters for fields of types being created at the same time are resolved
+	 * lazily, so classes may reference themselves.
+	 *
+	 * @param <T> Type of the objects.
+	 */
+	private static final class ObjectAdapter<T> implements JsonAdapter<T> {
+
+		/**
+		 * Constructor used to instantiate the objects.
+		 */
+		private final Constructor<T> constructor;
+
+		/**
+		 * Bindings of the fields mapped to their JSON names.
+		 */
+		private final Map<String, FieldBinding> bindings;
+
+		/**
+		 * Creates a new instance of ObjectAdapter with the specified <var>constructor</var> and
+		 * <var>bindings</var>.
+		 *
+		 * @param constructor Constructor used to instantiate the objects.
+		 * @param bindings    Bindings of the fields mapped to their JSON names.
+		 */
+		private ObjectAdapter(final Constructor<T> constructor, final Map<String, FieldBinding> bindings) {
+			this.constructor = constructor;
+			this.bindings = bindings;
+		}
+
+		/**
+		 * Creates a new ObjectAdapter for the specified <var>classOfT</var>.
+		 *
+		 * @param factory  The factory used to obtain adapters for fields.
+		 * @param classOfT Class of the objects.
+		 * @param <T>      Type of the objects.
+		 * @return New adapter or {@code null} if the class does not have no-argument constructor
+		 * or it has a field of type not supported by the factory.
+		 */
+		@Nullable
+		static <T> ObjectAdapter<T> create(final JsonConverterFactory factory, final Class<T> classOfT) {
+			final Constructor<T> constructor;
+			try {
+				constructor = classOfT.getDeclaredConstructor();
+			} catch (NoSuchMethodException e) {
+				return null;
+			}
+			final Map<String, FieldBinding> bindings = new HashMap<>();
+			Class<?> classOfFields = classOfT;
+			while (classOfFields != null && classOfFields != Object.class && classOfFields != BaseServiceObject.class) {
+				for (final Field field : classOfFields.getDeclaredFields()) {
+					final int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || bindings.containsKey(field.getName())) {
+						continue;
+					}
+					final Type fieldType = field.getGenericType();
+					JsonAdapter<Object> fieldAdapter = null;
+					if (!factory.isCreating(fieldType)) {
+						fieldAdapter = factory.adapter(fieldType);
+						if (fieldAdapter == null) {
+							return null;
+						}
+					}
+					bindings.put(field.getName(), new FieldBinding(factory, field, fieldAdapter));
+				}
+				classOfFields = classOfFields.getSuperclass();
+			}
+			constructor.setAccessible(true);
+			for (final FieldBinding binding : bindings.values()) {
+				binding.field.setAccessible(true);
+			}
+			return new ObjectAdapter<>(constructor, bindings);
+		}
+
+		/**
+		 */
+		@Override
+		public T read(@NonNull final JsonReader reader) throws IOException {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			final T object;
+			try {
+				object = constructor.newInstance();
+			} catch (Exception e) {
+				throw new IllegalStateException("Failed to instantiate " + constructor.getDeclaringClass() + "!", e);
+			}
+			reader.beginObject();
+			while (reader.hasNext()) {
+				final FieldBinding binding = bindings.get(reader.nextName());
+				if (binding == null) {
+					reader.skipValue();
+				} else {
+					binding.read(reader, object);
+				}
+			}
+			reader.endObject();
+			return object;
+		}
+
+		/**
+		 */
+		@Override
+		public void write(@NonNull final JsonWriter writer, final T value) throws IOException {
+			if (value == null) {
+				writer.nullValue();
+				return;
+			}
+			writer.beginObject();
+			for (final Map.Entry<String, FieldBinding> entry : bindings.entrySet()) {
+				entry.getValue().write(writer, entry.getKey(), value);
+			}
+			writer.endObject();
+		}
+	}
+
+	/**
+	 * Binding of a single field of a class to its adapter.
+	 */
+	private static final class FieldBinding {
+
+		/**
+		 * Factory used to obtain adapter for the field.
+		 */
+		private final JsonConverterFactory factory;
+
+		/**
+		 * The bound field.
+		 */
+		final Field field;
+
+		/**
+		 * Adapter for type of the field. Resolved on the first use if it has not been resolved
+		 * when the binding has been created.
+		 */
+		private volatile JsonAdapter<Object> adapter;
+
+		/**
+		 * Creates a new instance of FieldBinding for the specified <var>field</var>.
+		 *
+		 * @param factory The factory used to obtain adapter for the field.
+		 * @param field   The field to be bound.
+		 * @param adapter Adapter for type of the field. May be {@code null} to be resolved lazily.
+		 */
+		FieldBinding(final JsonConverterFactory factory, final Field field, final JsonAdapter<Object> adapter) {
+			this.factory = factory;
+			this.field = field;
+			this.adapter = adapter;
+		}
+
+		/**
+		 * Returns the adapter for type of the bound field.
+		 *
+		 * @return Field's adapter.
+		 * @throws IllegalStateException If there is no adapter for the field's type.
+		 */
+		private JsonAdapter<Object> adapter() {
+			JsonAdapter<Object> adapter = this.adapter;
+			if (adapter == null) {
+				adapter = factory.adapter(field.getGenericType());
+				if (adapter == null) {
+					throw new IllegalStateException("No JSON adapter for field(" + field + ")!");
+				}
+				this.adapter = adapter;
+			}
+			return adapter;
+		}
+
+		/**
+		 * Reads value of the bound field of the given <var>object</var>.
+		 *
+		 * @param reader The reader positioned at the field's value.
+		 * @param object The object of which field to set.
+		 * @throws IOException If reading fails.
+		 */
+		void read(final JsonReader reader, final Object object) throws IOException {
+			final Object value = adapter().read(reader);
+			if (value == null && field.getType().isPrimitive()) {
+				return;
+			}
+			try {
+				field.set(object, value);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/**
+		 * Writes value of the bound field of the given <var>object</var> under the specified
+		 * <var>name</var>. Fields with {@code null} value are omitted.
+		 *
+		 * @param writer The writer into which to write.
+		 * @param name   JSON name of the field.
+		 * @param object The object of which field to write.
+		 * @throws IOException If writing fails.
+		 */
+		void write(final JsonWriter writer, final String name, final Object object) throws IOException {
+			final Object value;
+			try {
+				value = field.get(object);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+			if (value != null) {
+				writer.name(name);
+				adapter().write(writer, value);
+			}
+		}
+	}
+
+	/**
+	 * Converter reading response bodies via a JSON adapter.
+	 *
+	 * @param <T> Type of the converted objects.
+	 */
+	private static final class ResponseConverter<T> implements Converter<ResponseBody, T> {
+
+		/**
+		 * Adapter used to read objects.
+		 */
+		private final JsonAdapter<T> adapter;
+
+		/**
+		 * Creates a new instance of ResponseConverter with the specified <var>adapter</var>.
+		 *
+		 * @param adapter The adapter used to read objects.
+		 */
+		ResponseConverter(final JsonAdapter<T> adapter) {
+			this.adapter = adapter;
+		}
+
+		/**
+		 */
+		@Override
+		public T convert(@NonNull final ResponseBody body) throws IOException {
+			final JsonReader reader = new JsonReader(body.charStream());
+			try {
+				return adapter.read(reader);
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Converter writing request bodies via a JSON adapter.
+	 *
+	 * @param <T> Type of the converted objects.
+	 */
+	private static final class RequestConverter<T> implements Converter<T, RequestBody> {
+
+		/**
+		 * Adapter used to write objects.
+		 */
+		private final JsonAdapter<T> adapter;
+
+		/**
+		 * Creates a new instance of RequestConverter with the specified <var>adapter</var>.
+		 *
+		 * @param adapter The adapter used to write objects.
+		 */
+		RequestConverter(final JsonAdapter<T> adapter) {
+			this.adapter = adapter;
+		}
+
+		/**
+		 */
+		@Override
+		public RequestBody convert(@NonNull final T value) throws IOException {
+			final Buffer buffer = new Buffer();
+			final JsonWriter writer = new JsonWriter(new OutputStreamWriter(buffer.outputStream(), UTF_8));
+			adapter.write(writer, value);
+			writer.close();
+			return RequestBody.create(MEDIA_TYPE, buffer.readByteString());
+		}
+	}
+}
@@ -16,25 +16,247 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.sync; 
+package universum.studios.android.officium.sync;
+
+import android.accounts.Account;
+import android.content.Context;
+import android.content.SyncResult;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author Martin Albedinsky
  */
 @RunWith(AndroidJUnit4.class)
 public final class BaseSyncAdapterTest extends BaseInstrumentedTest {
-    
+
 	@SuppressWarnings("unused")
 	private static final String TAG = "BaseSyncAdapterTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	private static final String AUTHORITY = "universum.studios.android.officium.sync.test";
+	private static final Account ACCOUNT = new Account("user", AUTHORITY);
+	private static final int HANDLERS_COUNT = 8;
+	private static final long HANDLER_DURATION = 100;
+
+	@Test
+	public void testCompositeGlobalSyncHandlesIndependentTasksInParallel() {
+		final long serialDuration = performEightHandlerSync(1);
+		final long parallelDuration = performEightHandlerSync(HANDLERS_COUNT);
+		Log.i(TAG, "Eight handlers workload took " + serialDuration + " ms serially and " + parallelDuration + " ms in parallel.");
+		assertTrue(serialDuration >= HANDLERS_COUNT * HANDLER_DURATION);
+		assertTrue(parallelDuration < HANDLERS_COUNT * HANDLER_DURATION / 2);
+	}
+
+	private long performEightHandlerSync(final int parallelism) {
+		final TestAdapter adapter = new TestAdapter(mContext);
+		final CompositeSync.Builder builder = new CompositeSync.Builder().parallelism(parallelism);
+		for (int i = 1; i <= HANDLERS_COUNT; i++) {
+			adapter.registerTaskHandler(new TestHandler(i, HANDLER_DURATION, adapter.handledTasks));
+			builder.task(i);
+		}
+		adapter.setCompositeGlobalSync(builder.build());
+		final long startTime = SystemClock.uptimeMillis();
+		adapter.onPerformSync(ACCOUNT, new Bundle(), AUTHORITY, null, new SyncResult());
+		final long duration = SystemClock.uptimeMillis() - startTime;
+		assertThat(adapter.handledTasks.size(), is(HANDLERS_COUNT));
+		return duration;
+	}
+
+	@Test
+	public void testCompositeGlobalSyncHonorsDependencies() {
+		final TestAdapter adapter = new TestAdapter(mContext);
+		for (int i = 1; i <= 4; i++) {
+			adapter.registerTaskHandler(new TestHandler(i, 10, adapter.handledTasks));
+		}
+		adapter.setCompositeGlobalSync(new CompositeSync.Builder()
+				.task(4, 2, 3)
+				.task(3, 1)
+				.task(2, 1)
+				.task(1)
+				.build()
+		);
+		adapter.onPerformSync(ACCOUNT, new Bundle(), AUTHORITY, null, new SyncResult());
+		assertThat(adapter.handledTasks.size(), is(4));
+		assertThat(adapter.handledTasks.get(0), is(1));
+		assertThat(adapter.handledTasks.get(3), is(4));
+		assertThat(adapter.globalEvents, is(Collections.singletonList(SyncEvent.FINISH)));
+	}
+
+	@Test
+	public void testCompositeGlobalSyncAggregatesResults() {
+		final TestAdapter adapter = new TestAdapter(mContext);
+		for (int i = 1; i <= 3; i++) {
+			adapter.registerTaskHandler(new TestHandler(i, 0, adapter.handledTasks));
+		}
+		adapter.setCompositeGlobalSync(new CompositeSync.Builder().task(1).task(2).task(3).build());
+		final SyncResult syncResult = new SyncResult();
+		adapter.onPerformSync(ACCOUNT, new Bundle(), AUTHORITY, null, syncResult);
+		assertThat(syncResult.stats.numInserts, is(3L));
+		assertThat(syncResult.hasError(), is(false));
+	}
+
+	@Test
+	public void testCompositeGlobalSyncSkipsTasksDependingOnFailedTask() {
+		final TestAdapter adapter = new TestAdapter(mContext);
+		adapter.registerTaskHandler(new FailingHandler(1));
+		adapter.registerTaskHandler(new TestHandler(2, 0, adapter.handledTasks));
+		adapter.registerTaskHandler(new TestHandler(3, 0, adapter.handledTasks));
+		adapter.setCompositeGlobalSync(new CompositeSync.Builder().task(1).task(2, 1).task(3).build());
+		final SyncResult syncResult = new SyncResult();
+		adapter.onPerformSync(ACCOUNT, new Bundle(), AUTHORITY, null, syncResult);
+		assertThat(adapter.handledTasks, is(Collections.singletonList(3)));
+		assertThat(syncResult.stats.numParseExceptions, is(1L));
+		assertThat(adapter.globalEvents, is(Collections.singletonList(SyncEvent.ERROR)));
+	}
+
+	@Test
+	public void testCompositeGlobalSyncTaskTimeout() {
+		final TestAdapter adapter = new TestAdapter(mContext);
+		adapter.registerTaskHandler(new TestHandler(1, 5000, adapter.handledTasks));
+		adapter.registerTaskHandler(new TestHandler(2, 0, adapter.handledTasks));
+		adapter.setCompositeGlobalSync(new CompositeSync.Builder()
+				.task(1)
+				.task(2)
+				.taskTimeout(100, TimeUnit.MILLISECONDS)
+				.build()
+		);
+		final SyncResult syncResult = new SyncResult();
+		final long startTime = SystemClock.uptimeMillis();
+		adapter.onPerformSync(ACCOUNT, new Bundle(), AUTHORITY, null, syncResult);
+		assertTrue(SystemClock.uptimeMillis() - startTime < 5000);
+		assertThat(syncResult.stats.numIoExceptions, is(1L));
+		assertThat(adapter.globalEvents, is(Collections.singletonList(SyncEvent.ERROR)));
+	}
+
+	@Test
+	public void testCompositeGlobalSyncDropsResultOfTimedOutTask() {
+		final TestAdapter adapter = new TestAdapter(mContext);
+		adapter.registerTaskHandler(new UninterruptibleHandler(1, 300));
+		adapter.registerTaskHandler(new TestHandler(2, 0, adapter.handledTasks));
+		adapter.setCompositeGlobalSync(new CompositeSync.Builder()
+				.task(1)
+				.task(2)
+				.taskTimeout(100, TimeUnit.MILLISECONDS)
+				.build()
+		);
+		final SyncResult syncResult = new SyncResult();
+		adapter.onPerformSync(ACCOUNT, new Bundle(), AUTHORITY, null, syncResult);
+		assertThat(adapter.taskStates.get(1), is(Arrays.asList(SyncTask.RUNNING, SyncTask.FAILED)));
+		SystemClock.sleep(500);
+		assertThat(syncResult.stats.numInserts, is(1L));
+		assertThat(syncResult.stats.numIoExceptions, is(1L));
+		assertThat(adapter.taskStates.get(1), is(Arrays.asList(SyncTask.RUNNING, SyncTask.FAILED)));
+	}
+
+	private static final class TestAdapter extends BaseSyncAdapter {
+
+		final List<Integer> handledTasks = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<Integer> globalEvents = new ArrayList<>();
+		final ConcurrentMap<Integer, List<Integer>> taskStates = new ConcurrentHashMap<>();
+
+		TestAdapter(final Context context) {
+			super(context, false);
+			setOnTaskStateChangeListener(new OnSyncTaskStateChangeListener() {
+
+				@Override
+				public void onSyncTaskStateChanged(@NonNull final SyncTask syncTask, @NonNull final Account account) {
+					taskStates.putIfAbsent(syncTask.getId(), Collections.synchronizedList(new ArrayList<Integer>()));
+					taskStates.get(syncTask.getId()).add(syncTask.getState());
+				}
+			});
+		}
+
+		@Override
+		protected void onGlobalSyncFinished(@NonNull final SyncOperation syncOperation) {
+			super.onGlobalSyncFinished(syncOperation);
+			globalEvents.add(SyncEvent.FINISH);
+		}
+
+		@Override
+		protected void onGlobalSyncFailed(@NonNull final SyncOperation syncOperation, @NonNull final Exception error) {
+			super.onGlobalSyncFailed(syncOperation, error);
+			globalEvents.add(SyncEvent.ERROR);
+		}
+	}
+
+	private static final class TestHandler extends SyncHandler<SyncTask.EmptyRequest, Void> {
+
+		private final long duration;
+		private final List<Integer> handledTasks;
+
+		TestHandler(final int taskId, final long duration, final List<Integer> handledTasks) {
+			super(taskId);
+			this.duration = duration;
+			this.handledTasks = handledTasks;
+		}
+
+		@Nullable
+		@Override
+		protected Void onHandleSync(@NonNull final Context context, @NonNull final SyncOperation syncOperation, @Nullable final SyncTask.EmptyRequest syncRequest) throws Exception {
+			if (duration > 0) {
+				Thread.sleep(duration);
+			}
+			syncOperation.result.stats.numInserts++;
+			handledTasks.add(getTaskId());
+			return null;
+		}
+	}
+
+	private static final class UninterruptibleHandler extends SyncHandler<SyncTask.EmptyRequest, Void> {
+
+		private final long duration;
+
+		UninterruptibleHandler(final int taskId, final long duration) {
+			super(taskId);
+			this.duration = duration;
+		}
+
+		@Nullable
+		@Override
+		protected Void onHandleSync(@NonNull final Context context, @NonNull final SyncOperation syncOperation, @Nullable final SyncTask.EmptyRequest syncRequest) throws Exception {
+			// Sleeps without responding to interruption like a handler blocked in I/O.
+			SystemClock.sleep(duration);
+			syncOperation.result.stats.numInserts++;
+			return null;
+		}
+	}
+
+	private static final class FailingHandler extends SyncHandler<SyncTask.EmptyRequest, Void> {
+
+		FailingHandler(final int taskId) {
+			super(taskId);
+		}
+
+		@Nullable
+		@Override
+		protected Void onHandleSync(@NonNull final Context context, @NonNull final SyncOperation syncOperation, @Nullable final SyncTask.EmptyRequest syncRequest) throws Exception {
+			throw new IllegalStateException("Synchronization failed.");
+		}
+
+		@Override
+		protected void onSyncError(@NonNull final Context context, @NonNull final SyncOperation syncOperation, @Nullable final SyncTask.EmptyRequest syncRequest, @NonNull final Exception error) {
+			throw new RuntimeException(error);
+		}
 	}
 }
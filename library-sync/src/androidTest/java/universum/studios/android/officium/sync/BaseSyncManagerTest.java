@@ -16,25 +16,145 @@
  * See the License for the specific language governing permissions and limitations under the License.
  * =================================================================================================
  */
-package universum.studios.android.officium.sync; 
+package universum.studios.android.officium.sync;
+
+import android.accounts.Account;
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.test.runner.AndroidJUnit4;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import universum.studios.android.test.BaseInstrumentedTest;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author Martin Albedinsky
  */
 @RunWith(AndroidJUnit4.class)
 public final class BaseSyncManagerTest extends BaseInstrumentedTest {
-    
+
 	@SuppressWarnings("unused")
 	private static final String TAG = "BaseSyncManagerTest";
 
-    @Test
-	public void test() {
-		// todo:: implement test
+	private static final String AUTHORITY = "universum.studios.android.officium.sync.test";
+
+	@Test
+	public void testRequestSyncDropsDuplicatesOfPendingTask() {
+		final TestManager manager = new TestManager(mContext);
+		manager.setRequestCoalescingWindow(BaseSyncManager.DEFAULT_REQUEST_COALESCING_WINDOW, TimeUnit.MILLISECONDS);
+		for (int i = 0; i < 100; i++) {
+			manager.requestSync(new SyncTask.Builder(1).build());
+		}
+		manager.requestSync(new SyncTask.Builder(2).build());
+		assertThat(manager.requests.get(), is(2));
+		assertThat(manager.getDroppedRequestCount(), is(99L));
+		assertThat(manager.getMergedRequestCount(), is(0L));
+	}
+
+	@Test
+	public void testRequestSyncAfterTaskFinished() {
+		final TestManager manager = new TestManager(mContext);
+		manager.setRequestCoalescingWindow(BaseSyncManager.DEFAULT_REQUEST_COALESCING_WINDOW, TimeUnit.MILLISECONDS);
+		final SyncTask task = new SyncTask.Builder(1).build();
+		manager.requestSync(task);
+		changeState(manager, task, SyncTask.RUNNING);
+		changeState(manager, task, SyncTask.FINISHED);
+		manager.requestSync(new SyncTask.Builder(1).build());
+		assertThat(manager.requests.get(), is(2));
+		assertThat(manager.getDroppedRequestCount(), is(0L));
+	}
+
+	@Test
+	public void testRequestSyncMergesDuplicatesOfRunningTask() {
+		final TestManager manager = new TestManager(mContext);
+		manager.setRequestCoalescingWindow(BaseSyncManager.DEFAULT_REQUEST_COALESCING_WINDOW, TimeUnit.MILLISECONDS);
+		final SyncTask task = new SyncTask.Builder(1).build();
+		manager.requestSync(task);
+		changeState(manager, task, SyncTask.RUNNING);
+		for (int i = 0; i < 10; i++) {
+			manager.requestSync(new SyncTask.Builder(1).build());
+		}
+		assertThat(manager.requests.get(), is(1));
+		changeState(manager, task, SyncTask.FINISHED);
+		assertThat(manager.requests.get(), is(2));
+		assertThat(manager.getMergedRequestCount(), is(10L));
+	}
+
+	@Test
+	public void testRequestSyncAfterCoalescingWindowElapsed() throws Exception {
+		final TestManager manager = new TestManager(mContext);
+		manager.setRequestCoalescingWindow(50, TimeUnit.MILLISECONDS);
+		manager.requestSync(new SyncTask.Builder(1).build());
+		manager.requestSync(new SyncTask.Builder(1).build());
+		Thread.sleep(100);
+		manager.requestSync(new SyncTask.Builder(1).build());
+		assertThat(manager.requests.get(), is(2));
+		assertThat(manager.getDroppedRequestCount(), is(1L));
+	}
+
+	@Test
+	public void testRequestSyncWithoutCoalescing() {
+		final TestManager manager = new TestManager(mContext);
+		for (int i = 0; i < 10; i++) {
+			manager.requestSync(new SyncTask.Builder(1).build());
+		}
+		assertThat(manager.requests.get(), is(10));
+		assertThat(manager.getDroppedRequestCount(), is(0L));
+	}
+
+	@Test
+	public void testRequestSyncWithDebounce() throws Exception {
+		final TestManager manager = new TestManager(mContext);
+		manager.setRequestDebounceDelay(100, TimeUnit.MILLISECONDS);
+		manager.latch = new CountDownLatch(2);
+		for (int i = 0; i < 20; i++) {
+			manager.requestSync(new SyncTask.Builder(1).build());
+			manager.requestSync(new SyncTask.Builder(2).build());
+		}
+		assertThat(manager.requests.get(), is(0));
+		assertTrue(manager.latch.await(5, TimeUnit.SECONDS));
+		Thread.sleep(200);
+		assertThat(manager.requests.get(), is(2));
+		assertThat(manager.getDroppedRequestCount(), is(38L));
+	}
+
+	private static void changeState(BaseSyncManager manager, SyncTask task, int state) {
+		task.setState(state);
+		manager.onSyncTaskStateChanged(task, TestManager.ACCOUNT);
+	}
+
+	private static final class TestManager extends BaseSyncManager {
+
+		static final Account ACCOUNT = new Account("test", "universum.studios.android.officium.test");
+
+		final AtomicInteger requests = new AtomicInteger(0);
+		volatile CountDownLatch latch;
+
+		TestManager(Context context) {
+			super(context, AUTHORITY);
+		}
+
+		@Nullable
+		@Override
+		protected Account pickAccountForSync() {
+			return ACCOUNT;
+		}
+
+		@Override
+		protected void onRequestSync(@NonNull Account account, @NonNull Bundle extras) {
+			requests.incrementAndGet();
+			if (latch != null) latch.countDown();
+		}
 	}
 }
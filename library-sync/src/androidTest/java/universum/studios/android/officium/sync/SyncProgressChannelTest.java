@@ -0,0 +1,146 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.sync;
+
+import android.accounts.Account;
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.test.BaseInstrumentedTest;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class SyncProgressChannelTest extends BaseInstrumentedTest {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "SyncProgressChannelTest";
+
+	private static final int UPDATES_COUNT = 10000;
+	private static final Account ACCOUNT = new Account("user", "universum.studios.android.officium.sync.test");
+
+	@Test
+	public void testEveryChangedProgressIsDispatchedWithoutInterval() {
+		final TestDispatcher dispatcher = new TestDispatcher();
+		final SyncProgressChannel channel = new SyncProgressChannel(dispatcher, 1, ACCOUNT, 0);
+		for (int i = 0; i < UPDATES_COUNT; i++) {
+			channel.publish(i);
+		}
+		channel.flush();
+		assertThat(dispatcher.events.size(), is(UPDATES_COUNT));
+		assertThat(channel.getDispatchedCount(), is(UPDATES_COUNT));
+	}
+
+	@Test
+	public void testUnchangedProgressIsNotDispatched() {
+		final TestDispatcher dispatcher = new TestDispatcher();
+		final SyncProgressChannel channel = new SyncProgressChannel(dispatcher, 1, ACCOUNT, 0);
+		for (int i = 0; i < UPDATES_COUNT; i++) {
+			channel.publish(i * 100 / UPDATES_COUNT);
+		}
+		channel.flush();
+		assertThat(dispatcher.events.size(), is(100));
+		assertThat(dispatcher.lastProgress(), is(99));
+	}
+
+	@Test
+	public void testProgressIsCoalescedWithinInterval() {
+		final TestDispatcher dispatcher = new TestDispatcher();
+		final SyncProgressChannel channel = new SyncProgressChannel(dispatcher, 1, ACCOUNT, TimeUnit.HOURS.toMillis(1));
+		for (int i = 0; i < UPDATES_COUNT; i++) {
+			channel.publish(i);
+		}
+		assertThat(dispatcher.events.size(), is(1));
+		assertThat(dispatcher.lastProgress(), is(0));
+		channel.flush();
+		assertThat(dispatcher.events.size(), is(2));
+		assertThat(dispatcher.lastProgress(), is(UPDATES_COUNT - 1));
+		channel.flush();
+		assertThat(dispatcher.events.size(), is(2));
+	}
+
+	@Test
+	public void testHeldProgressIsDispatchedWhenIntervalElapses() throws Exception {
+		final TestDispatcher dispatcher = new TestDispatcher();
+		final SyncProgressChannel channel = new SyncProgressChannel(dispatcher, 1, ACCOUNT, 50);
+		channel.publish(98);
+		channel.publish(99);
+		assertThat(dispatcher.events.size(), is(1));
+		Thread.sleep(300);
+		assertThat(dispatcher.events.size(), is(2));
+		assertThat(dispatcher.lastProgress(), is(99));
+		channel.flush();
+		assertThat(dispatcher.events.size(), is(2));
+	}
+
+	@Test
+	public void testProgressEvents() {
+		final TestDispatcher dispatcher = new TestDispatcher();
+		final SyncProgressChannel channel = new SyncProgressChannel(dispatcher, 12, ACCOUNT, 0);
+		channel.publish(50);
+		final SyncEvent event = (SyncEvent) dispatcher.events.get(0);
+		assertThat(event.id, is(12));
+		assertThat(event.type, is(SyncEvent.PROGRESS));
+		assertThat(event.progress, is(50));
+		assertThat(event.account, is(ACCOUNT));
+	}
+
+	@Test
+	public void testPublishProgressViaSyncOperation() {
+		final TestDispatcher dispatcher = new TestDispatcher();
+		final SyncOperation operation = new SyncOperation.Builder()
+				.account(ACCOUNT)
+				.authority("universum.studios.android.officium.sync.test")
+				.task(new SyncTask.Builder(3).build())
+				.progressDispatcher(dispatcher, TimeUnit.HOURS.toMillis(1))
+				.build();
+		for (int i = 0; i < UPDATES_COUNT; i++) {
+			operation.publishProgress(i);
+		}
+		operation.flushProgress();
+		assertThat(dispatcher.events.size(), is(2));
+		assertThat(dispatcher.lastProgress(), is(UPDATES_COUNT - 1));
+	}
+
+	private static final class TestDispatcher implements BaseSyncAdapter.EventDispatcher {
+
+		final List<Object> events = Collections.synchronizedList(new ArrayList<Object>());
+
+		@Override
+		public void dispatch(@NonNull final Object event) {
+			events.add(event);
+		}
+
+		int lastProgress() {
+			return ((SyncEvent) events.get(events.size() - 1)).progress;
+		}
+	}
+}
@@ -29,6 +29,13 @@ import android.support.annotation.Nullable;
 import android.util.Log;
 import android.util.SparseArray;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import universum.studios.android.officium.OfficiumConfig;
 
 /**
@@ -56,6 +63,14 @@ import universum.studios.android.officium.OfficiumConfig;
  * method is invoked to perform global synchronization. Handler that should handle this global
  * synchronization can be specified via {@link #setGlobalSyncHandler(SyncHandler)}.
  *
+ * <h3>Composite global synchronization</h3>
+ * Instead of a single global sync handler, the global synchronization may be composed of tasks
+ * handled by the registered task handlers. Such composition along with dependencies between the
+ * tasks may be specified via {@link #setCompositeGlobalSync(CompositeSync)}. Tasks that do not
+ * depend on each other are then handled in parallel on a bounded pool of threads and results of
+ * all of them are aggregated into the {@link SyncResult} of the global synchronization. Note that
+ * in this case handlers, listeners and the event dispatcher are invoked from multiple threads.
+ *
  * <h3>Sync task state change listening</h3>
  * To listen for changes in state of {@link SyncTask SyncTasks} within the sync adapter implementation,
  * register {@link OnSyncTaskStateChangeListener} via {@link #setOnTaskStateChangeListener(OnSyncTaskStateChangeListener)}
@@ -106,7 +121,9 @@ import universum.studios.android.officium.OfficiumConfig;
  * </li>
  * </ul>
  * <b>Dispatching of synchronization events type of {@link SyncEvent#PROGRESS} is responsibility of
- * each specific {@link SyncHandler} implementation</b>.
+ * each specific {@link SyncHandler} implementation</b> which may publish its progress via
+ * {@link SyncOperation#publishProgress(int)}. Such progress updates are coalesced per sync operation
+ * according to {@link #setProgressDispatchInterval(long, TimeUnit)}.
  *
  * @author Martin Albedinsky
  * @see BaseSyncManager
@@ -124,6 +141,12 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 	 */
 	private static final String TAG = "BaseSyncAdapter";
 
+	/**
+	 * Default interval in milliseconds between two dispatched progress events of a single sync
+	 * operation. Matches duration of a single frame at 60 fps.
+	 */
+	public static final long DEFAULT_PROGRESS_DISPATCH_INTERVAL = 16;
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -173,6 +196,13 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 	 */
 	private SyncHandler mGlobalSyncHandler;
 
+	/**
+	 * Composite sync describing tasks that should be handled as global synchronization.
+	 *
+	 * @see #onPerformGlobalSync(SyncOperation)
+	 */
+	private CompositeSync mCompositeGlobalSync;
+
 	/**
 	 * Array map containing registered handlers that are responsible for synchronization handling
 	 * associated with a specific {@link SyncTask}. These handlers are mapped under the id of theirs
@@ -182,6 +212,25 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 	 */
 	private SparseArray<SyncHandler> mTaskHandlers;
 
+	/**
+	 * Dispatcher passed to sync operations to dispatch progress events via {@link #dispatchSyncEvent(Object)}.
+	 */
+	private final EventDispatcher mProgressDispatcher = new EventDispatcher() {
+
+		/**
+		 */
+		@Override
+		public void dispatch(@NonNull final Object event) {
+			dispatchSyncEvent(event);
+		}
+	};
+
+	/**
+	 * Minimum interval in milliseconds between two dispatched progress events of a single sync
+	 * operation.
+	 */
+	private volatile long mProgressDispatchInterval = DEFAULT_PROGRESS_DISPATCH_INTERVAL;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -245,6 +294,31 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 		return mEventDispatcher;
 	}
 
+	/**
+	 * Sets a minimum interval between two {@link SyncEvent SyncEvents} type of {@link SyncEvent#PROGRESS}
+	 * dispatched for a single sync operation. Progress published via {@link SyncOperation#publishProgress(int)}
+	 * more frequently is coalesced, so only the latest value is dispatched.
+	 * <p>
+	 * Default value: <b>{@link #DEFAULT_PROGRESS_DISPATCH_INTERVAL} ms</b>
+	 *
+	 * @param interval The desired interval. Zero to dispatch every changed progress value.
+	 * @param unit     Time unit of the interval.
+	 * @see #getProgressDispatchInterval()
+	 */
+	protected final void setProgressDispatchInterval(final long interval, @NonNull final TimeUnit unit) {
+		this.mProgressDispatchInterval = Math.max(0, unit.toMillis(interval));
+	}
+
+	/**
+	 * Returns the minimum interval between two dispatched progress events of a single sync operation.
+	 *
+	 * @return Interval in milliseconds.
+	 * @see #setProgressDispatchInterval(long, TimeUnit)
+	 */
+	protected final long getProgressDispatchInterval() {
+		return mProgressDispatchInterval;
+	}
+
 	/**
 	 * Registers a sync handler that will be used by this sync adapter for synchronization handling
 	 * of a {@link SyncTask} associated with the given <var>handler</var> via {@link SyncHandler#getTaskId()}.
@@ -316,6 +390,35 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 		return mGlobalSyncHandler;
 	}
 
+	/**
+	 * Sets a composite sync describing tasks that should be handled as global synchronization by
+	 * theirs registered task handlers. If specified, the composite sync is used instead of the
+	 * global sync handler.
+	 * <p>
+	 * Global synchronization is treated as failed if any of the tasks fails, in which case
+	 * {@link #onGlobalSyncFailed(SyncOperation, Exception)} receives error of the first failed task
+	 * in order in which have been the tasks specified.
+	 *
+	 * @param compositeSync The desired composite sync. May be {@code null} to use the global sync
+	 *                      handler.
+	 * @see #onPerformGlobalSync(SyncOperation)
+	 * @see #getCompositeGlobalSync()
+	 */
+	protected void setCompositeGlobalSync(@Nullable final CompositeSync compositeSync) {
+		this.mCompositeGlobalSync = compositeSync;
+	}
+
+	/**
+	 * Returns the composite sync describing tasks handled as global synchronization.
+	 *
+	 * @return This adapter's composite global sync.
+	 * @see #setCompositeGlobalSync(CompositeSync)
+	 */
+	@Nullable
+	protected CompositeSync getCompositeGlobalSync() {
+		return mCompositeGlobalSync;
+	}
+
 	/**
 	 * @see #createTaskFromExtras(Bundle)
 	 * @see #onPerformGlobalSync(SyncOperation)
@@ -334,6 +437,8 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 				.account(account)
 				.authority(authority)
 				.task(createTaskFromExtras(extras))
+				.result(syncResult)
+				.progressDispatcher(mProgressDispatcher, mProgressDispatchInterval)
 				.build();
 		changeTaskStateToAndNotify(syncOperation, SyncTask.RUNNING);
 		if (syncOperation.task.getId() == SyncTask.DEFAULT_ID) {
@@ -371,7 +476,8 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 	 */
 	@SuppressWarnings("unchecked")
 	protected void onPerformGlobalSync(@NonNull final SyncOperation syncOperation) {
-		if (mGlobalSyncHandler == null) return;
+		final CompositeSync compositeSync = mCompositeGlobalSync;
+		if (mGlobalSyncHandler == null && compositeSync == null) return;
 		dispatchSyncEvent(
 				new SyncEvent.Builder(syncOperation.task.getId())
 						.type(SyncEvent.START)
@@ -379,15 +485,142 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 						.build()
 		);
 		try {
-			mGlobalSyncHandler.handleSync(getContext(), syncOperation);
+			if (compositeSync == null) {
+				mGlobalSyncHandler.handleSync(getContext(), syncOperation);
+			} else {
+				performCompositeSync(compositeSync, syncOperation);
+			}
+			syncOperation.flushProgress();
 			changeTaskStateToAndNotify(syncOperation, SyncTask.FINISHED);
 			onGlobalSyncFinished(syncOperation);
 		} catch (Exception error) {
+			syncOperation.flushProgress();
 			changeTaskStateToAndNotify(syncOperation, SyncTask.FAILED);
 			onGlobalSyncFailed(syncOperation, error);
 		}
 	}
 
+	/**
+	 * Handles all tasks of the given <var>compositeSync</var> via theirs registered task handlers
+	 * and aggregates theirs results into result of the given global <var>syncOperation</var>.
+	 *
+	 * @param compositeSync The composite sync of which tasks to handle.
+	 * @param syncOperation Operation describing the global synchronization request.
+	 * @throws Exception Error of the first failed task.
+	 */
+	private void performCompositeSync(final CompositeSync compositeSync, final SyncOperation syncOperation) throws Exception {
+		final SyncResult syncResult = syncOperation.result;
+		final Exception[] errors;
+		try {
+			errors = executeCompositeSync(compositeSync, syncOperation);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+		Exception failure = null;
+		synchronized (syncResult) {
+			for (final Exception error : errors) {
+				if (error == null || error instanceof CancellationException) {
+					continue;
+				}
+				if (error instanceof IOException || error instanceof TimeoutException) {
+					syncResult.stats.numIoExceptions++;
+				} else {
+					syncResult.stats.numParseExceptions++;
+				}
+				if (failure == null) failure = error;
+			}
+		}
+		if (failure != null) throw failure;
+	}
+
+	/**
+	 * Executes all tasks of the given <var>compositeSync</var> via theirs registered task handlers.
+	 *
+	 * @param compositeSync The composite sync of which tasks to execute.
+	 * @param syncOperation Operation describing the global synchronization request.
+	 * @return Errors of the executed tasks.
+	 * @throws InterruptedException If the current thread has been interrupted while waiting for the tasks.
+	 */
+	private Exception[] executeCompositeSync(final CompositeSync compositeSync, final SyncOperation syncOperation) throws InterruptedException {
+		final SyncResult syncResult = syncOperation.result;
+		return new CompositeSyncExecutor(compositeSync).execute(new CompositeSyncExecutor.TaskRunner() {
+
+			/**
+			 * Operations of tasks that have been started mapped to ids of the tasks.
+			 */
+			private final Map<Integer, SyncOperation> operations = new HashMap<>(compositeSync.taskIds.length);
+
+			/**
+			 */
+			@Override
+			public Exception runTask(final int taskId, @NonNull final CompositeSyncExecutor.TaskExecution execution) {
+				final SyncHandler taskHandler = mTaskHandlers == null ? null : mTaskHandlers.get(taskId);
+				if (taskHandler == null) {
+					return new IllegalStateException("No synchronization handler found for task with id(" + taskId + ").");
+				}
+				final SyncOperation taskOperation = new SyncOperation.Builder()
+						.account(syncOperation.account)
+						.authority(syncOperation.authority)
+						.task(new SyncTask.Builder<SyncTask.EmptyRequest>(taskId).build())
+						.progressDispatcher(mProgressDispatcher, mProgressDispatchInterval)
+						.build();
+				synchronized (operations) {
+					// Task that has timed out before it has been started is not started at all.
+					if (execution.isAbandoned()) return null;
+					operations.put(taskId, taskOperation);
+					changeTaskStateToAndNotify(taskOperation, SyncTask.RUNNING);
+				}
+				final Exception error = handleTaskSync(taskHandler, taskOperation, execution);
+				if (execution.settle()) {
+					synchronized (syncResult) {
+						mergeSyncResult(syncResult, taskOperation.result);
+					}
+				}
+				return error;
+			}
+
+			/**
+			 */
+			@Override
+			public void onTaskTimedOut(final int taskId, @NonNull final TimeoutException error) {
+				final SyncOperation taskOperation;
+				synchronized (operations) {
+					taskOperation = operations.get(taskId);
+					if (taskOperation == null) return;
+					changeTaskStateToAndNotify(taskOperation, SyncTask.FAILED);
+				}
+				onSyncFailed(taskOperation, error);
+			}
+		});
+	}
+
+	/**
+	 * Adds statistics and flags of the given <var>source</var> result into the <var>target</var> result.
+	 *
+	 * @param target The result into which to merge.
+	 * @param source The result to be merged.
+	 */
+	private static void mergeSyncResult(final SyncResult target, final SyncResult source) {
+		target.syncAlreadyInProgress |= source.syncAlreadyInProgress;
+		target.tooManyDeletions |= source.tooManyDeletions;
+		target.tooManyRetries |= source.tooManyRetries;
+		target.databaseError |= source.databaseError;
+		target.fullSyncRequested |= source.fullSyncRequested;
+		target.partialSyncUnavailable |= source.partialSyncUnavailable;
+		target.moreRecordsToGet |= source.moreRecordsToGet;
+		target.delayUntil = Math.max(target.delayUntil, source.delayUntil);
+		target.stats.numAuthExceptions += source.stats.numAuthExceptions;
+		target.stats.numIoExceptions += source.stats.numIoExceptions;
+		target.stats.numParseExceptions += source.stats.numParseExceptions;
+		target.stats.numConflictDetectedExceptions += source.stats.numConflictDetectedExceptions;
+		target.stats.numInserts += source.stats.numInserts;
+		target.stats.numUpdates += source.stats.numUpdates;
+		target.stats.numDeletes += source.stats.numDeletes;
+		target.stats.numEntries += source.stats.numEntries;
+		target.stats.numSkippedEntries += source.stats.numSkippedEntries;
+	}
+
 	/**
 	 * Invoked whenever {@link #onPerformGlobalSync(SyncOperation)} finishes without any error.
 	 *
@@ -437,6 +670,30 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 			Log.e(TAG, "No synchronization handler found for task with id(" + syncOperation.task.getId() + ").");
 			return;
 		}
+		handleTaskSync(taskHandler, syncOperation, null);
+	}
+
+	/**
+	 * Requests the given <var>taskHandler</var> to handle synchronization described by the given
+	 * <var>syncOperation</var> and notifies {@link #onSyncFinished(SyncOperation)} or
+	 * {@link #onSyncFailed(SyncOperation, Exception)} about its outcome.
+	 *
+	 * <p>
+	 * If the given <var>execution</var> of a composite sync task has been abandoned due to timeout
+	 * meanwhile, its outcome is not notified as the task has been already reported as failed.
+	 *
+	 * @param taskHandler   The handler responsible for handling of the operation's task.
+	 * @param syncOperation Operation describing the synchronization request.
+	 * @param execution     Execution of composite sync task within which is the operation handled.
+	 *                      May be {@code null} if the operation is not part of a composite sync.
+	 * @return Error that caused failure of the synchronization or {@code null} if it has been successful.
+	 */
+	@SuppressWarnings("unchecked")
+	private Exception handleTaskSync(
+			final SyncHandler taskHandler,
+			final SyncOperation syncOperation,
+			@Nullable final CompositeSyncExecutor.TaskExecution execution
+	) {
 		dispatchSyncEvent(
 				new SyncEvent.Builder(syncOperation.task.getId())
 						.type(SyncEvent.START)
@@ -445,11 +702,17 @@ public abstract class BaseSyncAdapter extends AbstractThreadedSyncAdapter {
 		);
 		try {
 			taskHandler.handleSync(getContext(), syncOperation);
+			if (execution != null && !execution.settle()) return null;
+			syncOperation.flushProgress();
 			changeTaskStateToAndNotify(syncOperation, SyncTask.FINISHED);
 			onSyncFinished(syncOperation);
+			return null;
 		} catch (Exception error) {
+			if (execution != null && !execution.settle()) return error;
+			syncOperation.flushProgress();
 			changeTaskStateToAndNotify(syncOperation, SyncTask.FAILED);
 			onSyncFailed(syncOperation, error);
+			return error;
 		}
 	}
 
@@ -22,11 +22,20 @@ import android.accounts.Account;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.CallSuper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import universum.studios.android.officium.OfficiumConfig;
 
 /**
@@ -44,6 +53,21 @@ import universum.studios.android.officium.OfficiumConfig;
  * and {@link #isSyncPedning()}. Any additional methods may be freely implemented by the inheritance
  * hierarchies.
  *
+ * <h3>Requests coalescing</h3>
+ * Requests coalescing is disabled by default and may be enabled via {@link #setRequestCoalescingWindow(long, TimeUnit)}.
+ * When enabled, base synchronization manager tracks tasks for which has been synchronization requested
+ * and which are not finished yet. Whenever synchronization is requested for a task that is equal to an already
+ * pending task, such request is dropped. If synchronization is requested for a task equal to an
+ * already running task, such request is merged, so only a single synchronization is requested for
+ * the task after it finishes. States of running tasks are tracked via {@link #onSyncTaskStateChanged(SyncTask, Account)},
+ * so the manager <b>must</b> be notified about state changes of tasks, for example by registering
+ * it as {@link OnSyncTaskStateChangeListener} for its sync adapter, which requires the adapter to
+ * run in the same process. Otherwise finished tasks remain tracked and requests for equal tasks are
+ * dropped for the whole duration of {@link #setRequestCoalescingWindow(long, TimeUnit) coalescing window}.
+ * Additionally, requests may be debounced via {@link #setRequestDebounceDelay(long, TimeUnit)}.
+ * Counts of requests that have been suppressed may be obtained via {@link #getDroppedRequestCount()}
+ * and {@link #getMergedRequestCount()}.
+ *
  * @author Martin Albedinsky
  */
 @SuppressWarnings("ResourceType")
@@ -58,6 +82,14 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 	 */
 	private static final String TAG = "BaseSyncManager";
 
+	/**
+	 * Recommended duration in milliseconds for which are tracked tasks for which has been synchronization
+	 * requested when requests coalescing is enabled.
+	 *
+	 * @see #setRequestCoalescingWindow(long, TimeUnit)
+	 */
+	public static final long DEFAULT_REQUEST_COALESCING_WINDOW = 30000;
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -81,6 +113,46 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 	 */
 	protected final String mAuthority;
 
+	/**
+	 * Lock used to synchronize tracking of requested tasks.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * Map containing tasks for which has been synchronization requested and are not finished yet.
+	 */
+	private final Map<SyncTask, TrackedTask> mTrackedTasks = new HashMap<>();
+
+	/**
+	 * Map containing debounced tasks mapped to requests that will request synchronization for them.
+	 */
+	private final Map<SyncTask, Runnable> mDebouncedRequests = new HashMap<>();
+
+	/**
+	 * Handler used to post debounced requests. Created lazily.
+	 */
+	private Handler mHandler;
+
+	/**
+	 * Duration in milliseconds for which are tracked requested tasks. Zero if coalescing is disabled.
+	 */
+	private long mCoalescingWindow;
+
+	/**
+	 * Delay in milliseconds for which is debounced each request. Zero if debouncing is disabled.
+	 */
+	private long mDebounceDelay;
+
+	/**
+	 * Count of requests that have been dropped as duplicates of pending or debounced requests.
+	 */
+	private final AtomicLong mDroppedRequestCount = new AtomicLong(0);
+
+	/**
+	 * Count of requests that have been merged into a single follow-up request of a running task.
+	 */
+	private final AtomicLong mMergedRequestCount = new AtomicLong(0);
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -134,6 +206,66 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 		if (account != null) ContentResolver.setSyncAutomatically(account, mAuthority, enabled);
 	}
 
+	/**
+	 * Sets a duration for which are tracked tasks for which has been synchronization requested, so
+	 * duplicate requests for those tasks are dropped or merged. Tasks are no longer tracked also
+	 * once this manager is notified that they have finished, failed or have been canceled, so this
+	 * manager should be registered as {@link OnSyncTaskStateChangeListener} for its sync adapter
+	 * before coalescing is enabled.
+	 * <p>
+	 * Default value: <b>0</b> (disabled)
+	 *
+	 * @param window The desired window, for example {@link #DEFAULT_REQUEST_COALESCING_WINDOW}.
+	 *               Zero to disable requests coalescing.
+	 * @param unit   Time unit of the window.
+	 * @see #getDroppedRequestCount()
+	 * @see #getMergedRequestCount()
+	 */
+	public void setRequestCoalescingWindow(final long window, @NonNull final TimeUnit unit) {
+		synchronized (mLock) {
+			this.mCoalescingWindow = Math.max(0, unit.toMillis(window));
+			if (mCoalescingWindow == 0) mTrackedTasks.clear();
+		}
+	}
+
+	/**
+	 * Sets a delay for which is debounced each synchronization request. Synchronization is requested
+	 * only after there has been no other request for an equal task for the specified delay.
+	 * <p>
+	 * Default value: <b>0</b> (disabled)
+	 *
+	 * @param delay The desired delay. Zero to disable debouncing.
+	 * @param unit  Time unit of the delay.
+	 * @see #getDroppedRequestCount()
+	 */
+	public void setRequestDebounceDelay(final long delay, @NonNull final TimeUnit unit) {
+		synchronized (mLock) {
+			this.mDebounceDelay = Math.max(0, unit.toMillis(delay));
+		}
+	}
+
+	/**
+	 * Returns the count of synchronization requests that have been dropped by this manager, because
+	 * there has been already pending or debounced request for an equal task.
+	 *
+	 * @return Count of dropped requests.
+	 * @see #getMergedRequestCount()
+	 */
+	public long getDroppedRequestCount() {
+		return mDroppedRequestCount.get();
+	}
+
+	/**
+	 * Returns the count of synchronization requests that have been merged by this manager into a
+	 * single follow-up request, because an equal task has been running at the time.
+	 *
+	 * @return Count of merged requests.
+	 * @see #getDroppedRequestCount()
+	 */
+	public long getMergedRequestCount() {
+		return mMergedRequestCount.get();
+	}
+
 	/**
 	 * Same as {@link #requestSync(SyncTask)} with sync task with {@link SyncTask#DEFAULT_ID} id.
 	 */
@@ -153,6 +285,8 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 	 * <li>{@link ContentResolver#SYNC_EXTRAS_EXPEDITED SYNC_EXTRAS_EXPEDITED}: <b>true</b></li>
 	 * <li>{@link SyncTask} put into the extras Bundle</li>
 	 * </ul>
+	 * <p>
+	 * The request may be dropped, merged or debounced as described in the class description.
 	 *
 	 * @param syncTask The desired task for which to request synchronization. This task will be put
 	 *                 into {@link Bundle} along with other sync extras for the sync adapter registered
@@ -161,12 +295,62 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 	 * @see ContentResolver#requestSync(Account, String, Bundle)
 	 */
 	public void requestSync(@NonNull final SyncTask syncTask) {
+		synchronized (mLock) {
+			if (mDebounceDelay > 0) {
+				debounceRequest(syncTask);
+				return;
+			}
+		}
+		performRequestSync(syncTask);
+	}
+
+	/**
+	 * Schedules request of synchronization for the specified <var>syncTask</var> after the debounce
+	 * delay, replacing an already scheduled request for an equal task.
+	 * <p>
+	 * Should be called while holding the lock.
+	 *
+	 * @param syncTask The task for which to request synchronization.
+	 */
+	private void debounceRequest(final SyncTask syncTask) {
+		if (mHandler == null) {
+			this.mHandler = new Handler(Looper.getMainLooper());
+		}
+		final Runnable scheduledRequest = mDebouncedRequests.remove(syncTask);
+		if (scheduledRequest != null) {
+			mHandler.removeCallbacks(scheduledRequest);
+			mDroppedRequestCount.incrementAndGet();
+		}
+		final Runnable request = new Runnable() {
+
+			/**
+			 */
+			@Override
+			public void run() {
+				synchronized (mLock) {
+					if (mDebouncedRequests.get(syncTask) != this) return;
+					mDebouncedRequests.remove(syncTask);
+				}
+				performRequestSync(syncTask);
+			}
+		};
+		mDebouncedRequests.put(syncTask, request);
+		mHandler.postDelayed(request, mDebounceDelay);
+	}
+
+	/**
+	 * Performs request of synchronization for the specified <var>syncTask</var> if it is not a
+	 * duplicate of an already tracked task.
+	 *
+	 * @param syncTask The task for which to request synchronization.
+	 */
+	private void performRequestSync(final SyncTask syncTask) {
 		final Account account = pickAccountForSync();
 		if (account == null) {
 			if (OfficiumConfig.LOG_ENABLED) {
 				Log.v(TAG, "Cannot perform synchronization for task(" + syncTask + "). No account picked for synchronization.");
 			}
-		} else if (shouldRequestSync(syncTask, account)) {
+		} else if (shouldRequestSync(syncTask, account) && trackRequest(syncTask)) {
 			syncTask.setState(SyncTask.PENDING);
 			onSyncTaskStateChanged(syncTask, account);
 			final Bundle extras = syncTask.intoExtras(new Bundle());
@@ -175,10 +359,62 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 			if (OfficiumConfig.LOG_ENABLED) {
 				Log.v(TAG, "Requesting synchronization for task(" + syncTask + ").");
 			}
-			ContentResolver.requestSync(account, mAuthority, extras);
+			onRequestSync(account, extras);
 		}
 	}
 
+	/**
+	 * Starts tracking of the specified <var>syncTask</var> for which should be requested synchronization.
+	 * If there is already tracked an equal task, the request is dropped or merged.
+	 *
+	 * @param syncTask The task to track.
+	 * @return {@code True} if synchronization should be requested for the task, {@code false} if
+	 * the request has been suppressed.
+	 */
+	private boolean trackRequest(final SyncTask syncTask) {
+		synchronized (mLock) {
+			if (mCoalescingWindow == 0) {
+				return true;
+			}
+			final long now = SystemClock.uptimeMillis();
+			final Iterator<TrackedTask> iterator = mTrackedTasks.values().iterator();
+			while (iterator.hasNext()) {
+				if (now - iterator.next().time >= mCoalescingWindow) iterator.remove();
+			}
+			final TrackedTask trackedTask = mTrackedTasks.get(syncTask);
+			if (trackedTask == null) {
+				mTrackedTasks.put(syncTask, new TrackedTask(SyncTask.PENDING, now));
+				return true;
+			}
+			if (trackedTask.state == SyncTask.RUNNING) {
+				trackedTask.followUpRequested = true;
+				mMergedRequestCount.incrementAndGet();
+				if (OfficiumConfig.LOG_ENABLED) {
+					Log.v(TAG, "Merging synchronization request for running task(" + syncTask + ").");
+				}
+			} else {
+				mDroppedRequestCount.incrementAndGet();
+				if (OfficiumConfig.LOG_ENABLED) {
+					Log.v(TAG, "Dropping synchronization request for pending task(" + syncTask + ").");
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Invoked whenever {@link #requestSync(SyncTask)} should request synchronization.
+	 * <p>
+	 * Default implementation requests synchronization via {@link ContentResolver#requestSync(Account, String, Bundle)}
+	 * for the specified account, extras and authority specified for this manager.
+	 *
+	 * @param account The account picked via {@link #pickAccountForSync()}.
+	 * @param extras  Extras Bundle with the sync task and sync flags.
+	 */
+	protected void onRequestSync(@NonNull final Account account, @NonNull final Bundle extras) {
+		ContentResolver.requestSync(account, mAuthority, extras);
+	}
+
 	/**
 	 * Called from {@link #requestSync(SyncTask)} to check whether a synchronization should be requested
 	 * for the specified <var>syncTask</var> and <var>account</var>.
@@ -201,7 +437,34 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 	@Override
 	@CallSuper
 	public void onSyncTaskStateChanged(@NonNull final SyncTask syncTask, @NonNull final Account account) {
-		// May be implemented by the inheritance hierarchies.
+		boolean followUpRequested = false;
+		synchronized (mLock) {
+			if (mCoalescingWindow == 0) {
+				return;
+			}
+			switch (syncTask.getState()) {
+				case SyncTask.RUNNING:
+					final TrackedTask trackedTask = mTrackedTasks.get(syncTask);
+					if (trackedTask == null) {
+						mTrackedTasks.put(syncTask, new TrackedTask(SyncTask.RUNNING, SystemClock.uptimeMillis()));
+					} else {
+						trackedTask.state = SyncTask.RUNNING;
+						trackedTask.time = SystemClock.uptimeMillis();
+					}
+					break;
+				case SyncTask.FINISHED:
+				case SyncTask.FAILED:
+				case SyncTask.CANCELED:
+					final TrackedTask finishedTask = mTrackedTasks.remove(syncTask);
+					followUpRequested = finishedTask != null && finishedTask.followUpRequested;
+					break;
+				default:
+					break;
+			}
+		}
+		if (followUpRequested) {
+			performRequestSync(syncTask);
+		}
 	}
 
 	/**
@@ -271,4 +534,36 @@ public abstract class BaseSyncManager implements OnSyncTaskStateChangeListener {
 	/*
 	 * Inner classes ===============================================================================
 	 */
+
+	/**
+	 * Holder for state of a task tracked by {@link BaseSyncManager}.
+	 */
+	private static final class TrackedTask {
+
+		/**
+		 * Last known state of the task.
+		 */
+		int state;
+
+		/**
+		 * Time when has been the state of the task last changed.
+		 */
+		long time;
+
+		/**
+		 * Flag indicating whether synchronization should be requested again once the task finishes.
+		 */
+		boolean followUpRequested;
+
+		/**
+		 * Creates a new instance of TrackedTask with the specified <var>state</var> and <var>time</var>.
+		 *
+		 * @param state The current state of the task.
+		 * @param time  Time of the state change.
+		 */
+		TrackedTask(final int state, final long time) {
+			this.state = state;
+			this.time = time;
+		}
+	}
 }
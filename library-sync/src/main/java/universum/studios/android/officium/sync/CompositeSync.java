@@ -0,0 +1,298 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.sync;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CompositeSync describes a global synchronization composed of multiple tasks which are handled by
+ * {@link SyncHandler SyncHandlers} registered via {@link BaseSyncAdapter#registerTaskHandler(SyncHandler)}.
+ * Such global synchronization may be specified for a sync adapter via {@link BaseSyncAdapter#setCompositeGlobalSync(CompositeSync)}.
+ * <p>
+ * Each task may declare ids of other tasks on which it depends. A task is executed only after all
+ * its dependencies have been successfully executed and tasks which do not depend on each other are
+ * executed in parallel, at most {@link #parallelism} of them at a time. If a task fails or does not
+ * finish within the {@link #taskTimeout}, tasks that depend on it are not executed at all.
+ * <p>
+ * Creation of instances of CompositeSync is restricted via {@link Builder} only.
+ *
+ * @author Martin Albedinsky
+ */
+public final class CompositeSync {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CompositeSync";
+
+	/**
+	 * Constant determining that execution of tasks is not limited by any timeout.
+	 *
+	 * @see Builder#taskTimeout(long, TimeUnit)
+	 */
+	public static final long NO_TIMEOUT = -1;
+
+	/**
+	 * Default maximum count of tasks executed in parallel.
+	 *
+	 * @see Builder#parallelism(int)
+	 */
+	public static final int DEFAULT_PARALLELISM = 4;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum count of tasks executed in parallel.
+	 */
+	public final int parallelism;
+
+	/**
+	 * Time in milliseconds within which should finish execution of each task or {@link #NO_TIMEOUT}.
+	 */
+	public final long taskTimeout;
+
+	/**
+	 * Ids of the tasks in order in which have been specified.
+	 */
+	final int[] taskIds;
+
+	/**
+	 * Positions (within {@link #taskIds}) of tasks on which depends task at the corresponding position.
+	 */
+	final int[][] dependencies;
+
+	/**
+	 * Positions (within {@link #taskIds}) of tasks which depend on task at the corresponding position.
+	 */
+	final int[][] dependents;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CompositeSync with data provided by the specified <var>builder</var>.
+	 *
+	 * @param builder The builder with data for the new composite sync.
+	 */
+	private CompositeSync(final Builder builder) {
+		this.parallelism = builder.parallelism;
+		this.taskTimeout = builder.taskTimeout;
+		final int tasksCount = builder.tasks.size();
+		final List<Integer> ids = new ArrayList<>(builder.tasks.keySet());
+		this.taskIds = new int[tasksCount];
+		this.dependencies = new int[tasksCount][];
+		final List<List<Integer>> dependentsList = new ArrayList<>(tasksCount);
+		for (int i = 0; i < tasksCount; i++) {
+			taskIds[i] = ids.get(i);
+			dependentsList.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < tasksCount; i++) {
+			final int[] dependencyIds = builder.tasks.get(taskIds[i]);
+			dependencies[i] = new int[dependencyIds.length];
+			for (int j = 0; j < dependencyIds.length; j++) {
+				final int position = ids.indexOf(dependencyIds[j]);
+				if (position == -1) {
+					throw new IllegalArgumentException(
+							"Task with id(" + taskIds[i] + ") depends on not specified task with id(" + dependencyIds[j] + ")!"
+					);
+				}
+				dependencies[i][j] = position;
+				dependentsList.get(position).add(i);
+			}
+		}
+		this.dependents = new int[tasksCount][];
+		for (int i = 0; i < tasksCount; i++) {
+			final List<Integer> taskDependents = dependentsList.get(i);
+			dependents[i] = new int[taskDependents.size()];
+			for (int j = 0; j < dependents[i].length; j++) {
+				dependents[i][j] = taskDependents.get(j);
+			}
+		}
+		checkAcyclic();
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Checks that there are no cyclic dependencies between the tasks of this composite sync.
+	 *
+	 * @throws IllegalArgumentException If there is a dependency cycle.
+	 */
+	private void checkAcyclic() {
+		final int[] remainingDependencies = new int[taskIds.length];
+		final List<Integer> readyTasks = new ArrayList<>();
+		for (int i = 0; i < taskIds.length; i++) {
+			remainingDependencies[i] = dependencies[i].length;
+			if (remainingDependencies[i] == 0) readyTasks.add(i);
+		}
+		int orderedCount = 0;
+		while (!readyTasks.isEmpty()) {
+			final int position = readyTasks.remove(readyTasks.size() - 1);
+			orderedCount++;
+			for (final int dependent : dependents[position]) {
+				if (--remainingDependencies[dependent] == 0) readyTasks.add(dependent);
+			}
+		}
+		if (orderedCount != taskIds.length) {
+			throw new IllegalArgumentException("Tasks of composite sync contain a dependency cycle!");
+		}
+	}
+
+	/**
+	 * Returns the count of tasks of this composite sync.
+	 *
+	 * @return Count of tasks.
+	 */
+	public int getTaskCount() {
+		return taskIds.length;
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressWarnings("StringBufferReplaceableByString")
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(64);
+		builder.append(getClass().getSimpleName());
+		builder.append("{taskCount: ");
+		builder.append(taskIds.length);
+		builder.append(", parallelism: ");
+		builder.append(parallelism);
+		builder.append(", taskTimeout: ");
+		builder.append(taskTimeout);
+		return builder.append("}").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Builder that can be used to create a new instance of {@link CompositeSync}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * Map containing ids of the specified tasks mapped to ids of tasks on which they depend.
+		 */
+		private final Map<Integer, int[]> tasks = new LinkedHashMap<>();
+
+		/**
+		 * See {@link CompositeSync#parallelism}.
+		 */
+		private int parallelism = DEFAULT_PARALLELISM;
+
+		/**
+		 * See {@link CompositeSync#taskTimeout}.
+		 */
+		private long taskTimeout = NO_TIMEOUT;
+
+		/**
+		 * Specifies a task that should be executed as part of the composite sync. The task is
+		 * executed by the sync handler registered for the same task id.
+		 * <p>
+		 * If there is already specified task with the same id, its dependencies are replaced by
+		 * the new ones.
+		 *
+		 * @param taskId       Id of the desired task. Cannot be {@link SyncTask#DEFAULT_ID}.
+		 * @param dependencies Ids of tasks that need to be successfully executed before the task.
+		 *                     All of them need to be also specified for this builder.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder task(final int taskId, @NonNull final int... dependencies) {
+			if (taskId == SyncTask.DEFAULT_ID) {
+				throw new IllegalArgumentException("Task of composite sync cannot have default id!");
+			}
+			this.tasks.put(taskId, dependencies.clone());
+			return this;
+		}
+
+		/**
+		 * Specifies the maximum count of tasks that may be executed in parallel.
+		 * <p>
+		 * Default value: <b>{@link #DEFAULT_PARALLELISM}</b>
+		 *
+		 * @param parallelism The desired parallelism.
+		 * @return This builder to allow methods chaining.
+		 * @see CompositeSync#parallelism
+		 */
+		public Builder parallelism(@IntRange(from = 1) final int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * Specifies a timeout within which should finish execution of each task. Tasks that do not
+		 * finish in time are interrupted and treated as failed.
+		 * <p>
+		 * Default value: <b>{@link #NO_TIMEOUT}</b>
+		 *
+		 * @param timeout The desired timeout.
+		 * @param unit    Time unit of the timeout.
+		 * @return This builder to allow methods chaining.
+		 * @see CompositeSync#taskTimeout
+		 */
+		public Builder taskTimeout(final long timeout, @NonNull final TimeUnit unit) {
+			this.taskTimeout = timeout == NO_TIMEOUT ? NO_TIMEOUT : unit.toMillis(timeout);
+			return this;
+		}
+
+		/**
+		 * Builds a new instance of CompositeSync.
+		 *
+		 * @return New instance of CompositeSync with data specified for this builder.
+		 * @throws IllegalArgumentException If there are no tasks specified, some task depends on
+		 *                                  a task that is not specified, the tasks contain a dependency
+		 *                                  cycle or the parallelism or timeout are not valid.
+		 */
+		@NonNull
+		public CompositeSync build() {
+			if (tasks.isEmpty()) throw new IllegalArgumentException("No tasks specified!");
+			if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive!");
+			if (taskTimeout <= 0 && taskTimeout != NO_TIMEOUT) throw new IllegalArgumentException("Task timeout must be positive!");
+			return new CompositeSync(this);
+		}
+	}
+}
@@ -0,0 +1,429 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.sync;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that executes tasks of a {@link CompositeSync} on a bounded pool of threads with respect
+ * to theirs dependencies and timeout.
+ * <p>
+ * Scheduling of the tasks is performed on the thread which calls {@link #execute(TaskRunner)}, so
+ * there are never more tasks submitted to the pool than is the parallelism of the composite sync
+ * and timeout of each task is measured from its submission.
+ *
+ * @author Martin Albedinsky
+ */
+final class CompositeSyncExecutor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CompositeSyncExecutor";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Interface used by {@link CompositeSyncExecutor} to execute a single task of composite sync.
+	 */
+	interface TaskRunner {
+
+		/**
+		 * Executes task with the specified <var>taskId</var>.
+		 * <p>
+		 * Once the task has been handled, the runner should {@link TaskExecution#settle() settle}
+		 * the given <var>execution</var> and publish results of the task only if it succeeds.
+		 *
+		 * @param taskId    Id of the task to execute.
+		 * @param execution Execution of the task.
+		 * @return Error that caused failure of the task or {@code null} if it has been successful.
+		 */
+		@Nullable
+		Exception runTask(int taskId, @NonNull TaskExecution execution);
+
+		/**
+		 * Invoked on the thread which called {@link #execute(TaskRunner)} whenever task with the
+		 * specified <var>taskId</var> has timed out and its execution has been abandoned.
+		 *
+		 * @param taskId Id of the timed out task.
+		 * @param error  Error describing the timeout.
+		 */
+		void onTaskTimedOut(int taskId, @NonNull TimeoutException error);
+	}
+
+	/**
+	 * Interface through which a {@link TaskRunner} resolves outcome of a single task execution.
+	 */
+	interface TaskExecution {
+
+		/**
+		 * Checks whether this execution has been abandoned due to timeout.
+		 *
+		 * @return {@code True} if abandoned, {@code false} otherwise.
+		 */
+		boolean isAbandoned();
+
+		/**
+		 * Settles this execution, so it can no longer be abandoned.
+		 *
+		 * @return {@code True} if settled, {@code false} if this execution has been already abandoned
+		 * and results of its task should be dropped.
+		 */
+		boolean settle();
+	}
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Composite sync of which tasks to execute.
+	 */
+	private final CompositeSync mCompositeSync;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CompositeSyncExecutor for the specified <var>compositeSync</var>.
+	 *
+	 * @param compositeSync The composite sync of which tasks to execute.
+	 */
+	CompositeSyncExecutor(@NonNull final CompositeSync compositeSync) {
+		this.mCompositeSync = compositeSync;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Executes all tasks of the composite sync via the given <var>runner</var> and waits until all
+	 * of them finish, fail or time out.
+	 * <p>
+	 * Tasks that depend on a failed task are not executed and theirs error is {@link CancellationException}.
+	 * Tasks that time out are abandoned and interrupted and theirs error is {@link TimeoutException}.
+	 * The runner is notified about such tasks via {@link TaskRunner#onTaskTimedOut(int, TimeoutException)}.
+	 *
+	 * @param runner The runner used to execute the tasks.
+	 * @return Array with errors of the tasks at positions of the tasks within the composite sync.
+	 * Error for a successful task is {@code null}.
+	 * @throws InterruptedException If the current thread has been interrupted while waiting. All
+	 *                              running tasks are interrupted in such case.
+	 */
+	@NonNull
+	Exception[] execute(@NonNull final TaskRunner runner) throws InterruptedException {
+		final int[] taskIds = mCompositeSync.taskIds;
+		final int tasksCount = taskIds.length;
+		final Exception[] errors = new Exception[tasksCount];
+		final boolean[] completed = new boolean[tasksCount];
+		final int[] remainingDependencies = new int[tasksCount];
+		final Deque<Integer> readyTasks = new ArrayDeque<>(tasksCount);
+		for (int i = 0; i < tasksCount; i++) {
+			remainingDependencies[i] = mCompositeSync.dependencies[i].length;
+			if (remainingDependencies[i] == 0) readyTasks.add(i);
+		}
+		final ThreadPoolExecutor pool = createPool(Math.min(mCompositeSync.parallelism, tasksCount));
+		final CompletionService<Execution> completionService = new ExecutorCompletionService<>(pool);
+		final List<Execution> runningExecutions = new ArrayList<>(mCompositeSync.parallelism);
+		int completedCount = 0;
+		try {
+			while (completedCount < tasksCount) {
+				while (!readyTasks.isEmpty() && runningExecutions.size() < mCompositeSync.parallelism) {
+					final Execution execution = new Execution(readyTasks.poll(), runner);
+					execution.future = completionService.submit(execution);
+					runningExecutions.add(execution);
+				}
+				if (runningExecutions.isEmpty()) {
+					break;
+				}
+				final Future<Execution> future = pollCompleted(completionService, runningExecutions);
+				if (future == null) {
+					final long now = SystemClock.uptimeMillis();
+					for (int i = runningExecutions.size() - 1; i >= 0; i--) {
+						final Execution execution = runningExecutions.get(i);
+						// Execution that has been settled meanwhile is picked up from the completion service.
+						if (execution.deadline <= now && execution.abandon()) {
+							execution.future.cancel(true);
+							runningExecutions.remove(i);
+							final TimeoutException error = new TimeoutException(
+									"Synchronization of task with id(" + taskIds[execution.position] + ") timed out."
+							);
+							runner.onTaskTimedOut(taskIds[execution.position], error);
+							completedCount += complete(execution.position, error, errors, completed, remainingDependencies, readyTasks);
+						}
+					}
+					continue;
+				}
+				if (future.isCancelled()) {
+					continue;
+				}
+				final Execution execution = getExecution(future);
+				runningExecutions.remove(execution);
+				completedCount += complete(execution.position, execution.error, errors, completed, remainingDependencies, readyTasks);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return errors;
+	}
+
+	/**
+	 * Creates a new pool of daemon threads with the specified size.
+	 *
+	 * @param size Size of the pool.
+	 * @return New thread pool.
+	 */
+	private static ThreadPoolExecutor createPool(final int size) {
+		final AtomicInteger counter = new AtomicInteger(0);
+		return new ThreadPoolExecutor(
+				size,
+				size,
+				0L,
+				TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+
+					/**
+					 */
+					@Override
+					public Thread newThread(@NonNull final Runnable runnable) {
+						final Thread thread = new Thread(runnable, "CompositeSync #" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+		);
+	}
+
+	/**
+	 * Waits for the next completed execution, but at most until the nearest deadline of the given
+	 * running executions.
+	 *
+	 * @param completionService The service to poll.
+	 * @param runningExecutions The currently running executions.
+	 * @return Future of the completed execution or {@code null} if the nearest deadline has passed.
+	 * @throws InterruptedException If the current thread has been interrupted while waiting.
+	 */
+	private Future<Execution> pollCompleted(
+			final CompletionService<Execution> completionService,
+			final List<Execution> runningExecutions
+	) throws InterruptedException {
+		if (mCompositeSync.taskTimeout == CompositeSync.NO_TIMEOUT) {
+			return completionService.take();
+		}
+		long nearestDeadline = Long.MAX_VALUE;
+		for (final Execution execution : runningExecutions) {
+			nearestDeadline = Math.min(nearestDeadline, execution.deadline);
+		}
+		final long timeout = nearestDeadline - SystemClock.uptimeMillis();
+		return timeout > 0 ? completionService.poll(timeout, TimeUnit.MILLISECONDS) : completionService.poll();
+	}
+
+	/**
+	 * Obtains the execution from the given completed <var>future</var>.
+	 *
+	 * @param future The completed future.
+	 * @return The completed execution.
+	 * @throws InterruptedException If the current thread has been interrupted.
+	 */
+	private static Execution getExecution(final Future<Execution> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			// Execution catches all exceptions thrown by the task runner, so this should not happen.
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Marks task at the specified <var>position</var> as completed with the given <var>error</var>.
+	 * If the task has been successful, tasks depending on it whose all dependencies are completed
+	 * are added into the ready tasks, otherwise all tasks depending on it are completed as cancelled.
+	 *
+	 * @param position              Position of the completed task.
+	 * @param error                 Error of the task or {@code null} if it has been successful.
+	 * @param errors                Array with errors of all tasks.
+	 * @param completed             Array with flags indicating which tasks are completed.
+	 * @param remainingDependencies Array with counts of not completed dependencies of all tasks.
+	 * @param readyTasks            Queue with tasks ready to be executed.
+	 * @return Count of tasks that have been completed by this call.
+	 */
+	private int complete(
+			final int position,
+			final Exception error,
+			final Exception[] errors,
+			final boolean[] completed,
+			final int[] remainingDependencies,
+			final Deque<Integer> readyTasks
+	) {
+		if (completed[position]) {
+			return 0;
+		}
+		completed[position] = true;
+		errors[position] = error;
+		int completedCount = 1;
+		for (final int dependent : mCompositeSync.dependents[position]) {
+			if (error == null) {
+				if (--remainingDependencies[dependent] == 0 && !completed[dependent]) readyTasks.add(dependent);
+			} else {
+				completedCount += complete(dependent, new CancellationException(
+						"Task with id(" + mCompositeSync.taskIds[position] + ") on which depends this task failed."
+				), errors, completed, remainingDependencies, readyTasks);
+			}
+		}
+		return completedCount;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Execution of a single task of the composite sync.
+	 */
+	private final class Execution implements Callable<Execution>, TaskExecution {
+
+		/**
+		 * State of execution which has been neither settled nor abandoned.
+		 */
+		static final int RUNNING = 0;
+
+		/**
+		 * State of execution which has been settled by its runner.
+		 */
+		static final int SETTLED = 1;
+
+		/**
+		 * State of execution which has been abandoned due to timeout.
+		 */
+		static final int ABANDONED = 2;
+
+		/**
+		 * Position of the executed task within the composite sync.
+		 */
+		final int position;
+
+		/**
+		 * Runner used to execute the task.
+		 */
+		final TaskRunner runner;
+
+		/**
+		 * Time until which should the execution finish.
+		 */
+		final long deadline;
+
+		/**
+		 * Future of this execution.
+		 */
+		Future<Execution> future;
+
+		/**
+		 * Error that caused failure of the task. Set by the execution thread.
+		 */
+		volatile Exception error;
+
+		/**
+		 * Current state of this execution.
+		 */
+		final AtomicInteger state = new AtomicInteger(RUNNING);
+
+		/**
+		 * Creates a new instance of Execution for task at the specified <var>position</var>.
+		 *
+		 * @param position Position of the task within the composite sync.
+		 * @param runner   The runner used to execute the task.
+		 */
+		Execution(final int position, final TaskRunner runner) {
+			this.position = position;
+			this.runner = runner;
+			this.deadline = mCompositeSync.taskTimeout == CompositeSync.NO_TIMEOUT ?
+					Long.MAX_VALUE :
+					SystemClock.uptimeMillis() + mCompositeSync.taskTimeout;
+		}
+
+		/**
+		 * Abandons this execution, so results of its task are dropped.
+		 *
+		 * @return {@code True} if abandoned, {@code false} if this execution has been already settled.
+		 */
+		boolean abandon() {
+			return state.compareAndSet(RUNNING, ABANDONED);
+		}
+
+		/**
+		 */
+		@Override
+		public boolean isAbandoned() {
+			return state.get() == ABANDONED;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean settle() {
+			return state.compareAndSet(RUNNING, SETTLED) || state.get() == SETTLED;
+		}
+
+		/**
+		 */
+		@Override
+		public Execution call() {
+			try {
+				this.error = runner.runTask(mCompositeSync.taskIds[position], this);
+			} catch (Exception e) {
+				this.error = e;
+			}
+			// Runner may have not settled this execution itself, for example when it has thrown.
+			settle();
+			return this;
+		}
+	}
+}
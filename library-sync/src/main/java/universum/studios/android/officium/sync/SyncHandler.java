@@ -38,6 +38,10 @@ import android.util.Log;
  * will be invoked {@link #onSyncError(Context, SyncOperation, SyncTask.Request, Exception)} method all
  * internally by SyncHandler class. Any exception thrown further from {@link #onSyncError(Context, SyncOperation, SyncTask.Request, Exception)}
  * method will be dispatched to the calling synchronization context (by default {@link BaseSyncAdapter}).
+ * <p>
+ * Progress of the synchronization may be published from {@link #onHandleSync(Context, SyncOperation, SyncTask.Request)}
+ * via {@link SyncOperation#publishProgress(int)}. Frequent updates are coalesced by the sync adapter,
+ * so handlers may publish progress as often as they need.
  *
  * @param <Request> Type of the request that the SyncHandler implementation needs to perform its
  *                  specific synchronization process.
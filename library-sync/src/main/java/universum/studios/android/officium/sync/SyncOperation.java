@@ -19,11 +19,18 @@
 package universum.studios.android.officium.sync;
 
 import android.accounts.Account;
+import android.content.SyncResult;
 import android.text.TextUtils;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * SyncOperation contains data that are describing a specific synchronization request to be executed
  * in {@link BaseSyncAdapter}.
+ * <p>
+ * Progress of the synchronization may be published via {@link #publishProgress(int)}. Such progress
+ * is dispatched by the sync adapter as {@link SyncEvent} type of {@link SyncEvent#PROGRESS} and
+ * frequent updates are coalesced, see {@link BaseSyncAdapter#setProgressDispatchInterval(long, TimeUnit)}.
  */
 public final class SyncOperation {
 
@@ -63,6 +70,17 @@ public final class SyncOperation {
 	 */
 	public final SyncTask task;
 
+	/**
+	 * Result of the synchronization into which may be recorded its statistics and errors.
+	 */
+	public final SyncResult result;
+
+	/**
+	 * Channel used to dispatch progress of this sync operation. May be {@code null} if progress
+	 * should not be dispatched.
+	 */
+	private final SyncProgressChannel mProgressChannel;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -76,12 +94,41 @@ public final class SyncOperation {
 		this.account = builder.account;
 		this.authority = builder.authority;
 		this.task = builder.task;
+		this.result = builder.result == null ? new SyncResult() : builder.result;
+		this.mProgressChannel = builder.progressDispatcher == null ? null : new SyncProgressChannel(
+				builder.progressDispatcher,
+				task.getId(),
+				account,
+				builder.progressInterval
+		);
 	}
 
 	/*
 	 * Methods =====================================================================================
 	 */
 
+	/**
+	 * Publishes the current progress of this sync operation.
+	 * <p>
+	 * The progress is dispatched as {@link SyncEvent} type of {@link SyncEvent#PROGRESS} via
+	 * {@link BaseSyncAdapter#dispatchSyncEvent(Object)} of the sync adapter executing this operation.
+	 * Updates published more frequently than the progress dispatch interval of that adapter are
+	 * coalesced, so only the latest progress is dispatched. The latest progress is always dispatched
+	 * before the operation finishes.
+	 *
+	 * @param progress The current progress.
+	 */
+	public void publishProgress(final int progress) {
+		if (mProgressChannel != null) mProgressChannel.publish(progress);
+	}
+
+	/**
+	 * Dispatches the latest published progress if it has not been dispatched yet due to coalescing.
+	 */
+	void flushProgress() {
+		if (mProgressChannel != null) mProgressChannel.flush();
+	}
+
 	/*
 	 * Inner classes ===============================================================================
 	 */
@@ -106,6 +153,21 @@ public final class SyncOperation {
 		 */
 		SyncTask task;
 
+		/**
+		 * See {@link SyncOperation#result}.
+		 */
+		SyncResult result;
+
+		/**
+		 * Dispatcher used to dispatch progress events.
+		 */
+		BaseSyncAdapter.EventDispatcher progressDispatcher;
+
+		/**
+		 * Minimum interval in milliseconds between two dispatched progress events.
+		 */
+		long progressInterval;
+
 		/**
 		 * Specifies an account for the sync operation.
 		 *
@@ -142,6 +204,34 @@ public final class SyncOperation {
 			return this;
 		}
 
+		/**
+		 * Specifies a result for the sync operation.
+		 *
+		 * @param result The result to associate with the sync operation. May be {@code null} to
+		 *               associate a new empty result.
+		 * @return This builder to allow methods chaining.
+		 * @see SyncOperation#result
+		 */
+		Builder result(final SyncResult result) {
+			this.result = result;
+			return this;
+		}
+
+		/**
+		 * Specifies a dispatcher used to dispatch progress of the sync operation.
+		 *
+		 * @param dispatcher The dispatcher used to dispatch progress events. May be {@code null}
+		 *                   to not dispatch progress.
+		 * @param interval   Minimum interval in milliseconds between two dispatched progress events.
+		 * @return This builder to allow methods chaining.
+		 * @see SyncOperation#publishProgress(int)
+		 */
+		Builder progressDispatcher(final BaseSyncAdapter.EventDispatcher dispatcher, final long interval) {
+			this.progressDispatcher = dispatcher;
+			this.progressInterval = interval;
+			return this;
+		}
+
 		/**
 		 * Builds a new instance of SyncOperation from the current data.
 		 *
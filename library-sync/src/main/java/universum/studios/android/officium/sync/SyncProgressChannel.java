@@ -0,0 +1,226 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.sync;
+
+import android.accounts.Account;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+/**
+ * Channel used by {@link SyncOperation} to dispatch progress of its synchronization task as
+ * {@link SyncEvent SyncEvents} of {@link SyncEvent#PROGRESS} type.
+ * <p>
+ * Progress updates are coalesced, so at most one event is dispatched per the interval specified
+ * for the channel and only the latest progress value is dispatched. Updates with the same value as
+ * the last dispatched one are ignored. The latest progress value that has not been dispatched due
+ * to coalescing is dispatched once the interval elapses, via a trailing dispatch posted to the main
+ * thread, or via {@link #flush()} before the synchronization task finishes, whichever comes first.
+ * <p>
+ * A single event builder and a single trailing dispatch are reused for all progress events
+ * dispatched by the channel, so the only allocation per dispatched update is the event itself and
+ * there is no allocation for coalesced updates.
+ *
+ * @author Martin Albedinsky
+ */
+final class SyncProgressChannel implements Runnable {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SyncProgressChannel";
+
+	/**
+	 * Value indicating that there has not been any progress dispatched yet.
+	 */
+	private static final int NO_PROGRESS = Integer.MIN_VALUE;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Handler used to post trailing dispatches of all channels. Created lazily.
+	 */
+	private static Handler sHandler;
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Dispatcher used to dispatch progress events.
+	 */
+	private final BaseSyncAdapter.EventDispatcher mDispatcher;
+
+	/**
+	 * Minimum interval in milliseconds between two dispatched progress events.
+	 */
+	private final long mInterval;
+
+	/**
+	 * Builder reused to build all progress events.
+	 */
+	private final SyncEvent.Builder mEventBuilder;
+
+	/**
+	 * The latest published progress.
+	 */
+	private int mProgress = NO_PROGRESS;
+
+	/**
+	 * The last dispatched progress.
+	 */
+	private int mDispatchedProgress = NO_PROGRESS;
+
+	/**
+	 * Time in milliseconds when has been the last progress event dispatched.
+	 */
+	private long mDispatchTime;
+
+	/**
+	 * Count of dispatched progress events.
+	 */
+	private int mDispatchedCount;
+
+	/**
+	 * Flag indicating whether there is trailing dispatch of held progress scheduled.
+	 */
+	private boolean mTrailingDispatchScheduled;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of SyncProgressChannel for the specified task.
+	 *
+	 * @param dispatcher The dispatcher used to dispatch progress events.
+	 * @param taskId     Id of the task of which progress to dispatch.
+	 * @param account    The account for which is the task being synchronized.
+	 * @param interval   Minimum interval in milliseconds between two dispatched progress events.
+	 */
+	SyncProgressChannel(
+			@NonNull final BaseSyncAdapter.EventDispatcher dispatcher,
+			final int taskId,
+			@NonNull final Account account,
+			final long interval
+	) {
+		this.mDispatcher = dispatcher;
+		this.mInterval = interval;
+		this.mEventBuilder = new SyncEvent.Builder(taskId).type(SyncEvent.PROGRESS).account(account);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Publishes the specified <var>progress</var>. The progress is dispatched immediately if the
+	 * interval has elapsed since the last dispatched progress, otherwise it is held until the
+	 * interval elapses, the next update or {@link #flush()}.
+	 *
+	 * @param progress The progress to publish.
+	 */
+	synchronized void publish(final int progress) {
+		this.mProgress = progress;
+		if (progress == mDispatchedProgress) {
+			return;
+		}
+		final long now = SystemClock.uptimeMillis();
+		if (mDispatchedCount == 0 || now - mDispatchTime >= mInterval) {
+			this.mDispatchTime = now;
+			dispatch(progress);
+		} else if (!mTrailingDispatchScheduled) {
+			this.mTrailingDispatchScheduled = true;
+			handler().postAtTime(this, mDispatchTime + mInterval);
+		}
+	}
+
+	/**
+	 * Returns the handler used to post trailing dispatches.
+	 *
+	 * @return Shared handler attached to the main looper.
+	 */
+	private static synchronized Handler handler() {
+		if (sHandler == null) {
+			sHandler = new Handler(Looper.getMainLooper());
+		}
+		return sHandler;
+	}
+
+	/**
+	 * Performs trailing dispatch of the progress that has been held due to coalescing.
+	 */
+	@Override
+	public synchronized void run() {
+		this.mTrailingDispatchScheduled = false;
+		if (mProgress != mDispatchedProgress) {
+			this.mDispatchTime = SystemClock.uptimeMillis();
+			dispatch(mProgress);
+		}
+	}
+
+	/**
+	 * Dispatches the latest published progress if it has not been dispatched yet.
+	 */
+	synchronized void flush() {
+		if (mTrailingDispatchScheduled) {
+			this.mTrailingDispatchScheduled = false;
+			handler().removeCallbacks(this);
+		}
+		if (mProgress != mDispatchedProgress) {
+			this.mDispatchTime = SystemClock.uptimeMillis();
+			dispatch(mProgress);
+		}
+	}
+
+	/**
+	 * Dispatches progress event with the specified <var>progress</var>.
+	 *
+	 * @param progress The progress to dispatch.
+	 */
+	private void dispatch(final int progress) {
+		this.mDispatchedProgress = progress;
+		this.mDispatchedCount++;
+		mDispatcher.dispatch(mEventBuilder.progress(progress).build());
+	}
+
+	/**
+	 * Returns the count of progress events dispatched by this channel.
+	 *
+	 * @return Count of dispatched events.
+	 */
+	synchronized int getDispatchedCount() {
+		return mDispatchedCount;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
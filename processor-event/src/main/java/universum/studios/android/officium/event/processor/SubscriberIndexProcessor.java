@@ -0,0 +1,372 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.event.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that generates a {@code SubscriberIndex} for methods annotated with Otto's
+ * {@code @Subscribe} annotation, so events may be dispatched to such methods by {@code IndexedEventBus}
+ * from the officium-event-common module without any reflection.
+ * <p>
+ * For each class {@code Foo} declaring at least one subscriber method is generated
+ * {@code Foo_SubscriberInfo} in the same package which invokes the subscriber methods directly.
+ * Additionally, {@code GeneratedSubscriberIndex} class is generated in the package specified via
+ * {@link #OPTION_PACKAGE} option (or in {@link #DEFAULT_PACKAGE}), which provides all generated
+ * subscriber infos.
+ *
+ * @author Martin Albedinsky
+ */
+public final class SubscriberIndexProcessor extends AbstractProcessor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Name of the processed annotation.
+	 */
+	static final String ANNOTATION = "com.squareup.otto.Subscribe";
+
+	/**
+	 * Name of the processor option specifying package of the generated index class.
+	 */
+	public static final String OPTION_PACKAGE = "officium.subscriberIndex.package";
+
+	/**
+	 * Default package of the generated index class.
+	 */
+	public static final String DEFAULT_PACKAGE = "universum.studios.android.officium.event.generated";
+
+	/**
+	 * Simple name of the generated index class.
+	 */
+	static final String INDEX_NAME = "GeneratedSubscriberIndex";
+
+	/**
+	 * Suffix of names of the generated subscriber infos.
+	 */
+	static final String INFO_SUFFIX = "_SubscriberInfo";
+
+	/**
+	 * Package containing event bus classes.
+	 */
+	private static final String EVENT_PACKAGE = "universum.studios.android.officium.event";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Utilities for elements.
+	 */
+	private Elements mElements;
+
+	/**
+	 * Utilities for types.
+	 */
+	private Types mTypes;
+
+	/**
+	 * Filer used to create source files.
+	 */
+	private Filer mFiler;
+
+	/**
+	 * Messager used to report errors.
+	 */
+	private Messager mMessager;
+
+	/**
+	 * List of qualified names of the generated subscriber infos.
+	 */
+	private final List<String> mGeneratedInfos = new ArrayList<>();
+
+	/**
+	 * Flag indicating whether the index class has been already written.
+	 */
+	private boolean mIndexWritten;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public synchronized void init(final ProcessingEnvironment environment) {
+		super.init(environment);
+		this.mElements = environment.getElementUtils();
+		this.mTypes = environment.getTypeUtils();
+		this.mFiler = environment.getFiler();
+		this.mMessager = environment.getMessager();
+	}
+
+	/**
+	 */
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(ANNOTATION);
+	}
+
+	/**
+	 */
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(OPTION_PACKAGE);
+	}
+
+	/**
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 */
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment environment) {
+		final TypeElement annotation = mElements.getTypeElement(ANNOTATION);
+		if (annotation == null) {
+			return false;
+		}
+		final Set<? extends Element> elements = environment.getElementsAnnotatedWith(annotation);
+		if (elements.isEmpty()) {
+			return false;
+		}
+		if (mIndexWritten) {
+			error(elements.iterator().next(), "@Subscribe methods are not supported for classes generated by other processors.");
+			return false;
+		}
+		final Map<TypeElement, List<ExecutableElement>> subscribers = new LinkedHashMap<>();
+		for (final Element element : elements) {
+			if (element.getKind() != ElementKind.METHOD) {
+				continue;
+			}
+			final ExecutableElement method = (ExecutableElement) element;
+			final TypeElement classElement = (TypeElement) method.getEnclosingElement();
+			if (!isValidClass(classElement) || !isValidMethod(method)) {
+				continue;
+			}
+			List<ExecutableElement> methods = subscribers.get(classElement);
+			if (methods == null) {
+				methods = new ArrayList<>();
+				subscribers.put(classElement, methods);
+			}
+			methods.add(method);
+		}
+		for (final Map.Entry<TypeElement, List<ExecutableElement>> entry : subscribers.entrySet()) {
+			writeInfo(entry.getKey(), entry.getValue());
+		}
+		if (!mGeneratedInfos.isEmpty()) {
+			writeIndex();
+			this.mIndexWritten = true;
+		}
+		// Otto's annotation may be processed also by other processors.
+		return false;
+	}
+
+	/**
+	 * Checks whether subscriber info may be generated for the given <var>classElement</var>.
+	 *
+	 * @param classElement The class to check.
+	 * @return {@code True} if the class is valid, {@code false} otherwise.
+	 */
+	private boolean isValidClass(final TypeElement classElement) {
+		for (Element element = classElement; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+			if (element.getModifiers().contains(Modifier.PRIVATE)) {
+				error(classElement, "Class with @Subscribe methods and its enclosing classes cannot be private.");
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the given subscriber <var>method</var> may be invoked by the generated info.
+	 *
+	 * @param method The method to check.
+	 * @return {@code True} if the method is valid, {@code false} otherwise.
+	 */
+	private boolean isValidMethod(final ExecutableElement method) {
+		final Set<Modifier> modifiers = method.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+			error(method, "Method annotated with @Subscribe cannot be private nor static.");
+			return false;
+		}
+		if (method.getParameters().size() != 1) {
+			error(method, "Method annotated with @Subscribe must have exactly one parameter.");
+			return false;
+		}
+		final TypeKind kind = method.getParameters().get(0).asType().getKind();
+		if (kind != TypeKind.DECLARED) {
+			error(method, "Parameter of method annotated with @Subscribe must be of class or interface type.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes subscriber info for the given <var>classElement</var> and its subscriber <var>methods</var>.
+	 *
+	 * @param classElement The class declaring the subscriber methods.
+	 * @param methods      The subscriber methods.
+	 */
+	private void writeInfo(final TypeElement classElement, final List<ExecutableElement> methods) {
+		final String packageName = mElements.getPackageOf(classElement).getQualifiedName().toString();
+		final String className = classElement.getQualifiedName().toString();
+		final String simpleName = packageName.isEmpty() ? className : className.substring(packageName.length() + 1);
+		final String infoName = simpleName.replace('.', '_') + INFO_SUFFIX;
+		final StringBuilder eventTypes = new StringBuilder(128);
+		final StringBuilder dispatchCases = new StringBuilder(256);
+		for (int i = 0; i < methods.size(); i++) {
+			final ExecutableElement method = methods.get(i);
+			final TypeMirror eventType = mTypes.erasure(method.getParameters().get(0).asType());
+			eventTypes.append("\t\t\t").append(eventType).append(".class");
+			eventTypes.append(i < methods.size() - 1 ? ",\n" : "\n");
+			final String invocation = "((" + className + ") subscriber)." + method.getSimpleName() + "((" + eventType + ") event);\n";
+			dispatchCases.append("\t\t\tcase ").append(i).append(":\n");
+			if (method.getThrownTypes().isEmpty()) {
+				dispatchCases.append("\t\t\t\t").append(invocation);
+			} else {
+				dispatchCases.append("\t\t\t\ttry {\n\t\t\t\t\t").append(invocation);
+				dispatchCases.append("\t\t\t\t} catch (RuntimeException e) {\n\t\t\t\t\tthrow e;\n");
+				dispatchCases.append("\t\t\t\t} catch (Exception e) {\n\t\t\t\t\tthrow new RuntimeException(\"Failed to dispatch event(\" + event + \").\", e);\n");
+				dispatchCases.append("\t\t\t\t}\n");
+			}
+			dispatchCases.append("\t\t\t\tbreak;\n");
+		}
+		final StringBuilder source = new StringBuilder(1024);
+		source.append("// Generated by officium-event-processor. Do not modify!\n");
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/**\n * Subscriber info for {@link ").append(className).append("}.\n */\n");
+		source.append("public final class ").append(infoName).append(" implements ").append(EVENT_PACKAGE).append(".SubscriberInfo {\n\n");
+		source.append("\tprivate static final Class<?>[] EVENT_TYPES = {\n").append(eventTypes).append("\t};\n\n");
+		source.append("\t@Override\n\tpublic Class<?> getSubscriberClass() {\n");
+		source.append("\t\treturn ").append(className).append(".class;\n\t}\n\n");
+		source.append("\t@Override\n\tpublic Class<?>[] getEventTypes() {\n\t\treturn EVENT_TYPES;\n\t}\n\n");
+		source.append("\t@Override\n\t@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+		source.append("\tpublic void dispatch(final Object subscriber, final int handlerIndex, final Object event) {\n");
+		source.append("\t\tswitch (handlerIndex) {\n").append(dispatchCases);
+		source.append("\t\t\tdefault:\n\t\t\t\tthrow new IllegalArgumentException(\"Unknown handler index(\" + handlerIndex + \").\");\n");
+		source.append("\t\t}\n\t}\n}\n");
+		final String qualifiedInfoName = packageName.isEmpty() ? infoName : packageName + "." + infoName;
+		try {
+			final Writer writer = mFiler.createSourceFile(qualifiedInfoName, classElement).openWriter();
+			try {
+				writer.write(source.toString());
+			} finally {
+				writer.close();
+			}
+			mGeneratedInfos.add(qualifiedInfoName);
+		} catch (IOException e) {
+			error(classElement, "Failed to write subscriber info: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the index class providing all generated subscriber infos.
+	 */
+	private void writeIndex() {
+		String packageName = processingEnv.getOptions().get(OPTION_PACKAGE);
+		if (packageName == null || packageName.isEmpty()) {
+			packageName = DEFAULT_PACKAGE;
+		}
+		final StringBuilder source = new StringBuilder(1024);
+		source.append("// Generated by officium-event-processor. Do not modify!\n");
+		source.append("package ").append(packageName).append(";\n\n");
+		source.append("/**\n * Index of subscriber infos generated for classes with @Subscribe methods.\n */\n");
+		source.append("public final class ").append(INDEX_NAME).append(" implements ").append(EVENT_PACKAGE).append(".SubscriberIndex {\n\n");
+		source.append("\tprivate final java.util.Map<Class<?>, ").append(EVENT_PACKAGE).append(".SubscriberInfo> infos = new java.util.HashMap<>(");
+		source.append(Math.max(16, mGeneratedInfos.size() * 2)).append(");\n\n");
+		source.append("\t/**\n\t * Creates a new instance of ").append(INDEX_NAME).append(" with all generated subscriber infos.\n\t */\n");
+		source.append("\tpublic ").append(INDEX_NAME).append("() {\n");
+		for (final String infoName : mGeneratedInfos) {
+			source.append("\t\tput(new ").append(infoName).append("());\n");
+		}
+		source.append("\t}\n\n");
+		source.append("\tprivate void put(final ").append(EVENT_PACKAGE).append(".SubscriberInfo info) {\n");
+		source.append("\t\tinfos.put(info.getSubscriberClass(), info);\n\t}\n\n");
+		source.append("\t@Override\n\tpublic ").append(EVENT_PACKAGE).append(".SubscriberInfo getSubscriberInfo(final Class<?> subscriberClass) {\n");
+		source.append("\t\treturn infos.get(subscriberClass);\n\t}\n}\n");
+		try {
+			final Writer writer = mFiler.createSourceFile(packageName + "." + INDEX_NAME).openWriter();
+			try {
+				writer.write(source.toString());
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			mMessager.printMessage(Diagnostic.Kind.ERROR, "Failed to write " + INDEX_NAME + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reports an error for the given <var>element</var>.
+	 *
+	 * @param element The element for which to report the error.
+	 * @param message The error message.
+	 */
+	private void error(final Element element, final String message) {
+		mMessager.printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,455 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor that generates {@code JsonAdapter} implementations for classes annotated
+ * with {@code @GenerateJsonAdapter} from the officium-service module, so such classes may be
+ * converted by {@code JsonConverterFactory} without any reflection.
+ * <p>
+ * For each annotated class {@code Foo} is generated {@code Foo_JsonAdapter} in the same package.
+ * Fields of primitive types, their boxed types and {@link String} are read and written inline,
+ * fields of other class types and {@link List Lists} of class types are delegated to adapters
+ * obtained from the converter factory. Additionally, {@code GeneratedJsonAdapters} class is generated
+ * in the package specified via {@link #OPTION_PACKAGE} option (or in {@link #DEFAULT_PACKAGE}),
+ * which registers all generated adapters into a {@code JsonConverterFactory.Builder}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class JsonAdapterProcessor extends AbstractProcessor {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Name of the processed annotation.
+	 */
+	static final String ANNOTATION = "universum.studios.android.officium.service.converter.GenerateJsonAdapter";
+
+	/**
+	 * Name of the processor option specifying package of the generated registry class.
+	 */
+	public static final String OPTION_PACKAGE = "officium.jsonAdapters.package";
+
+	/**
+	 * Default package of the generated registry class.
+	 */
+	public static final String DEFAULT_PACKAGE = "universum.studios.android.officium.service.converter.generated";
+
+	/**
+	 * Simple name of the generated registry class.
+	 */
+	static final String REGISTRY_NAME = "GeneratedJsonAdapters";
+
+	/**
+	 * Suffix of names of the generated adapters.
+	 */
+	static final String ADAPTER_SUFFIX = "_JsonAdapter";
+
+	/**
+	 * Package containing JSON converter classes.
+	 */
+	private static final String CONVERTER_PACKAGE = "universum.studios.android.officium.service.converter";
+
+	/**
+	 * Name of the class up to which are collected fields of the annotated classes.
+	 */
+	private static final String BASE_SERVICE_OBJECT = "universum.studios.android.officium.service.BaseServiceObject";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Utilities for elements.
+	 */
+	private Elements mElements;
+
+	/**
+	 * Utilities for types.
+	 */
+	private Types mTypes;
+
+	/**
+	 * Filer used to create source files.
+	 */
+	private Filer mFiler;
+
+	/**
+	 * Messager used to report errors.
+	 */
+	private Messager mMessager;
+
+	/**
+	 * Map of names of the generated adapters mapped to qualified names of theirs classes.
+	 */
+	private final Map<String, String> mGeneratedAdapters = new LinkedHashMap<>();
+
+	/**
+	 * Flag indicating whether the registry class has been already written.
+	 */
+	private boolean mRegistryWritten;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public synchronized void init(final ProcessingEnvironment environment) {
+		super.init(environment);
+		this.mElements = environment.getElementUtils();
+		this.mTypes = environment.getTypeUtils();
+		this.mFiler = environment.getFiler();
+		this.mMessager = environment.getMessager();
+	}
+
+	/**
+	 */
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(ANNOTATION);
+	}
+
+	/**
+	 */
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(OPTION_PACKAGE);
+	}
+
+	/**
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 */
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment environment) {
+		final TypeElement annotation = mElements.getTypeElement(ANNOTATION);
+		if (annotation == null) {
+			return false;
+		}
+		final Set<? extends Element> elements = environment.getElementsAnnotatedWith(annotation);
+		if (elements.isEmpty()) {
+			return true;
+		}
+		if (mRegistryWritten) {
+			error(elements.iterator().next(), "@GenerateJsonAdapter is not supported for classes generated by other processors.");
+			return true;
+		}
+		for (final Element element : elements) {
+			if (element.getKind() == ElementKind.CLASS) {
+				processClass((TypeElement) element);
+			} else {
+				error(element, "@GenerateJsonAdapter may be used only for classes.");
+			}
+		}
+		if (!mGeneratedAdapters.isEmpty()) {
+			writeRegistry();
+			this.mRegistryWritten = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Generates adapter for the given annotated <var>classElement</var>.
+	 *
+	 * @param classElement The annotated class.
+	 */
+	private void processClass(final TypeElement classElement) {
+		if (!isValidClass(classElement)) {
+			return;
+		}
+		final List<VariableElement> fields = collectFields(classElement);
+		if (fields == null) {
+			return;
+		}
+		final String packageName = mElements.getPackageOf(classElement).getQualifiedName().toString();
+		final String className = classElement.getQualifiedName().toString();
+		final String adapterName = adapterName(classElement);
+		final JsonAdapterWriter adapterWriter = new JsonAdapterWriter(packageName, adapterName, className);
+		for (final VariableElement field : fields) {
+			if (!addField(adapterWriter, field)) {
+				return;
+			}
+		}
+		try {
+			final Writer writer = mFiler.createSourceFile(packageName + "." + adapterName, classElement).openWriter();
+			try {
+				writer.write(adapterWriter.write());
+			} finally {
+				writer.close();
+			}
+			mGeneratedAdapters.put(packageName + "." + adapterName, className);
+		} catch (IOException e) {
+			error(classElement, "Failed to write JSON adapter: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks whether an adapter may be generated for the given <var>classElement</var>.
+	 *
+	 * @param classElement The class to check.
+	 * @return {@code True} if the class is valid, {@code false} otherwise.
+	 */
+	private boolean isValidClass(final TypeElement classElement) {
+		final Set<Modifier> modifiers = classElement.getModifiers();
+		if (modifiers.contains(Modifier.ABSTRACT)) {
+			error(classElement, "Class annotated with @GenerateJsonAdapter cannot be abstract.");
+			return false;
+		}
+		for (Element element = classElement; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+			if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+				error(classElement, "Class annotated with @GenerateJsonAdapter and its enclosing classes must be public.");
+				return false;
+			}
+		}
+		if (classElement.getNestingKind() != NestingKind.TOP_LEVEL && !modifiers.contains(Modifier.STATIC)) {
+			error(classElement, "Nested class annotated with @GenerateJsonAdapter must be static.");
+			return false;
+		}
+		if (!classElement.getTypeParameters().isEmpty()) {
+			error(classElement, "Class annotated with @GenerateJsonAdapter cannot be generic.");
+			return false;
+		}
+		for (final ExecutableElement constructor : ElementFilter.constructorsIn(classElement.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		error(classElement, "Class annotated with @GenerateJsonAdapter must have non-private no-argument constructor.");
+		return false;
+	}
+
+	/**
+	 * Collects all serializable fields of the given <var>classElement</var> and its super classes
+	 * up to {@code BaseServiceObject}.
+	 *
+	 * @param classElement The class of which fields to collect.
+	 * @return List of fields or {@code null} if some of the fields is not accessible.
+	 */
+	private List<VariableElement> collectFields(final TypeElement classElement) {
+		final PackageElement classPackage = mElements.getPackageOf(classElement);
+		final List<VariableElement> fields = new ArrayList<>();
+		final List<String> names = new ArrayList<>();
+		TypeElement element = classElement;
+		while (element != null && !element.getQualifiedName().contentEquals(Object.class.getName()) && !element.getQualifiedName().contentEquals(BASE_SERVICE_OBJECT)) {
+			for (final VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+				final Set<Modifier> modifiers = field.getModifiers();
+				if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT) || names.contains(field.getSimpleName().toString())) {
+					continue;
+				}
+				final boolean accessible = modifiers.contains(Modifier.PUBLIC) ||
+						(!modifiers.contains(Modifier.PRIVATE) && mElements.getPackageOf(element).equals(classPackage));
+				if (!accessible || modifiers.contains(Modifier.FINAL)) {
+					error(field, "Field must be non-final and accessible from package of the class annotated with @GenerateJsonAdapter.");
+					return null;
+				}
+				names.add(field.getSimpleName().toString());
+				fields.add(field);
+			}
+			final TypeMirror superclass = element.getSuperclass();
+			element = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) mTypes.asElement(superclass) : null;
+		}
+		return fields;
+	}
+
+	/**
+	 * Adds the given <var>field</var> into the given adapter <var>writer</var>.
+	 *
+	 * @param writer The writer of the adapter.
+	 * @param field  The field to be added.
+	 * @return {@code True} if the field has been added, {@code false} if its type is not supported.
+	 */
+	private boolean addField(final JsonAdapterWriter writer, final VariableElement field) {
+		final String name = field.getSimpleName().toString();
+		final TypeMirror type = field.asType();
+		if (type.getKind().isPrimitive()) {
+			if (type.getKind() == TypeKind.CHAR) {
+				error(field, "Fields of char type are not supported.");
+				return false;
+			}
+			writer.addPrimitiveField(name, type.getKind());
+			return true;
+		}
+		if (type.getKind() != TypeKind.DECLARED) {
+			error(field, "Fields of " + type + " type are not supported.");
+			return false;
+		}
+		final DeclaredType declaredType = (DeclaredType) type;
+		final String rawName = ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+		if (declaredType.getTypeArguments().isEmpty()) {
+			if (String.class.getName().equals(rawName)) {
+				writer.addStringField(name);
+				return true;
+			}
+			final TypeKind unboxedKind = unboxedKind(declaredType);
+			if (unboxedKind != null) {
+				writer.addBoxedField(name, unboxedKind, rawName);
+				return true;
+			}
+			writer.addObjectField(name, rawName, rawName + ".class");
+			return true;
+		}
+		if (List.class.getName().equals(rawName) && declaredType.getTypeArguments().size() == 1) {
+			final TypeMirror elementType = declaredType.getTypeArguments().get(0);
+			if (elementType.getKind() == TypeKind.DECLARED && ((DeclaredType) elementType).getTypeArguments().isEmpty()) {
+				final String elementName = ((TypeElement) ((DeclaredType) elementType).asElement()).getQualifiedName().toString();
+				writer.addObjectField(
+						name,
+						"java.util.List<" + elementName + ">",
+						CONVERTER_PACKAGE + ".JsonConverterFactory.listType(" + elementName + ".class)"
+				);
+				return true;
+			}
+		}
+		error(field, "Fields of " + type + " type are not supported.");
+		return false;
+	}
+
+	/**
+	 * Returns kind of the primitive type to which may be the given <var>type</var> unboxed.
+	 *
+	 * @param type The type to unbox.
+	 * @return Primitive kind or {@code null} if the type is not a boxed primitive type.
+	 */
+	private TypeKind unboxedKind(final DeclaredType type) {
+		try {
+			final TypeKind kind = mTypes.unboxedType(type).getKind();
+			return kind == TypeKind.CHAR ? null : kind;
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns name of the adapter generated for the given <var>classElement</var>.
+	 *
+	 * @param classElement The class for which to create adapter name.
+	 * @return Adapter's simple name.
+	 */
+	private String adapterName(final TypeElement classElement) {
+		final String packageName = mElements.getPackageOf(classElement).getQualifiedName().toString();
+		final String className = classElement.getQualifiedName().toString();
+		final String simpleName = packageName.isEmpty() ? className : className.substring(packageName.length() + 1);
+		return simpleName.replace('.', '_') + ADAPTER_SUFFIX;
+	}
+
+	/**
+	 * Writes the registry class registering all generated adapters.
+	 */
+	private void writeRegistry() {
+		String packageName = processingEnv.getOptions().get(OPTION_PACKAGE);
+		if (packageName == null || packageName.isEmpty()) {
+			packageName = DEFAULT_PACKAGE;
+		}
+		final StringBuilder source = new StringBuilder(512);
+		source.append("// Generated by officium-service-processor. Do not modify!\n");
+		source.append("package ").append(packageName).append(";\n\n");
+		source.append("/**\n * Registers JSON adapters generated for classes annotated with @GenerateJsonAdapter.\n */\n");
+		source.append("public final class ").append(REGISTRY_NAME).append(" {\n\n");
+		source.append("\tprivate ").append(REGISTRY_NAME).append("() {\n\t\t// Not allowed to be instantiated publicly.\n\t}\n\n");
+		source.append("\t/**\n\t * Registers all generated adapters into the given <var>builder</var>.\n\t *\n");
+		source.append("\t * @param builder The builder into which to register the adapters.\n\t * @return The given builder.\n\t */\n");
+		source.append("\tpublic static ").append(CONVERTER_PACKAGE).append(".JsonConverterFactory.Builder registerInto(final ");
+		source.append(CONVERTER_PACKAGE).append(".JsonConverterFactory.Builder builder) {\n");
+		for (final Map.Entry<String, String> entry : mGeneratedAdapters.entrySet()) {
+			source.append("\t\tbuilder.registerAdapterFactory(").append(entry.getValue()).append(".class, new ");
+			source.append(CONVERTER_PACKAGE).append(".JsonAdapter.Factory() {\n\n");
+			source.append("\t\t\t@Override\n\t\t\tpublic ").append(CONVERTER_PACKAGE).append(".JsonAdapter<?> create(final ");
+			source.append(CONVERTER_PACKAGE).append(".JsonConverterFactory converterFactory) {\n");
+			source.append("\t\t\t\treturn new ").append(entry.getKey()).append("(converterFactory);\n");
+			source.append("\t\t\t}\n\t\t});\n");
+		}
+		source.append("\t\treturn builder;\n\t}\n}\n");
+		try {
+			final Writer writer = mFiler.createSourceFile(packageName + "." + REGISTRY_NAME).openWriter();
+			try {
+				writer.write(source.toString());
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			mMessager.printMessage(Diagnostic.Kind.ERROR, "Failed to write " + REGISTRY_NAME + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reports an error for the given <var>element</var>.
+	 *
+	 * @param element The element for which to report the error.
+	 * @param message The error message.
+	 */
+	private void error(final Element element, final String message) {
+		mMessager.printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,269 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License 
+ * you may obtain at
+ * 
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * You can redistribute, modify or publish any part of the code written within this file but as it 
+ * is described in the License, the software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ * 
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.officium.service.processor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.type.TypeKind;
+
+/**
+ * Writer that builds source code of a single {@code JsonAdapter} generated by {@link JsonAdapterProcessor}.
+ *
+ * @author Martin Albedinsky
+ */
+final class JsonAdapterWriter {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Qualified name of the JsonAdapter interface.
+	 */
+	private static final String JSON_ADAPTER = "universum.studios.android.officium.service.converter.JsonAdapter";
+
+	/**
+	 * Qualified name of the JsonConverterFactory class.
+	 */
+	private static final String JSON_CONVERTER_FACTORY = "universum.studios.android.officium.service.converter.JsonConverterFactory";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Package of the generated adapter.
+	 */
+	private final String mPackageName;
+
+	/**
+	 * Simple name of the generated adapter.
+	 */
+	private final String mAdapterName;
+
+	/**
+	 * Qualified name of the class for which is the adapter generated.
+	 */
+	private final String mClassName;
+
+	/**
+	 * Source code of switch cases reading the fields.
+	 */
+	private final StringBuilder mReadCases = new StringBuilder(256);
+
+	/**
+	 * Source code of statements writing the fields.
+	 */
+	private final StringBuilder mWriteStatements = new StringBuilder(256);
+
+	/**
+	 * Expressions of types of the delegated adapters mapped to theirs generic types.
+	 */
+	private final Map<String, String> mDelegates = new LinkedHashMap<>();
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of JsonAdapterWriter for the specified class.
+	 *
+	 * @param packageName Package of the generated adapter.
+	 * @param adapterName Simple name of the generated adapter.
+	 * @param className   Qualified name of the class for which is the adapter generated.
+	 */
+	JsonAdapterWriter(final String packageName, final String adapterName, final String className) {
+		this.mPackageName = packageName;
+		this.mAdapterName = adapterName;
+		this.mClassName = className;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Adds a field of primitive type.
+	 *
+	 * @param name Name of the field.
+	 * @param kind Kind of the primitive type.
+	 */
+	void addPrimitiveField(final String name, final TypeKind kind) {
+		appendReadCase(name, "object." + name + " = " + readExpression(kind) + ";");
+		mWriteStatements.append("\t\twriter.name(\"").append(name).append("\").value(value.").append(name).append(");\n");
+	}
+
+	/**
+	 * Adds a field of boxed primitive type.
+	 *
+	 * @param name      Name of the field.
+	 * @param kind      Kind of the unboxed primitive type.
+	 * @param boxedName Qualified name of the boxed type.
+	 */
+	void addBoxedField(final String name, final TypeKind kind, final String boxedName) {
+		appendReadCase(name, "object." + name + " = " + readExpression(kind) + ";");
+		final String unboxMethod;
+		switch (kind) {
+			case BOOLEAN:
+				unboxMethod = "booleanValue";
+				break;
+			case FLOAT:
+			case DOUBLE:
+				unboxMethod = "doubleValue";
+				break;
+			default:
+				unboxMethod = "longValue";
+		}
+		mWriteStatements.append("\t\tif (value.").append(name).append(" != null) writer.name(\"").append(name);
+		mWriteStatements.append("\").value(value.").append(name).append(".").append(unboxMethod).append("());\n");
+	}
+
+	/**
+	 * Adds a field of {@link String} type.
+	 *
+	 * @param name Name of the field.
+	 */
+	void addStringField(final String name) {
+		appendReadCase(name, "object." + name + " = reader.nextString();");
+		mWriteStatements.append("\t\tif (value.").append(name).append(" != null) writer.name(\"").append(name);
+		mWriteStatements.append("\").value(value.").append(name).append(");\n");
+	}
+
+	/**
+	 * Adds a field which is read and written via adapter obtained from the converter factory.
+	 *
+	 * @param name           Name of the field.
+	 * @param typeName       Source code name of the field's type.
+	 * @param typeExpression Source code expression of {@code java.lang.reflect.Type} of the field.
+	 */
+	void addObjectField(final String name, final String typeName, final String typeExpression) {
+		if (!mDelegates.containsKey(typeExpression)) {
+			mDelegates.put(typeExpression, typeName);
+		}
+		final String delegate = "adapter" + new ArrayList<>(mDelegates.keySet()).indexOf(typeExpression);
+		appendReadCase(name, "object." + name + " = " + delegate + "().read(reader);");
+		mWriteStatements.append("\t\tif (value.").append(name).append(" != null) {\n");
+		mWriteStatements.append("\t\t\twriter.name(\"").append(name).append("\");\n");
+		mWriteStatements.append("\t\t\t").append(delegate).append("().write(writer, value.").append(name).append(");\n");
+		mWriteStatements.append("\t\t}\n");
+	}
+
+	/**
+	 * Appends a switch case reading the field with the specified <var>name</var>.
+	 *
+	 * @param name      Name of the field.
+	 * @param statement Statement reading the field.
+	 */
+	private void appendReadCase(final String name, final String statement) {
+		mReadCases.append("\t\t\t\tcase \"").append(name).append("\":\n");
+		mReadCases.append("\t\t\t\t\t").append(statement).append("\n");
+		mReadCases.append("\t\t\t\t\tbreak;\n");
+	}
+
+	/**
+	 * Returns source code expression reading value of the specified primitive <var>kind</var>.
+	 *
+	 * @param kind Kind of the primitive type.
+	 * @return Read expression.
+	 */
+	private static String readExpression(final TypeKind kind) {
+		switch (kind) {
+			case BOOLEAN:
+				return "reader.nextBoolean()";
+			case BYTE:
+				return "(byte) reader.nextInt()";
+			case SHORT:
+				return "(short) reader.nextInt()";
+			case INT:
+				return "reader.nextInt()";
+			case LONG:
+				return "reader.nextLong()";
+			case FLOAT:
+				return "(float) reader.nextDouble()";
+			case DOUBLE:
+				return "reader.nextDouble()";
+			default:
+				throw new IllegalArgumentException("Unsupported primitive kind(" + kind + ")!");
+		}
+	}
+
+	/**
+	 * Writes source code of the adapter.
+	 *
+	 * @return Adapter's source code.
+	 */
+	String write() {
+		final StringBuilder source = new StringBuilder(2048);
+		source.append("// Generated by officium-service-processor. Do not modify!\n");
+		if (!mPackageName.isEmpty()) {
+			source.append("package ").append(mPackageName).append(";\n\n");
+		}
+		source.append("/**\n * JSON adapter generated for {@link ").append(mClassName).append("}.\n */\n");
+		source.append("public final class ").append(mAdapterName).append(" implements ").append(JSON_ADAPTER);
+		source.append("<").append(mClassName).append("> {\n\n");
+		source.append("\tprivate final ").append(JSON_CONVERTER_FACTORY).append(" factory;\n");
+		final List<String> delegateTypes = new ArrayList<>(mDelegates.values());
+		for (int i = 0; i < delegateTypes.size(); i++) {
+			source.append("\tprivate ").append(JSON_ADAPTER).append("<").append(delegateTypes.get(i)).append("> adapter").append(i).append(";\n");
+		}
+		source.append("\n\tpublic ").append(mAdapterName).append("(final ").append(JSON_CONVERTER_FACTORY).append(" factory) {\n");
+		source.append("\t\tthis.factory = factory;\n\t}\n\n");
+		// READ
+		source.append("\t@Override\n\tpublic ").append(mClassName).append(" read(final android.util.JsonReader reader) throws java.io.IOException {\n");
+		source.append("\t\tif (reader.peek() == android.util.JsonToken.NULL) {\n\t\t\treader.nextNull();\n\t\t\treturn null;\n\t\t}\n");
+		source.append("\t\tfinal ").append(mClassName).append(" object = new ").append(mClassName).append("();\n");
+		source.append("\t\treader.beginObject();\n\t\twhile (reader.hasNext()) {\n");
+		source.append("\t\t\tfinal String name = reader.nextName();\n");
+		source.append("\t\t\tif (reader.peek() == android.util.JsonToken.NULL) {\n\t\t\t\treader.nextNull();\n\t\t\t\tcontinue;\n\t\t\t}\n");
+		source.append("\t\t\tswitch (name) {\n").append(mReadCases);
+		source.append("\t\t\t\tdefault:\n\t\t\t\t\treader.skipValue();\n\t\t\t}\n\t\t}\n");
+		source.append("\t\treader.endObject();\n\t\treturn object;\n\t}\n\n");
+		// WRITE
+		source.append("\t@Override\n\tpublic void write(final android.util.JsonWriter writer, final ").append(mClassName).append(" value) throws java.io.IOException {\n");
+		source.append("\t\tif (value == null) {\n\t\t\twriter.nullValue();\n\t\t\treturn;\n\t\t}\n");
+		source.append("\t\twriter.beginObject();\n").append(mWriteStatements).append("\t\twriter.endObject();\n\t}\n");
+		// DELEGATES
+		final List<String> delegateExpressions = new ArrayList<>(mDelegates.keySet());
+		for (int i = 0; i < delegateExpressions.size(); i++) {
+			source.append("\n\tprivate ").append(JSON_ADAPTER).append("<").append(delegateTypes.get(i)).append("> adapter").append(i).append("() {\n");
+			source.append("\t\tif (adapter").append(i).append(" == null) {\n");
+			source.append("\t\t\tfinal ").append(JSON_ADAPTER).append("<").append(delegateTypes.get(i)).append("> adapter = factory.adapter(");
+			source.append(delegateExpressions.get(i)).append(");\n");
+			source.append("\t\t\tif (adapter == null) throw new IllegalStateException(\"No JSON adapter for ").append(delegateTypes.get(i)).append("!\");\n");
+			source.append("\t\t\tthis.adapter").append(i).append(" = adapter;\n\t\t}\n");
+			source.append("\t\treturn adapter").append(i).append(";\n\t}\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -45,10 +45,4 @@ public final class ApiCall<T> extends ServiceCall<T> {
 	public String enqueue() {
 		return enqueue(new ApiCallback<T>());
 	}
-
-	@NonNull
-	@Override
-	protected String requestId() {
-		return Long.toString(System.currentTimeMillis());
-	}
 }